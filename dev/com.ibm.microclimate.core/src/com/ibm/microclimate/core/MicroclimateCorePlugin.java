@@ -24,6 +24,14 @@ import com.ibm.microclimate.core.internal.IDebugLauncher;
 import com.ibm.microclimate.core.internal.IUpdateHandler;
 import com.ibm.microclimate.core.internal.MCEclipseApplication;
 import com.ibm.microclimate.core.internal.MCLogger;
+import com.ibm.microclimate.core.internal.connection.MicroclimateEventCoalescer;
+import com.ibm.microclimate.core.internal.console.ConsoleHistory;
+import com.ibm.microclimate.core.internal.console.ConsoleWriter;
+import com.ibm.microclimate.core.internal.console.LogArchive;
+import com.ibm.microclimate.core.internal.console.LogFileTailer;
+import com.ibm.microclimate.core.internal.console.LogIngestQueue;
+import com.ibm.microclimate.core.internal.console.LogLevel;
+import com.ibm.microclimate.core.internal.console.LogSearchIndex;
 
 /**
  * The activator class controls the plug-in life cycle
@@ -41,6 +49,38 @@ public class MicroclimateCorePlugin extends AbstractUIPlugin {
 	
 	public static final String NODEJS_DEBUG_BROWSER_PREFSKEY = "nodejsDebugBrowserName"; //$NON-NLS-1$
 
+	// Int option for the socket event coalescing window in milliseconds, 0 to turn off coalescing
+	public static final String EVENT_COALESCE_WINDOW_PREFSKEY = "eventCoalesceWindow"; //$NON-NLS-1$
+
+	// Int option for the maximum number of characters queued for a log console
+	public static final String CONSOLE_QUEUE_LIMIT_PREFSKEY = "consoleQueueLimit"; //$NON-NLS-1$
+
+	// String option for what to do when a log console queue is full: merge, dropOldest or pause.
+	// Only the application consoles can pause, the others use dropOldest instead.
+	public static final String CONSOLE_OVERFLOW_POLICY_PREFSKEY = "consoleOverflowPolicy"; //$NON-NLS-1$
+
+	// Int options for the number of characters kept in each type of console, 0 for no limit.
+	// Older output is trimmed from the console and kept in a history file.
+	public static final String APP_CONSOLE_RETENTION_PREFSKEY = "appConsoleRetention"; //$NON-NLS-1$
+	public static final String BUILD_CONSOLE_RETENTION_PREFSKEY = "buildConsoleRetention"; //$NON-NLS-1$
+	public static final String FILE_CONSOLE_RETENTION_PREFSKEY = "fileConsoleRetention"; //$NON-NLS-1$
+
+	// Boolean option to keep the output trimmed from the consoles compressed in memory
+	// rather than in a history file, so the consoles themselves can be kept small
+	public static final String CONSOLE_COMPRESSED_HISTORY_PREFSKEY = "consoleCompressedHistory"; //$NON-NLS-1$
+
+	// Boolean option to keep the output of the logs in the log archive, applies to consoles opened after it is set
+	public static final String LOG_ARCHIVE_PREFSKEY = "logArchive"; //$NON-NLS-1$
+
+	// Boolean option to index the output of the logs so it can be searched
+	public static final String LOG_SEARCH_PREFSKEY = "logSearch"; //$NON-NLS-1$
+
+	// Boolean options for processing the log output before it is written to the consoles
+	public static final String CONSOLE_STRIP_ANSI_PREFSKEY = "consoleStripAnsi"; //$NON-NLS-1$
+	public static final String CONSOLE_COLLAPSE_REPEATS_PREFSKEY = "consoleCollapseRepeats"; //$NON-NLS-1$
+	// String option for the lowest log level shown in new consoles: trace, debug, info, warning or error
+	public static final String CONSOLE_LOG_LEVEL_PREFSKEY = "consoleLogLevel"; //$NON-NLS-1$
+
 	// The shared instance
 	private static MicroclimateCorePlugin plugin;
 	
@@ -69,6 +109,24 @@ public class MicroclimateCorePlugin extends AbstractUIPlugin {
 		// Set default preferences once, here
 		getPreferenceStore().setDefault(DEBUG_CONNECT_TIMEOUT_PREFSKEY,
 				MCEclipseApplication.DEFAULT_DEBUG_CONNECT_TIMEOUT);
+		getPreferenceStore().setDefault(EVENT_COALESCE_WINDOW_PREFSKEY,
+				MicroclimateEventCoalescer.DEFAULT_WINDOW_MS);
+		getPreferenceStore().setDefault(CONSOLE_QUEUE_LIMIT_PREFSKEY, LogIngestQueue.DEFAULT_LIMIT);
+		getPreferenceStore().setDefault(CONSOLE_OVERFLOW_POLICY_PREFSKEY,
+				LogIngestQueue.OverflowPolicy.DROP_OLDEST.prefValue);
+		getPreferenceStore().setDefault(APP_CONSOLE_RETENTION_PREFSKEY, ConsoleWriter.DEFAULT_APP_RETENTION);
+		getPreferenceStore().setDefault(BUILD_CONSOLE_RETENTION_PREFSKEY, ConsoleWriter.DEFAULT_BUILD_RETENTION);
+		getPreferenceStore().setDefault(FILE_CONSOLE_RETENTION_PREFSKEY, ConsoleWriter.DEFAULT_FILE_RETENTION);
+
+		getPreferenceStore().setDefault(CONSOLE_COMPRESSED_HISTORY_PREFSKEY, false);
+		getPreferenceStore().setDefault(LOG_ARCHIVE_PREFSKEY, false);
+		getPreferenceStore().setDefault(LOG_SEARCH_PREFSKEY, true);
+		getPreferenceStore().setDefault(CONSOLE_STRIP_ANSI_PREFSKEY, true);
+		getPreferenceStore().setDefault(CONSOLE_COLLAPSE_REPEATS_PREFSKEY, true);
+		getPreferenceStore().setDefault(CONSOLE_LOG_LEVEL_PREFSKEY, LogLevel.TRACE.prefValue);
+
+		// Console history files are deleted when the consoles are closed, remove any left behind
+		ConsoleHistory.cleanup();
 	}
 
 	/*
@@ -77,6 +135,10 @@ public class MicroclimateCorePlugin extends AbstractUIPlugin {
 	 */
 	@Override
 	public void stop(BundleContext context) throws Exception {
+		LogFileTailer.shutdownDefault();
+		LogSearchIndex.shutdownDefault();
+		LogArchive.shutdownDefault();
+		MCLogger.shutdown();
 		plugin = null;
 		super.stop(context);
 	}
@@ -0,0 +1,375 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.core.internal;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+
+import com.ibm.microclimate.core.MicroclimateCorePlugin;
+
+/**
+ * Writes log messages to a rolling log file on a background thread, so that logging
+ * does not hold up the thread doing the logging.
+ *
+ * Messages go into a fixed size ring buffer.  Any number of threads can add to it
+ * without locking: each claims a slot by moving the tail along with compareAndSet and
+ * then fills the slot in.  The writer thread is the only one that moves the head, and
+ * it takes the messages off in batches and flushes the file once for each batch.
+ * When the buffer is full the overflow policy decides whether the message is dropped
+ * or the caller waits for space.
+ *
+ * If the file can't be written the failure is reported once to the Eclipse log and the
+ * writer stops using the file.  Any messages still in the buffer are thrown away.
+ */
+public class AsyncLogWriter {
+
+	public static final int DEFAULT_CAPACITY = 8192;
+	public static final long DEFAULT_MAX_FILE_SIZE = 5 * 1024 * 1024;
+	public static final int DEFAULT_MAX_FILES = 3;
+
+	// The most messages written before the file is flushed
+	private static final int MAX_BATCH = 256;
+	// How long the writer sleeps when there is nothing to write, it is woken up sooner when a message is added
+	private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+	/**
+	 * What to do with a message when the buffer is full.
+	 */
+	public enum OverflowPolicy {
+		// Drop the new message, the number dropped is written to the file later
+		DROP("drop"), //$NON-NLS-1$
+		// Wait until the writer makes room for it
+		BLOCK("block"); //$NON-NLS-1$
+
+		public final String prefValue;
+
+		private OverflowPolicy(String prefValue) {
+			this.prefValue = prefValue;
+		}
+
+		public static OverflowPolicy get(String prefValue) {
+			for (OverflowPolicy policy : OverflowPolicy.values()) {
+				if (policy.prefValue.equals(prefValue)) {
+					return policy;
+				}
+			}
+			return DROP;
+		}
+	}
+
+	private static class Entry {
+		final long time;
+		final String threadName;
+		final String message;
+		final Throwable throwable;
+
+		Entry(String message, Throwable throwable) {
+			this.time = System.currentTimeMillis();
+			this.threadName = Thread.currentThread().getName();
+			this.message = message;
+			this.throwable = throwable;
+		}
+	}
+
+	private final File file;
+	private final long maxFileSize;
+	private final int maxFiles;
+	private volatile OverflowPolicy policy;
+
+	private final AtomicReferenceArray<Entry> slots;
+	private final int mask;
+	// The next slot to claim.  Producers move it with compareAndSet.
+	private final AtomicLong tail = new AtomicLong();
+	// The next slot to write.  Only the writer thread moves it.
+	private final AtomicLong head = new AtomicLong();
+
+	private final AtomicLong dropped = new AtomicLong();
+	private final AtomicLong written = new AtomicLong();
+	private long droppedReported = 0;
+
+	private final Thread thread;
+	private volatile boolean parked = false;
+	private volatile boolean closed = false;
+	private volatile boolean failed = false;
+
+	// Only used by the writer thread
+	private Writer out;
+	private long fileSize;
+	private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS"); //$NON-NLS-1$
+
+	/**
+	 * The capacity is rounded up to a power of 2.
+	 */
+	public AsyncLogWriter(File file, int capacity, OverflowPolicy policy, long maxFileSize, int maxFiles) {
+		this.file = file;
+		this.maxFileSize = maxFileSize;
+		this.maxFiles = Math.max(1, maxFiles);
+		this.policy = policy;
+		int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+		this.slots = new AtomicReferenceArray<Entry>(size);
+		this.mask = size - 1;
+
+		thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				runWriter();
+			}
+		}, "Microclimate log writer"); //$NON-NLS-1$
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	public void setOverflowPolicy(OverflowPolicy policy) {
+		this.policy = policy;
+	}
+
+	public OverflowPolicy getOverflowPolicy() {
+		return policy;
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * True if writing to the file failed, after which messages are no longer accepted.
+	 */
+	public boolean hasFailed() {
+		return failed;
+	}
+
+	/**
+	 * Add a message to be written.  Returns false if it was dropped because the buffer
+	 * was full, or the writer is closed.
+	 */
+	public boolean log(String message, Throwable throwable) {
+		if (closed || failed) {
+			return false;
+		}
+		Entry entry = new Entry(message, throwable);
+		long slot;
+		while (true) {
+			slot = tail.get();
+			if (slot - head.get() > mask) {
+				// Full
+				if (policy == OverflowPolicy.DROP || closed) {
+					dropped.incrementAndGet();
+					return false;
+				}
+				wakeWriter();
+				LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+				continue;
+			}
+			if (tail.compareAndSet(slot, slot + 1)) {
+				break;
+			}
+		}
+		slots.lazySet((int) (slot & mask), entry);
+		if (parked) {
+			wakeWriter();
+		}
+		return true;
+	}
+
+	private void wakeWriter() {
+		LockSupport.unpark(thread);
+	}
+
+	private void runWriter() {
+		while (true) {
+			int count = drain();
+			if (count == 0) {
+				if (closed && head.get() == tail.get()) {
+					break;
+				}
+				parked = true;
+				// Check again in case a message was added before the flag was seen
+				if (head.get() == tail.get() && !closed) {
+					LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+				}
+				parked = false;
+			}
+		}
+		closeFile();
+	}
+
+	/**
+	 * Write up to a batch of messages and flush them.  Returns how many were written.
+	 */
+	private int drain() {
+		int count = 0;
+		long slot = head.get();
+		try {
+			while (count < MAX_BATCH && slot < tail.get()) {
+				int index = (int) (slot & mask);
+				Entry entry = slots.get(index);
+				if (entry == null) {
+					// The producer has claimed the slot but not filled it in yet
+					break;
+				}
+				slots.lazySet(index, null);
+				slot++;
+				head.lazySet(slot);
+				if (!failed) {
+					write(entry);
+				}
+				count++;
+			}
+			long droppedNow = dropped.get();
+			boolean reportDropped = droppedNow != droppedReported && !failed;
+			if (reportDropped) {
+				write(new Entry((droppedNow - droppedReported)
+						+ " log messages were dropped because the log buffer was full", null)); //$NON-NLS-1$
+				droppedReported = droppedNow;
+			}
+			if ((count > 0 || reportDropped) && out != null) {
+				out.flush();
+			}
+		} catch (IOException e) {
+			// Stop using the file rather than trying it again for every message
+			failed = true;
+			closeFile();
+			reportFailure(e);
+		}
+		written.addAndGet(count);
+		return count;
+	}
+
+	// Only called on the writer thread
+	private void write(Entry entry) throws IOException {
+		StringBuilder builder = new StringBuilder(entry.message.length() + 64);
+		builder.append(dateFormat.format(new Date(entry.time)))
+			.append(" [").append(entry.threadName).append("] ") //$NON-NLS-1$ //$NON-NLS-2$
+			.append(entry.message)
+			.append(System.lineSeparator());
+		if (entry.throwable != null) {
+			StringWriter trace = new StringWriter();
+			entry.throwable.printStackTrace(new PrintWriter(trace));
+			builder.append(trace);
+		}
+
+		if (out == null || fileSize + builder.length() > maxFileSize) {
+			roll();
+		}
+		out.write(builder.toString());
+		fileSize += builder.length();
+	}
+
+	// Start a new file, keeping up to maxFiles - 1 older ones as file.1, file.2 ...
+	// The first file of a session is a new one too, so the last session's log is kept.
+	private void roll() throws IOException {
+		closeFile();
+		if (file.exists()) {
+			for (int i = maxFiles - 1; i >= 1; i--) {
+				File older = getRolledFile(i);
+				File newer = i == 1 ? file : getRolledFile(i - 1);
+				if (older.exists() && !older.delete()) {
+					throw new IOException("Failed to delete " + older); //$NON-NLS-1$
+				}
+				if (newer.exists() && !newer.renameTo(older)) {
+					throw new IOException("Failed to rename " + newer + " to " + older); //$NON-NLS-1$ //$NON-NLS-2$
+				}
+			}
+		}
+		File dir = file.getParentFile();
+		if (dir != null && !dir.exists() && !dir.mkdirs()) {
+			throw new IOException("Failed to create " + dir); //$NON-NLS-1$
+		}
+		out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, false), StandardCharsets.UTF_8));
+		fileSize = 0;
+	}
+
+	// Goes straight to the Eclipse log since going through MCLogger would come back here
+	private void reportFailure(IOException e) {
+		MicroclimateCorePlugin plugin = MicroclimateCorePlugin.getDefault();
+		if (plugin != null) {
+			plugin.getLog().log(new Status(IStatus.ERROR, MicroclimateCorePlugin.PLUGIN_ID,
+					"Failed to write to the log file " + file + ", messages are written to the Eclipse log instead", e)); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	}
+
+	/**
+	 * An older log file, 1 is the most recent.
+	 */
+	public File getRolledFile(int index) {
+		return new File(file.getPath() + "." + index); //$NON-NLS-1$
+	}
+
+	private void closeFile() {
+		if (out != null) {
+			try {
+				out.close();
+			} catch (IOException e) {
+				// Nothing more can be done
+			}
+			out = null;
+		}
+	}
+
+	/**
+	 * Wait until the messages added so far have been written, or the timeout passes.
+	 * Returns true if they were all written.
+	 */
+	public boolean flush(long timeoutMs) {
+		long target = tail.get();
+		long deadline = System.currentTimeMillis() + timeoutMs;
+		while (head.get() < target) {
+			if (System.currentTimeMillis() > deadline || !thread.isAlive()) {
+				return false;
+			}
+			wakeWriter();
+			LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+		}
+		return true;
+	}
+
+	/**
+	 * Write the messages that are left and stop the writer thread.
+	 */
+	public void close(long timeoutMs) {
+		closed = true;
+		wakeWriter();
+		try {
+			thread.join(timeoutMs);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	public long getDroppedCount() {
+		return dropped.get();
+	}
+
+	public long getWrittenCount() {
+		return written.get();
+	}
+
+	public int getCapacity() {
+		return mask + 1;
+	}
+}
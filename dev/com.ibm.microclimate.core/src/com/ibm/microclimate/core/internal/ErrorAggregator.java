@@ -0,0 +1,279 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.core.internal;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stops an error that keeps happening from filling up the log.  Errors are grouped by
+ * the site that reports them and a signature of the message and exception, where any
+ * numbers are ignored.  The first error of a group is reported, then the group is quiet
+ * for the window and any more errors are only counted.  The next error after the window
+ * is reported along with the count, and if the errors stop the count is reported by
+ * itself once the window is over.
+ */
+public class ErrorAggregator {
+
+	public static final long DEFAULT_WINDOW_MS = 60 * 1000;
+
+	// Past this many groups the least recently seen group is forgotten, so that the map stays small
+	public static final int MAX_GROUPS = 500;
+	// Groups that have been quiet for this many windows are forgotten
+	private static final int IDLE_WINDOWS = 10;
+
+	/**
+	 * Where the errors that are not suppressed go.
+	 */
+	public interface IReporter {
+		void report(String site, String message, Throwable throwable);
+	}
+
+	private static class Group {
+		final String site;
+		String message;
+		long windowStart;
+		long lastSeen;
+		int suppressed;
+
+		Group(String site, String message, long now) {
+			this.site = site;
+			this.message = message;
+			this.windowStart = now;
+			this.lastSeen = now;
+		}
+	}
+
+	private final long windowMs;
+	private final IReporter reporter;
+	// All access is synchronized on this object.  In access order so the first group is the least recently seen.
+	private final Map<String, Group> groups = new LinkedHashMap<String, Group>(16, 0.75f, true);
+	private ScheduledThreadPoolExecutor summaryExecutor;
+	private boolean closed = false;
+
+	public ErrorAggregator(long windowMs, IReporter reporter) {
+		this.windowMs = windowMs;
+		this.reporter = reporter;
+	}
+
+	/**
+	 * The time in milliseconds, can be changed for testing.
+	 */
+	protected long now() {
+		return System.currentTimeMillis();
+	}
+
+	/**
+	 * The errors from one site with the same message and exception are grouped.  Numbers are left out
+	 * so that errors that only differ by a count, port or time still match.
+	 */
+	public static String getSignature(String site, String message, Throwable throwable) {
+		StringBuilder builder = new StringBuilder(site.length() + (message == null ? 0 : message.length()) + 64);
+		builder.append(site).append('\n');
+		appendWithoutNumbers(builder, message);
+		if (throwable != null) {
+			builder.append('\n').append(throwable.getClass().getName()).append(": "); //$NON-NLS-1$
+			appendWithoutNumbers(builder, throwable.getMessage());
+		}
+		return builder.toString();
+	}
+
+	private static void appendWithoutNumbers(StringBuilder builder, String text) {
+		if (text == null) {
+			return;
+		}
+		boolean inNumber = false;
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c >= '0' && c <= '9') {
+				if (!inNumber) {
+					builder.append('#');
+					inNumber = true;
+				}
+			} else {
+				builder.append(c);
+				inNumber = false;
+			}
+		}
+	}
+
+	/**
+	 * Report the error unless the same error has already been reported from the site within the window.
+	 * Returns true if it was reported.
+	 */
+	public boolean error(String site, String message, Throwable throwable) {
+		String key = getSignature(site, message, throwable);
+		long now = now();
+		String report;
+		String[] evicted = null;
+		synchronized (this) {
+			Group group = groups.get(key);
+			if (group == null) {
+				if (groups.size() >= MAX_GROUPS) {
+					Iterator<Group> it = groups.values().iterator();
+					Group eldest = it.next();
+					it.remove();
+					if (eldest.suppressed > 0) {
+						evicted = summarize(eldest, now);
+					}
+				}
+				groups.put(key, new Group(site, message, now));
+				report = message;
+			} else {
+				group.lastSeen = now;
+				group.message = message;
+				if (now - group.windowStart < windowMs) {
+					group.suppressed++;
+					startSummaries();
+					return false;
+				}
+				report = message + getRepeatedText(group.suppressed, now - group.windowStart);
+				group.suppressed = 0;
+				group.windowStart = now;
+			}
+		}
+		if (evicted != null) {
+			reporter.report(evicted[0], evicted[1], null);
+		}
+		reporter.report(site, report, throwable);
+		return true;
+	}
+
+	private static String getRepeatedText(int count, long elapsedMs) {
+		if (count == 0) {
+			return ""; //$NON-NLS-1$
+		}
+		return " (repeated " + count + " times in the last " + TimeUnit.MILLISECONDS.toSeconds(elapsedMs) + "s)"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+
+	// Must be called while holding the lock
+	private void startSummaries() {
+		if (summaryExecutor != null || closed) {
+			return;
+		}
+		summaryExecutor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "Microclimate error summaries"); //$NON-NLS-1$
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		summaryExecutor.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				reportSummaries(false);
+			}
+		}, windowMs, windowMs, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Report the counts of suppressed errors for the groups whose window is over, or for all
+	 * of them if all is true.  Groups that have been quiet for a while are removed.
+	 */
+	public void reportSummaries(boolean all) {
+		long now = now();
+		List<String[]> summaries = new ArrayList<String[]>();
+		synchronized (this) {
+			for (Iterator<Group> it = groups.values().iterator(); it.hasNext(); ) {
+				Group group = it.next();
+				if (group.suppressed > 0 && (all || now - group.windowStart >= windowMs)) {
+					summaries.add(summarize(group, now));
+				} else if (now - group.lastSeen >= IDLE_WINDOWS * windowMs) {
+					it.remove();
+				}
+			}
+		}
+		report(summaries);
+	}
+
+	// Must be called while holding the lock.  Returns the site and message to report.
+	private static String[] summarize(Group group, long now) {
+		String message = group.message + getRepeatedText(group.suppressed, now - group.windowStart);
+		group.suppressed = 0;
+		group.windowStart = now;
+		return new String[] { group.site, message };
+	}
+
+	// Called without holding the lock, so that logging doesn't hold up the threads reporting errors
+	private void report(List<String[]> summaries) {
+		for (String[] summary : summaries) {
+			reporter.report(summary[0], summary[1], null);
+		}
+	}
+
+	/**
+	 * Report any suppressed errors for the site and forget its groups, so the next error from
+	 * the site is reported straight away.  Use when whatever was failing has recovered.
+	 */
+	public void clear(String site) {
+		long now = now();
+		List<String[]> summaries = new ArrayList<String[]>();
+		synchronized (this) {
+			for (Iterator<Group> it = groups.values().iterator(); it.hasNext(); ) {
+				Group group = it.next();
+				if (group.site.equals(site)) {
+					if (group.suppressed > 0) {
+						summaries.add(summarize(group, now));
+					}
+					it.remove();
+				}
+			}
+		}
+		report(summaries);
+	}
+
+	public synchronized int getGroupCount() {
+		return groups.size();
+	}
+
+	public synchronized boolean isSummaryThreadRunning() {
+		return summaryExecutor != null;
+	}
+
+	/**
+	 * Report the suppressed errors and stop the summary thread.  The errors are still
+	 * grouped, and the thread is started again if another error is suppressed.
+	 */
+	public void stop() {
+		reportSummaries(true);
+		synchronized (this) {
+			stopSummaries();
+		}
+	}
+
+	// Must be called while holding the lock
+	private void stopSummaries() {
+		if (summaryExecutor != null) {
+			summaryExecutor.shutdownNow();
+			summaryExecutor = null;
+		}
+	}
+
+	/**
+	 * Report the suppressed errors and stop the summary thread for good.
+	 */
+	public void close() {
+		reportSummaries(true);
+		synchronized (this) {
+			closed = true;
+			stopSummaries();
+			groups.clear();
+		}
+	}
+}
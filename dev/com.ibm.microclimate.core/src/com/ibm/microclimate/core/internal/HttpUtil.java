@@ -18,6 +18,7 @@ import java.net.HttpURLConnection;
 import java.net.URI;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 import org.json.JSONObject;
 
@@ -55,8 +56,8 @@ public class HttpUtil {
 			}
 
 			if (!isGoodResponse) {
-				MCLogger.logError("Received bad response code " + responseCode + " from "
-						+ connection.getURL() + " - Error:\n" + error);
+				MCLogger.logRepeatedError("HttpUtil.HttpResult", "Received bad response code " + responseCode + " from " //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+						+ connection.getURL() + " - Error:\n" + error); //$NON-NLS-1$
 				response = null;
 			} else {
 				InputStream is = connection.getInputStream();
@@ -74,6 +75,15 @@ public class HttpUtil {
 				return null;
 			}
 			List<String> list = headerFields.get(key);
+			if (list == null) {
+				// Header names are not case sensitive
+				for (Map.Entry<String, List<String>> entry : headerFields.entrySet()) {
+					if (key.equalsIgnoreCase(entry.getKey())) {
+						list = entry.getValue();
+						break;
+					}
+				}
+			}
 			if (list == null || list.isEmpty()) {
 				return null;
 			}
@@ -83,14 +93,16 @@ public class HttpUtil {
 
 	public static HttpResult get(URI uri) throws IOException {
 		HttpURLConnection connection = null;
+		long start = System.nanoTime();
 
 		try {
 			connection = (HttpURLConnection) uri.toURL().openConnection();
 
 			connection.setRequestMethod("GET");
+			connection.setConnectTimeout(5000);
 			connection.setReadTimeout(5000);
 
-			return new HttpResult(connection);
+			return getResult(connection, start);
 		} finally {
 			if (connection != null) {
 				connection.disconnect();
@@ -98,10 +110,40 @@ public class HttpUtil {
 		}
 	}
 	
-	public static HttpResult post(URI uri, JSONObject payload) throws IOException {
+	/**
+	 * Get the content from the given byte offset to the end.  Check for a response code
+	 * of 206 (partial content) since servers that do not support ranges return everything.
+	 */
+	public static HttpResult getRange(URI uri, long offset) throws IOException {
 		HttpURLConnection connection = null;
+		long start = System.nanoTime();
 
-		MCLogger.log("POST " + payload.toString() + " TO " + uri);
+		try {
+			connection = (HttpURLConnection) uri.toURL().openConnection();
+
+			connection.setRequestMethod("GET");
+			connection.setRequestProperty("Range", "bytes=" + offset + "-");
+			connection.setConnectTimeout(5000);
+			connection.setReadTimeout(5000);
+
+			return getResult(connection, start);
+		} finally {
+			if (connection != null) {
+				connection.disconnect();
+			}
+		}
+	}
+	
+	public static HttpResult post(final URI uri, final JSONObject payload) throws IOException {
+		HttpURLConnection connection = null;
+		long start = System.nanoTime();
+
+		MCLogger.log(new Supplier<String>() {
+			@Override
+			public String get() {
+				return "POST " + payload.toString() + " TO " + uri; //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		});
 		try {
 			connection = (HttpURLConnection) uri.toURL().openConnection();
 
@@ -115,7 +157,7 @@ public class HttpUtil {
 				payloadStream.write(payload.toString().getBytes());
 			}
 
-			return new HttpResult(connection);
+			return getResult(connection, start);
 		} finally {
 			if (connection != null) {
 				connection.disconnect();
@@ -125,12 +167,13 @@ public class HttpUtil {
 	
 	public static HttpResult post(URI uri) throws IOException {
 		HttpURLConnection connection = null;
+		long start = System.nanoTime();
 
 		MCLogger.log("Empty POST TO " + uri);
 		try {
 			connection = (HttpURLConnection) uri.toURL().openConnection();
 			connection.setRequestMethod("POST");
-			return new HttpResult(connection);
+			return getResult(connection, start);
 		} finally {
 			if (connection != null) {
 				connection.disconnect();
@@ -140,6 +183,7 @@ public class HttpUtil {
 	
 	public static HttpResult put(URI uri) throws IOException {
 		HttpURLConnection connection = null;
+		long start = System.nanoTime();
 
 		MCLogger.log("PUT " + uri);
 		try {
@@ -147,7 +191,7 @@ public class HttpUtil {
 
 			connection.setRequestMethod("PUT");
 
-			return new HttpResult(connection);
+			return getResult(connection, start);
 		} finally {
 			if (connection != null) {
 				connection.disconnect();
@@ -157,14 +201,17 @@ public class HttpUtil {
 	
 	public static HttpResult head(URI uri) throws IOException {
 		HttpURLConnection connection = null;
+		long start = System.nanoTime();
 
 		MCLogger.log("HEAD " + uri);
 		try {
 			connection = (HttpURLConnection) uri.toURL().openConnection();
 
 			connection.setRequestMethod("HEAD");
+			connection.setConnectTimeout(5000);
+			connection.setReadTimeout(5000);
 
-			return new HttpResult(connection);
+			return getResult(connection, start);
 		} finally {
 			if (connection != null) {
 				connection.disconnect();
@@ -174,6 +221,7 @@ public class HttpUtil {
 	
 	public static HttpResult delete(URI uri) throws IOException {
 		HttpURLConnection connection = null;
+		long start = System.nanoTime();
 
 		MCLogger.log("DELETE " + uri);
 		try {
@@ -181,11 +229,29 @@ public class HttpUtil {
 
 			connection.setRequestMethod("DELETE");
 
-			return new HttpResult(connection);
+			return getResult(connection, start);
 		} finally {
 			if (connection != null) {
 				connection.disconnect();
 			}
 		}
 	}
+	
+	private static HttpResult getResult(HttpURLConnection connection, long start) throws IOException {
+		MCMetrics.Metric metric = MCMetrics.get(MCMetrics.HTTP_PREFIX + connection.getRequestMethod());
+		try {
+			HttpResult result = new HttpResult(connection);
+			metric.increment(result.response == null ? 0 : result.response.length());
+			if (!result.isGoodResponse) {
+				metric.error();
+			}
+			return result;
+		} catch (IOException e) {
+			metric.increment(0);
+			metric.error();
+			throw e;
+		} finally {
+			metric.getTimer(MCMetrics.TIME).record(System.nanoTime() - start);
+		}
+	}
 }
@@ -11,6 +11,9 @@
 
 package com.ibm.microclimate.core.internal;
 
+import java.io.File;
+import java.util.function.Supplier;
+
 import org.eclipse.core.runtime.ILog;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
@@ -24,8 +27,6 @@ import com.ibm.microclimate.core.MicroclimateCorePlugin;
  */
 public class MCLogger implements DebugOptionsListener {
 
-	private static final ILog logger = MicroclimateCorePlugin.getDefault().getLog();
-
 	private static MCLogger instance;
 
 	private MCLogger() {
@@ -43,11 +44,29 @@ public class MCLogger implements DebugOptionsListener {
 		return instance;
 	}
 
-	private static boolean
-			logInfo;
+	private static volatile boolean
+			logInfo,
+			logCaller;
 
 	private static final String
-			INFO_LEVEL = "/debug/info"; //$NON-NLS-1$
+			INFO_LEVEL = "/debug/info", //$NON-NLS-1$
+			CALLER_LEVEL = "/debug/caller", //$NON-NLS-1$
+			ASYNC_OPTION = "/debug/async", //$NON-NLS-1$
+			ASYNC_OVERFLOW_OPTION = "/debug/async/overflow"; //$NON-NLS-1$
+
+	private static final String LOG_FILE = "logs/microclimate.log"; //$NON-NLS-1$
+	private static final long CLOSE_TIMEOUT_MS = 5000;
+
+	private static final ErrorAggregator errorAggregator = new ErrorAggregator(ErrorAggregator.DEFAULT_WINDOW_MS,
+			new ErrorAggregator.IReporter() {
+				@Override
+				public void report(String site, String message, Throwable throwable) {
+					writeLog(site, message, true, throwable);
+				}
+			});
+
+	// Writes the messages on a background thread when info logging is on, null otherwise
+	private static volatile AsyncLogWriter asyncWriter;
 
 	@Override
 	public void optionsChanged(DebugOptions debugOptions) {
@@ -59,16 +78,94 @@ public class MCLogger implements DebugOptionsListener {
 		// Toggle info logging by creating a .options file in your Eclipse installation directory with this content:
 		// com.ibm.microclimate.core/debug/info=true
 		// and then passing eclipse the '-debug' option
+		// Add com.ibm.microclimate.core/debug/caller=true to also find the method and line of each info message,
+		// which means getting a stack trace for every message.
 
 		logInfo = debugOptions.getBooleanOption(MicroclimateCorePlugin.PLUGIN_ID + INFO_LEVEL, false);
+		logCaller = debugOptions.getBooleanOption(MicroclimateCorePlugin.PLUGIN_ID + CALLER_LEVEL, false);
+
+		// While info logging is on all messages are written to their own rolling file in the plugin state location
+		// by a background thread, so that logging does not slow down the socket or UI threads.
+		// Set com.ibm.microclimate.core/debug/async=false to log everything to the Eclipse log instead, and
+		// com.ibm.microclimate.core/debug/async/overflow=block to wait rather than drop messages when the writer is behind.
+		boolean async = debugOptions.getBooleanOption(MicroclimateCorePlugin.PLUGIN_ID + ASYNC_OPTION, true);
+		AsyncLogWriter.OverflowPolicy policy = AsyncLogWriter.OverflowPolicy.get(
+				debugOptions.getOption(MicroclimateCorePlugin.PLUGIN_ID + ASYNC_OVERFLOW_OPTION,
+						AsyncLogWriter.OverflowPolicy.DROP.prefValue));
+		setAsync(logInfo && async, policy);
+	}
+
+	private static synchronized void setAsync(boolean async, AsyncLogWriter.OverflowPolicy policy) {
+		if (async && asyncWriter == null) {
+			MicroclimateCorePlugin plugin = MicroclimateCorePlugin.getDefault();
+			if (plugin == null) {
+				return;
+			}
+			File file = plugin.getStateLocation().append(LOG_FILE).toFile();
+			asyncWriter = new AsyncLogWriter(file, AsyncLogWriter.DEFAULT_CAPACITY, policy,
+					AsyncLogWriter.DEFAULT_MAX_FILE_SIZE, AsyncLogWriter.DEFAULT_MAX_FILES);
+			logToEclipse("Info messages are written to " + file); //$NON-NLS-1$
+		} else if (async) {
+			asyncWriter.setOverflowPolicy(policy);
+		} else if (asyncWriter != null) {
+			AsyncLogWriter writer = asyncWriter;
+			asyncWriter = null;
+			writer.close(CLOSE_TIMEOUT_MS);
+		}
+	}
+
+	// Always goes to the Eclipse log so the file can be found
+	private static void logToEclipse(String msg) {
+		MicroclimateCorePlugin.getDefault().getLog().log(new Status(IStatus.INFO, MicroclimateCorePlugin.PLUGIN_ID, msg));
+	}
+
+	/**
+	 * Write out the messages that are left.  Called when the plugin stops.
+	 */
+	public static void shutdown() {
+		errorAggregator.stop();
+		setAsync(false, null);
+	}
+
+	/**
+	 * The file that info messages are written to, or null if they go to the Eclipse log.
+	 */
+	public static File getLogFile() {
+		AsyncLogWriter writer = asyncWriter;
+		return writer == null || writer.hasFailed() ? null : writer.getFile();
+	}
+
+	/**
+	 * Check this before building an expensive message, or use the Supplier methods.
+	 */
+	public static boolean isInfoEnabled() {
+		return logInfo;
+	}
+
+	/**
+	 * Get a logger that names the given class as the caller, without looking at the stack.
+	 */
+	public static ClassLogger forClass(Class<?> cls) {
+		return new ClassLogger(cls.getSimpleName());
 	}
 
 	public static void log(String msg) {
-		writeLog(msg, false, null);
+		if (logInfo) {
+			writeLog(null, msg, false, null);
+		}
+	}
+
+	/**
+	 * The message is only built if info logging is on.
+	 */
+	public static void log(Supplier<String> msg) {
+		if (logInfo) {
+			writeLog(null, msg.get(), false, null);
+		}
 	}
 
 	public static void logError(String msg) {
-		writeLog(msg, true, null);
+		writeLog(null, msg, true, null);
 	}
 
 	public static void logError(Throwable t) {
@@ -76,59 +173,130 @@ public class MCLogger implements DebugOptionsListener {
 	}
 
 	public static void logError(String msg, Throwable t) {
-		writeLog(msg, true, t);
+		writeLog(null, msg, true, t);
 	}
 
 	/**
-	 * Log the given message to stdout or stderr, depending on isError.
-	 * The message is prepended with a timestamp, as well as the caller's class name, method name, and line number.
+	 * Log an error that may keep happening, for example on every retry while a server is down.
+	 * The first error is logged, and then the same error from the same site is only counted until
+	 * a minute has passed, when the count is logged.  Numbers in the message are ignored when
+	 * deciding whether it is the same error.  The site is shown in place of the caller.
 	 */
-	private static void writeLog(String msg, boolean isError, Throwable t) {
-		if (!isError && !logInfo) {
-			// Not logging info at this time; do nothing.
-			return;
-		}
-
-		StackTraceElement[] ste = Thread.currentThread().getStackTrace();
-		StackTraceElement callingMethod = null;
-		for (int x = 0; x < ste.length; x++) {
-			if (ste[x].getMethodName().equals("writeLog")) { //$NON-NLS-1$
-				callingMethod = ste[x++];
-				// Skip over logging methods, we want to print their callers.
-				while (callingMethod.getMethodName().equals("writeLog") //$NON-NLS-1$
-						|| callingMethod.getMethodName().equals("log") //$NON-NLS-1$
-						|| callingMethod.getMethodName().equals("logError")) { //$NON-NLS-1$
-					callingMethod = ste[x++];
-				}
-				break;
+	public static void logRepeatedError(String site, String msg) {
+		errorAggregator.error(site, msg, null);
+	}
+
+	public static void logRepeatedError(String site, String msg, Throwable t) {
+		errorAggregator.error(site, msg, t);
+	}
+
+	/**
+	 * Log the count of any errors suppressed for the site, and log the next error from it straight away.
+	 * Call when the site has recovered.
+	 */
+	public static void clearRepeatedErrors(String site) {
+		errorAggregator.clear(site);
+	}
+
+	/**
+	 * Logs with the name of a class as the caller.  Keep one in a static field of the class.
+	 */
+	public static final class ClassLogger {
+
+		private final String name;
+
+		private ClassLogger(String name) {
+			this.name = name;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public boolean isInfoEnabled() {
+			return logInfo;
+		}
+
+		public void log(String msg) {
+			if (logInfo) {
+				writeLog(name, msg, false, null);
+			}
+		}
+
+		public void log(Supplier<String> msg) {
+			if (logInfo) {
+				writeLog(name, msg.get(), false, null);
 			}
 		}
 
-		// String time = TIME_SDF.format(Calendar.getInstance().getTime());
+		public void logError(String msg) {
+			writeLog(name, msg, true, null);
+		}
 
-		String callerInfo = "unknown"; //$NON-NLS-1$
+		public void logError(Throwable t) {
+			logError("Exception occurred:", t); //$NON-NLS-1$
+		}
 
-		if (callingMethod != null) {
-			String className = callingMethod.getClassName();
+		public void logError(String msg, Throwable t) {
+			writeLog(name, msg, true, t);
+		}
+	}
+
+	/**
+	 * Find the class name, method name and line number of the code that called MCLogger.
+	 */
+	private static String findCaller() {
+		// Cheaper than Thread.getStackTrace, which also checks permissions and copies the frames
+		StackTraceElement[] ste = new Throwable().getStackTrace();
+		for (StackTraceElement element : ste) {
+			String className = element.getClassName();
+			if (className.startsWith(MCLogger.class.getName())) {
+				continue;
+			}
 			String simpleClassName = className.substring(className.lastIndexOf('.') + 1);
+			return simpleClassName + '.' + element.getMethodName() + ':' + element.getLineNumber();
+		}
+		return "unknown"; //$NON-NLS-1$
+	}
 
-			callerInfo = String.format("%s.%s:%s", //$NON-NLS-1$
-					simpleClassName, callingMethod.getMethodName(), callingMethod.getLineNumber());
+	/**
+	 * Log the given message with the given caller, or find the caller from the stack if it is null.
+	 * For info messages the stack is only used if the caller debug option is on.
+	 * The message is prepended with the level and the caller.
+	 */
+	private static void writeLog(String caller, String msg, boolean isError, Throwable t) {
+		if (caller == null && (isError || logCaller)) {
+			caller = findCaller();
 		}
 
-		String type = isError ? "ERROR" : "INFO"; //$NON-NLS-1$ //$NON-NLS-2$
-		String fullMessage = String.format("[%s %s] %s", type, callerInfo, msg); //$NON-NLS-1$
+		StringBuilder fullMessage = new StringBuilder(msg == null ? 16 : msg.length() + 64);
+		fullMessage.append(isError ? "[ERROR" : "[INFO"); //$NON-NLS-1$ //$NON-NLS-2$
+		if (caller != null) {
+			fullMessage.append(' ').append(caller);
+		}
+		fullMessage.append("] ").append(msg); //$NON-NLS-1$
+
+		AsyncLogWriter writer = asyncWriter;
+		if (writer != null && !writer.hasFailed()) {
+			writer.log(fullMessage.toString(), t);
+			if (!isError) {
+				// Errors also go to the Eclipse log so that they show up in the Error Log view
+				return;
+			}
+		}
 
 		int level = isError ? IStatus.ERROR : IStatus.INFO;
 		IStatus status;
 
 		if (t != null) {
-			status = new Status(level, MicroclimateCorePlugin.PLUGIN_ID, fullMessage, t);
+			status = new Status(level, MicroclimateCorePlugin.PLUGIN_ID, fullMessage.toString(), t);
 		}
 		else {
-			status = new Status(level, MicroclimateCorePlugin.PLUGIN_ID, fullMessage);
+			status = new Status(level, MicroclimateCorePlugin.PLUGIN_ID, fullMessage.toString());
 		}
 
+		// Looked up here so that using this class does not need the plugin to be started
+		ILog logger = MicroclimateCorePlugin.getDefault().getLog();
 		logger.log(status);
 	}
 }
@@ -0,0 +1,227 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.core.internal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters and timers for the HTTP requests and the socket events handled by the plug-in.
+ * Metrics are created on first use and are named by what they measure, for example
+ * "http GET" or "socket projectStatusChanged".  All of the methods are thread safe.
+ */
+public class MCMetrics {
+
+	public static final String HTTP_PREFIX = "http ";			//$NON-NLS-1$
+	public static final String SOCKET_PREFIX = "socket ";		//$NON-NLS-1$
+
+	// Timer names
+	public static final String TIME = "time";					//$NON-NLS-1$
+	public static final String PARSE = "parse";					//$NON-NLS-1$
+	public static final String HANDLER = "handler";				//$NON-NLS-1$
+	public static final String MODEL_LAG = "model lag";			//$NON-NLS-1$
+	public static final String UI_LAG = "ui lag";				//$NON-NLS-1$
+
+	private static final Map<String, Metric> metrics = new ConcurrentHashMap<String, Metric>();
+
+	// The event being handled on the current thread, if any
+	private static final ThreadLocal<EventTiming> currentEvent = new ThreadLocal<EventTiming>();
+
+	private MCMetrics() {}
+
+	public static Metric get(String name) {
+		Metric metric = metrics.get(name);
+		if (metric == null) {
+			Metric newMetric = new Metric(name);
+			metric = metrics.putIfAbsent(name, newMetric);
+			if (metric == null) {
+				metric = newMetric;
+			}
+		}
+		return metric;
+	}
+
+	/**
+	 * All of the metrics sorted by name.
+	 */
+	public static List<Metric> getMetrics() {
+		List<Metric> list = new ArrayList<Metric>(metrics.values());
+		Collections.sort(list, new Comparator<Metric>() {
+			@Override
+			public int compare(Metric a, Metric b) {
+				return a.name.compareTo(b.name);
+			}
+		});
+		return list;
+	}
+
+	public static void reset() {
+		metrics.clear();
+	}
+
+	/**
+	 * One line for each metric, suitable for the log.
+	 */
+	public static String getReport() {
+		StringBuilder builder = new StringBuilder();
+		for (Metric metric : getMetrics()) {
+			builder.append(metric).append('\n');
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Mark the start of handling an event on the current thread.  Anything that wants to
+	 * record how long it took for the event to reach it (such as a UI refresh) can get the
+	 * timing with getCurrentEvent.  Must be followed by endEvent on the same thread.
+	 */
+	public static EventTiming beginEvent(Metric metric, long receivedNanos) {
+		EventTiming timing = new EventTiming(metric, receivedNanos);
+		currentEvent.set(timing);
+		return timing;
+	}
+
+	public static void endEvent() {
+		currentEvent.remove();
+	}
+
+	/**
+	 * The event being handled on the current thread or null if there is none.
+	 */
+	public static EventTiming getCurrentEvent() {
+		return currentEvent.get();
+	}
+
+	/**
+	 * The receive time of an event, used to record the lag to later stages of its handling.
+	 */
+	public static class EventTiming {
+		public final Metric metric;
+		public final long receivedNanos;
+
+		private EventTiming(Metric metric, long receivedNanos) {
+			this.metric = metric;
+			this.receivedNanos = receivedNanos;
+		}
+
+		public void recordLag(String timer) {
+			metric.getTimer(timer).record(System.nanoTime() - receivedNanos);
+		}
+	}
+
+	public static class Metric {
+		public final String name;
+		private final AtomicLong count = new AtomicLong();
+		private final AtomicLong bytes = new AtomicLong();
+		private final AtomicLong errors = new AtomicLong();
+		private final Map<String, Timer> timers = new ConcurrentHashMap<String, Timer>();
+
+		private Metric(String name) {
+			this.name = name;
+		}
+
+		public void increment(long byteCount) {
+			count.incrementAndGet();
+			if (byteCount > 0) {
+				bytes.addAndGet(byteCount);
+			}
+		}
+
+		public void error() {
+			errors.incrementAndGet();
+		}
+
+		public long getCount() {
+			return count.get();
+		}
+
+		public long getBytes() {
+			return bytes.get();
+		}
+
+		public long getErrors() {
+			return errors.get();
+		}
+
+		public Timer getTimer(String timerName) {
+			Timer timer = timers.get(timerName);
+			if (timer == null) {
+				Timer newTimer = new Timer();
+				timer = timers.putIfAbsent(timerName, newTimer);
+				if (timer == null) {
+					timer = newTimer;
+				}
+			}
+			return timer;
+		}
+
+		/**
+		 * The timer if anything has been recorded for it, otherwise null.
+		 */
+		public Timer findTimer(String timerName) {
+			return timers.get(timerName);
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder builder = new StringBuilder();
+			builder.append(name).append(": count=").append(count.get()) //$NON-NLS-1$
+				.append(" bytes=").append(bytes.get()) //$NON-NLS-1$
+				.append(" errors=").append(errors.get()); //$NON-NLS-1$
+			List<String> names = new ArrayList<String>(timers.keySet());
+			Collections.sort(names);
+			for (String timerName : names) {
+				builder.append(", ").append(timerName).append(' ').append(timers.get(timerName)); //$NON-NLS-1$
+			}
+			return builder.toString();
+		}
+	}
+
+	public static class Timer {
+		private final AtomicLong count = new AtomicLong();
+		private final AtomicLong totalNanos = new AtomicLong();
+		private final AtomicLong maxNanos = new AtomicLong();
+
+		public void record(long nanos) {
+			count.incrementAndGet();
+			totalNanos.addAndGet(nanos);
+			long max = maxNanos.get();
+			while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+				max = maxNanos.get();
+			}
+		}
+
+		public long getCount() {
+			return count.get();
+		}
+
+		public double getMeanMs() {
+			long n = count.get();
+			return n == 0 ? 0 : (double) totalNanos.get() / n / TimeUnit.MILLISECONDS.toNanos(1);
+		}
+
+		public double getMaxMs() {
+			return (double) maxNanos.get() / TimeUnit.MILLISECONDS.toNanos(1);
+		}
+
+		@Override
+		public String toString() {
+			return String.format("mean=%.2fms max=%.2fms", getMeanMs(), getMaxMs()); //$NON-NLS-1$
+		}
+	}
+}
@@ -12,6 +12,7 @@
 package com.ibm.microclimate.core.internal;
 
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -60,7 +61,7 @@ public class MCUtil {
 
 
 	public static String readAllFromStream(InputStream stream) {
-		Scanner s = new Scanner(stream);
+		Scanner s = new Scanner(stream, StandardCharsets.UTF_8.name());
 		// end-of-stream
 		s.useDelimiter("\\A"); //$NON-NLS-1$
 		String result = s.hasNext() ? s.next() : ""; //$NON-NLS-1$
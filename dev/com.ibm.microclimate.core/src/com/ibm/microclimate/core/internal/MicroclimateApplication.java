@@ -190,6 +190,14 @@ public class MicroclimateApplication {
 	public synchronized String getContainerId() {
 		return containerId;
 	}
+
+	public synchronized String getContextRoot() {
+		return contextRoot;
+	}
+
+	public synchronized String getAction() {
+		return action;
+	}
 	
 	public boolean isActive() {
 		return getAppState() == AppState.STARTING || getAppState() == AppState.STARTED;
@@ -21,12 +21,23 @@ import org.json.JSONObject;
 
 import com.ibm.microclimate.core.internal.connection.MicroclimateConnection;
 import com.ibm.microclimate.core.internal.console.ProjectLogInfo;
+import com.ibm.microclimate.core.internal.constants.AppState;
+import com.ibm.microclimate.core.internal.constants.BuildStatus;
 import com.ibm.microclimate.core.internal.constants.MCConstants;
 import com.ibm.microclimate.core.internal.constants.ProjectType;
 import com.ibm.microclimate.core.internal.constants.StartMode;
 
 public class MicroclimateApplicationFactory {
 	
+	private static final int LOCK_STRIPES = 64;
+	private static final Object[] PROJECT_LOCKS = new Object[LOCK_STRIPES];
+	
+	static {
+		for (int i = 0; i < PROJECT_LOCKS.length; i++) {
+			PROJECT_LOCKS[i] = new Object();
+		}
+	}
+	
 	/**
 	 * Process the json for all projects, create or update applications as needed.
 	 */
@@ -52,21 +63,31 @@ public class MicroclimateApplicationFactory {
 					idSet.add(id);
 					// If a project id was passed in then only process the JSON object for that project
 					if (projectID == null || projectID.equals(id)) {
-						synchronized(MicroclimateApplicationFactory.class) {
-							MicroclimateApplication app = mcConnection.getAppByID(id);
+						MicroclimateApplication app;
+						// Only lock this project so that updates to other projects and other
+						// connections can proceed in parallel
+						synchronized(getProjectLock(mcConnection, id)) {
+							app = mcConnection.getAppByID(id);
 							if (app != null) {
 								updateApp(app, appJso);
 								if (app.isDeleting()) {
 									// Remove the app from the list
 									mcConnection.removeApp(id);
+									app = null;
 								}
 							} else {
 								app = createApp(mcConnection, appJso);
 								if (app != null && !app.isDeleting()) {
 									mcConnection.addApp(app);
+								} else {
+									app = null;
 								}
 							}
 						}
+						// Requests to Microclimate are made outside of the lock
+						if (app != null) {
+							updateAppInfo(app);
+						}
 					}
 				} catch (Exception e) {
 					MCLogger.logError("Error parsing project json: " + appJso, e); //$NON-NLS-1$
@@ -79,7 +100,9 @@ public class MicroclimateApplicationFactory {
 			if (projectID == null) {
 				for (String id : mcConnection.getAppIds()) {
 					if (!idSet.contains(id)) {
-						mcConnection.removeApp(id);
+						synchronized(getProjectLock(mcConnection, id)) {
+							mcConnection.removeApp(id);
+						}
 					}
 				}
 			}
@@ -88,8 +111,19 @@ public class MicroclimateApplicationFactory {
 		}
 	}
 	
+	/**
+	 * Get the lock for the given project.  Locks are striped so projects may share a lock
+	 * but the number of lock objects stays fixed no matter how many projects there are.
+	 */
+	private static Object getProjectLock(MicroclimateConnection mcConnection, String projectID) {
+		int hash = 31 * mcConnection.baseUrl.hashCode() + projectID.hashCode();
+		return PROJECT_LOCKS[(hash & Integer.MAX_VALUE) % PROJECT_LOCKS.length];
+	}
+	
 	/**
 	 * Use the static information in the JSON object to create the application.
+	 * The caller should use updateAppInfo to get the information that requires
+	 * requests to Microclimate.
 	 */
 	public static MicroclimateApplication createApp(MicroclimateConnection mcConnection, JSONObject appJso) {
 		try {
@@ -128,6 +162,7 @@ public class MicroclimateApplicationFactory {
 	
 	/**
 	 * Update the application with the dynamic information in the JSON object.
+	 * No requests are made to Microclimate so this is safe to call while holding a lock.
 	 */
 	public static void updateApp(MicroclimateApplication mcApp, JSONObject appJso) {
 		try {
@@ -173,24 +208,12 @@ public class MicroclimateApplicationFactory {
 				if (appJso.has(MCConstants.KEY_PORTS) && (appJso.get(MCConstants.KEY_PORTS) instanceof JSONObject)) {
 					JSONObject portsObj = appJso.getJSONObject(MCConstants.KEY_PORTS);
 	
-					int httpPortNum = -1;
-					if (portsObj != null && portsObj.has(MCConstants.KEY_EXPOSED_PORT)) {
-						String httpPort = portsObj.getString(MCConstants.KEY_EXPOSED_PORT);
-						if (httpPort != null && !httpPort.isEmpty()) {
-							httpPortNum = MCUtil.parsePort(httpPort);
-						}
-					}
+					int httpPortNum = getPort(portsObj, MCConstants.KEY_EXPOSED_PORT);
 					if (httpPortNum != -1) {
 						mcApp.setHttpPort(httpPortNum);
 					}
 	
-					int debugPortNum = -1;
-					if (portsObj != null && portsObj.has(MCConstants.KEY_EXPOSED_DEBUG_PORT)) {
-						String debugPort = portsObj.getString(MCConstants.KEY_EXPOSED_DEBUG_PORT);
-						if (debugPort != null && !debugPort.isEmpty()) {
-							debugPortNum = MCUtil.parsePort(debugPort);
-						}
-					}
+					int debugPortNum = getPort(portsObj, MCConstants.KEY_EXPOSED_DEBUG_PORT);
 					mcApp.setDebugPort(debugPortNum);
 
 				} else {
@@ -201,16 +224,7 @@ public class MicroclimateApplicationFactory {
 			}
 			
 			// Set the context root
-			String contextRoot = null;
-			if (appJso.has(MCConstants.KEY_CONTEXTROOT)) {
-				contextRoot = appJso.getString(MCConstants.KEY_CONTEXTROOT);
-			} else if (appJso.has(MCConstants.KEY_CUSTOM)) {
-				JSONObject custom = appJso.getJSONObject(MCConstants.KEY_CUSTOM);
-				if (custom.has(MCConstants.KEY_CONTEXTROOT)) {
-					contextRoot = custom.getString(MCConstants.KEY_CONTEXTROOT);
-				}
-			}
-			mcApp.setContextRoot(contextRoot);
+			mcApp.setContextRoot(getContextRoot(appJso));
 			
 			// Set the start mode
 			StartMode startMode = StartMode.get(appJso);
@@ -224,7 +238,155 @@ public class MicroclimateApplicationFactory {
 		} catch(JSONException e) {
 			MCLogger.logError("Error parsing project json: " + appJso, e); //$NON-NLS-1$
 		}
+	}
+	
+	/**
+	 * Check whether the dynamic information in the JSON object is different from the
+	 * current state of the application.
+	 */
+	public static boolean hasChanged(MicroclimateApplication mcApp, JSONObject appJso) throws JSONException {
+		String action = appJso.has(MCConstants.KEY_ACTION) ? appJso.getString(MCConstants.KEY_ACTION) : null;
+		if (!equals(action, mcApp.getAction())) {
+			return true;
+		}
+		
+		if (appJso.has(MCConstants.KEY_APP_STATUS)
+				&& AppState.get(appJso.getString(MCConstants.KEY_APP_STATUS)) != mcApp.getAppState()) {
+			return true;
+		}
+		
+		if (appJso.has(MCConstants.KEY_BUILD_STATUS)) {
+			if (BuildStatus.get(appJso.getString(MCConstants.KEY_BUILD_STATUS)) != mcApp.getBuildStatus()) {
+				return true;
+			}
+			String detail = null;
+			if (appJso.has(MCConstants.KEY_DETAILED_BUILD_STATUS)) {
+				detail = appJso.getString(MCConstants.KEY_DETAILED_BUILD_STATUS);
+				if (detail.trim().isEmpty()) {
+					detail = null;
+				}
+			}
+			if (!equals(detail, mcApp.getBuildDetails())) {
+				return true;
+			}
+		}
+		
+		String containerId = appJso.has(MCConstants.KEY_CONTAINER_ID) ? appJso.getString(MCConstants.KEY_CONTAINER_ID) : null;
+		if (!equals(containerId, mcApp.getContainerId())) {
+			return true;
+		}
+		
+		if (appJso.has(MCConstants.KEY_PORTS) && (appJso.get(MCConstants.KEY_PORTS) instanceof JSONObject)) {
+			JSONObject portsObj = appJso.getJSONObject(MCConstants.KEY_PORTS);
+			int httpPort = getPort(portsObj, MCConstants.KEY_EXPOSED_PORT);
+			if (httpPort != -1 && httpPort != mcApp.getHttpPort()) {
+				return true;
+			}
+			if (getPort(portsObj, MCConstants.KEY_EXPOSED_DEBUG_PORT) != mcApp.getDebugPort()) {
+				return true;
+			}
+		}
+		
+		if (!equals(getContextRoot(appJso), mcApp.getContextRoot())) {
+			return true;
+		}
+		
+		if (StartMode.get(appJso) != mcApp.getStartMode()) {
+			return true;
+		}
+		
+		if (appJso.has(MCConstants.KEY_AUTO_BUILD)
+				&& appJso.getBoolean(MCConstants.KEY_AUTO_BUILD) != mcApp.isAutoBuild()) {
+			return true;
+		}
 		
+		return false;
+	}
+	
+	/**
+	 * Reconcile the application for the project with the JSON object after the connection
+	 * to Microclimate has been restored.  An existing application is kept and is only updated
+	 * if its state has diverged.  If there is no application yet then one is created and if
+	 * the project is being deleted the application is removed.
+	 * @return true if the application was created, updated or removed
+	 */
+	public static boolean reconcileApp(MicroclimateConnection mcConnection, JSONObject appJso) throws JSONException {
+		String id = appJso.getString(MCConstants.KEY_PROJECT_ID);
+		MicroclimateApplication app;
+		MicroclimateApplication removedApp = null;
+		synchronized(getProjectLock(mcConnection, id)) {
+			app = mcConnection.getAppByID(id);
+			if (app == null) {
+				app = createApp(mcConnection, appJso);
+				if (app == null || app.isDeleting()) {
+					return false;
+				}
+				mcConnection.addApp(app);
+			} else if (hasChanged(app, appJso)) {
+				updateApp(app, appJso);
+				if (app.isDeleting()) {
+					removedApp = mcConnection.removeApp(id);
+					app = null;
+				}
+			} else {
+				return false;
+			}
+		}
+		// Requests to Microclimate are made outside of the lock
+		if (removedApp != null) {
+			removedApp.dispose();
+		} else {
+			updateAppInfo(app);
+		}
+		return true;
+	}
+	
+	/**
+	 * Remove the application for a project that no longer exists.
+	 * @return true if there was an application to remove
+	 */
+	public static boolean removeApp(MicroclimateConnection mcConnection, String projectID) {
+		MicroclimateApplication app;
+		synchronized(getProjectLock(mcConnection, projectID)) {
+			app = mcConnection.removeApp(projectID);
+		}
+		if (app == null) {
+			return false;
+		}
+		app.dispose();
+		return true;
+	}
+	
+	private static int getPort(JSONObject portsObj, String key) throws JSONException {
+		if (portsObj != null && portsObj.has(key)) {
+			String port = portsObj.getString(key);
+			if (port != null && !port.isEmpty()) {
+				return MCUtil.parsePort(port);
+			}
+		}
+		return -1;
+	}
+	
+	private static String getContextRoot(JSONObject appJso) throws JSONException {
+		if (appJso.has(MCConstants.KEY_CONTEXTROOT)) {
+			return appJso.getString(MCConstants.KEY_CONTEXTROOT);
+		} else if (appJso.has(MCConstants.KEY_CUSTOM)) {
+			JSONObject custom = appJso.getJSONObject(MCConstants.KEY_CUSTOM);
+			if (custom.has(MCConstants.KEY_CONTEXTROOT)) {
+				return custom.getString(MCConstants.KEY_CONTEXTROOT);
+			}
+		}
+		return null;
+	}
+	
+	private static boolean equals(String a, String b) {
+		return a == null ? b == null : a.equals(b);
+	}
+	
+	/**
+	 * Update the application with the information that must be requested from Microclimate.
+	 */
+	public static void updateAppInfo(MicroclimateApplication mcApp) {
 		try {
 			// Set the log information
 			List<ProjectLogInfo> logInfos = mcApp.mcConnection.requestProjectLogs(mcApp);
@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.core.internal.connection;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiFunction;
+
+/**
+ * Thread safe lookup of the consoles for a log.  Consoles are registered and deregistered
+ * from the UI thread while the socket event handlers look them up, so lookups never
+ * block and never see a partially updated list.  A lookup costs the same no matter how
+ * many consoles are open.
+ *
+ * The log type and log name are null for consoles that show the whole project log.
+ */
+public class ConsoleRoutingTable<T> {
+
+	private final ConcurrentMap<RouteKey, List<T>> routes = new ConcurrentHashMap<RouteKey, List<T>>();
+
+	public void register(String projectID, String logType, String logName, final T console) {
+		routes.compute(new RouteKey(projectID, logType, logName), new BiFunction<RouteKey, List<T>, List<T>>() {
+			@Override
+			public List<T> apply(RouteKey key, List<T> consoles) {
+				if (consoles == null) {
+					consoles = new CopyOnWriteArrayList<T>();
+				}
+				if (!consoles.contains(console)) {
+					consoles.add(console);
+				}
+				return consoles;
+			}
+		});
+	}
+
+	public void deregister(String projectID, String logType, String logName, final T console) {
+		routes.computeIfPresent(new RouteKey(projectID, logType, logName), new BiFunction<RouteKey, List<T>, List<T>>() {
+			@Override
+			public List<T> apply(RouteKey key, List<T> consoles) {
+				consoles.remove(console);
+				// Returning null removes the route
+				return consoles.isEmpty() ? null : consoles;
+			}
+		});
+	}
+
+	/**
+	 * The consoles for the log.  The list is a snapshot and is safe to iterate
+	 * while consoles are being registered or deregistered.
+	 */
+	public List<T> get(String projectID, String logType, String logName) {
+		List<T> consoles = routes.get(new RouteKey(projectID, logType, logName));
+		return consoles == null ? Collections.<T>emptyList() : consoles;
+	}
+
+	/**
+	 * The number of logs with at least one console.
+	 */
+	public int size() {
+		return routes.size();
+	}
+
+	private static class RouteKey {
+		private final String projectID;
+		private final String logType;
+		private final String logName;
+		private final int hash;
+
+		public RouteKey(String projectID, String logType, String logName) {
+			this.projectID = projectID;
+			this.logType = logType;
+			this.logName = logName;
+			int h = projectID == null ? 0 : projectID.hashCode();
+			h = 31 * h + (logType == null ? 0 : logType.hashCode());
+			h = 31 * h + (logName == null ? 0 : logName.hashCode());
+			this.hash = h;
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof RouteKey)) {
+				return false;
+			}
+			RouteKey other = (RouteKey) obj;
+			return hash == other.hash && equals(projectID, other.projectID)
+					&& equals(logType, other.logType) && equals(logName, other.logName);
+		}
+
+		private static boolean equals(String a, String b) {
+			return a == null ? b == null : a.equals(b);
+		}
+	}
+}
@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.core.internal.connection;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+import com.ibm.microclimate.core.internal.MCLogger;
+
+/**
+ * Records the raw socket events for a connection so that they can be replayed later
+ * with the EventReplayer.  The trace starts with the project list so that the replay
+ * can set up the same applications, followed by each event with the time it arrived.
+ *
+ * The file is gzipped and contains:
+ *   int MAGIC, int VERSION
+ *   then records of:
+ *     byte type, long milliseconds since the start of the recording,
+ *     for events the event name (writeUTF), then an int length and the UTF-8 payload
+ */
+public class EventRecorder implements Closeable {
+
+	public static final int MAGIC = 0x4D434556; // MCEV
+	public static final int VERSION = 1;
+
+	static final byte RECORD_PROJECTS = 0;
+	static final byte RECORD_EVENT = 1;
+
+	private final File file;
+	private final long startTime;
+	private DataOutputStream out;
+	private long eventCount = 0;
+
+	public EventRecorder(File file, String projectsJson) throws IOException {
+		this(file, new FileOutputStream(file), projectsJson);
+	}
+
+	/**
+	 * Record to the given stream.  The file is only used to identify the recording.
+	 */
+	public EventRecorder(File file, OutputStream stream, String projectsJson) throws IOException {
+		this.file = file;
+		this.startTime = System.currentTimeMillis();
+		this.out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(stream)));
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeByte(RECORD_PROJECTS);
+		out.writeLong(0);
+		writeString(projectsJson == null ? "[]" : projectsJson); //$NON-NLS-1$
+	}
+
+	/**
+	 * Record an event as it was received from the socket.
+	 */
+	public void record(String event, Object data) {
+		recordAt(System.currentTimeMillis() - startTime, event, data);
+	}
+
+	/**
+	 * Record an event at the given time since the start of the recording.  Used to
+	 * write traces that were not captured from a live connection.
+	 */
+	public synchronized void recordAt(long time, String event, Object data) {
+		if (out == null) {
+			return;
+		}
+		try {
+			out.writeByte(RECORD_EVENT);
+			out.writeLong(time);
+			out.writeUTF(event);
+			writeString(data == null ? "" : data.toString()); //$NON-NLS-1$
+			eventCount++;
+		} catch (IOException e) {
+			MCLogger.logError("Failed to record the " + event + " event to: " + file + ", recording stopped", e); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			closeStream();
+		}
+	}
+
+	public synchronized long getEventCount() {
+		return eventCount;
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if (out != null) {
+			DataOutputStream stream = out;
+			out = null;
+			stream.close();
+		}
+	}
+
+	private void closeStream() {
+		try {
+			close();
+		} catch (IOException e) {
+			// Already reported the failure
+		}
+	}
+
+	private void writeString(String str) throws IOException {
+		byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+}
@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.core.internal.connection;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Feeds the events from an EventTrace into a socket as if they had just been received,
+ * so the same event storm can be run again without a Microclimate instance.  The
+ * events go through the same coalescing and dispatching as live events.  The payloads
+ * are passed as strings so parsing them is part of the measured time, as it is
+ * for the socket.io client.
+ *
+ * The events can be replayed at the recorded speed, accelerated by a factor or as
+ * fast as possible.
+ */
+public class EventReplayer {
+
+	public enum Speed {
+		RECORDED,
+		ACCELERATED,
+		MAXIMUM
+	}
+
+	public static class ReplayResult {
+		public final String name;
+		public final Speed speed;
+		// The number of events in the trace
+		public final int events;
+		// The number of events that reached the handlers after coalescing
+		public final long handledEvents;
+		public final double elapsedMs;
+		public final long traceDurationMs;
+		public final boolean completed;
+
+		ReplayResult(String name, Speed speed, int events, long handledEvents, double elapsedMs,
+				long traceDurationMs, boolean completed) {
+			this.name = name;
+			this.speed = speed;
+			this.events = events;
+			this.handledEvents = handledEvents;
+			this.elapsedMs = elapsedMs;
+			this.traceDurationMs = traceDurationMs;
+			this.completed = completed;
+		}
+
+		@Override
+		public String toString() {
+			return String.format(Locale.ROOT, "%s at %s speed: %d events, %d handled, %.1f ms (recorded %d ms)%s", //$NON-NLS-1$
+					name, speed, events, handledEvents, elapsedMs, traceDurationMs,
+					completed ? "" : ", timed out"); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	}
+
+	private final MicroclimateSocket socket;
+
+	public EventReplayer(MicroclimateSocket socket) {
+		this.socket = socket;
+	}
+
+	/**
+	 * Replay the trace and wait until all of the events have been handled.  The factor
+	 * is only used for the ACCELERATED speed, a factor of 10 replays the events ten
+	 * times faster than they were recorded.
+	 */
+	public ReplayResult replay(EventTrace trace, Speed speed, double factor, long timeoutMs) throws InterruptedException {
+		double scale = 0;
+		if (speed == Speed.RECORDED) {
+			scale = 1;
+		} else if (speed == Speed.ACCELERATED) {
+			if (factor <= 0) {
+				throw new IllegalArgumentException("The replay factor must be greater than 0: " + factor); //$NON-NLS-1$
+			}
+			scale = 1 / factor;
+		}
+
+		MicroclimateEventDispatcher dispatcher = socket.getEventDispatcher();
+		long handledBefore = dispatcher.getEventCount();
+		long start = System.nanoTime();
+		for (EventTrace.Entry entry : trace.entries) {
+			if (scale > 0) {
+				long wait = start + (long) (TimeUnit.MILLISECONDS.toNanos(entry.time) * scale) - System.nanoTime();
+				if (wait > 0) {
+					TimeUnit.NANOSECONDS.sleep(wait);
+				}
+			}
+			socket.dispatchEvent(entry.event, entry.data);
+		}
+
+		// Don't wait for the coalescing window to expire for the last events
+		socket.getEventCoalescer().flushAll();
+		boolean completed = dispatcher.awaitIdle(timeoutMs);
+		double elapsedMs = (System.nanoTime() - start) / 1e6;
+		return new ReplayResult(trace.name, speed, trace.entries.size(), dispatcher.getEventCount() - handledBefore,
+				elapsedMs, trace.getDuration(), completed);
+	}
+}
@@ -0,0 +1,62 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.core.internal.connection;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps track of the last project event received for each project.  Every event is
+ * given a sequence number when it arrives.  When the project list is requested after
+ * a reconnect the current sequence is recorded first, so any project with a later
+ * event has newer information than the project list and should not be updated from it.
+ */
+public class EventSequenceTracker {
+
+	private final AtomicLong sequence = new AtomicLong();
+	private final ConcurrentMap<String, Long> lastEvents = new ConcurrentHashMap<String, Long>();
+
+	/**
+	 * Record an event for the project and return its sequence number.
+	 */
+	public long eventReceived(String projectID) {
+		long seq = sequence.incrementAndGet();
+		if (projectID != null) {
+			lastEvents.put(projectID, seq);
+		}
+		return seq;
+	}
+
+	/**
+	 * The sequence number of the last event received for any project.
+	 */
+	public long getSequence() {
+		return sequence.get();
+	}
+
+	/**
+	 * The sequence number of the last event received for the project, or 0 if
+	 * there has not been one.
+	 */
+	public long getLastSequence(String projectID) {
+		Long seq = lastEvents.get(projectID);
+		return seq == null ? 0 : seq.longValue();
+	}
+
+	/**
+	 * Returns true if an event was received for the project after the given sequence number.
+	 */
+	public boolean hasEventSince(String projectID, long seq) {
+		return getLastSequence(projectID) > seq;
+	}
+}
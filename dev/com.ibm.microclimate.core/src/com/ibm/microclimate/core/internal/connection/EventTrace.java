@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.core.internal.connection;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A trace written by the EventRecorder, loaded into memory so that reading the
+ * file does not affect the timing of a replay.
+ */
+public class EventTrace {
+
+	public static class Entry {
+		public final long time;
+		public final String event;
+		public final String data;
+
+		Entry(long time, String event, String data) {
+			this.time = time;
+			this.event = event;
+			this.data = data;
+		}
+	}
+
+	public final String name;
+	public final String projectsJson;
+	public final List<Entry> entries;
+
+	private EventTrace(String name, String projectsJson, List<Entry> entries) {
+		this.name = name;
+		this.projectsJson = projectsJson;
+		this.entries = Collections.unmodifiableList(entries);
+	}
+
+	public static EventTrace load(File file) throws IOException {
+		try (InputStream stream = new FileInputStream(file)) {
+			return load(file.getName(), stream);
+		}
+	}
+
+	public static EventTrace load(String name, InputStream stream) throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(stream)));
+		if (in.readInt() != EventRecorder.MAGIC) {
+			throw new IOException("Not an event trace: " + name); //$NON-NLS-1$
+		}
+		int version = in.readInt();
+		if (version != EventRecorder.VERSION) {
+			throw new IOException("Unsupported event trace version " + version + " for: " + name); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+
+		String projectsJson = "[]"; //$NON-NLS-1$
+		List<Entry> entries = new ArrayList<Entry>();
+		while (true) {
+			byte type;
+			try {
+				type = in.readByte();
+			} catch (EOFException e) {
+				break;
+			}
+			long time = in.readLong();
+			if (type == EventRecorder.RECORD_PROJECTS) {
+				projectsJson = readString(in);
+			} else if (type == EventRecorder.RECORD_EVENT) {
+				String event = in.readUTF();
+				entries.add(new Entry(time, event, readString(in)));
+			} else {
+				throw new IOException("Unknown record type " + type + " in event trace: " + name); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		}
+		return new EventTrace(name, projectsJson, entries);
+	}
+
+	/**
+	 * The time of the last event in milliseconds since the start of the recording.
+	 */
+	public long getDuration() {
+		return entries.isEmpty() ? 0 : entries.get(entries.size() - 1).time;
+	}
+
+	/**
+	 * The total number of characters in the event payloads.
+	 */
+	public long getPayloadSize() {
+		long size = 0;
+		for (Entry entry : entries) {
+			size += entry.data.length();
+		}
+		return size;
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -11,17 +11,26 @@
 
 package com.ibm.microclimate.core.internal.connection;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.ConnectException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -38,6 +47,7 @@ import com.ibm.microclimate.core.internal.MCLogger;
 import com.ibm.microclimate.core.internal.MCUtil;
 import com.ibm.microclimate.core.internal.MicroclimateApplication;
 import com.ibm.microclimate.core.internal.MicroclimateApplicationFactory;
+import com.ibm.microclimate.core.internal.console.BuildLogPoller;
 import com.ibm.microclimate.core.internal.console.ProjectLogInfo;
 import com.ibm.microclimate.core.internal.console.ProjectTemplateInfo;
 import com.ibm.microclimate.core.internal.constants.MCConstants;
@@ -50,9 +60,12 @@ import com.ibm.microclimate.core.internal.messages.Messages;
 public class MicroclimateConnection {
 
 	public static final String MICROCLIMATE_WORKSPACE_PROPERTY = "com.ibm.microclimate.internal.workspace"; //$NON-NLS-1$
+	// Set to a directory to record the socket events for each connection, see EventRecorder
+	public static final String RECORD_EVENTS_PROPERTY = "com.ibm.microclimate.internal.recordEvents"; //$NON-NLS-1$
 	private static final String UNKNOWN_VERSION = "unknown"; //$NON-NLS-1$
 	private static final String BRANCH_VERSION = "\\d{4}_M\\d{1,2}_\\D";
 	private static final Pattern pattern = Pattern.compile(BRANCH_VERSION);
+	private static final long RECONCILE_TIMEOUT_MS = 60000;
 
 	public final URI baseUrl;
 	private IPath localWorkspacePath;
@@ -66,6 +79,18 @@ public class MicroclimateConnection {
 
 	private Map<String, MicroclimateApplication> appMap = new LinkedHashMap<String, MicroclimateApplication>();
 
+	// Kept across reconnects so that the applications can be reconciled with the project list
+	private final EventSequenceTracker eventTracker = new EventSequenceTracker();
+
+	// Shared by the background tasks for this connection, created when first needed.  These are
+	// guarded by their own lock rather than the connection, which is held while reconnecting.
+	private final Object executorLock = new Object();
+	private ScheduledThreadPoolExecutor scheduler;
+	private BuildLogPoller buildLogPoller;
+	// The build log requests run on their own thread so a slow request can't hold up the scheduler
+	private ScheduledThreadPoolExecutor buildLogScheduler;
+	private boolean isClosed = false;
+
 	public static URI buildUrl(String host, int port) throws URISyntaxException {
 		return new URI("http", null, host, port, null, null, null); //$NON-NLS-1$
 	}
@@ -111,9 +136,26 @@ public class MicroclimateConnection {
 
 		refreshApps(null);
 
+		String recordDir = System.getProperty(RECORD_EVENTS_PROPERTY, null);
+		if (recordDir != null && !recordDir.isEmpty()) {
+			startEventRecording(new File(recordDir));
+		}
+
 		MCLogger.log("Created " + this); //$NON-NLS-1$
 	}
-	
+
+	/**
+	 * Create a connection that is not backed by a running Microclimate instance.
+	 * The socket does not connect to anything but events can be passed to it directly.
+	 * No requests are made.  For testing only.
+	 */
+	protected MicroclimateConnection(URI uri, IPath localWorkspacePath, String versionStr) {
+		this.baseUrl = uri;
+		this.localWorkspacePath = localWorkspacePath;
+		this.versionStr = versionStr;
+		this.mcSocket = new MicroclimateSocket(this, uri);
+	}
+
 	public String getSocketNamespace() {
 		return socketNamespace;
 	}
@@ -122,6 +164,43 @@ public class MicroclimateConnection {
 		return mcSocket;
 	}
 
+	public EventSequenceTracker getEventTracker() {
+		return eventTracker;
+	}
+
+	/**
+	 * Record the socket events for this connection to a new trace file in the given directory.
+	 * The trace starts with the current project list so it can be replayed without Microclimate.
+	 */
+	public void startEventRecording(File dir) {
+		stopEventRecording();
+		String host = baseUrl.getHost() + "-" + baseUrl.getPort(); //$NON-NLS-1$
+		String timestamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()); //$NON-NLS-1$
+		File file = new File(dir, "events-" + host + "-" + timestamp + ".trace"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		try {
+			dir.mkdirs();
+			String projectsJson = HttpUtil.get(baseUrl.resolve(MCConstants.APIPATH_PROJECT_LIST)).response;
+			mcSocket.setEventRecorder(new EventRecorder(file, projectsJson));
+			MCLogger.log("Recording the socket events for " + baseUrl + " to: " + file); //$NON-NLS-1$ //$NON-NLS-2$
+		} catch (Exception e) {
+			MCLogger.logError("Failed to start recording the socket events to: " + file, e); //$NON-NLS-1$
+		}
+	}
+
+	public void stopEventRecording() {
+		EventRecorder recorder = mcSocket == null ? null : mcSocket.getEventRecorder();
+		if (recorder == null) {
+			return;
+		}
+		mcSocket.setEventRecorder(null);
+		try {
+			recorder.close();
+			MCLogger.log("Recorded " + recorder.getEventCount() + " socket events to: " + recorder.getFile()); //$NON-NLS-1$ //$NON-NLS-2$
+		} catch (IOException e) {
+			MCLogger.logError("Failed to close the event recording: " + recorder.getFile(), e); //$NON-NLS-1$
+		}
+	}
+
 	private void onInitFail(String msg) throws ConnectException {
 		MCLogger.log("Initializing MicroclimateConnection failed: " + msg); //$NON-NLS-1$
 		close();
@@ -133,12 +212,73 @@ public class MicroclimateConnection {
 	 */
 	public void close() {
 		MCLogger.log("Closing " + this); //$NON-NLS-1$
+		stopEventRecording();
 		if (mcSocket != null) {
 			mcSocket.close();
 		}
 		for (MicroclimateApplication app : appMap.values()) {
 			app.dispose();
 		}
+		synchronized (executorLock) {
+			isClosed = true;
+			if (scheduler != null) {
+				scheduler.shutdownNow();
+			}
+			if (buildLogScheduler != null) {
+				buildLogScheduler.shutdownNow();
+			}
+		}
+	}
+
+	/**
+	 * Executor for the background tasks of this connection such as writing to consoles.
+	 * It is shut down when the connection is closed.  Tasks must not block for long since
+	 * the pool is small.
+	 */
+	public ScheduledExecutorService getScheduler() {
+		synchronized (executorLock) {
+			if (scheduler == null) {
+				final AtomicInteger threadCount = new AtomicInteger();
+				scheduler = new ScheduledThreadPoolExecutor(2, new ThreadFactory() {
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread thread = new Thread(r, "Microclimate scheduler " + threadCount.incrementAndGet() + " - " + baseUrl); //$NON-NLS-1$ //$NON-NLS-2$
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+				scheduler.setRemoveOnCancelPolicy(true);
+				if (isClosed) {
+					scheduler.shutdown();
+				}
+			}
+			return scheduler;
+		}
+	}
+
+	/**
+	 * Polls the build logs for the open build consoles of this connection.  The polls make
+	 * HTTP requests, so they run on a thread of their own rather than on the scheduler.
+	 */
+	public BuildLogPoller getBuildLogPoller() {
+		synchronized (executorLock) {
+			if (buildLogPoller == null) {
+				buildLogScheduler = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread thread = new Thread(r, "Microclimate build log poller - " + baseUrl); //$NON-NLS-1$
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+				buildLogScheduler.setRemoveOnCancelPolicy(true);
+				if (isClosed) {
+					buildLogScheduler.shutdown();
+				}
+				buildLogPoller = new BuildLogPoller(baseUrl.toString(), buildLogScheduler);
+			}
+			return buildLogPoller;
+		}
 	}
 
 	private static JSONObject getEnvData(URI baseUrl) throws JSONException, IOException {
@@ -291,6 +431,103 @@ public class MicroclimateConnection {
 		}
 	}
 	
+	/**
+	 * Reconcile this connection's apps with the Microclimate project list after the connection
+	 * has been restored.  The existing apps are kept and only those whose state has diverged are
+	 * updated.  Each project is reconciled on the event dispatcher so it is ordered with the
+	 * events for that project, and projects that have had an event since the list was requested
+	 * are skipped since the event is newer.  Only waits for the projects being reconciled, not
+	 * for any other events on the dispatcher.
+	 */
+	public void reconcileApps() {
+		final URI projectsURL = baseUrl.resolve(MCConstants.APIPATH_PROJECT_LIST);
+		final long snapshotSequence = eventTracker.getSequence();
+		final AtomicInteger changed = new AtomicInteger();
+		final AtomicInteger skipped = new AtomicInteger();
+		
+		JSONArray appArray;
+		try {
+			String projectsResponse = HttpUtil.get(projectsURL).response;
+			appArray = new JSONArray(projectsResponse);
+		}
+		catch(Exception e) {
+			MCUtil.openDialog(true, Messages.MicroclimateConnection_ErrGettingProjectListTitle, e.getMessage());
+			return;
+		}
+		
+		// The reconcile task for each project ID
+		Map<String, Runnable> tasks = new LinkedHashMap<String, Runnable>();
+		for (int i = 0; i < appArray.length(); i++) {
+			final JSONObject appJso = appArray.optJSONObject(i);
+			final String id = appJso == null ? null : appJso.optString(MCConstants.KEY_PROJECT_ID, null);
+			if (id == null) {
+				MCLogger.logError("Error parsing project json: " + appJso); //$NON-NLS-1$
+				continue;
+			}
+			tasks.put(id, new Runnable() {
+				@Override
+				public void run() {
+					if (eventTracker.hasEventSince(id, snapshotSequence)) {
+						skipped.incrementAndGet();
+						return;
+					}
+					try {
+						if (MicroclimateApplicationFactory.reconcileApp(MicroclimateConnection.this, appJso)) {
+							changed.incrementAndGet();
+						}
+					} catch (Exception e) {
+						MCLogger.logError("Error parsing project json: " + appJso, e); //$NON-NLS-1$
+					}
+				}
+			});
+		}
+		
+		// Remove any apps for projects that were deleted while the connection was down
+		for (final String id : getAppIds()) {
+			if (!tasks.containsKey(id)) {
+				tasks.put(id, new Runnable() {
+					@Override
+					public void run() {
+						if (eventTracker.hasEventSince(id, snapshotSequence)) {
+							skipped.incrementAndGet();
+						} else if (MicroclimateApplicationFactory.removeApp(MicroclimateConnection.this, id)) {
+							changed.incrementAndGet();
+						}
+					}
+				});
+			}
+		}
+		
+		MicroclimateEventDispatcher dispatcher = mcSocket.getEventDispatcher();
+		final CountDownLatch done = new CountDownLatch(tasks.size());
+		for (Map.Entry<String, Runnable> entry : tasks.entrySet()) {
+			final Runnable task = entry.getValue();
+			boolean dispatched = dispatcher.dispatch(entry.getKey(), new Runnable() {
+				@Override
+				public void run() {
+					try {
+						task.run();
+					} finally {
+						done.countDown();
+					}
+				}
+			});
+			if (!dispatched) {
+				done.countDown();
+			}
+		}
+		
+		try {
+			if (!done.await(RECONCILE_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+				MCLogger.logError("Timed out waiting for the apps to be reconciled for: " + baseUrl); //$NON-NLS-1$
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		MCLogger.log("Reconciled apps for " + baseUrl + ": " + appArray.length() + " projects, " //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				+ changed.get() + " changed, " + skipped.get() + " skipped because of newer events"); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+	
 	public void addApp(MicroclimateApplication app) {
 		synchronized(appMap) {
 			appMap.put(app.projectID, app);
@@ -318,7 +555,7 @@ public class MicroclimateConnection {
 	/**
 	 * @return The app with the given ID, if it exists in this Microclimate instance, else null.
 	 */
-	public synchronized MicroclimateApplication getAppByID(String projectID) {
+	public MicroclimateApplication getAppByID(String projectID) {
 		synchronized(appMap) {
 			return appMap.get(projectID);
 		}
@@ -651,18 +888,28 @@ public class MicroclimateConnection {
 	public synchronized void onConnectionError() {
 		MCLogger.log("MCConnection to " + baseUrl + " lost"); //$NON-NLS-1$ //$NON-NLS-2$
 		isConnected = false;
-		synchronized(appMap) {
-			appMap.clear();
-		}
+		// The apps are kept so that they can be reconciled when the connection is restored
 		MCUtil.updateConnection(this);
 	}
 
 	/**
 	 * Called by the MicroclimateSocket when the socket.io connection is working.
 	 */
-	public synchronized void clearConnectionError() {
+	public void clearConnectionError() {
 		MCLogger.log("MCConnection to " + baseUrl + " restored"); //$NON-NLS-1$ //$NON-NLS-2$
 		
+		// Reconcile outside of the connection lock since the reconcile tasks may need it
+		if (refreshConnection()) {
+			reconcileApps();
+			MCUtil.updateConnection(this);
+		}
+	}
+
+	/**
+	 * Refresh the cached connection information after reconnecting.  Returns true if the
+	 * connection is usable again.
+	 */
+	private synchronized boolean refreshConnection() {
 		// Reset any cached information in case it has changed
 		try {
 			JSONObject envData = getEnvData(baseUrl);
@@ -671,13 +918,13 @@ public class MicroclimateConnection {
 				MCLogger.logError("Failed to get the Microclimate version after reconnect");
 				this.connectionErrorMsg = NLS.bind(Messages.MicroclimateConnection_ErrConnection_VersionUnknown, MCConstants.REQUIRED_MC_VERSION);
 				MCUtil.updateConnection(this);
-				return;
+				return false;
 			}
 			if (!isSupportedVersion(version)) {
 				MCLogger.logError("The detected version of Microclimate after reconnect is not supported: " + version);
 				this.connectionErrorMsg = NLS.bind(Messages.MicroclimateConnection_ErrConnection_OldVersion, versionStr, MCConstants.REQUIRED_MC_VERSION);
 				MCUtil.updateConnection(this);
-				return;
+				return false;
 			}
 			this.versionStr = version;
 			IPath path = getWorkspacePath(envData);
@@ -686,7 +933,7 @@ public class MicroclimateConnection {
 				MCLogger.logError("Failed to get the local workspace path after reconnect");
 				this.connectionErrorMsg = Messages.MicroclimateConnection_ErrConnection_WorkspaceErr;
 				MCUtil.updateConnection(this);
-				return;
+				return false;
 			}
 			this.localWorkspacePath = path;
 			
@@ -694,27 +941,28 @@ public class MicroclimateConnection {
 			if ((socketNS != null && !socketNS.equals(this.socketNamespace)) || (this.socketNamespace != null && !this.socketNamespace.equals(socketNS))) {
 				// The socket namespace has changed so need to recreate the socket
 				this.socketNamespace = socketNS;
+				EventRecorder recorder = mcSocket.getEventRecorder();
 				mcSocket.close();
 				mcSocket = new MicroclimateSocket(this);
+				mcSocket.setEventRecorder(recorder);
 				if(!mcSocket.blockUntilFirstConnection()) {
 					// Still not connected
 					MCLogger.logError("Failed to create a new socket with updated URI: " + mcSocket.socketUri);
 					// Clear the message so that it just shows the basic disconnected message
 					this.connectionErrorMsg = null;
-					return;
+					return false;
 				}
 			}
 		} catch (Exception e) {
 			MCLogger.logError("An exception occurred while trying to update the connection information", e);
 			this.connectionErrorMsg = Messages.MicroclimateConnection_ErrConnection_UpdateCacheException;
 			MCUtil.updateConnection(this);
-			return;
+			return false;
 		}
 		
 		this.connectionErrorMsg = null;
 		isConnected = true;
-		refreshApps(null);
-		MCUtil.updateConnection(this);
+		return true;
 	}
 
 	@Override
@@ -0,0 +1,256 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.core.internal.connection;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import com.ibm.microclimate.core.MicroclimateCorePlugin;
+import com.ibm.microclimate.core.internal.MCLogger;
+import com.ibm.microclimate.core.internal.constants.MCConstants;
+
+/**
+ * Merges bursts of consecutive projectStatusChanged or projectChanged events for a project
+ * into one event so that the model and the views are not updated for every event.
+ *
+ * The first event for a project is held for the coalescing window.  Any events of the same
+ * type that arrive for the project during the window are merged into it, with the later
+ * value winning for each field.  Any other event for the project causes the held event to be
+ * passed on first so the order of events for a project does not change.  A change in build
+ * status is never merged away since the application relies on seeing it (for example
+ * to call buildComplete).
+ */
+public class MicroclimateEventCoalescer {
+
+	public static final int DEFAULT_WINDOW_MS = 100;
+
+	public interface IEventTarget {
+		/**
+		 * The received time is the System.nanoTime when the event (or the first of
+		 * the merged events) was received.
+		 */
+		void eventReady(String event, String projectID, JSONObject data, long receivedNanos);
+	}
+
+	private final IEventTarget target;
+	private final ScheduledThreadPoolExecutor timer;
+	private volatile int windowMs;
+
+	// Held events by project ID, all access is synchronized on this object
+	private final Map<String, PendingEvent> pending = new HashMap<String, PendingEvent>();
+
+	private long receivedCount = 0;
+	private long forwardedCount = 0;
+
+	public MicroclimateEventCoalescer(final String name, IEventTarget target) {
+		this.target = target;
+		this.windowMs = getDefaultWindow();
+		timer = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "Microclimate event coalescer - " + name); //$NON-NLS-1$
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		timer.setRemoveOnCancelPolicy(true);
+	}
+
+	private static int getDefaultWindow() {
+		MicroclimateCorePlugin plugin = MicroclimateCorePlugin.getDefault();
+		if (plugin == null) {
+			return DEFAULT_WINDOW_MS;
+		}
+		return plugin.getPreferenceStore().getInt(MicroclimateCorePlugin.EVENT_COALESCE_WINDOW_PREFSKEY);
+	}
+
+	/**
+	 * Set the coalescing window in milliseconds.  A window of 0 turns coalescing off.
+	 */
+	public void setWindow(int windowMs) {
+		this.windowMs = windowMs;
+	}
+
+	public int getWindow() {
+		return windowMs;
+	}
+
+	public static boolean isCoalescable(String event) {
+		return MicroclimateSocket.EVENT_PROJECT_STATUS_CHANGE.equals(event)
+				|| MicroclimateSocket.EVENT_PROJECT_CHANGED.equals(event);
+	}
+
+	/**
+	 * Add an event that was received now.
+	 */
+	public void add(String event, String projectID, JSONObject data) {
+		add(event, projectID, data, System.nanoTime());
+	}
+
+	/**
+	 * Add an event.  The event is either passed on to the target now, merged
+	 * with a held event or held until the coalescing window expires.
+	 */
+	public synchronized void add(String event, String projectID, JSONObject data, long receivedNanos) {
+		receivedCount++;
+		PendingEvent held = projectID == null ? null : pending.get(projectID);
+
+		if (projectID == null || windowMs <= 0 || !isCoalescable(event)) {
+			if (held != null) {
+				forward(held);
+			}
+			forward(event, projectID, data, receivedNanos);
+			return;
+		}
+
+		if (held != null) {
+			if (held.event.equals(event) && !isBuildStatusChange(held.data, data)) {
+				held.data = merge(held.data, data);
+				return;
+			}
+			forward(held);
+		}
+
+		if (timer.isShutdown()) {
+			forward(event, projectID, data, receivedNanos);
+			return;
+		}
+
+		final PendingEvent newEvent = new PendingEvent(event, projectID, data, receivedNanos);
+		pending.put(projectID, newEvent);
+		timer.schedule(new Runnable() {
+			@Override
+			public void run() {
+				flush(newEvent);
+			}
+		}, windowMs, TimeUnit.MILLISECONDS);
+	}
+
+	private synchronized void flush(PendingEvent event) {
+		if (pending.get(event.projectID) == event) {
+			forward(event);
+		}
+	}
+
+	/**
+	 * Pass on all of the held events now.
+	 */
+	public synchronized void flushAll() {
+		List<PendingEvent> events = new ArrayList<PendingEvent>(pending.values());
+		for (PendingEvent event : events) {
+			forward(event);
+		}
+	}
+
+	/**
+	 * Pass on any held events and stop the timer.
+	 */
+	public void close() {
+		flushAll();
+		timer.shutdownNow();
+		MCLogger.log("Event coalescing statistics: " + this); //$NON-NLS-1$
+	}
+
+	public synchronized long getReceivedCount() {
+		return receivedCount;
+	}
+
+	public synchronized long getForwardedCount() {
+		return forwardedCount;
+	}
+
+	/**
+	 * The number of events received for each event passed on.  A ratio of 1 means
+	 * no events have been merged.
+	 */
+	public synchronized double getCoalescingRatio() {
+		return forwardedCount == 0 ? 1 : (double) (receivedCount - pending.size()) / forwardedCount;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return String.format("%s received=%d forwarded=%d held=%d ratio=%.2f windowMs=%d", //$NON-NLS-1$
+				MicroclimateEventCoalescer.class.getSimpleName(), receivedCount, forwardedCount,
+				pending.size(), getCoalescingRatio(), windowMs);
+	}
+
+	// Must be called while holding the lock
+	private void forward(PendingEvent event) {
+		pending.remove(event.projectID);
+		forward(event.event, event.projectID, event.data, event.receivedNanos);
+	}
+
+	// Must be called while holding the lock so that events are passed on in order
+	private void forward(String event, String projectID, JSONObject data, long receivedNanos) {
+		forwardedCount++;
+		target.eventReady(event, projectID, data, receivedNanos);
+	}
+
+	private static boolean isBuildStatusChange(JSONObject held, JSONObject data) {
+		if (!held.has(MCConstants.KEY_BUILD_STATUS) || !data.has(MCConstants.KEY_BUILD_STATUS)) {
+			return false;
+		}
+		return !held.optString(MCConstants.KEY_BUILD_STATUS).equals(data.optString(MCConstants.KEY_BUILD_STATUS));
+	}
+
+	/**
+	 * Merge the fields of a later event into a copy of the held data, since the held data
+	 * is the payload of an earlier event.
+	 */
+	private static JSONObject merge(JSONObject held, JSONObject data) {
+		JSONObject merged = new JSONObject();
+		putAll(merged, held);
+		putAll(merged, data);
+		// The build detail is read as empty when it is missing, so a later build status
+		// without a detail clears the earlier one
+		if (data.has(MCConstants.KEY_BUILD_STATUS) && !data.has(MCConstants.KEY_DETAILED_BUILD_STATUS)) {
+			merged.remove(MCConstants.KEY_DETAILED_BUILD_STATUS);
+		}
+		return merged;
+	}
+
+	private static void putAll(JSONObject target, JSONObject data) {
+		Iterator<String> keys = data.keys();
+		while (keys.hasNext()) {
+			String key = keys.next();
+			try {
+				target.put(key, data.get(key));
+			} catch (JSONException e) {
+				MCLogger.logError("Failed to merge the " + key + " field for event: " + data, e); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		}
+	}
+
+	private static class PendingEvent {
+		public final String event;
+		public final String projectID;
+		public final long receivedNanos;
+		// Replaced when later events are merged in
+		public JSONObject data;
+
+		public PendingEvent(String event, String projectID, JSONObject data, long receivedNanos) {
+			this.event = event;
+			this.projectID = projectID;
+			this.data = data;
+			this.receivedNanos = receivedNanos;
+		}
+	}
+}
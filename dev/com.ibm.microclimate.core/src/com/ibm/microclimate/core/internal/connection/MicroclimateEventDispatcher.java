@@ -0,0 +1,248 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.core.internal.connection;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.ibm.microclimate.core.internal.MCLogger;
+
+/**
+ * Runs socket event handlers on a pool of worker threads so that a slow handler does not
+ * hold up the socket event thread.  Events with the same key (the project ID) are run one
+ * at a time in the order they were dispatched.  Events for different keys can run in parallel.
+ */
+public class MicroclimateEventDispatcher {
+
+	private static final MCLogger.ClassLogger LOG = MCLogger.forClass(MicroclimateEventDispatcher.class);
+
+	// Key used for events that don't belong to a project
+	public static final String NO_PROJECT_KEY = ""; //$NON-NLS-1$
+
+	private static final int WORKER_THREADS = 4;
+
+	// Maximum number of events to run for one key before giving the worker back to the pool
+	private static final int MAX_BATCH = 16;
+
+	// Handlers that take longer than this are logged
+	private static final long SLOW_HANDLER_MS = 1000;
+
+	private final String name;
+	private final ThreadPoolExecutor executor;
+
+	// All access to the queues is synchronized on the map
+	private final Map<String, SerialQueue> queues = new HashMap<String, SerialQueue>();
+
+	private final AtomicInteger queueDepth = new AtomicInteger();
+	private final AtomicInteger maxQueueDepth = new AtomicInteger();
+	private final AtomicLong eventCount = new AtomicLong();
+	private final AtomicLong totalHandlerNanos = new AtomicLong();
+	private final AtomicLong maxHandlerNanos = new AtomicLong();
+
+	public MicroclimateEventDispatcher(String name) {
+		this.name = name;
+		final AtomicInteger threadCount = new AtomicInteger();
+		executor = new ThreadPoolExecutor(WORKER_THREADS, WORKER_THREADS, 60, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "Microclimate event dispatcher " + threadCount.incrementAndGet() + " - " + name); //$NON-NLS-1$ //$NON-NLS-2$
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		executor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Queue the handler to run after any handlers already dispatched for the same key.
+	 * Returns false if the handler was dropped because the dispatcher is shut down.
+	 */
+	public boolean dispatch(String key, Runnable handler) {
+		if (key == null) {
+			key = NO_PROJECT_KEY;
+		}
+		synchronized (queues) {
+			if (executor.isShutdown()) {
+				LOG.log("Event dispatcher is shut down, dropping event for: " + key); //$NON-NLS-1$
+				return false;
+			}
+			SerialQueue queue = queues.get(key);
+			if (queue == null) {
+				queue = new SerialQueue(key);
+				queues.put(key, queue);
+			}
+			queue.handlers.add(handler);
+			int depth = queueDepth.incrementAndGet();
+			if (depth > maxQueueDepth.get()) {
+				maxQueueDepth.set(depth);
+			}
+			if (!queue.scheduled) {
+				schedule(queue);
+			}
+			return queue.scheduled;
+		}
+	}
+
+	// Must be called while holding the queues lock
+	private void schedule(SerialQueue queue) {
+		try {
+			executor.execute(queue);
+			queue.scheduled = true;
+		} catch (RejectedExecutionException e) {
+			LOG.logError("Failed to schedule the events for: " + queue.key, e); //$NON-NLS-1$
+			queueDepth.addAndGet(-queue.handlers.size());
+			queue.handlers.clear();
+			queue.scheduled = false;
+			queues.remove(queue.key);
+		}
+	}
+
+	/**
+	 * Stop the worker threads.  Handlers that are already queued are still run but any
+	 * new events are dropped.
+	 */
+	public void shutdown() {
+		synchronized (queues) {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Wait for all of the queued handlers to finish.  Returns false if the timeout
+	 * expired first.
+	 */
+	public boolean awaitIdle(long timeoutMs) throws InterruptedException {
+		long end = System.currentTimeMillis() + timeoutMs;
+		while (queueDepth.get() > 0) {
+			if (System.currentTimeMillis() >= end) {
+				return false;
+			}
+			Thread.sleep(10);
+		}
+		return true;
+	}
+
+	/**
+	 * The number of events waiting to be handled or currently being handled.
+	 */
+	public int getQueueDepth() {
+		return queueDepth.get();
+	}
+
+	/**
+	 * The number of events waiting to be handled or currently being handled for the given key.
+	 */
+	public int getQueueDepth(String key) {
+		synchronized (queues) {
+			SerialQueue queue = queues.get(key);
+			return queue == null ? 0 : queue.handlers.size();
+		}
+	}
+
+	public int getMaxQueueDepth() {
+		return maxQueueDepth.get();
+	}
+
+	public long getEventCount() {
+		return eventCount.get();
+	}
+
+	public long getTotalHandlerTimeMs() {
+		return TimeUnit.NANOSECONDS.toMillis(totalHandlerNanos.get());
+	}
+
+	public double getAverageHandlerTimeMs() {
+		long count = eventCount.get();
+		return count == 0 ? 0 : totalHandlerNanos.get() / 1000000.0 / count;
+	}
+
+	public long getMaxHandlerTimeMs() {
+		return TimeUnit.NANOSECONDS.toMillis(maxHandlerNanos.get());
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s@%s events=%d queueDepth=%d maxQueueDepth=%d avgHandlerMs=%.2f maxHandlerMs=%d", //$NON-NLS-1$
+				MicroclimateEventDispatcher.class.getSimpleName(), name, getEventCount(), getQueueDepth(),
+				getMaxQueueDepth(), getAverageHandlerTimeMs(), getMaxHandlerTimeMs());
+	}
+
+	private void runHandler(String key, Runnable handler) {
+		long start = System.nanoTime();
+		try {
+			handler.run();
+		} catch (Throwable t) {
+			LOG.logError("An error occurred handling an event for: " + key, t); //$NON-NLS-1$
+		} finally {
+			long elapsed = System.nanoTime() - start;
+			eventCount.incrementAndGet();
+			totalHandlerNanos.addAndGet(elapsed);
+			long max = maxHandlerNanos.get();
+			while (elapsed > max && !maxHandlerNanos.compareAndSet(max, elapsed)) {
+				max = maxHandlerNanos.get();
+			}
+			long elapsedMs = TimeUnit.NANOSECONDS.toMillis(elapsed);
+			if (elapsedMs > SLOW_HANDLER_MS) {
+				LOG.log("Event handler for " + key + " took " + elapsedMs + "ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			}
+		}
+	}
+
+	/**
+	 * The handlers for one key.  At most one worker runs the queue at a time.
+	 */
+	private class SerialQueue implements Runnable {
+
+		private final String key;
+		private final ArrayDeque<Runnable> handlers = new ArrayDeque<Runnable>();
+		private boolean scheduled = false;
+
+		public SerialQueue(String key) {
+			this.key = key;
+		}
+
+		@Override
+		public void run() {
+			int count = 0;
+			while (true) {
+				Runnable handler;
+				synchronized (queues) {
+					handler = handlers.peek();
+					if (handler == null) {
+						scheduled = false;
+						queues.remove(key);
+						return;
+					}
+					if (count++ == MAX_BATCH && !executor.isShutdown()) {
+						// Give other keys a chance to run
+						schedule(this);
+						return;
+					}
+				}
+				runHandler(key, handler);
+				synchronized (queues) {
+					handlers.poll();
+					queueDepth.decrementAndGet();
+				}
+			}
+		}
+	}
+}
@@ -16,19 +16,33 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 import org.eclipse.osgi.util.NLS;
-import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
 import com.ibm.microclimate.core.internal.MCLogger;
+import com.ibm.microclimate.core.internal.MCMetrics;
 import com.ibm.microclimate.core.internal.MCUtil;
 import com.ibm.microclimate.core.internal.MicroclimateApplication;
+import com.ibm.microclimate.core.internal.connection.events.ContainerLogsEvent;
+import com.ibm.microclimate.core.internal.connection.events.LogUpdateEvent;
+import com.ibm.microclimate.core.internal.connection.events.ProjectChangedEvent;
+import com.ibm.microclimate.core.internal.connection.events.ProjectCreationEvent;
+import com.ibm.microclimate.core.internal.connection.events.ProjectEvent;
+import com.ibm.microclimate.core.internal.connection.events.ProjectRestartEvent;
+import com.ibm.microclimate.core.internal.connection.events.ProjectSettingsEvent;
+import com.ibm.microclimate.core.internal.connection.events.ProjectStatusEvent;
+import com.ibm.microclimate.core.internal.connection.events.ProjectValidatedEvent;
+import com.ibm.microclimate.core.internal.connection.events.ProjectValidatedEvent.ValidationResult;
+import com.ibm.microclimate.core.internal.console.ILogStreamConsole;
 import com.ibm.microclimate.core.internal.console.OldSocketConsole;
-import com.ibm.microclimate.core.internal.console.SocketConsole;
+import com.ibm.microclimate.core.internal.console.ProjectLogInfo;
 import com.ibm.microclimate.core.internal.constants.MCConstants;
 import com.ibm.microclimate.core.internal.constants.ProjectType;
 import com.ibm.microclimate.core.internal.constants.StartMode;
@@ -56,17 +70,26 @@ public class MicroclimateSocket {
 
 	private volatile boolean hasConnected = false;
 
-	private Set<OldSocketConsole> oldSocketConsoles = new HashSet<>();
+	// The event handlers run on the dispatcher threads so these need to be thread safe
+	private final ConsoleRoutingTable<OldSocketConsole> oldSocketConsoles = new ConsoleRoutingTable<OldSocketConsole>();
 	
-	private Set<SocketConsole> socketConsoles = new HashSet<>();
+	private final ConsoleRoutingTable<ILogStreamConsole> socketConsoles = new ConsoleRoutingTable<ILogStreamConsole>();
 	
-	private Map<String, IOperationHandler> projectCreateHandlers = new HashMap<String, IOperationHandler>();
+	private Map<String, IOperationHandler> projectCreateHandlers = new ConcurrentHashMap<String, IOperationHandler>();
 
-	// Track the previous Exception so we don't spam the logs with the same connection failure message
-	private Exception previousException;
+	private final MicroclimateEventDispatcher eventDispatcher;
+
+	private final MicroclimateEventCoalescer eventCoalescer;
+
+	// Set if the raw events are being recorded
+	private volatile EventRecorder eventRecorder;
+
+	// The consoles that have each log stream enabled, keyed by project, log type and log name.
+	// The stream requests are made while holding the lock so they are sent in order.
+	private final Map<String, Set<ILogStreamConsole>> streamUsers = new HashMap<String, Set<ILogStreamConsole>>();
 
 	// SocketIO Event names
-	private static final String
+	public static final String
 			EVENT_PROJECT_CREATION = "projectCreation",				//$NON-NLS-1$
 			EVENT_PROJECT_CHANGED = "projectChanged", 				//$NON-NLS-1$
 			EVENT_PROJECT_STATUS_CHANGE = "projectStatusChanged", 	//$NON-NLS-1$
@@ -78,6 +101,12 @@ public class MicroclimateSocket {
 			EVENT_LOG_UPDATE = "log-update",						//$NON-NLS-1$
 			EVENT_PROJECT_SETTINGS_CHANGED = "projectSettingsChanged";	//$NON-NLS-1$
 
+	public static final String[] PROJECT_EVENTS = {
+			EVENT_PROJECT_CREATION, EVENT_PROJECT_CHANGED, EVENT_PROJECT_SETTINGS_CHANGED,
+			EVENT_PROJECT_STATUS_CHANGE, EVENT_PROJECT_RESTART, EVENT_PROJECT_CLOSED,
+			EVENT_PROJECT_DELETION, EVENT_CONTAINER_LOGS, EVENT_LOG_UPDATE, EVENT_PROJECT_VALIDATED
+	};
+
 	public MicroclimateSocket(MicroclimateConnection mcConnection) throws URISyntaxException {
 		this.mcConnection = mcConnection;
 		
@@ -86,6 +115,8 @@ public class MicroclimateSocket {
 			uri = uri.resolve(mcConnection.getSocketNamespace());
 		}
 		socketUri = uri;
+		eventDispatcher = new MicroclimateEventDispatcher(socketUri.toString());
+		eventCoalescer = createEventCoalescer();
 
 		socket = IO.socket(socketUri);
 		
@@ -99,7 +130,7 @@ public class MicroclimateSocket {
 				}
 				if (hasLostConnection) {
 					mcConnection.clearConnectionError();
-					previousException = null;
+					MCLogger.clearRepeatedErrors(getConnectErrorSite());
 				}
 			}
 		})
@@ -108,10 +139,7 @@ public class MicroclimateSocket {
 			public void call(Object... arg0) {
 				if (arg0[0] instanceof Exception) {
 					Exception e = (Exception) arg0[0];
-					if (previousException == null || !e.getMessage().equals(previousException.getMessage())) {
-						previousException = e;
-						MCLogger.logError("SocketIO Connect Error @ " + socketUri, e); //$NON-NLS-1$
-					}
+					MCLogger.logRepeatedError(getConnectErrorSite(), "SocketIO Connect Error @ " + socketUri, e); //$NON-NLS-1$
 				}
 				mcConnection.onConnectionError();
 				hasLostConnection = true;
@@ -128,150 +156,226 @@ public class MicroclimateSocket {
 		})
 		.on(Socket.EVENT_MESSAGE, new Emitter.Listener() {
 			@Override
-			public void call(Object... arg0) {
+			public void call(final Object... arg0) {
 				// Don't think this is ever used
-				MCLogger.log("SocketIO EVENT_MESSAGE " + arg0[0].toString()); //$NON-NLS-1$
+				MCLogger.log(new Supplier<String>() {
+					@Override
+					public String get() {
+						return "SocketIO EVENT_MESSAGE " + arg0[0].toString(); //$NON-NLS-1$
+					}
+				});
 			}
-		})
-		.on(EVENT_PROJECT_CREATION, new Emitter.Listener() {
-			@Override
-			public void call(Object... arg0) {
-				MCLogger.log(EVENT_PROJECT_CREATION + ": " + arg0[0].toString()); //$NON-NLS-1$
-
-				try {
-					JSONObject event = new JSONObject(arg0[0].toString());
-					onProjectCreation(event);
-				} catch (JSONException e) {
-					MCLogger.logError("Error parsing JSON: " + arg0[0].toString(), e); //$NON-NLS-1$
+		});
+		
+		for (final String event : PROJECT_EVENTS) {
+			socket.on(event, new Emitter.Listener() {
+				@Override
+				public void call(Object... arg0) {
+					EventRecorder recorder = eventRecorder;
+					if (recorder != null) {
+						recorder.record(event, arg0[0]);
+					}
+					dispatchEvent(event, arg0[0]);
 				}
-			}
-		})
-		.on(EVENT_PROJECT_CHANGED, new Emitter.Listener() {
-			@Override
-			public void call(Object... arg0) {
-				MCLogger.log(EVENT_PROJECT_CHANGED + ": " + arg0[0].toString()); //$NON-NLS-1$
+			});
+		}
 
-				try {
-					JSONObject event = new JSONObject(arg0[0].toString());
-					onProjectChanged(event);
-				} catch (JSONException e) {
-					MCLogger.logError("Error parsing JSON: " + arg0[0].toString(), e); //$NON-NLS-1$
-				}
-			}
-		})
-		.on(EVENT_PROJECT_SETTINGS_CHANGED, new Emitter.Listener() {
-			@Override
-			public void call(Object... arg0) {
-				MCLogger.log(EVENT_PROJECT_SETTINGS_CHANGED + ": " + arg0[0].toString()); //$NON-NLS-1$
+		socket.connect();
 
-				try {
-					JSONObject event = new JSONObject(arg0[0].toString());
-					onProjectSettingsChanged(event);
-				} catch (JSONException e) {
-					MCLogger.logError("Error parsing JSON: " + arg0[0].toString(), e); //$NON-NLS-1$
-				}
-			}
-		})
-		.on(EVENT_PROJECT_STATUS_CHANGE, new Emitter.Listener() {
-			@Override
-			public void call(Object... arg0) {
-				MCLogger.log(EVENT_PROJECT_STATUS_CHANGE + ": " + arg0[0].toString()); //$NON-NLS-1$
+		MCLogger.log("Created MicroclimateSocket connected to " + socketUri); //$NON-NLS-1$
+	}
+	
+	// The connection failures are logged from this site so that the same failure doesn't spam the logs
+	private String getConnectErrorSite() {
+		return "MicroclimateSocket " + socketUri; //$NON-NLS-1$
+	}
 
-				try {
-					JSONObject event = new JSONObject(arg0[0].toString());
-					onProjectStatusChanged(event);
-				} catch (JSONException e) {
-					MCLogger.logError("Error parsing JSON: " + arg0[0].toString(), e); //$NON-NLS-1$
-				}
-			}
-		})
-		.on(EVENT_PROJECT_RESTART, new Emitter.Listener() {
-			@Override
-			public void call(Object... arg0) {
-				MCLogger.log(EVENT_PROJECT_RESTART + ": " + arg0[0].toString()); //$NON-NLS-1$
+	/**
+	 * Create a socket that is not connected to Microclimate.  Events can be passed
+	 * in using processEvent.  For testing only.
+	 */
+	MicroclimateSocket(MicroclimateConnection mcConnection, URI socketUri) {
+		this.mcConnection = mcConnection;
+		this.socketUri = socketUri;
+		this.socket = null;
+		this.hasConnected = true;
+		this.eventDispatcher = new MicroclimateEventDispatcher(socketUri.toString());
+		this.eventCoalescer = createEventCoalescer();
+	}
 
-				try {
-					JSONObject event = new JSONObject(arg0[0].toString());
-					onProjectRestart(event);
-				} catch (JSONException e) {
-					MCLogger.logError("Error parsing JSON: " + arg0[0].toString(), e); //$NON-NLS-1$
-				}
-			}
-		})
-		.on(EVENT_PROJECT_CLOSED, new Emitter.Listener() {
+	private MicroclimateEventCoalescer createEventCoalescer() {
+		return new MicroclimateEventCoalescer(socketUri.toString(), new MicroclimateEventCoalescer.IEventTarget() {
 			@Override
-			public void call(Object... arg0) {
-				MCLogger.log(EVENT_PROJECT_CLOSED + ": " + arg0[0].toString()); //$NON-NLS-1$
-
-				try {
-					JSONObject event = new JSONObject(arg0[0].toString());
-					onProjectClosed(event);
-				} catch (JSONException e) {
-					MCLogger.logError("Error parsing JSON: " + arg0[0].toString(), e); //$NON-NLS-1$
-				}
+			public void eventReady(String event, String projectID, JSONObject data, long receivedNanos) {
+				dispatchToHandler(event, projectID, data, receivedNanos);
 			}
-		})
-		.on(EVENT_PROJECT_DELETION, new Emitter.Listener() {
-			@Override
-			public void call(Object... arg0) {
-				MCLogger.log(EVENT_PROJECT_DELETION + ": " + arg0[0].toString()); //$NON-NLS-1$
-
-				try {
-					JSONObject event = new JSONObject(arg0[0].toString());
-					onProjectDeletion(event);
-				} catch (JSONException e) {
-					MCLogger.logError("Error parsing JSON: " + arg0[0].toString(), e); //$NON-NLS-1$
-				}
+		});
+	}
+	
+	/**
+	 * Hand the event off to the event dispatcher so that the socket thread is not blocked
+	 * while it is processed.  Events for the same project are processed in order.  Bursts
+	 * of status events for a project are merged by the event coalescer first.
+	 */
+	public void dispatchEvent(final String event, final Object data) {
+		long receivedNanos = System.nanoTime();
+		MCMetrics.get(MCMetrics.SOCKET_PREFIX + event).increment(getPayloadSize(data));
+		JSONObject eventObj = null;
+		if (data instanceof JSONObject) {
+			eventObj = (JSONObject) data;
+		} else if (data != null) {
+			try {
+				eventObj = new JSONObject(data.toString());
+			} catch (JSONException e) {
+				// Let processEvent report the error
 			}
-		})
-		.on(EVENT_CONTAINER_LOGS, new Emitter.Listener() {
+		}
+		if (eventObj == null) {
+			dispatchToHandler(event, null, data, receivedNanos);
+			return;
+		}
+		String projectID = eventObj.optString(MCConstants.KEY_PROJECT_ID, null);
+		if (!EVENT_CONTAINER_LOGS.equals(event) && !EVENT_LOG_UPDATE.equals(event)) {
+			// Log events don't change the project state so they are not tracked
+			mcConnection.getEventTracker().eventReceived(projectID);
+		}
+		eventCoalescer.add(event, projectID, eventObj, receivedNanos);
+	}
+
+	private void dispatchToHandler(final String event, String projectID, final Object data, final long receivedNanos) {
+		eventDispatcher.dispatch(projectID, new Runnable() {
 			@Override
-			public void call(Object... arg0) {
-				// can't print this whole thing because the logs strings flood the output
-				MCLogger.log(EVENT_CONTAINER_LOGS);
-
-				try {
-					JSONObject event = new JSONObject(arg0[0].toString());
-					onContainerLogs(event);
-				} catch (JSONException e) {
-					MCLogger.logError("Error parsing JSON: " + arg0[0].toString(), e); //$NON-NLS-1$
-				}
+			public void run() {
+				processEvent(event, data, receivedNanos);
 			}
-		})
-		.on(EVENT_LOG_UPDATE, new Emitter.Listener() {
-			@Override
-			public void call(Object... arg0) {
-				// can't print this whole thing because the logs strings flood the output
-				MCLogger.log(EVENT_LOG_UPDATE);
-
-				try {
-					JSONObject event = new JSONObject(arg0[0].toString());
-					onLogUpdate(event);
-				} catch (JSONException e) {
-					MCLogger.logError("Error parsing JSON: " + arg0[0].toString(), e); //$NON-NLS-1$
-				}
+		});
+	}
+
+	/**
+	 * The size of the event payload for the metrics.  Socket.IO hands over the payload already
+	 * parsed so rather than serializing it again this adds up the top level keys and string
+	 * values, which is close for the events that matter (the log events).
+	 */
+	private static long getPayloadSize(Object data) {
+		if (data instanceof JSONObject) {
+			JSONObject obj = (JSONObject) data;
+			long size = 0;
+			Iterator<String> keys = obj.keys();
+			while (keys.hasNext()) {
+				String key = keys.next();
+				Object value = obj.opt(key);
+				size += key.length() + (value instanceof String ? ((String) value).length() : 0);
 			}
-		})
-		.on(EVENT_PROJECT_VALIDATED, new Emitter.Listener() {
-			@Override
-			public void call(Object... arg0) {
-				MCLogger.log(EVENT_PROJECT_VALIDATED + ": " + arg0[0].toString()); //$NON-NLS-1$
+			return size;
+		}
+		return data == null ? 0 : data.toString().length();
+	}
+	
+	public MicroclimateEventDispatcher getEventDispatcher() {
+		return eventDispatcher;
+	}
 
-				try {
-					JSONObject event = new JSONObject(arg0[0].toString());
-					onValidationEvent(event);
-				} catch (JSONException e) {
-					MCLogger.logError("Error parsing JSON: " + arg0[0].toString(), e); //$NON-NLS-1$
-				}
+	public MicroclimateEventCoalescer getEventCoalescer() {
+		return eventCoalescer;
+	}
+
+	/**
+	 * Record the events received from now on, or stop recording if the recorder is null.
+	 * The caller is responsible for closing the recorder.
+	 */
+	public void setEventRecorder(EventRecorder recorder) {
+		this.eventRecorder = recorder;
+	}
+
+	public EventRecorder getEventRecorder() {
+		return eventRecorder;
+	}
+	
+	/**
+	 * Process a Microclimate project event on the calling thread.  The socket listeners
+	 * use dispatchEvent instead so that events are processed on the dispatcher threads.
+	 * The payload is decoded once into a ProjectEvent which is passed to the handler.
+	 */
+	public void processEvent(String event, Object data) {
+		processEvent(event, data, System.nanoTime());
+	}
+
+	private void processEvent(String event, Object data, long receivedNanos) {
+		MCMetrics.Metric metric = MCMetrics.get(MCMetrics.SOCKET_PREFIX + event);
+		long start = System.nanoTime();
+		ProjectEvent projectEvent;
+		try {
+			JSONObject eventObj = data instanceof JSONObject ? (JSONObject) data : new JSONObject(data.toString());
+			projectEvent = ProjectEvent.decode(event, eventObj);
+		} catch (JSONException e) {
+			metric.error();
+			MCLogger.logError("Error parsing JSON for the " + event + " event: " + data, e); //$NON-NLS-1$ //$NON-NLS-2$
+			return;
+		}
+		metric.getTimer(MCMetrics.PARSE).record(System.nanoTime() - start);
+
+		final ProjectEvent loggedEvent = projectEvent;
+		MCLogger.log(new Supplier<String>() {
+			@Override
+			public String get() {
+				return loggedEvent.toString();
 			}
 		});
 
-		socket.connect();
+		// The timing is picked up by the UI update handler to record the lag until the views are refreshed
+		MCMetrics.EventTiming timing = MCMetrics.beginEvent(metric, receivedNanos);
+		start = System.nanoTime();
+		try {
+			handleEvent(event, projectEvent);
+		} finally {
+			metric.getTimer(MCMetrics.HANDLER).record(System.nanoTime() - start);
+			timing.recordLag(MCMetrics.MODEL_LAG);
+			MCMetrics.endEvent();
+		}
+	}
 
-		MCLogger.log("Created MicroclimateSocket connected to " + socketUri); //$NON-NLS-1$
+	private void handleEvent(String event, ProjectEvent projectEvent) {
+		switch (event) {
+			case EVENT_PROJECT_CREATION:
+				onProjectCreation((ProjectCreationEvent) projectEvent);
+				break;
+			case EVENT_PROJECT_CHANGED:
+				onProjectChanged((ProjectChangedEvent) projectEvent);
+				break;
+			case EVENT_PROJECT_SETTINGS_CHANGED:
+				onProjectSettingsChanged((ProjectSettingsEvent) projectEvent);
+				break;
+			case EVENT_PROJECT_STATUS_CHANGE:
+				onProjectStatusChanged((ProjectStatusEvent) projectEvent);
+				break;
+			case EVENT_PROJECT_RESTART:
+				onProjectRestart((ProjectRestartEvent) projectEvent);
+				break;
+			case EVENT_PROJECT_CLOSED:
+				onProjectClosed(projectEvent);
+				break;
+			case EVENT_PROJECT_DELETION:
+				onProjectDeletion(projectEvent);
+				break;
+			case EVENT_CONTAINER_LOGS:
+				onContainerLogs((ContainerLogsEvent) projectEvent);
+				break;
+			case EVENT_LOG_UPDATE:
+				onLogUpdate((LogUpdateEvent) projectEvent);
+				break;
+			case EVENT_PROJECT_VALIDATED:
+				onValidationEvent((ProjectValidatedEvent) projectEvent);
+				break;
+			default:
+				MCLogger.logError("Unrecognized event: " + event); //$NON-NLS-1$
+		}
 	}
 	
 	public void close() {
+		eventCoalescer.close();
+		MCLogger.log("Closing socket, event dispatch statistics: " + eventDispatcher); //$NON-NLS-1$
+		MCLogger.log("Metrics:\n" + MCMetrics.getReport()); //$NON-NLS-1$
+		eventDispatcher.shutdown();
 		if (socket != null) {
 			if (socket.connected()) {
 				socket.disconnect();
@@ -280,8 +384,8 @@ public class MicroclimateSocket {
 		}
 	}
 	
-	private void onProjectCreation(JSONObject event) throws JSONException {
-		String projectID = event.getString(MCConstants.KEY_PROJECT_ID);
+	private void onProjectCreation(ProjectCreationEvent event) {
+		String projectID = event.projectID;
 		mcConnection.refreshApps(projectID);
 		MicroclimateApplication app = mcConnection.getAppByID(projectID);
 		if (app != null) {
@@ -290,17 +394,16 @@ public class MicroclimateSocket {
 			MCLogger.logError("No application found matching the project id for the project creation event: " + projectID); //$NON-NLS-1$
 		}
 		MCUtil.updateConnection(mcConnection);
-		String projectName = event.has(MCConstants.KEY_NAME) ? event.getString(MCConstants.KEY_NAME) : null;
-		if (projectName != null) {
-			IOperationHandler handler = projectCreateHandlers.get(projectName);
+		if (event.projectName != null) {
+			IOperationHandler handler = projectCreateHandlers.get(event.projectName);
 			if (handler != null) {
 				handler.operationComplete(true, null);
 			}
 		}
 	}
 
-	private void onProjectChanged(JSONObject event) throws JSONException {
-		String projectID = event.getString(MCConstants.KEY_PROJECT_ID);
+	private void onProjectChanged(ProjectChangedEvent event) {
+		String projectID = event.projectID;
 		MicroclimateApplication app = mcConnection.getAppByID(projectID);
 		if (app == null) {
 			MCLogger.logError("No application found matching the project id for the project changed event: " + projectID); //$NON-NLS-1$
@@ -310,40 +413,27 @@ public class MicroclimateSocket {
 		app.setEnabled(true);
 		
 		// Update container id
-		String containerId = null;
-		if (event.has(MCConstants.KEY_CONTAINER_ID)) {
-		    containerId = event.getString(MCConstants.KEY_CONTAINER_ID);
-		}
-		app.setContainerId(containerId);
+		app.setContainerId(event.containerID);
 	
         // Update ports
-        JSONObject portsObj = event.getJSONObject(MCConstants.KEY_PORTS);
-
-        if (portsObj != null && portsObj.has(MCConstants.KEY_EXPOSED_PORT)) {
-        	int port = MCUtil.parsePort(portsObj.getString(MCConstants.KEY_EXPOSED_PORT));
-    		app.setHttpPort(port);
+        if (event.hasHttpPort) {
+    		app.setHttpPort(event.httpPort);
         } else {
         	MCLogger.logError("No http port on project changed event for: " + app.name); //$NON-NLS-1$
         }
 
-		if (portsObj != null && portsObj.has(MCConstants.KEY_EXPOSED_DEBUG_PORT)) {
-			int debugPort = MCUtil.parsePort(portsObj.getString(MCConstants.KEY_EXPOSED_DEBUG_PORT));
-			app.setDebugPort(debugPort);
-			if (StartMode.DEBUG_MODES.contains(app.getStartMode()) && debugPort != -1) {
-				app.reconnectDebugger();
-			}
-		} else {
-			app.setDebugPort(-1);
+		app.setDebugPort(event.debugPort);
+		if (event.debugPort != -1 && StartMode.DEBUG_MODES.contains(app.getStartMode())) {
+			app.reconnectDebugger();
 		}
 		
-		if (event.has(MCConstants.KEY_AUTO_BUILD)) {
-			boolean autoBuild = event.getBoolean(MCConstants.KEY_AUTO_BUILD);
-			app.setAutoBuild(autoBuild);
+		if (event.hasAutoBuild) {
+			app.setAutoBuild(event.autoBuild);
 		}
 	}
 	
-	private void onProjectSettingsChanged(JSONObject event) throws JSONException {
-		String projectID = event.getString(MCConstants.KEY_PROJECT_ID);
+	private void onProjectSettingsChanged(ProjectSettingsEvent event) {
+		String projectID = event.projectID;
 		MicroclimateApplication app = mcConnection.getAppByID(projectID);
 		if (app == null) {
 			MCLogger.logError("No application found matching the project id for the project settings changed event: " + projectID); //$NON-NLS-1$
@@ -353,15 +443,15 @@ public class MicroclimateSocket {
 		app.setEnabled(true);
 		
 		// Update context root
-		if (event.has(MCConstants.KEY_CONTEXT_ROOT)) {
-			app.setContextRoot(event.getString(MCConstants.KEY_CONTEXT_ROOT));
+		if (event.contextRoot != null) {
+			app.setContextRoot(event.contextRoot);
 		}
 		
 		// TODO: need to update ports?
 	}
 
-	private void onProjectStatusChanged(JSONObject event) throws JSONException {
-		String projectID = event.getString(MCConstants.KEY_PROJECT_ID);
+	private void onProjectStatusChanged(ProjectStatusEvent event) {
+		String projectID = event.projectID;
 		MicroclimateApplication app = mcConnection.getAppByID(projectID);
 		if (app == null) {
 			// Likely a new project is being created
@@ -372,26 +462,20 @@ public class MicroclimateSocket {
 		
 		app.setEnabled(true);
 		
-		if (event.has(MCConstants.KEY_APP_STATUS)) {
-			String appStatus = event.getString(MCConstants.KEY_APP_STATUS);
-			app.setAppStatus(appStatus);
+		if (event.appStatus != null) {
+			app.setAppStatus(event.appStatus);
 		}
 
 		// Update build status if the project is not started or starting.
-		if (event.has(MCConstants.KEY_BUILD_STATUS)) {
-			String buildStatus = event.getString(MCConstants.KEY_BUILD_STATUS);
-			String detail = ""; //$NON-NLS-1$
-			if (event.has(MCConstants.KEY_DETAILED_BUILD_STATUS)) {
-				detail = event.getString(MCConstants.KEY_DETAILED_BUILD_STATUS);
-			}
-			app.setBuildStatus(buildStatus, detail);
+		if (event.buildStatus != null) {
+			app.setBuildStatus(event.buildStatus, event.buildDetail);
 		}
 		
 		MCUtil.updateApplication(app);
 	}
 
-	private void onProjectRestart(JSONObject event) throws JSONException {
-		String projectID = event.getString(MCConstants.KEY_PROJECT_ID);
+	private void onProjectRestart(ProjectRestartEvent event) {
+		String projectID = event.projectID;
 		MicroclimateApplication app = mcConnection.getAppByID(projectID);
 		if (app == null) {
 			MCLogger.logError("No application found matching the project id for the project restart event: " + projectID); //$NON-NLS-1$
@@ -400,35 +484,26 @@ public class MicroclimateSocket {
 		
 		app.setEnabled(true);
 		
-		String status = event.getString(MCConstants.KEY_STATUS);
-		if (!MCConstants.REQUEST_STATUS_SUCCESS.equalsIgnoreCase(status)) {
+		if (!event.isSuccess()) {
 			MCLogger.logError("Project restart failed on the application: " + event.toString()); //$NON-NLS-1$
 			MCUtil.openDialog(true,
 					Messages.MicroclimateSocket_ErrRestartingProjectDialogTitle,
 					NLS.bind(Messages.MicroclimateSocket_ErrRestartingProjectDialogMsg,
-							app.name, status));
+							app.name, event.status));
 			return;
 		}
 
-		// This event should always have a 'ports' sub-object
-		JSONObject portsObj = event.getJSONObject(MCConstants.KEY_PORTS);
-
 		// The ports object should always have an http port
-		if (portsObj != null && portsObj.has(MCConstants.KEY_EXPOSED_PORT)) {
-			int port = MCUtil.parsePort(portsObj.getString(MCConstants.KEY_EXPOSED_PORT));
-			app.setHttpPort(port);
+		if (event.hasHttpPort) {
+			app.setHttpPort(event.httpPort);
 		} else {
 			MCLogger.logError("No http port on project restart event for: " + app.name); //$NON-NLS-1$
 		}
 
-		// Debug port will be missing if the restart was into Run mode.
-		int debugPort = -1;
-		if (portsObj != null && portsObj.has(MCConstants.KEY_EXPOSED_DEBUG_PORT)) {
-			debugPort = MCUtil.parsePort(portsObj.getString(MCConstants.KEY_EXPOSED_DEBUG_PORT));
-		}
-		app.setDebugPort(debugPort);
+		// Debug port will be -1 if the restart was into Run mode.
+		app.setDebugPort(event.debugPort);
 		
-		StartMode startMode = StartMode.get(event);
+		StartMode startMode = event.startMode;
 		app.setStartMode(startMode);
 		
 		// Update the application
@@ -437,13 +512,13 @@ public class MicroclimateSocket {
 		// Make sure no old debugger is running
 		app.clearDebugger();
 		
-		if (StartMode.DEBUG_MODES.contains(startMode) && debugPort != -1) {
+		if (StartMode.DEBUG_MODES.contains(startMode) && event.debugPort != -1) {
 			app.connectDebugger();
 		}
 	}
 	
-	private void onProjectClosed(JSONObject event) throws JSONException {
-		String projectID = event.getString(MCConstants.KEY_PROJECT_ID);
+	private void onProjectClosed(ProjectEvent event) {
+		String projectID = event.projectID;
 		MicroclimateApplication app = mcConnection.getAppByID(projectID);
 		if (app == null) {
 			MCLogger.logError("No application found for project being closed: " + projectID); //$NON-NLS-1$
@@ -453,8 +528,8 @@ public class MicroclimateSocket {
 		MCUtil.updateConnection(mcConnection);
 	}
 
-	private void onProjectDeletion(JSONObject event) throws JSONException {
-		String projectID = event.getString(MCConstants.KEY_PROJECT_ID);
+	private void onProjectDeletion(ProjectEvent event) {
+		String projectID = event.projectID;
 		MicroclimateApplication app = mcConnection.removeApp(projectID);
 		if (app == null) {
 			MCLogger.logError("No application found for project being deleted: " + projectID); //$NON-NLS-1$
@@ -466,20 +541,75 @@ public class MicroclimateSocket {
 
 	public void registerOldSocketConsole(OldSocketConsole console) {
 		MCLogger.log("Register socketConsole for projectID " + console.projectID); //$NON-NLS-1$
-		this.oldSocketConsoles.add(console);
+		this.oldSocketConsoles.register(console.projectID, null, null, console);
 	}
 
 	public void deregisterOldSocketConsole(OldSocketConsole console) {
-		this.oldSocketConsoles.remove(console);
+		this.oldSocketConsoles.deregister(console.projectID, null, null, console);
 	}
 	
-	public void registerSocketConsole(SocketConsole console) {
-		MCLogger.log("Register socketConsole for project: " + console.app.name); //$NON-NLS-1$
-		this.socketConsoles.add(console);
+	/**
+	 * Send the log-update events for the log to the console, and enable the log stream unless
+	 * another console already has it enabled.  If the stream can't be enabled the console is
+	 * not registered.
+	 */
+	public void openLogStream(MicroclimateApplication app, ProjectLogInfo logInfo, ILogStreamConsole console) throws IOException {
+		MCLogger.log("Register the " + logInfo.logName + " log console for project: " + app.name); //$NON-NLS-1$ //$NON-NLS-2$
+		this.socketConsoles.register(app.projectID, logInfo.type, logInfo.logName, console);
+		try {
+			resumeLogStream(app, logInfo, console);
+		} catch (IOException e) {
+			this.socketConsoles.deregister(app.projectID, logInfo.type, logInfo.logName, console);
+			throw e;
+		}
+	}
+
+	/**
+	 * Stop sending the log-update events for the log to the console.  The log stream is only
+	 * disabled if no other console is using it.
+	 */
+	public void closeLogStream(MicroclimateApplication app, ProjectLogInfo logInfo, ILogStreamConsole console) throws IOException {
+		this.socketConsoles.deregister(app.projectID, logInfo.type, logInfo.logName, console);
+		pauseLogStream(app, logInfo, console);
 	}
 
-	public void deregisterSocketConsole(SocketConsole console) {
-		this.socketConsoles.remove(console);
+	/**
+	 * The console no longer needs the log stream for now.  The stream is only disabled once
+	 * every console for the log has paused or closed, so one console can't stop another's output.
+	 */
+	public void pauseLogStream(MicroclimateApplication app, ProjectLogInfo logInfo, ILogStreamConsole console) throws IOException {
+		String key = getStreamKey(app.projectID, logInfo);
+		synchronized (streamUsers) {
+			Set<ILogStreamConsole> users = streamUsers.get(key);
+			if (users == null || !users.remove(console)) {
+				return;
+			}
+			if (users.isEmpty()) {
+				streamUsers.remove(key);
+				mcConnection.requestDisableLogStream(app, logInfo);
+			}
+		}
+	}
+
+	/**
+	 * The console needs the log stream again.  The stream is enabled if no other console is using it.
+	 */
+	public void resumeLogStream(MicroclimateApplication app, ProjectLogInfo logInfo, ILogStreamConsole console) throws IOException {
+		String key = getStreamKey(app.projectID, logInfo);
+		synchronized (streamUsers) {
+			Set<ILogStreamConsole> users = streamUsers.get(key);
+			if (users == null) {
+				// Only keep track of the users once the stream has been enabled
+				mcConnection.requestEnableLogStream(app, logInfo);
+				users = new HashSet<ILogStreamConsole>();
+				streamUsers.put(key, users);
+			}
+			users.add(console);
+		}
+	}
+
+	private static String getStreamKey(String projectID, ProjectLogInfo logInfo) {
+		return projectID + '/' + logInfo.type + '/' + logInfo.logName;
 	}
 	
 	public void registerProjectCreateHandler(String projectName, IOperationHandler handler) {
@@ -490,45 +620,39 @@ public class MicroclimateSocket {
 		this.projectCreateHandlers.remove(projectName);
 	}
 
-	private void onContainerLogs(JSONObject event) throws JSONException {
-		String projectID = event.getString(MCConstants.KEY_PROJECT_ID);
-		String logContents = event.getString(MCConstants.KEY_LOGS);
+	private void onContainerLogs(ContainerLogsEvent event) {
+		String projectID = event.projectID;
+		String logContents = event.logs;
 		MCLogger.log("Update logs for project " + projectID); //$NON-NLS-1$
 
-		for (OldSocketConsole console : this.oldSocketConsoles) {
-			if (console.projectID.equals(projectID)) {
-				try {
-					console.update(logContents);
-				}
-				catch(IOException e) {
-					MCLogger.logError("Error updating console " + console.getName(), e);	// $NON-NLS-1$
-				}
+		for (OldSocketConsole console : this.oldSocketConsoles.get(projectID, null, null)) {
+			try {
+				console.update(logContents);
+			}
+			catch(IOException e) {
+				MCLogger.logError("Error updating console " + console.getName(), e);	// $NON-NLS-1$
 			}
 		}
 	}
 	
-	private void onLogUpdate(JSONObject event) throws JSONException {
-		String projectID = event.getString(MCConstants.KEY_PROJECT_ID);
-		String type = event.getString(MCConstants.KEY_LOG_TYPE);
-		String logName = event.getString(MCConstants.KEY_LOG_NAME);
+	private void onLogUpdate(LogUpdateEvent event) {
+		String projectID = event.projectID;
+		String type = event.logType;
+		String logName = event.logName;
 		MCLogger.log("Update the " + logName + " log for project: " + projectID); //$NON-NLS-1$ //$NON-NLS-2$
 
-		for (SocketConsole console : this.socketConsoles) {
-			if (console.app.projectID.equals(projectID) && console.logInfo.isThisLogInfo(type, logName)) {
-				try {
-					String logContents = event.getString(MCConstants.KEY_LOGS);
-					boolean reset = event.getBoolean(MCConstants.KEY_LOG_RESET);
-					console.update(logContents, reset);
-				}
-				catch(IOException e) {
-					MCLogger.logError("Error updating console " + console.getName(), e);	// $NON-NLS-1$
-				}
+		for (ILogStreamConsole console : this.socketConsoles.get(projectID, type, logName)) {
+			try {
+				console.update(event.logs, event.reset);
+			}
+			catch(IOException e) {
+				MCLogger.logError("Error updating console " + console.getName(), e);	// $NON-NLS-1$
 			}
 		}
 	}
 	
-	private void onValidationEvent(JSONObject event) throws JSONException {
-		String projectID = event.getString(MCConstants.KEY_PROJECT_ID);
+	private void onValidationEvent(ProjectValidatedEvent event) {
+		String projectID = event.projectID;
 		MicroclimateApplication app = mcConnection.getAppByID(projectID);
 		if (app == null) {
 			MCLogger.logError("No application found for project: " + projectID); //$NON-NLS-1$
@@ -539,36 +663,24 @@ public class MicroclimateSocket {
 		app.resetValidation();
 		
 		// If the validation is successful then just return
-		String status = event.getString(MCConstants.KEY_VALIDATION_STATUS);
-		if (MCConstants.VALUE_STATUS_SUCCESS.equals(status)) {
+		if (event.isSuccess()) {
 			// Nothing to do
 			return;
 		}
 		
 		// If the validation is not successful, create validation objects for each problem
-		if (event.has(MCConstants.KEY_VALIDATION_RESULTS)) {
-			JSONArray results = event.getJSONArray(MCConstants.KEY_VALIDATION_RESULTS);
-			for (int i = 0; i < results.length(); i++) {
-				JSONObject result = results.getJSONObject(i);
-				String severity = result.getString(MCConstants.KEY_SEVERITY);
-				String filename = result.getString(MCConstants.KEY_FILENAME);
-				String filepath = result.getString(MCConstants.KEY_FILEPATH);
-				String type = null;
-				if (result.has(MCConstants.KEY_TYPE)) {
-					type = result.getString(MCConstants.KEY_TYPE);
-				}
-				String details = result.getString(MCConstants.KEY_DETAILS);
+		if (event.results != null) {
+			for (ValidationResult result : event.results) {
 				String quickFixId = null;
 				String quickFixDescription = null;
-				if (result.has(MCConstants.KEY_QUICKFIX) && supportsQuickFix(app, type, filename)) {
-					JSONObject quickFix = result.getJSONObject(MCConstants.KEY_QUICKFIX);
-					quickFixId = quickFix.getString(MCConstants.KEY_FIXID);
-					quickFixDescription = quickFix.getString(MCConstants.KEY_DESCRIPTION);
+				if (result.quickFixId != null && supportsQuickFix(app, result.type, result.filename)) {
+					quickFixId = result.quickFixId;
+					quickFixDescription = result.quickFixDescription;
 				}
-				if (MCConstants.VALUE_SEVERITY_WARNING.equals(severity)) {
-					app.validationWarning(filepath, details, quickFixId, quickFixDescription);
+				if (result.isWarning()) {
+					app.validationWarning(result.filepath, result.details, quickFixId, quickFixDescription);
 				} else {
-					app.validationError(filepath, details, quickFixId, quickFixDescription);
+					app.validationError(result.filepath, result.details, quickFixId, quickFixDescription);
 				}
 			}
 		} else {
@@ -0,0 +1,31 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.core.internal.connection.events;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import com.ibm.microclimate.core.internal.constants.MCConstants;
+
+/**
+ * The container-logs event used by older versions of Microclimate.
+ */
+public class ContainerLogsEvent extends ProjectEvent {
+
+	// The whole log so far, not copied from the event payload
+	public final String logs;
+
+	ContainerLogsEvent(String event, JSONObject obj) throws JSONException {
+		super(event, obj);
+		logs = obj.getString(MCConstants.KEY_LOGS);
+	}
+}
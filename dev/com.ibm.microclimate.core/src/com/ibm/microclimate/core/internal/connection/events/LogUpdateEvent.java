@@ -0,0 +1,43 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.core.internal.connection.events;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import com.ibm.microclimate.core.internal.constants.MCConstants;
+
+/**
+ * The log-update event.
+ */
+public class LogUpdateEvent extends ProjectEvent {
+
+	public final String logType;
+	public final String logName;
+	// The new log contents, not copied from the event payload
+	public final String logs;
+	// If true the logs replace the current contents of the log
+	public final boolean reset;
+
+	LogUpdateEvent(String event, JSONObject obj) throws JSONException {
+		super(event, obj);
+		logType = obj.getString(MCConstants.KEY_LOG_TYPE);
+		logName = obj.getString(MCConstants.KEY_LOG_NAME);
+		logs = obj.getString(MCConstants.KEY_LOGS);
+		reset = obj.getBoolean(MCConstants.KEY_LOG_RESET);
+	}
+
+	@Override
+	public String toString() {
+		return event + ": " + projectID + " " + logType + "/" + logName + " length=" + logs.length() + " reset=" + reset; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+	}
+}
@@ -0,0 +1,42 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.core.internal.connection.events;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import com.ibm.microclimate.core.internal.constants.MCConstants;
+
+/**
+ * The projectChanged event.  The ports are -1 if they are not in the event.
+ */
+public class ProjectChangedEvent extends ProjectEvent {
+
+	public final String containerID;
+	public final boolean hasHttpPort;
+	public final int httpPort;
+	public final int debugPort;
+	public final boolean hasAutoBuild;
+	public final boolean autoBuild;
+
+	ProjectChangedEvent(String event, JSONObject obj) throws JSONException {
+		super(event, obj);
+		containerID = optString(obj, MCConstants.KEY_CONTAINER_ID);
+		// Not every change includes the ports, the caller reports a missing http port
+		JSONObject portsObj = obj.optJSONObject(MCConstants.KEY_PORTS);
+		hasHttpPort = portsObj != null && portsObj.has(MCConstants.KEY_EXPOSED_PORT);
+		httpPort = getPort(portsObj, MCConstants.KEY_EXPOSED_PORT);
+		debugPort = getPort(portsObj, MCConstants.KEY_EXPOSED_DEBUG_PORT);
+		hasAutoBuild = obj.has(MCConstants.KEY_AUTO_BUILD);
+		autoBuild = hasAutoBuild && obj.getBoolean(MCConstants.KEY_AUTO_BUILD);
+	}
+}
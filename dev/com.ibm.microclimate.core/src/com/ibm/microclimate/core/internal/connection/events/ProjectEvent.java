@@ -0,0 +1,81 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.core.internal.connection.events;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import com.ibm.microclimate.core.internal.MCUtil;
+import com.ibm.microclimate.core.internal.connection.MicroclimateSocket;
+import com.ibm.microclimate.core.internal.constants.MCConstants;
+
+/**
+ * A Microclimate socket event for a project.  Each event payload is decoded once into
+ * one of the subclasses so the handlers do not need to look up or parse the JSON again.
+ * String values, including log contents, are the same objects as in the payload.
+ */
+public class ProjectEvent {
+
+	public final String event;
+	public final String projectID;
+
+	protected ProjectEvent(String event, JSONObject obj) throws JSONException {
+		this.event = event;
+		this.projectID = obj.getString(MCConstants.KEY_PROJECT_ID);
+	}
+
+	/**
+	 * Decode the payload for the given event name.
+	 */
+	public static ProjectEvent decode(String event, JSONObject obj) throws JSONException {
+		switch (event) {
+			case MicroclimateSocket.EVENT_PROJECT_CREATION:
+				return new ProjectCreationEvent(event, obj);
+			case MicroclimateSocket.EVENT_PROJECT_CHANGED:
+				return new ProjectChangedEvent(event, obj);
+			case MicroclimateSocket.EVENT_PROJECT_SETTINGS_CHANGED:
+				return new ProjectSettingsEvent(event, obj);
+			case MicroclimateSocket.EVENT_PROJECT_STATUS_CHANGE:
+				return new ProjectStatusEvent(event, obj);
+			case MicroclimateSocket.EVENT_PROJECT_RESTART:
+				return new ProjectRestartEvent(event, obj);
+			case MicroclimateSocket.EVENT_CONTAINER_LOGS:
+				return new ContainerLogsEvent(event, obj);
+			case MicroclimateSocket.EVENT_LOG_UPDATE:
+				return new LogUpdateEvent(event, obj);
+			case MicroclimateSocket.EVENT_PROJECT_VALIDATED:
+				return new ProjectValidatedEvent(event, obj);
+			default:
+				// Closed, deletion and any other events only need the project id
+				return new ProjectEvent(event, obj);
+		}
+	}
+
+	protected static String optString(JSONObject obj, String key) throws JSONException {
+		return obj.has(key) ? obj.getString(key) : null;
+	}
+
+	/**
+	 * Get the port from the ports object or -1 if it is not there.
+	 */
+	protected static int getPort(JSONObject portsObj, String key) throws JSONException {
+		if (portsObj != null && portsObj.has(key)) {
+			return MCUtil.parsePort(portsObj.getString(key));
+		}
+		return -1;
+	}
+
+	@Override
+	public String toString() {
+		return event + ": " + projectID; //$NON-NLS-1$
+	}
+}
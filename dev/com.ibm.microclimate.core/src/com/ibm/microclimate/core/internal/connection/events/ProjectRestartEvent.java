@@ -0,0 +1,60 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.core.internal.connection.events;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import com.ibm.microclimate.core.internal.constants.MCConstants;
+import com.ibm.microclimate.core.internal.constants.StartMode;
+
+/**
+ * The projectRestartResult event.  The ports and start mode are only set if the
+ * restart was successful.
+ */
+public class ProjectRestartEvent extends ProjectEvent {
+
+	public final String status;
+	public final boolean hasHttpPort;
+	public final int httpPort;
+	public final int debugPort;
+	public final StartMode startMode;
+
+	ProjectRestartEvent(String event, JSONObject obj) throws JSONException {
+		super(event, obj);
+		status = obj.getString(MCConstants.KEY_STATUS);
+		if (MCConstants.REQUEST_STATUS_SUCCESS.equalsIgnoreCase(status)) {
+			// This event should always have a 'ports' sub-object
+			JSONObject portsObj = obj.getJSONObject(MCConstants.KEY_PORTS);
+			hasHttpPort = portsObj != null && portsObj.has(MCConstants.KEY_EXPOSED_PORT);
+			httpPort = getPort(portsObj, MCConstants.KEY_EXPOSED_PORT);
+			// Debug port will be missing if the restart was into Run mode.
+			debugPort = getPort(portsObj, MCConstants.KEY_EXPOSED_DEBUG_PORT);
+			startMode = StartMode.get(obj);
+		} else {
+			hasHttpPort = false;
+			httpPort = -1;
+			debugPort = -1;
+			startMode = null;
+		}
+	}
+
+	public boolean isSuccess() {
+		return MCConstants.REQUEST_STATUS_SUCCESS.equalsIgnoreCase(status);
+	}
+
+	@Override
+	public String toString() {
+		return event + ": " + projectID + " status=" + status + " httpPort=" + httpPort //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				+ " debugPort=" + debugPort + " startMode=" + startMode; //$NON-NLS-1$ //$NON-NLS-2$
+	}
+}
@@ -0,0 +1,31 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.core.internal.connection.events;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import com.ibm.microclimate.core.internal.constants.MCConstants;
+
+/**
+ * The projectSettingsChanged event.
+ */
+public class ProjectSettingsEvent extends ProjectEvent {
+
+	// Null if the context root has not changed
+	public final String contextRoot;
+
+	ProjectSettingsEvent(String event, JSONObject obj) throws JSONException {
+		super(event, obj);
+		contextRoot = optString(obj, MCConstants.KEY_CONTEXT_ROOT);
+	}
+}
@@ -0,0 +1,40 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.core.internal.connection.events;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import com.ibm.microclimate.core.internal.constants.MCConstants;
+
+/**
+ * The projectStatusChanged event.  The statuses are null if they are not in the event.
+ */
+public class ProjectStatusEvent extends ProjectEvent {
+
+	public final String appStatus;
+	public final String buildStatus;
+	public final String buildDetail;
+
+	ProjectStatusEvent(String event, JSONObject obj) throws JSONException {
+		super(event, obj);
+		appStatus = optString(obj, MCConstants.KEY_APP_STATUS);
+		buildStatus = optString(obj, MCConstants.KEY_BUILD_STATUS);
+		String detail = optString(obj, MCConstants.KEY_DETAILED_BUILD_STATUS);
+		buildDetail = detail == null ? "" : detail; //$NON-NLS-1$
+	}
+
+	@Override
+	public String toString() {
+		return event + ": " + projectID + " appStatus=" + appStatus + " buildStatus=" + buildStatus; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+}
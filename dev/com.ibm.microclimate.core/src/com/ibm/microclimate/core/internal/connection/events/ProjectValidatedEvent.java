@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.core.internal.connection.events;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import com.ibm.microclimate.core.internal.constants.MCConstants;
+
+/**
+ * The projectValidated event.
+ */
+public class ProjectValidatedEvent extends ProjectEvent {
+
+	public final String status;
+	// Null if the event did not include any results
+	public final List<ValidationResult> results;
+
+	ProjectValidatedEvent(String event, JSONObject obj) throws JSONException {
+		super(event, obj);
+		status = obj.getString(MCConstants.KEY_VALIDATION_STATUS);
+		if (obj.has(MCConstants.KEY_VALIDATION_RESULTS)) {
+			JSONArray array = obj.getJSONArray(MCConstants.KEY_VALIDATION_RESULTS);
+			List<ValidationResult> list = new ArrayList<ValidationResult>(array.length());
+			for (int i = 0; i < array.length(); i++) {
+				list.add(new ValidationResult(array.getJSONObject(i)));
+			}
+			results = Collections.unmodifiableList(list);
+		} else {
+			results = null;
+		}
+	}
+
+	public boolean isSuccess() {
+		return MCConstants.VALUE_STATUS_SUCCESS.equals(status);
+	}
+
+	public static class ValidationResult {
+		public final String severity;
+		public final String filename;
+		public final String filepath;
+		// May be null
+		public final String type;
+		public final String details;
+		// Null if there is no quick fix
+		public final String quickFixId;
+		public final String quickFixDescription;
+
+		ValidationResult(JSONObject result) throws JSONException {
+			severity = result.getString(MCConstants.KEY_SEVERITY);
+			filename = result.getString(MCConstants.KEY_FILENAME);
+			filepath = result.getString(MCConstants.KEY_FILEPATH);
+			type = optString(result, MCConstants.KEY_TYPE);
+			details = result.getString(MCConstants.KEY_DETAILS);
+			if (result.has(MCConstants.KEY_QUICKFIX)) {
+				JSONObject quickFix = result.getJSONObject(MCConstants.KEY_QUICKFIX);
+				quickFixId = quickFix.getString(MCConstants.KEY_FIXID);
+				quickFixDescription = quickFix.getString(MCConstants.KEY_DESCRIPTION);
+			} else {
+				quickFixId = null;
+				quickFixDescription = null;
+			}
+		}
+
+		public boolean isWarning() {
+			return MCConstants.VALUE_SEVERITY_WARNING.equals(severity);
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2018 IBM Corporation and others.
+ * Copyright (c) 2018, 2019 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v2.0
  * which accompanies this distribution, and is available at
@@ -13,20 +13,34 @@ package com.ibm.microclimate.core.internal.console;
 
 import java.io.IOException;
 
+import org.eclipse.jface.preference.IPreferenceStore;
 import org.eclipse.ui.console.IOConsole;
 import org.eclipse.ui.console.IOConsoleOutputStream;
 
 import com.ibm.microclimate.core.MicroclimateCorePlugin;
 import com.ibm.microclimate.core.internal.MCLogger;
 import com.ibm.microclimate.core.internal.MicroclimateApplication;
+import com.ibm.microclimate.core.internal.constants.MCConstants;
 
-public class BuildLogConsole extends IOConsole {
+/**
+ * Console for the build log of an application.  If Microclimate supports log streaming
+ * the build log is pushed over the socket with log-update events, otherwise the
+ * build log is polled by the BuildLogPoller of the connection.
+ */
+public class BuildLogConsole extends IOConsole implements ILogStreamConsole, IRetainingConsole {
 	
+	// The name of the log in the log archive
+	private static final String ARCHIVE_LOG_NAME = "build"; //$NON-NLS-1$
+
 	private final MicroclimateApplication app;
 	private final IOConsoleOutputStream outputStream;
+	private final ConsoleWriter writer;
+	private final LogIngestQueue queue;
 	private double lastModified = 0;
-	private final BuildLogMonitor monitor;
-	private final Thread monitorThread;
+
+	// Only one of these is set depending on whether the log is streamed or polled
+	private ProjectLogInfo streamLog;
+	private BuildLogMonitor monitor;
 	
 	public BuildLogConsole(String name, MicroclimateApplication app) {
 		super(name, MicroclimateConsoleFactory.MC_CONSOLE_TYPE,
@@ -34,11 +48,62 @@ public class BuildLogConsole extends IOConsole {
 				true);
 		this.app = app;
 		outputStream = newOutputStream();
+		writer = new ConsoleWriter(this, outputStream);
+		writer.setRetention(MicroclimateCorePlugin.BUILD_CONSOLE_RETENTION_PREFSKEY);
+		writer.setLog(app.projectID, ARCHIVE_LOG_NAME);
+		IPreferenceStore prefs = MicroclimateCorePlugin.getDefault().getPreferenceStore();
+		queue = new LogIngestQueue(name, writer, app.mcConnection.getScheduler(),
+				LogIngestQueue.OverflowPolicy.getUnpausable(prefs.getString(MicroclimateCorePlugin.CONSOLE_OVERFLOW_POLICY_PREFSKEY)),
+				prefs.getInt(MicroclimateCorePlugin.CONSOLE_QUEUE_LIMIT_PREFSKEY));
+
+		ProjectLogInfo logInfo = getStreamLog(app);
+		if (logInfo == null || !startStream(logInfo)) {
+			startPolling();
+		}
+	}
+
+	/**
+	 * The build log to stream or null if log streaming is not supported.  The first build log
+	 * is the one that the build log endpoint returns.
+	 */
+	private static ProjectLogInfo getStreamLog(MicroclimateApplication app) {
+		if (!app.mcConnection.checkVersion(1905, "2019_M5_E")) { //$NON-NLS-1$
+			return null;
+		}
+		for (ProjectLogInfo logInfo : app.getLogInfos()) {
+			if (MCConstants.KEY_LOG_BUILD.equals(logInfo.type)) {
+				return logInfo;
+			}
+		}
+		return null;
+	}
+
+	private synchronized boolean startStream(ProjectLogInfo logInfo) {
+		try {
+			app.mcConnection.getMCSocket().openLogStream(app, logInfo, this);
+			streamLog = logInfo;
+			MCLogger.log("Streaming the " + logInfo.logName + " build log for: " + app.name); //$NON-NLS-1$ //$NON-NLS-2$
+			return true;
+		} catch (IOException e) {
+			MCLogger.logError("Failed to enable the build log stream for " + app.name + ", polling the build log instead", e); //$NON-NLS-1$ //$NON-NLS-2$
+			return false;
+		}
+	}
+
+	private synchronized void startPolling() {
 		monitor = new BuildLogMonitor(this);
-		monitorThread = new Thread(monitor, name);
-		monitorThread.start();
+		app.mcConnection.getBuildLogPoller().add(monitor);
+	}
+
+	public synchronized boolean isStreaming() {
+		return streamLog != null;
 	}
 	
+	@Override
+	public ConsoleWriter getConsoleWriter() {
+		return writer;
+	}
+
 	public MicroclimateApplication getApp() {
 		return app;
 	}
@@ -50,26 +115,41 @@ public class BuildLogConsole extends IOConsole {
 		return false;
 	}
 	
+	/**
+	 * Update from the build log poller.
+	 */
 	public synchronized void update(String content, double lastModified, boolean replace) {
-		if (outputStream.isClosed()) {
-			return;
-		}
-		MCLogger.log("Updating build log for: " + app.name); //$NON-NLS-1$
 		this.lastModified = lastModified;
-		if (replace) {
-			clearConsole();
-		}
-		try {
-			outputStream.write(content);
-		} catch (IOException e) {
-			MCLogger.logError("Failed to write to the build console for application: " + app.name, e); //$NON-NLS-1$
-		}
+		write(content, replace);
+	}
+
+	/**
+	 * Update from a log-update event.
+	 */
+	@Override
+	public synchronized void update(String contents, boolean reset) {
+		write(contents, reset);
+	}
+
+	private void write(String content, boolean replace) {
+		MCLogger.log("Updating build log for: " + app.name); //$NON-NLS-1$
+		queue.add(content, replace);
 	}
 
 	@Override
 	protected synchronized void dispose() {
-		monitor.dispose();
-		monitorThread.interrupt();
+		if (streamLog != null) {
+			try {
+				app.mcConnection.getMCSocket().closeLogStream(app, streamLog, this);
+			} catch (IOException e) {
+				MCLogger.logError("Failed to disable the build log stream for: " + app.name, e); //$NON-NLS-1$
+			}
+		}
+		if (monitor != null) {
+			app.mcConnection.getBuildLogPoller().remove(monitor);
+		}
+		queue.close();
+		writer.dispose();
 		try {
 			outputStream.close();
 		} catch (IOException e) {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2018 IBM Corporation and others.
+ * Copyright (c) 2018, 2019 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v2.0
  * which accompanies this distribution, and is available at
@@ -12,71 +12,157 @@
 package com.ibm.microclimate.core.internal.console;
 
 import java.io.IOException;
+import java.net.HttpURLConnection;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 
 import com.ibm.microclimate.core.internal.HttpUtil;
 import com.ibm.microclimate.core.internal.HttpUtil.HttpResult;
-import com.ibm.microclimate.core.internal.MCLogger;
-import com.ibm.microclimate.core.internal.MicroclimateApplication;
+import com.ibm.microclimate.core.internal.constants.BuildStatus;
 import com.ibm.microclimate.core.internal.constants.MCConstants;
 
-public class BuildLogMonitor implements Runnable {
-	
-	private boolean disposed = false;
-	
+/**
+ * Checks the build log of an application for changes and updates the build console.
+ * The checks are run by the BuildLogPoller of the connection.
+ *
+ * Only the new part of the log is requested and appended to the console.  If the server
+ * does not support ranges then the whole log is fetched and the part that has already been
+ * shown is skipped.  The console is only cleared if the log was replaced.
+ */
+public class BuildLogMonitor {
+
+	private static final String CONTENT_LENGTH = "Content-Length"; //$NON-NLS-1$
+	private static final String CONTENT_RANGE = "Content-Range"; //$NON-NLS-1$
+
 	private final BuildLogConsole console;
-	
+	private final IncrementalLog log = new IncrementalLog();
+
+	private volatile boolean disposed = false;
+
+	// Poll state, only used by the poller
+	long nextPoll = 0;
+	long lastChange;
+	BuildStatus lastStatus;
+	int failures = 0;
+
 	public BuildLogMonitor(BuildLogConsole console) {
 		this.console = console;
 	}
 
-	@Override
-	public void run() {
-		while (!disposed) {
+	public String getName() {
+		return console.getName();
+	}
+
+	public BuildStatus getBuildStatus() {
+		return console.getApp().getBuildStatus();
+	}
+
+	/**
+	 * Check if the build log has changed and if so update the console.
+	 * Returns true if the console was updated.
+	 */
+	public boolean update() throws IOException {
+		String buildLogPath = MCConstants.APIPATH_PROJECT_LIST + "/" + console.getApp().projectID + "/" + MCConstants.KEY_BUILD_LOG;	//$NON-NLS-1$ //$NON-NLS-2$
+		URI uri = console.getApp().mcConnection.baseUrl.resolve(buildLogPath);
+		try {
 			// First check if log has changed
-			MicroclimateApplication app = console.getApp();
-			String buildLogPath = MCConstants.APIPATH_PROJECT_LIST + "/" + app.projectID + "/" + MCConstants.KEY_BUILD_LOG;	//$NON-NLS-1$
-			URI uri = app.mcConnection.baseUrl.resolve(buildLogPath);
-			try {
-				HttpResult result = HttpUtil.head(uri);
-				if (result.isGoodResponse) {
-					String timestampStr = result.getHeader(MCConstants.KEY_BUILD_LOG_LAST_MODIFIED);
-					double timestamp = Double.parseDouble(timestampStr);
-					if (console.hasChanged(timestamp)) {
-						// Now get the contents
-						result = HttpUtil.get(uri);
-						if (result.isGoodResponse ) {
-							timestampStr = result.getHeader(MCConstants.KEY_BUILD_LOG_LAST_MODIFIED);
-							timestamp = Double.parseDouble(timestampStr);
-							String contents = result.response;
-							console.update(contents, timestamp, true);
-						} else {
-							MCLogger.logError("Get request failed for " + uri + ": " + result.error); //$NON-NLS-1$
-						}
-					}
-				} else {
-					MCLogger.logError("Head request failed for " + uri + ": " + result.error); //$NON-NLS-1$
+			HttpResult result = HttpUtil.head(uri);
+			if (!result.isGoodResponse) {
+				throw new IOException("Head request failed for " + uri + ": " + result.error); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+			double timestamp = getTimestamp(result);
+			if (!console.hasChanged(timestamp)) {
+				return false;
+			}
+
+			long length = getLongHeader(result, CONTENT_LENGTH);
+			long offset = log.getByteOffset();
+			if (offset > 0 && length == offset) {
+				// Only the timestamp has changed
+				console.update("", timestamp, false); //$NON-NLS-1$
+				return false;
+			}
+			if (offset > 0 && length > offset) {
+				// Get the rest of the log
+				result = HttpUtil.getRange(uri, offset);
+				if (result.responseCode == HttpURLConnection.HTTP_PARTIAL && getRangeStart(result) == offset) {
+					String content = getContent(result);
+					log.append(content, getByteLength(result, content));
+					console.update(content, getTimestamp(result), false);
+					return true;
 				}
-			} catch (IOException e) {
-				MCLogger.logError("Head request failed for uri: " + uri, e); //$NON-NLS-1$
-			} catch (NumberFormatException e) {
-				MCLogger.logError("Invalid timestamp returned for uri: " + uri, e); //$NON-NLS-1$
-			} catch (Exception e) {
-				MCLogger.logError("Exception processing result for uri: " + uri, e); //$NON-NLS-1$
+				if (result.responseCode != HttpURLConnection.HTTP_OK) {
+					result = HttpUtil.get(uri);
+				}
+			} else {
+				// First time, the length is unknown or the log is shorter than what has been shown
+				result = HttpUtil.get(uri);
+			}
+
+			if (!result.isGoodResponse) {
+				throw new IOException("Get request failed for " + uri + ": " + result.error); //$NON-NLS-1$ //$NON-NLS-2$
 			}
-			
-			try {
-				Thread.sleep(5000);
-			} catch (InterruptedException e) {
-				// Ignore
+			String content = getContent(result);
+			String newOutput = log.appendFull(content, getByteLength(result, content));
+			if (newOutput != null) {
+				console.update(newOutput, getTimestamp(result), false);
+			} else {
+				console.update(content, getTimestamp(result), true);
 			}
+			return true;
+		} catch (NumberFormatException | NullPointerException e) {
+			throw new IOException("Invalid timestamp returned for uri: " + uri, e); //$NON-NLS-1$
+		}
+	}
+
+	private static double getTimestamp(HttpResult result) {
+		return Double.parseDouble(result.getHeader(MCConstants.KEY_BUILD_LOG_LAST_MODIFIED));
+	}
+
+	private static String getContent(HttpResult result) {
+		return result.response == null ? "" : result.response; //$NON-NLS-1$
+	}
+
+	private static long getByteLength(HttpResult result, String content) {
+		long length = getLongHeader(result, CONTENT_LENGTH);
+		return length >= 0 ? length : content.getBytes(StandardCharsets.UTF_8).length;
+	}
+
+	/**
+	 * The first byte of a partial response, from a Content-Range header such as
+	 * "bytes 1000-1999/2000".  Returns -1 if there is no valid header.
+	 */
+	private static long getRangeStart(HttpResult result) {
+		String range = result.getHeader(CONTENT_RANGE);
+		if (range == null || !range.startsWith("bytes ")) { //$NON-NLS-1$
+			return -1;
+		}
+		int end = range.indexOf('-');
+		try {
+			return end < 0 ? -1 : Long.parseLong(range.substring(6, end).trim());
+		} catch (NumberFormatException e) {
+			return -1;
 		}
 	}
 
-	public synchronized void dispose() {
-		if (!disposed) {
-			disposed = true;
+	private static long getLongHeader(HttpResult result, String key) {
+		String value = result.getHeader(key);
+		if (value == null) {
+			return -1;
+		}
+		try {
+			return Long.parseLong(value.trim());
+		} catch (NumberFormatException e) {
+			return -1;
 		}
 	}
 
+	public boolean isDisposed() {
+		return disposed;
+	}
+
+	public void dispose() {
+		disposed = true;
+	}
+
 }
@@ -0,0 +1,174 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.core.internal.console;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import com.ibm.microclimate.core.internal.MCLogger;
+import com.ibm.microclimate.core.internal.constants.BuildStatus;
+
+/**
+ * Polls the build logs of all of the open build consoles for a connection from one
+ * task on the build log thread of the connection, rather than a thread per console.
+ *
+ * Each build log is polled often while its application is building, less often for a while
+ * after the log last changed and rarely otherwise.  A change in the build status of the
+ * application causes a poll straight away.  Failed polls back off.  The task only runs
+ * while there are build consoles open.
+ */
+public class BuildLogPoller {
+
+	public static final long FAST_INTERVAL_MS = 1000;
+	public static final long NORMAL_INTERVAL_MS = 5000;
+	public static final long IDLE_INTERVAL_MS = 30000;
+	// How long after the last change the log is still polled at the normal interval
+	public static final long ACTIVE_PERIOD_MS = 60000;
+
+	private static final String LOG_SITE = "BuildLogPoller"; //$NON-NLS-1$
+
+	private final String name;
+	private final ScheduledExecutorService scheduler;
+	private final long tickMs;
+
+	// All access is synchronized on this object
+	private final List<BuildLogMonitor> monitors = new ArrayList<BuildLogMonitor>();
+	private ScheduledFuture<?> task;
+
+	private long pollCount = 0;
+
+	public BuildLogPoller(String name, ScheduledExecutorService scheduler) {
+		this(name, scheduler, FAST_INTERVAL_MS);
+	}
+
+	/**
+	 * The tick is how often the poller checks for logs that are due, it should be
+	 * no more than the fast interval.  For testing.
+	 */
+	public BuildLogPoller(String name, ScheduledExecutorService scheduler, long tickMs) {
+		this.name = name;
+		this.scheduler = scheduler;
+		this.tickMs = tickMs;
+	}
+
+	public synchronized void add(BuildLogMonitor monitor) {
+		monitor.nextPoll = 0;
+		monitor.lastChange = now();
+		monitors.add(monitor);
+		if (task == null) {
+			try {
+				task = scheduler.scheduleWithFixedDelay(new Runnable() {
+					@Override
+					public void run() {
+						poll();
+					}
+				}, 0, tickMs, TimeUnit.MILLISECONDS);
+			} catch (RejectedExecutionException e) {
+				MCLogger.log("The build log poller could not be started since the connection is closed: " + name); //$NON-NLS-1$
+			}
+		}
+	}
+
+	/**
+	 * Stop polling for the monitor.  The task is cancelled when there is nothing left to poll.
+	 */
+	public synchronized void remove(BuildLogMonitor monitor) {
+		monitor.dispose();
+		monitors.remove(monitor);
+		if (monitors.isEmpty() && task != null) {
+			task.cancel(false);
+			task = null;
+		}
+	}
+
+	public synchronized boolean isActive() {
+		return task != null;
+	}
+
+	public synchronized int getMonitorCount() {
+		return monitors.size();
+	}
+
+	public synchronized long getPollCount() {
+		return pollCount;
+	}
+
+	/**
+	 * How long to wait before polling a build log again.
+	 */
+	public static long getInterval(BuildStatus status, long sinceChangeMs, int failures) {
+		long interval;
+		if (status == BuildStatus.IN_PROGRESS || status == BuildStatus.QUEUED) {
+			interval = FAST_INTERVAL_MS;
+		} else if (sinceChangeMs < ACTIVE_PERIOD_MS) {
+			interval = NORMAL_INTERVAL_MS;
+		} else {
+			interval = IDLE_INTERVAL_MS;
+		}
+		if (failures > 0) {
+			long backoff = Math.min(IDLE_INTERVAL_MS, NORMAL_INTERVAL_MS << Math.min(failures - 1, 4));
+			interval = Math.max(interval, backoff);
+		}
+		return interval;
+	}
+
+	private void poll() {
+		List<BuildLogMonitor> due = new ArrayList<BuildLogMonitor>();
+		long now = now();
+		synchronized (this) {
+			for (BuildLogMonitor monitor : monitors) {
+				if (now >= monitor.nextPoll || monitor.getBuildStatus() != monitor.lastStatus) {
+					due.add(monitor);
+				}
+			}
+		}
+		// Poll outside the lock so consoles can be added and removed while requests are in progress
+		for (BuildLogMonitor monitor : due) {
+			if (!monitor.isDisposed()) {
+				poll(monitor);
+			}
+		}
+	}
+
+	private void poll(BuildLogMonitor monitor) {
+		monitor.lastStatus = monitor.getBuildStatus();
+		try {
+			if (monitor.update()) {
+				monitor.lastChange = now();
+			}
+			monitor.failures = 0;
+		} catch (Exception e) {
+			monitor.failures++;
+			// The poll is retried, so a failure can happen over and over
+			MCLogger.logRepeatedError(LOG_SITE, "Failed to update the build log for: " + monitor.getName(), e); //$NON-NLS-1$
+		}
+		long now = now();
+		monitor.nextPoll = now + getInterval(monitor.lastStatus, now - monitor.lastChange, monitor.failures);
+		synchronized (this) {
+			pollCount++;
+		}
+	}
+
+	private static long now() {
+		return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+	}
+
+	@Override
+	public synchronized String toString() {
+		return String.format("%s %s consoles=%d polls=%d", //$NON-NLS-1$
+				BuildLogPoller.class.getSimpleName(), name, monitors.size(), pollCount);
+	}
+}
@@ -0,0 +1,238 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.core.internal.console;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Console history kept in memory as compressed blocks.  The most recent output is kept
+ * as it is in a hot block, and once the hot block is full it is compressed with deflate.
+ * Log output usually compresses to a tenth of its size or less, so a console can keep a
+ * lot of output for little heap, and only the blocks that are read back are decompressed.
+ *
+ * Every compressed block holds exactly blockSize characters, so the block for an offset
+ * is found by division.  A block can end in the middle of a surrogate pair, so the
+ * characters are kept as they are rather than encoded.  Once the history is over the limit the oldest blocks are dropped.
+ */
+public class CompressedConsoleHistory implements IConsoleHistory {
+
+	public static final int DEFAULT_BLOCK_SIZE = 32 * 1024;
+
+	// Roughly what an array takes on the heap besides its contents
+	private static final int ARRAY_OVERHEAD = 16;
+
+	private final int blockSize;
+	private final long limit;
+
+	// All access is synchronized on this object
+	private final List<byte[]> blocks = new ArrayList<byte[]>();
+	private final StringBuilder hot;
+	private long blocksStart = 0;
+	private long length = 0;
+	private long compressedSize = 0;
+	// The last block that was decompressed, since reads are usually of neighbouring output
+	private int cachedBlock = -1;
+	private String cachedText;
+	private boolean disposed = false;
+
+	/**
+	 * Keep about limit characters of history.
+	 */
+	public CompressedConsoleHistory(long limit) {
+		this(limit, DEFAULT_BLOCK_SIZE);
+	}
+
+	public CompressedConsoleHistory(long limit, int blockSize) {
+		this.limit = limit;
+		this.blockSize = blockSize;
+		this.hot = new StringBuilder(Math.min(blockSize, 1024));
+	}
+
+	@Override
+	public synchronized void append(String text) {
+		if (disposed) {
+			return;
+		}
+		int start = 0;
+		while (start < text.length()) {
+			int count = Math.min(text.length() - start, blockSize - hot.length());
+			hot.append(text, start, start + count);
+			start += count;
+			if (hot.length() == blockSize) {
+				compressHot();
+			}
+		}
+		length += text.length();
+		// Drop whole blocks once the rest is enough to cover the limit
+		while (!blocks.isEmpty() && length - blocksStart - blockSize >= limit) {
+			compressedSize -= blocks.remove(0).length;
+			blocksStart += blockSize;
+			cachedBlock = -1;
+			cachedText = null;
+		}
+	}
+
+	// Must be called while holding the lock
+	private void compressHot() {
+		byte[] block = compress(hot);
+		blocks.add(block);
+		compressedSize += block.length;
+		hot.setLength(0);
+		if (hot.capacity() > blockSize) {
+			hot.trimToSize();
+		}
+	}
+
+	@Override
+	public synchronized void reset() {
+		blocks.clear();
+		hot.setLength(0);
+		hot.trimToSize();
+		blocksStart = 0;
+		length = 0;
+		compressedSize = 0;
+		cachedBlock = -1;
+		cachedText = null;
+	}
+
+	@Override
+	public synchronized long getLength() {
+		return length;
+	}
+
+	@Override
+	public synchronized long getFirstAvailable() {
+		return blocksStart;
+	}
+
+	@Override
+	public synchronized String read(long start, long end) throws IOException {
+		start = Math.max(start, blocksStart);
+		end = Math.min(end, length);
+		if (disposed || start >= end) {
+			return ""; //$NON-NLS-1$
+		}
+		StringBuilder builder = new StringBuilder((int) (end - start));
+		long hotStart = length - hot.length();
+		while (start < end && start < hotStart) {
+			int index = (int) ((start - blocksStart) / blockSize);
+			long blockStart = blocksStart + (long) index * blockSize;
+			String text = getBlock(index);
+			int from = (int) (start - blockStart);
+			int to = (int) Math.min(end - blockStart, blockSize);
+			builder.append(text, from, to);
+			start = blockStart + to;
+		}
+		if (start < end) {
+			builder.append(hot, (int) (start - hotStart), (int) (end - hotStart));
+		}
+		return builder.toString();
+	}
+
+	// Must be called while holding the lock
+	private String getBlock(int index) throws IOException {
+		if (index == cachedBlock) {
+			return cachedText;
+		}
+		cachedText = decompress(blocks.get(index), blockSize);
+		cachedBlock = index;
+		return cachedText;
+	}
+
+	/**
+	 * Compress text with deflate.  Favours speed over size since this is done as the
+	 * output arrives.
+	 */
+	static byte[] compress(CharSequence text) {
+		Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+		try {
+			// Copy the chars rather than encoding them, which would replace a lone surrogate
+			ByteBuffer bytes = ByteBuffer.allocate(text.length() * 2);
+			bytes.asCharBuffer().append(text);
+			deflater.setInput(bytes.array());
+			deflater.finish();
+			byte[] buffer = new byte[text.length() / 2 + 64];
+			int size = 0;
+			while (!deflater.finished()) {
+				if (size == buffer.length) {
+					buffer = Arrays.copyOf(buffer, buffer.length * 2);
+				}
+				size += deflater.deflate(buffer, size, buffer.length - size);
+			}
+			return Arrays.copyOf(buffer, size);
+		} finally {
+			deflater.end();
+		}
+	}
+
+	/**
+	 * Decompress text of the given length that was compressed with compress.
+	 */
+	static String decompress(byte[] compressed, int length) throws IOException {
+		Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(compressed);
+			byte[] bytes = new byte[length * 2];
+			int size = 0;
+			while (!inflater.finished() && size < bytes.length) {
+				int count = inflater.inflate(bytes, size, bytes.length - size);
+				if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+					break;
+				}
+				size += count;
+			}
+			return ByteBuffer.wrap(bytes, 0, size - size % 2).asCharBuffer().toString();
+		} catch (DataFormatException e) {
+			throw new IOException("Compressed console output is corrupt", e); //$NON-NLS-1$
+		} finally {
+			inflater.end();
+		}
+	}
+
+	/**
+	 * The compressed blocks plus the hot block and the last decompressed block.
+	 */
+	@Override
+	public synchronized long getMemorySize() {
+		long size = compressedSize + (long) blocks.size() * ARRAY_OVERHEAD;
+		size += 2L * hot.capacity() + ARRAY_OVERHEAD;
+		if (cachedText != null) {
+			size += 2L * cachedText.length() + ARRAY_OVERHEAD;
+		}
+		return size;
+	}
+
+	@Override
+	public String getStorageName() {
+		return "compressed"; //$NON-NLS-1$
+	}
+
+	/**
+	 * The number of characters that are still kept.
+	 */
+	public synchronized long getRetainedLength() {
+		return length - blocksStart;
+	}
+
+	@Override
+	public synchronized void dispose() {
+		disposed = true;
+		reset();
+	}
+}
@@ -0,0 +1,211 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.core.internal.console;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+
+import com.ibm.microclimate.core.MicroclimateCorePlugin;
+import com.ibm.microclimate.core.internal.MCLogger;
+
+/**
+ * The output of a console kept on disk so that output that has been trimmed from the
+ * console can be read back.  The output is written as UTF-16 so that a character offset
+ * maps straight to a file offset.
+ *
+ * The history rolls over to a new file when the current one reaches the file limit and
+ * only the previous file is kept, so at most twice the file limit is kept on disk.
+ * Offsets count the characters written since the history was created or last reset.
+ */
+public class ConsoleHistory implements IConsoleHistory {
+
+	public static final int DEFAULT_FILE_LIMIT = 4 * 1024 * 1024;
+
+	private static final String HISTORY_DIR = "consoleHistory"; //$NON-NLS-1$
+	private static final String OLD_SUFFIX = ".1"; //$NON-NLS-1$
+	private static final int CHAR_SIZE = 2;
+
+	private final File file;
+	private final File oldFile;
+	private final int fileLimit;
+
+	// All access is synchronized on this object
+	private RandomAccessFile current;
+	private long currentStart = 0;
+	private long oldStart = -1;
+	private long length = 0;
+	private boolean disposed = false;
+
+	/**
+	 * Create a history file for the console in the plugin state location.
+	 */
+	public static ConsoleHistory create(String consoleName) throws IOException {
+		File dir = getHistoryDir();
+		if (!dir.isDirectory() && !dir.mkdirs()) {
+			throw new IOException("Could not create the console history directory: " + dir); //$NON-NLS-1$
+		}
+		String prefix = consoleName.replaceAll("[^\\w.-]", "_"); //$NON-NLS-1$ //$NON-NLS-2$
+		if (prefix.length() > 40) {
+			prefix = prefix.substring(0, 40);
+		}
+		File file = File.createTempFile(prefix + "-", ".history", dir); //$NON-NLS-1$ //$NON-NLS-2$
+		return new ConsoleHistory(file, DEFAULT_FILE_LIMIT);
+	}
+
+	/**
+	 * Remove the history files left behind if the workbench was not shut down cleanly.
+	 */
+	public static void cleanup() {
+		File[] files = getHistoryDir().listFiles();
+		if (files == null) {
+			return;
+		}
+		for (File file : files) {
+			if (!file.delete()) {
+				MCLogger.log("Could not delete the old console history file: " + file); //$NON-NLS-1$
+			}
+		}
+	}
+
+	private static File getHistoryDir() {
+		return MicroclimateCorePlugin.getDefault().getStateLocation().append(HISTORY_DIR).toFile();
+	}
+
+	public ConsoleHistory(File file, int fileLimit) throws IOException {
+		this.file = file;
+		this.oldFile = new File(file.getPath() + OLD_SUFFIX);
+		this.fileLimit = fileLimit;
+		current = new RandomAccessFile(file, "rw"); //$NON-NLS-1$
+		current.setLength(0);
+	}
+
+	@Override
+	public synchronized void append(String text) throws IOException {
+		if (disposed || text.isEmpty()) {
+			return;
+		}
+		if (length - currentStart >= fileLimit) {
+			roll();
+		}
+		current.seek((length - currentStart) * CHAR_SIZE);
+		current.write(text.getBytes(StandardCharsets.UTF_16BE));
+		length += text.length();
+	}
+
+	/**
+	 * Throw away all of the history, for when the console is cleared.
+	 */
+	@Override
+	public synchronized void reset() throws IOException {
+		if (disposed) {
+			return;
+		}
+		current.setLength(0);
+		oldFile.delete();
+		currentStart = 0;
+		oldStart = -1;
+		length = 0;
+	}
+
+	/**
+	 * The number of characters written since the history was created or reset.
+	 */
+	@Override
+	public synchronized long getLength() {
+		return length;
+	}
+
+	/**
+	 * The offset of the earliest character that is still on disk.
+	 */
+	@Override
+	public synchronized long getFirstAvailable() {
+		return oldStart >= 0 ? oldStart : currentStart;
+	}
+
+	/**
+	 * Read the characters from start to end.  The start is moved forward if the
+	 * beginning of the range is no longer on disk.
+	 */
+	@Override
+	public synchronized String read(long start, long end) throws IOException {
+		start = Math.max(start, getFirstAvailable());
+		end = Math.min(end, length);
+		if (disposed || start >= end) {
+			return ""; //$NON-NLS-1$
+		}
+		StringBuilder builder = new StringBuilder((int) (end - start));
+		if (start < currentStart) {
+			try (RandomAccessFile old = new RandomAccessFile(oldFile, "r")) { //$NON-NLS-1$
+				builder.append(read(old, start - oldStart, Math.min(end, currentStart) - oldStart));
+			}
+			start = currentStart;
+		}
+		if (start < end) {
+			builder.append(read(current, start - currentStart, end - currentStart));
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * The history is on disk so only uses a little heap.
+	 */
+	@Override
+	public long getMemorySize() {
+		return 0;
+	}
+
+	@Override
+	public String getStorageName() {
+		return "file"; //$NON-NLS-1$
+	}
+
+	private static String read(RandomAccessFile in, long start, long end) throws IOException {
+		byte[] bytes = new byte[(int) (end - start) * CHAR_SIZE];
+		in.seek(start * CHAR_SIZE);
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_16BE);
+	}
+
+	// Must be called while holding the lock
+	private void roll() throws IOException {
+		current.close();
+		oldFile.delete();
+		if (!file.renameTo(oldFile)) {
+			throw new IOException("Could not roll over the console history file: " + file); //$NON-NLS-1$
+		}
+		oldStart = currentStart;
+		currentStart = length;
+		current = new RandomAccessFile(file, "rw"); //$NON-NLS-1$
+		current.setLength(0);
+	}
+
+	/**
+	 * Close and delete the history files.
+	 */
+	@Override
+	public synchronized void dispose() {
+		if (disposed) {
+			return;
+		}
+		disposed = true;
+		try {
+			current.close();
+		} catch (IOException e) {
+			MCLogger.logError("Error closing the console history file: " + file, e); //$NON-NLS-1$
+		}
+		file.delete();
+		oldFile.delete();
+	}
+}
@@ -0,0 +1,319 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.core.internal.console;
+
+import java.io.IOException;
+
+import org.eclipse.ui.console.IOConsole;
+import org.eclipse.ui.console.IOConsoleOutputStream;
+
+import com.ibm.microclimate.core.MicroclimateCorePlugin;
+import com.ibm.microclimate.core.internal.MCLogger;
+import com.ibm.microclimate.core.internal.messages.Messages;
+
+/**
+ * Writes the output batched up by a LogIngestQueue to a console.  Each write to the
+ * console output stream causes work on the UI thread, so the queue is used to make
+ * one write per flush rather than one per event or line.  If show on update is set
+ * the console is activated once per flush.
+ *
+ * If a retention limit is set the console trims its oldest output once it goes over the
+ * limit (using the IOConsole water marks).  Everything written is also kept in a
+ * history so that the trimmed output can be paged back in.  With compressed history
+ * the console only keeps a small part of the limit and the rest is kept compressed in
+ * memory, otherwise the console keeps the whole limit and the history is a file.
+ *
+ * If archiving is set the output is also added to the LogArchive, starting a new archive
+ * session each time the console is reset.  The archive is written on its own thread.
+ * If searching is set the output is added to the LogSearchIndex.
+ *
+ * The output is run through a LogPipeline before it is written, so the console (and its
+ * history and the search index) only get the processed output.  The archive keeps the
+ * output as it was received.
+ *
+ * The log stream can't be paused by default, subclasses can override pause and resume.
+ */
+public class ConsoleWriter implements LogIngestQueue.ILogTarget {
+
+	public static final int DEFAULT_APP_RETENTION = 1000000;
+	public static final int DEFAULT_BUILD_RETENTION = 500000;
+	public static final int DEFAULT_FILE_RETENTION = 1000000;
+	private static final int MIN_RETENTION = 1000;
+	// With compressed history the console keeps this fraction of the retention limit
+	private static final int COMPRESSED_WINDOW_DIVISOR = 16;
+
+	private final IOConsole console;
+	private final IOConsoleOutputStream outputStream;
+	private final LogPipeline pipeline;
+
+	private volatile boolean showOnUpdate = false;
+
+	// All access to the following is synchronized on this object
+	private boolean clearOnWrite = false;
+	private int limit = 0;
+	private int highWaterMark = 0;
+	private IConsoleHistory history;
+	// Roughly how many characters are in the console, following how the water marks trim it
+	private long shown = 0;
+	private String archiveProject;
+	private String archiveLog;
+	private LogArchive.SessionWriter archiveSession;
+	private LogSearchIndex.Source searchSource;
+	// The characters written since the console was last cleared, and how many times it has been cleared
+	private long written = 0;
+	private int generation = 0;
+
+	public ConsoleWriter(IOConsole console, IOConsoleOutputStream outputStream) {
+		this.console = console;
+		this.outputStream = outputStream;
+		MicroclimateCorePlugin plugin = MicroclimateCorePlugin.getDefault();
+		if (plugin != null) {
+			pipeline = LogPipeline.create(plugin.getPreferenceStore().getBoolean(MicroclimateCorePlugin.CONSOLE_STRIP_ANSI_PREFSKEY),
+					plugin.getPreferenceStore().getBoolean(MicroclimateCorePlugin.CONSOLE_COLLAPSE_REPEATS_PREFSKEY),
+					Messages.ConsoleRepeatedLine);
+			setLevelFilter(LogLevel.fromPrefValue(plugin.getPreferenceStore().getString(MicroclimateCorePlugin.CONSOLE_LOG_LEVEL_PREFSKEY)));
+		} else {
+			pipeline = LogPipeline.create(true, true, Messages.ConsoleRepeatedLine);
+		}
+	}
+
+	/**
+	 * Only show output at or above the level.  Output with no level is always shown.
+	 * Applies to output written from now on.
+	 */
+	public void setLevelFilter(LogLevel level) {
+		pipeline.getStage(LogPipeline.LevelFilterStage.class).setMinLevel(level == LogLevel.TRACE ? null : level);
+	}
+
+	public LogLevel getLevelFilter() {
+		LogLevel level = pipeline.getStage(LogPipeline.LevelFilterStage.class).getMinLevel();
+		return level == null ? LogLevel.TRACE : level;
+	}
+
+	/**
+	 * Keep about the number of characters in the preference, with the output trimmed from
+	 * the console kept in the history.  A limit of 0 means the console is not limited.
+	 */
+	public synchronized void setRetention(String prefsKey) {
+		MicroclimateCorePlugin plugin = MicroclimateCorePlugin.getDefault();
+		int retention = plugin == null ? 0 : plugin.getPreferenceStore().getInt(prefsKey);
+		if (retention <= 0 || history != null) {
+			return;
+		}
+		boolean compressed = plugin.getPreferenceStore().getBoolean(MicroclimateCorePlugin.CONSOLE_COMPRESSED_HISTORY_PREFSKEY);
+		limit = getConsoleLimit(retention, compressed);
+		if (compressed) {
+			history = new CompressedConsoleHistory(Math.max(retention, MIN_RETENTION));
+		} else {
+			try {
+				history = ConsoleHistory.create(console.getName());
+			} catch (IOException e) {
+				MCLogger.logError("Failed to create the history file for " + console.getName() //$NON-NLS-1$
+						+ ", trimmed output can't be shown again", e); //$NON-NLS-1$
+			}
+		}
+		setWaterMarks(limit);
+	}
+
+	/**
+	 * How many characters the console itself keeps for the retention preference.
+	 */
+	public static int getConsoleLimit(int retention, boolean compressedHistory) {
+		if (compressedHistory) {
+			retention /= COMPRESSED_WINDOW_DIVISOR;
+		}
+		return Math.max(retention, MIN_RETENTION);
+	}
+
+	/**
+	 * Identify the log of the project the console shows.  The output is added to the log
+	 * archive and the search index if they are turned on.
+	 */
+	public synchronized void setLog(String projectID, String logName) {
+		MicroclimateCorePlugin plugin = MicroclimateCorePlugin.getDefault();
+		if (plugin == null) {
+			return;
+		}
+		if (plugin.getPreferenceStore().getBoolean(MicroclimateCorePlugin.LOG_ARCHIVE_PREFSKEY)) {
+			archiveProject = projectID;
+			archiveLog = logName;
+		}
+		if (plugin.getPreferenceStore().getBoolean(MicroclimateCorePlugin.LOG_SEARCH_PREFSKEY) && searchSource == null) {
+			searchSource = LogSearchIndex.getDefault().addSource(projectID, logName, this);
+		}
+	}
+
+	public IOConsole getConsole() {
+		return console;
+	}
+
+	/**
+	 * The history of the console or null if it is not limited.
+	 */
+	public synchronized IConsoleHistory getHistory() {
+		return history;
+	}
+
+	/**
+	 * The number of characters written since the console was last cleared.  Together with
+	 * the length of the console document this gives the document offset of a search result.
+	 */
+	public synchronized long getWrittenLength() {
+		return written;
+	}
+
+	/**
+	 * Counts the times the console has been cleared.  Search results from before the
+	 * last clear can't be shown in the console.
+	 */
+	public synchronized int getGeneration() {
+		return generation;
+	}
+
+	public synchronized boolean isClosed() {
+		return outputStream.isClosed();
+	}
+
+	// Must be called while holding the lock
+	private void setWaterMarks(int high) {
+		highWaterMark = high;
+		// Trim a quarter of the limit at a time
+		console.setWaterMarks(high - limit / 4, high);
+	}
+
+	/**
+	 * Write a message straight to the console that is cleared by the first log output.
+	 */
+	public synchronized void writeInitialMessage(String message) throws IOException {
+		outputStream.write(message);
+		clearOnWrite = true;
+	}
+
+	public void setShowOnUpdate(boolean value) {
+		showOnUpdate = value;
+	}
+
+	@Override
+	public synchronized void write(String contents, boolean reset) throws IOException {
+		if (outputStream.isClosed()) {
+			return;
+		}
+		if (reset || clearOnWrite) {
+			console.clearConsole();
+			clearOnWrite = false;
+			shown = 0;
+			written = 0;
+			generation++;
+			closeArchiveSession();
+			pipeline.reset();
+			if (searchSource != null) {
+				searchSource.reset();
+			}
+			if (history != null) {
+				history.reset();
+				if (highWaterMark != limit) {
+					setWaterMarks(limit);
+				}
+			}
+		}
+		archive(contents);
+		String processed = pipeline.process(contents);
+		if (processed.isEmpty()) {
+			return;
+		}
+		outputStream.write(processed);
+		written += processed.length();
+		if (searchSource != null) {
+			searchSource.add(processed);
+		}
+		if (history != null) {
+			history.append(processed);
+			shown += processed.length();
+			if (shown > highWaterMark) {
+				shown = highWaterMark - limit / 4;
+			}
+		}
+		if (showOnUpdate) {
+			console.activate();
+		}
+	}
+
+	// Must be called while holding the lock
+	private void archive(String contents) {
+		if (archiveProject == null || contents.isEmpty()) {
+			return;
+		}
+		if (archiveSession == null) {
+			archiveSession = LogArchive.getDefault().newSessionWriter(archiveProject, archiveLog);
+		}
+		archiveSession.append(contents);
+	}
+
+	// Must be called while holding the lock
+	private void closeArchiveSession() {
+		if (archiveSession != null) {
+			archiveSession.close();
+			archiveSession = null;
+		}
+	}
+
+	/**
+	 * True if output has been trimmed from the console that can be loaded again.
+	 */
+	public synchronized boolean hasEarlierOutput() {
+		return history != null && history.getLength() - shown > history.getFirstAvailable();
+	}
+
+	/**
+	 * Show up to pageSize characters of output from before what is in the console.  The
+	 * console is written again from the history so nothing is missed or repeated, and the
+	 * water marks are raised so the earlier output is not trimmed again straight away.
+	 * Returns false if there is no earlier output.  Does file I/O so should not be called
+	 * on the UI thread.
+	 */
+	public synchronized boolean loadEarlierOutput(int pageSize) throws IOException {
+		if (!hasEarlierOutput() || outputStream.isClosed()) {
+			return false;
+		}
+		long end = history.getLength();
+		long start = Math.max(history.getFirstAvailable(), end - shown - pageSize);
+		String contents = history.read(start, end);
+		setWaterMarks(contents.length() + limit / 4);
+		console.clearConsole();
+		outputStream.write(contents);
+		shown = contents.length();
+		return true;
+	}
+
+	public synchronized void dispose() {
+		closeArchiveSession();
+		archiveProject = null;
+		if (searchSource != null) {
+			searchSource.close();
+			searchSource = null;
+		}
+		if (history != null) {
+			history.dispose();
+			history = null;
+		}
+	}
+
+	@Override
+	public void pause() {
+		// Nothing to do
+	}
+
+	@Override
+	public void resume() {
+		// Nothing to do
+	}
+}
@@ -0,0 +1,89 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.core.internal.console;
+
+/**
+ * Keeps track of a log that is sent whole every time it changes, such as the log in the
+ * container-logs event, so that only the new output is written.
+ *
+ * Hashing everything shown so far on every update would make each update cost as much as
+ * the whole log.  Instead only two windows are hashed: the start of the log, and the end
+ * of what has been shown (which slides forward as the log grows).  If either has changed
+ * the log was replaced, for example because the container was rebuilt.
+ */
+public class CumulativeLog {
+
+	public static final int DEFAULT_WINDOW = 256;
+
+	private final int window;
+
+	// All access is synchronized on this object
+	private int length = 0;
+	private int headHash = 0;
+	private int tailHash = 0;
+
+	public CumulativeLog() {
+		this(DEFAULT_WINDOW);
+	}
+
+	public CumulativeLog(int window) {
+		this.window = window;
+	}
+
+	/**
+	 * The number of characters of the log that have been shown.
+	 */
+	public synchronized int getLength() {
+		return length;
+	}
+
+	/**
+	 * Record the whole log.  Returns the output that has not been shown yet (empty if there
+	 * is none), or null if the log does not start with what has been shown, in which case
+	 * the whole log should be shown again.
+	 */
+	public synchronized String update(String content) {
+		if (content.length() >= length
+				&& hashHead(content, length) == headHash
+				&& hashTail(content, length) == tailHash) {
+			if (content.length() == length) {
+				return ""; //$NON-NLS-1$
+			}
+			String newOutput = content.substring(length);
+			record(content);
+			return newOutput;
+		}
+		record(content);
+		return null;
+	}
+
+	public synchronized void reset() {
+		length = 0;
+		headHash = 0;
+		tailHash = 0;
+	}
+
+	// Must be called while holding the lock
+	private void record(String content) {
+		length = content.length();
+		headHash = hashHead(content, length);
+		tailHash = hashTail(content, length);
+	}
+
+	private int hashHead(String content, int end) {
+		return IncrementalLog.hash(content, 0, Math.min(window, end), 0);
+	}
+
+	private int hashTail(String content, int end) {
+		return IncrementalLog.hash(content, Math.max(0, end - window), end, 0);
+	}
+}
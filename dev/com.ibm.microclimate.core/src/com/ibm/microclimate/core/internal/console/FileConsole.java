@@ -16,16 +16,25 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 
 import org.eclipse.core.runtime.IPath;
+import org.eclipse.jface.preference.IPreferenceStore;
 import org.eclipse.ui.console.IOConsole;
 import org.eclipse.ui.console.IOConsoleOutputStream;
 
 import com.ibm.microclimate.core.MicroclimateCorePlugin;
 import com.ibm.microclimate.core.internal.MCLogger;
 
-public class FileConsole extends IOConsole {
+/**
+ * Console for a local log file.  The file is tailed by the shared LogFileTailer.
+ */
+public class FileConsole extends IOConsole implements ILogStreamConsole, IRetainingConsole {
 
-	private final FileConsoleMonitorThread logMonitorThread;
+	// Local log files don't belong to a project so they are archived together
+	public static final String ARCHIVE_PROJECT = "localFiles"; //$NON-NLS-1$
+
+	private final LogFileTailer.TailedFile tailedFile;
 	private final IOConsoleOutputStream outputStream;
+	private final ConsoleWriter writer;
+	private final LogIngestQueue queue;
 
 	public FileConsole(String consoleName, IPath logFilePath) throws FileNotFoundException {
 		super(consoleName, MicroclimateConsoleFactory.MC_CONSOLE_TYPE,
@@ -38,16 +47,33 @@ public class FileConsole extends IOConsole {
 		}
 
 		outputStream = newOutputStream();
-		logMonitorThread = new FileConsoleMonitorThread(consoleName, logFile, outputStream);
-		logMonitorThread.start();
+		writer = new ConsoleWriter(this, outputStream);
+		writer.setRetention(MicroclimateCorePlugin.FILE_CONSOLE_RETENTION_PREFSKEY);
+		writer.setLog(ARCHIVE_PROJECT, logFile.getName());
+		IPreferenceStore prefs = MicroclimateCorePlugin.getDefault().getPreferenceStore();
+		queue = new LogIngestQueue(consoleName, writer, LogFileTailer.getDefault().getExecutor(),
+				LogIngestQueue.OverflowPolicy.getUnpausable(prefs.getString(MicroclimateCorePlugin.CONSOLE_OVERFLOW_POLICY_PREFSKEY)),
+				prefs.getInt(MicroclimateCorePlugin.CONSOLE_QUEUE_LIMIT_PREFSKEY));
+		tailedFile = LogFileTailer.getDefault().tail(logFile, this);
+	}
+
+	@Override
+	public void update(String contents, boolean reset) throws IOException {
+		queue.add(contents, reset);
+	}
+
+	@Override
+	public ConsoleWriter getConsoleWriter() {
+		return writer;
 	}
 
 	@Override
 	protected void dispose() {
 		MCLogger.log("Dispose console " + getName()); //$NON-NLS-1$
 
-		logMonitorThread.disable();
-		logMonitorThread.interrupt();
+		LogFileTailer.getDefault().untail(tailedFile);
+		queue.close();
+		writer.dispose();
 		try {
 			outputStream.close();
 		} catch (IOException e) {
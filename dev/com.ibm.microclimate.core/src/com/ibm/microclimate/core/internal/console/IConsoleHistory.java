@@ -0,0 +1,57 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.core.internal.console;
+
+import java.io.IOException;
+
+/**
+ * Keeps the output written to a console so that output trimmed from the console can be
+ * read back.  Offsets count the characters written since the history was created or
+ * last reset.
+ */
+public interface IConsoleHistory {
+
+	void append(String text) throws IOException;
+
+	/**
+	 * Throw away all of the history, for when the console is cleared.
+	 */
+	void reset() throws IOException;
+
+	/**
+	 * The number of characters written since the history was created or reset.
+	 */
+	long getLength();
+
+	/**
+	 * The offset of the earliest character that can still be read.
+	 */
+	long getFirstAvailable();
+
+	/**
+	 * Read the characters from start to end.  The start is moved forward if the
+	 * beginning of the range is no longer available.
+	 */
+	String read(long start, long end) throws IOException;
+
+	/**
+	 * Roughly how many bytes of heap the history is using.
+	 */
+	long getMemorySize();
+
+	/**
+	 * A short description of where the history is kept, for diagnostics.
+	 */
+	String getStorageName();
+
+	void dispose();
+}
@@ -0,0 +1,28 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.core.internal.console;
+
+import java.io.IOException;
+
+/**
+ * A console that receives log output from log-update socket events.
+ */
+public interface ILogStreamConsole {
+
+	/**
+	 * Add log output.  If reset is true the contents replace what has been shown.
+	 */
+	void update(String contents, boolean reset) throws IOException;
+
+	String getName();
+
+}
@@ -0,0 +1,22 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.core.internal.console;
+
+/**
+ * A console that keeps a limited amount of output, with the older output in a history
+ * file that can be loaded again through the console writer.
+ */
+public interface IRetainingConsole {
+
+	ConsoleWriter getConsoleWriter();
+
+}
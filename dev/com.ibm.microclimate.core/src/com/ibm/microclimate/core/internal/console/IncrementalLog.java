@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.core.internal.console;
+
+/**
+ * Keeps track of how much of a log has already been shown so that only the new output
+ * has to be fetched and written.  The byte offset is used to ask for the rest of the log.
+ * If the whole log has to be fetched, a hash of the characters shown so far is used to
+ * check that it still starts with what was shown (otherwise the log was replaced).
+ */
+public class IncrementalLog {
+
+	private long byteOffset = 0;
+	private int charCount = 0;
+	private int hash = 0;
+
+	/**
+	 * The number of bytes of the log that have been shown.
+	 */
+	public synchronized long getByteOffset() {
+		return byteOffset;
+	}
+
+	public synchronized int getCharCount() {
+		return charCount;
+	}
+
+	/**
+	 * Record output that follows on from what has been shown, such as the response
+	 * to a request for the log from the byte offset.
+	 */
+	public synchronized void append(String content, long byteLength) {
+		byteOffset += byteLength;
+		charCount += content.length();
+		hash = hash(content, 0, content.length(), hash);
+	}
+
+	/**
+	 * Record the whole log.  Returns the output that has not been shown yet, or null
+	 * if the log does not start with what has been shown, in which case the whole log
+	 * should be shown again.
+	 */
+	public synchronized String appendFull(String content, long byteLength) {
+		if (content.length() >= charCount && hash(content, 0, charCount, 0) == hash) {
+			String newOutput = content.substring(charCount);
+			append(newOutput, byteLength - byteOffset);
+			return newOutput;
+		}
+		reset();
+		append(content, byteLength);
+		return null;
+	}
+
+	public synchronized void reset() {
+		byteOffset = 0;
+		charCount = 0;
+		hash = 0;
+	}
+
+	/**
+	 * The String hash code of the given range of characters.  Passing the hash of the
+	 * preceding characters as the seed gives the hash of the whole sequence.
+	 */
+	public static int hash(CharSequence chars, int start, int end, int seed) {
+		int h = seed;
+		for (int i = start; i < end; i++) {
+			h = 31 * h + chars.charAt(i);
+		}
+		return h;
+	}
+}
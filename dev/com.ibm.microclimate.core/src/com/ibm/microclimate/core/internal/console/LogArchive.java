@@ -0,0 +1,426 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.core.internal.console;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.ibm.microclimate.core.MicroclimateCorePlugin;
+import com.ibm.microclimate.core.internal.MCLogger;
+
+/**
+ * Keeps the log output received for each project so that it is still available after
+ * the console has been cleared or closed.  The output of each log is written to a new
+ * session directory each time the log starts again (for example when the application
+ * is restarted), split into segment files.  Use a LogArchiveReader to read a session.
+ *
+ * Only the last few sessions of each log are kept, and a session stops being written
+ * once it reaches the size limit.  When a session is started the oldest sessions of all
+ * projects (including projects that no longer exist) are deleted until the archive is
+ * under the total size limit.
+ *
+ * The consoles write through a SessionWriter, which does the file I/O on the archive
+ * writer thread so that the consoles never wait for the disk.
+ */
+public class LogArchive {
+
+	public static final long DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+	public static final long DEFAULT_MAX_SESSION_SIZE = 512 * 1024 * 1024;
+	public static final int DEFAULT_MAX_SESSIONS = 5;
+	public static final long DEFAULT_MAX_TOTAL_SIZE = 1024 * 1024 * 1024;
+
+	static final int MAX_PENDING_CHUNKS = 10000;
+
+	static final String SEGMENT_PREFIX = "segment-"; //$NON-NLS-1$
+	static final String SEGMENT_SUFFIX = ".log"; //$NON-NLS-1$
+
+	private static final String ARCHIVE_DIR = "logArchive"; //$NON-NLS-1$
+	private static final String SEPARATOR = "_"; //$NON-NLS-1$
+	private static final String DATE_FORMAT = "yyyyMMdd-HHmmss-SSS"; //$NON-NLS-1$
+
+	private static LogArchive defaultArchive;
+
+	private final File root;
+	private final long segmentSize;
+	private final long maxSessionSize;
+	private final int maxSessions;
+	private final long maxTotalSize;
+	private final ThreadPoolExecutor writer;
+	private final AtomicInteger droppedChunks = new AtomicInteger();
+
+	/**
+	 * The archive in the plugin state location.
+	 */
+	public static synchronized LogArchive getDefault() {
+		if (defaultArchive == null) {
+			File root = MicroclimateCorePlugin.getDefault().getStateLocation().append(ARCHIVE_DIR).toFile();
+			defaultArchive = new LogArchive(root, DEFAULT_SEGMENT_SIZE, DEFAULT_MAX_SESSION_SIZE, DEFAULT_MAX_SESSIONS,
+					DEFAULT_MAX_TOTAL_SIZE);
+		}
+		return defaultArchive;
+	}
+
+	public static synchronized void shutdownDefault() {
+		if (defaultArchive != null) {
+			defaultArchive.close();
+			defaultArchive = null;
+		}
+	}
+
+	public LogArchive(File root, long segmentSize, long maxSessionSize, int maxSessions) {
+		this(root, segmentSize, maxSessionSize, maxSessions, DEFAULT_MAX_TOTAL_SIZE);
+	}
+
+	public LogArchive(File root, long segmentSize, long maxSessionSize, int maxSessions, long maxTotalSize) {
+		this.root = root;
+		this.segmentSize = segmentSize;
+		this.maxSessionSize = maxSessionSize;
+		this.maxSessions = maxSessions;
+		this.maxTotalSize = maxTotalSize;
+		// One thread so the output of each log is written in order
+		writer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<Runnable>(MAX_PENDING_CHUNKS), new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "Microclimate log archive writer"); //$NON-NLS-1$
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * A writer for a new session of a log.  The session is started when the first output is
+	 * appended.
+	 */
+	public SessionWriter newSessionWriter(String projectID, String logName) {
+		return new SessionWriter(projectID, logName);
+	}
+
+	/**
+	 * Write the output that is waiting and stop the writer thread.
+	 */
+	public void close() {
+		writer.shutdown();
+		try {
+			writer.awaitTermination(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Start a new session for a log of a project.  The oldest sessions of the log are
+	 * deleted if there are too many, and the oldest sessions of the archive if it is
+	 * over the total size limit.
+	 */
+	public synchronized Session startSession(String projectID, String logName) throws IOException {
+		File projectDir = new File(root, toFileName(projectID));
+		String name = new SimpleDateFormat(DATE_FORMAT).format(new Date()) + SEPARATOR + toFileName(logName);
+		File dir = new File(projectDir, name);
+		for (int i = 1; dir.exists(); i++) {
+			dir = new File(projectDir, name + SEPARATOR + i);
+		}
+		if (!dir.mkdirs()) {
+			throw new IOException("Could not create the log archive directory: " + dir); //$NON-NLS-1$
+		}
+		prune(projectDir, toFileName(logName));
+		pruneTotal(dir);
+		return new Session(dir);
+	}
+
+	/**
+	 * The archived sessions of a project, newest first.
+	 */
+	public synchronized List<File> getSessions(String projectID) {
+		File[] dirs = new File(root, toFileName(projectID)).listFiles();
+		if (dirs == null) {
+			return Collections.emptyList();
+		}
+		List<File> sessions = new ArrayList<File>(Arrays.asList(dirs));
+		// The names start with the date so sort by name
+		Collections.sort(sessions, Collections.reverseOrder());
+		return sessions;
+	}
+
+	// Must be called while holding the lock
+	private void prune(File projectDir, String logName) {
+		List<File> sessions = new ArrayList<File>();
+		File[] dirs = projectDir.listFiles();
+		if (dirs == null) {
+			return;
+		}
+		for (File dir : dirs) {
+			// The name is the date, the log name and maybe a number to make it unique
+			String name = dir.getName();
+			if (name.endsWith(SEPARATOR + logName) || name.contains(SEPARATOR + logName + SEPARATOR)) {
+				sessions.add(dir);
+			}
+		}
+		Collections.sort(sessions);
+		for (int i = 0; i < sessions.size() - maxSessions; i++) {
+			delete(sessions.get(i));
+		}
+	}
+
+	// Must be called while holding the lock
+	private void pruneTotal(File current) {
+		File[] projectDirs = root.listFiles();
+		if (projectDirs == null) {
+			return;
+		}
+		List<File> sessions = new ArrayList<File>();
+		for (File projectDir : projectDirs) {
+			File[] dirs = projectDir.listFiles();
+			if (dirs == null) {
+				continue;
+			}
+			if (dirs.length == 0) {
+				// All of the sessions of the project have been deleted
+				projectDir.delete();
+			}
+			sessions.addAll(Arrays.asList(dirs));
+		}
+		sessions.remove(current);
+		// The names start with the date so sort by name to put the oldest first
+		Collections.sort(sessions, new Comparator<File>() {
+			@Override
+			public int compare(File file1, File file2) {
+				return file1.getName().compareTo(file2.getName());
+			}
+		});
+		long total = 0;
+		long[] sizes = new long[sessions.size()];
+		for (int i = 0; i < sessions.size(); i++) {
+			sizes[i] = getSize(sessions.get(i));
+			total += sizes[i];
+		}
+		for (int i = 0; i < sessions.size() && total > maxTotalSize; i++) {
+			delete(sessions.get(i));
+			total -= sizes[i];
+			File projectDir = sessions.get(i).getParentFile();
+			String[] left = projectDir.list();
+			if (left != null && left.length == 0) {
+				projectDir.delete();
+			}
+		}
+	}
+
+	private static long getSize(File dir) {
+		long size = 0;
+		File[] files = dir.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				size += file.length();
+			}
+		}
+		return size;
+	}
+
+	private static void delete(File dir) {
+		File[] files = dir.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		if (!dir.delete()) {
+			MCLogger.log("Could not delete the old log archive: " + dir); //$NON-NLS-1$
+		}
+	}
+
+	private static String toFileName(String name) {
+		return name.replaceAll("[^\\w.-]", "-"); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	/**
+	 * The segment files of a session in order.
+	 */
+	static File[] getSegments(File sessionDir) {
+		File[] files = sessionDir.listFiles();
+		if (files == null) {
+			return new File[0];
+		}
+		List<File> segments = new ArrayList<File>();
+		for (File file : files) {
+			if (file.getName().startsWith(SEGMENT_PREFIX) && file.getName().endsWith(SEGMENT_SUFFIX)) {
+				segments.add(file);
+			}
+		}
+		Collections.sort(segments);
+		return segments.toArray(new File[segments.size()]);
+	}
+
+	/**
+	 * One run of a log.  The output is appended as UTF-8, a new segment is started when
+	 * the current one is full.  A chunk is never split across two segments.
+	 */
+	public class Session {
+
+		private final File dir;
+
+		// All access is synchronized on this object
+		private FileChannel channel;
+		private int segmentCount = 0;
+		private long segmentBytes = 0;
+		private long totalBytes = 0;
+		private boolean full = false;
+		private boolean closed = false;
+
+		Session(File dir) {
+			this.dir = dir;
+		}
+
+		public File getDir() {
+			return dir;
+		}
+
+		public synchronized long getSize() {
+			return totalBytes;
+		}
+
+		public synchronized void append(String text) throws IOException {
+			if (closed || full || text.isEmpty()) {
+				return;
+			}
+			ByteBuffer bytes = StandardCharsets.UTF_8.encode(text);
+			int length = bytes.remaining();
+			if (totalBytes + length > maxSessionSize) {
+				full = true;
+				MCLogger.log("The log archive " + dir + " is full, no more output will be archived"); //$NON-NLS-1$ //$NON-NLS-2$
+				return;
+			}
+			if (channel == null || (segmentBytes > 0 && segmentBytes + length > segmentSize)) {
+				nextSegment();
+			}
+			while (bytes.hasRemaining()) {
+				channel.write(bytes);
+			}
+			segmentBytes += length;
+			totalBytes += length;
+		}
+
+		// Must be called while holding the lock
+		private void nextSegment() throws IOException {
+			if (channel != null) {
+				channel.close();
+			}
+			File file = new File(dir, String.format("%s%04d%s", SEGMENT_PREFIX, segmentCount++, SEGMENT_SUFFIX)); //$NON-NLS-1$
+			channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.APPEND);
+			segmentBytes = 0;
+		}
+
+		public synchronized void close() {
+			closed = true;
+			if (channel != null) {
+				try {
+					channel.close();
+				} catch (IOException e) {
+					MCLogger.logError("Error closing the log archive: " + dir, e); //$NON-NLS-1$
+				}
+				channel = null;
+			}
+		}
+	}
+
+	/**
+	 * Appends the output of one session of a log on the archive writer thread.  If writing
+	 * fails the error is logged and the rest of the output of the session is not archived.
+	 */
+	public class SessionWriter {
+
+		private final String projectID;
+		private final String logName;
+
+		// Only changed by the writer thread
+		private volatile Session session;
+		private boolean failed = false;
+
+		SessionWriter(String projectID, String logName) {
+			this.projectID = projectID;
+			this.logName = logName;
+		}
+
+		public void append(final String text) {
+			if (text.isEmpty()) {
+				return;
+			}
+			execute(new Runnable() {
+				@Override
+				public void run() {
+					if (failed) {
+						return;
+					}
+					try {
+						if (session == null) {
+							session = startSession(projectID, logName);
+						}
+						session.append(text);
+					} catch (IOException e) {
+						MCLogger.logError("Failed to archive the output of the " + logName + " log of " + projectID //$NON-NLS-1$ //$NON-NLS-2$
+								+ ", archiving is stopped", e); //$NON-NLS-1$
+						failed = true;
+						if (session != null) {
+							session.close();
+						}
+					}
+				}
+			});
+		}
+
+		/**
+		 * The session, once it has been started on the writer thread.
+		 */
+		public Session getSession() {
+			return session;
+		}
+
+		public void close() {
+			execute(new Runnable() {
+				@Override
+				public void run() {
+					if (session != null) {
+						session.close();
+					}
+				}
+			});
+		}
+	}
+
+	private void execute(Runnable task) {
+		try {
+			writer.execute(task);
+		} catch (RejectedExecutionException e) {
+			if (droppedChunks.getAndIncrement() == 0 && !writer.isShutdown()) {
+				MCLogger.log("The log archive can't keep up, some output will not be archived"); //$NON-NLS-1$
+			}
+		}
+	}
+}
@@ -0,0 +1,171 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.core.internal.console;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads a log archive session a page at a time.  The segment files are memory mapped
+ * so only the pages that are read are loaded, and never onto the heap, which means
+ * archives of hundreds of MB can be viewed.  Pages start and end on line boundaries
+ * where possible.
+ *
+ * The reader sees the session as it was when it was opened.
+ */
+public class LogArchiveReader implements Closeable {
+
+	/**
+	 * Part of the archive, from start (inclusive) to end (exclusive) in bytes.
+	 */
+	public static class Page {
+		public final long start;
+		public final long end;
+		public final String text;
+
+		Page(long start, long end, String text) {
+			this.start = start;
+			this.end = end;
+			this.text = text;
+		}
+	}
+
+	private MappedByteBuffer[] segments;
+	private final long[] starts;
+	private final long length;
+
+	public LogArchiveReader(File sessionDir) throws IOException {
+		File[] files = LogArchive.getSegments(sessionDir);
+		segments = new MappedByteBuffer[files.length];
+		starts = new long[files.length];
+		long offset = 0;
+		for (int i = 0; i < files.length; i++) {
+			// The mapping stays valid after the channel is closed
+			try (FileChannel channel = FileChannel.open(files[i].toPath(), StandardOpenOption.READ)) {
+				segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			}
+			starts[i] = offset;
+			offset += segments[i].capacity();
+		}
+		length = offset;
+	}
+
+	/**
+	 * The size of the session in bytes.
+	 */
+	public long getLength() {
+		return length;
+	}
+
+	/**
+	 * Read the page that starts at the offset.  The page is cut at the last line end
+	 * within pageSize bytes, unless there is none.
+	 */
+	public synchronized Page read(long start, int pageSize) throws IOException {
+		checkOpen();
+		start = Math.max(0, Math.min(start, length));
+		long end = Math.min(length, start + pageSize);
+		if (end < length) {
+			long lineEnd = end;
+			while (lineEnd > start && get(lineEnd - 1) != '\n') {
+				lineEnd--;
+			}
+			if (lineEnd > start) {
+				end = lineEnd;
+			}
+		}
+		return new Page(start, end, decode(start, end));
+	}
+
+	/**
+	 * Read the page that ends at the offset, starting on a line boundary where possible.
+	 */
+	public synchronized Page readBefore(long end, int pageSize) throws IOException {
+		checkOpen();
+		end = Math.max(0, Math.min(end, length));
+		long start = Math.max(0, end - pageSize);
+		if (start > 0) {
+			long lineStart = start;
+			while (lineStart < end && get(lineStart - 1) != '\n') {
+				lineStart++;
+			}
+			if (lineStart < end) {
+				start = lineStart;
+			}
+		}
+		return new Page(start, end, decode(start, end));
+	}
+
+	/**
+	 * The last page of the archive.
+	 */
+	public Page readLast(int pageSize) throws IOException {
+		return readBefore(length, pageSize);
+	}
+
+	// Must be called while holding the lock
+	private byte get(long offset) {
+		int i = getSegment(offset);
+		return segments[i].get((int) (offset - starts[i]));
+	}
+
+	// Must be called while holding the lock
+	private String decode(long start, long end) {
+		byte[] bytes = new byte[(int) (end - start)];
+		int copied = 0;
+		long offset = start;
+		while (offset < end) {
+			int i = getSegment(offset);
+			ByteBuffer segment = segments[i].duplicate();
+			segment.position((int) (offset - starts[i]));
+			int count = (int) Math.min(segment.remaining(), end - offset);
+			segment.get(bytes, copied, count);
+			copied += count;
+			offset += count;
+		}
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private int getSegment(long offset) {
+		int i = Arrays.binarySearch(starts, offset);
+		if (i < 0) {
+			// The segment before the insertion point
+			i = -i - 2;
+		}
+		// Skip empty segments
+		while (i < segments.length - 1 && offset - starts[i] >= segments[i].capacity()) {
+			i++;
+		}
+		return i;
+	}
+
+	private void checkOpen() throws IOException {
+		if (segments == null) {
+			throw new IOException("The log archive reader is closed"); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Drop the mappings.  The memory is released once the buffers are garbage collected.
+	 */
+	@Override
+	public synchronized void close() {
+		segments = null;
+	}
+}
@@ -0,0 +1,485 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.core.internal.console;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import com.ibm.microclimate.core.internal.MCLogger;
+
+/**
+ * Tails local log files for the file consoles.  All of the files are handled by at most
+ * two threads: one waiting for file system events from a WatchService on the parent
+ * directories and one that reads the initial contents and polls the files in directories
+ * that cannot be watched.
+ *
+ * Some file systems (such as network or container mounts) accept a watch but never send
+ * events, so the watched files are also checked every so often.  If a file has changed
+ * without an event its directory is switched to polling.
+ */
+public class LogFileTailer {
+
+	public static final long POLL_INTERVAL_MS = 1000;
+	public static final long WATCH_CHECK_INTERVAL_MS = 10000;
+
+	private static final int READ_SIZE = 64 * 1024;
+
+	// Reused by each of the reading threads
+	private static final ThreadLocal<ByteBuffer> BYTE_BUFFER = new ThreadLocal<ByteBuffer>() {
+		@Override
+		protected ByteBuffer initialValue() {
+			return ByteBuffer.allocateDirect(READ_SIZE);
+		}
+	};
+	private static final ThreadLocal<CharBuffer> CHAR_BUFFER = new ThreadLocal<CharBuffer>() {
+		@Override
+		protected CharBuffer initialValue() {
+			return CharBuffer.allocate(READ_SIZE);
+		}
+	};
+
+	private static LogFileTailer defaultTailer;
+
+	private final String name;
+	private final ScheduledThreadPoolExecutor executor;
+
+	// All of the following are synchronized on this object
+	private WatchService watchService;
+	private final Map<Path, WatchKey> watchKeys = new HashMap<Path, WatchKey>();
+	private final Map<Path, List<TailedFile>> watched = new HashMap<Path, List<TailedFile>>();
+	private final List<TailedFile> polled = new ArrayList<TailedFile>();
+	private ScheduledFuture<?> pollTask;
+	private ScheduledFuture<?> checkTask;
+	private boolean closed = false;
+
+	/**
+	 * The tailer shared by all of the file consoles.
+	 */
+	public static synchronized LogFileTailer getDefault() {
+		if (defaultTailer == null) {
+			defaultTailer = new LogFileTailer("default"); //$NON-NLS-1$
+		}
+		return defaultTailer;
+	}
+
+	public static synchronized void shutdownDefault() {
+		if (defaultTailer != null) {
+			defaultTailer.close();
+			defaultTailer = null;
+		}
+	}
+
+	public LogFileTailer(final String name) {
+		this.name = name;
+		executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "Microclimate log file tailer - " + name); //$NON-NLS-1$
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		executor.setRemoveOnCancelPolicy(true);
+	}
+
+	/**
+	 * Start tailing the file.  The current contents of the file are sent to the console
+	 * first, then anything that is added.  If the file gets shorter it is read from the
+	 * start again with reset set.
+	 */
+	public synchronized TailedFile tail(File file, ILogStreamConsole console) {
+		final TailedFile tailed = new TailedFile(file.toPath().toAbsolutePath(), console);
+		if (closed) {
+			return tailed;
+		}
+		Path dir = tailed.path.getParent();
+		if (!watch(dir, tailed)) {
+			polled.add(tailed);
+			startPolling();
+		}
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				tailed.read();
+			}
+		});
+		return tailed;
+	}
+
+	/**
+	 * Stop tailing the file.
+	 */
+	public synchronized void untail(TailedFile tailed) {
+		tailed.cancel();
+		polled.remove(tailed);
+		if (polled.isEmpty() && pollTask != null) {
+			pollTask.cancel(false);
+			pollTask = null;
+		}
+		Path dir = tailed.path.getParent();
+		List<TailedFile> files = watched.get(dir);
+		if (files != null) {
+			files.remove(tailed);
+			if (files.isEmpty()) {
+				watched.remove(dir);
+				WatchKey key = watchKeys.remove(dir);
+				if (key != null) {
+					key.cancel();
+				}
+			}
+		}
+		if (watched.isEmpty() && checkTask != null) {
+			checkTask.cancel(false);
+			checkTask = null;
+		}
+	}
+
+	/**
+	 * The executor that reads the files, for work that should be done on the
+	 * same thread such as writing to the consoles.
+	 */
+	ScheduledExecutorService getExecutor() {
+		return executor;
+	}
+
+	public synchronized int getWatchedCount() {
+		int count = 0;
+		for (List<TailedFile> files : watched.values()) {
+			count += files.size();
+		}
+		return count;
+	}
+
+	public synchronized int getPolledCount() {
+		return polled.size();
+	}
+
+	public synchronized void close() {
+		closed = true;
+		executor.shutdownNow();
+		for (List<TailedFile> files : watched.values()) {
+			for (TailedFile tailed : files) {
+				tailed.cancel();
+			}
+		}
+		for (TailedFile tailed : polled) {
+			tailed.cancel();
+		}
+		watched.clear();
+		watchKeys.clear();
+		polled.clear();
+		if (watchService != null) {
+			try {
+				watchService.close();
+			} catch (IOException e) {
+				MCLogger.logError("Failed to close the watch service for the log file tailer: " + name, e); //$NON-NLS-1$
+			}
+		}
+	}
+
+	// Must be called while holding the lock
+	private boolean watch(Path dir, TailedFile tailed) {
+		List<TailedFile> files = watched.get(dir);
+		if (files != null) {
+			files.add(tailed);
+			return true;
+		}
+		try {
+			if (watchService == null) {
+				watchService = FileSystems.getDefault().newWatchService();
+				Thread thread = new Thread(new Runnable() {
+					@Override
+					public void run() {
+						processEvents();
+					}
+				}, "Microclimate log file watcher - " + name); //$NON-NLS-1$
+				thread.setDaemon(true);
+				thread.start();
+			}
+			WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+					StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+			watchKeys.put(dir, key);
+		} catch (IOException | UnsupportedOperationException e) {
+			MCLogger.log("Cannot watch " + dir + " for log file changes, polling instead: " + e); //$NON-NLS-1$ //$NON-NLS-2$
+			return false;
+		}
+		files = new ArrayList<TailedFile>();
+		files.add(tailed);
+		watched.put(dir, files);
+		if (checkTask == null) {
+			checkTask = executor.scheduleWithFixedDelay(new Runnable() {
+				@Override
+				public void run() {
+					checkWatched();
+				}
+			}, WATCH_CHECK_INTERVAL_MS, WATCH_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+		}
+		return true;
+	}
+
+	// Must be called while holding the lock
+	private void startPolling() {
+		if (pollTask == null) {
+			pollTask = executor.scheduleWithFixedDelay(new Runnable() {
+				@Override
+				public void run() {
+					List<TailedFile> files;
+					synchronized (LogFileTailer.this) {
+						files = new ArrayList<TailedFile>(polled);
+					}
+					for (TailedFile tailed : files) {
+						tailed.read();
+					}
+				}
+			}, POLL_INTERVAL_MS, POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	private void processEvents() {
+		while (true) {
+			WatchKey key;
+			try {
+				key = watchService.take();
+			} catch (InterruptedException | ClosedWatchServiceException e) {
+				return;
+			}
+			Path dir = (Path) key.watchable();
+			List<TailedFile> files;
+			synchronized (this) {
+				List<TailedFile> list = watched.get(dir);
+				files = list == null ? new ArrayList<TailedFile>() : new ArrayList<TailedFile>(list);
+			}
+			for (WatchEvent<?> event : key.pollEvents()) {
+				for (TailedFile tailed : files) {
+					if (event.kind() == StandardWatchEventKinds.OVERFLOW || tailed.path.getFileName().equals(event.context())) {
+						tailed.eventCount++;
+						tailed.read();
+					}
+				}
+			}
+			if (!key.reset()) {
+				// The directory is gone or can no longer be watched
+				switchToPolling(dir);
+			}
+		}
+	}
+
+	/**
+	 * Check that the watched files have not changed without an event.  A change found by
+	 * the check may be one whose event is still waiting to be processed, so it only counts
+	 * as missed if no event arrives for the file before the next check either.
+	 */
+	private void checkWatched() {
+		Map<Path, List<TailedFile>> files = new HashMap<Path, List<TailedFile>>();
+		synchronized (this) {
+			for (Map.Entry<Path, List<TailedFile>> entry : watched.entrySet()) {
+				files.put(entry.getKey(), new ArrayList<TailedFile>(entry.getValue()));
+			}
+		}
+		for (Map.Entry<Path, List<TailedFile>> entry : files.entrySet()) {
+			boolean missed = false;
+			for (TailedFile tailed : entry.getValue()) {
+				long eventCount = tailed.eventCount;
+				boolean noEvents = eventCount == tailed.checkedEventCount;
+				if (tailed.changeWithoutEvent && noEvents) {
+					missed = true;
+				}
+				tailed.changeWithoutEvent = tailed.read() && noEvents;
+				tailed.checkedEventCount = eventCount;
+			}
+			if (missed) {
+				MCLogger.log("No file system events for changes in " + entry.getKey() + ", polling instead"); //$NON-NLS-1$ //$NON-NLS-2$
+				switchToPolling(entry.getKey());
+			}
+		}
+	}
+
+	private synchronized void switchToPolling(Path dir) {
+		WatchKey key = watchKeys.remove(dir);
+		if (key != null) {
+			key.cancel();
+		}
+		List<TailedFile> files = watched.remove(dir);
+		if (files != null && !closed) {
+			polled.addAll(files);
+			startPolling();
+		}
+	}
+
+	/**
+	 * A file being tailed.  The file is read from the last offset with a FileChannel into a
+	 * buffer that is reused by the reading thread, and decoded as UTF-8 a piece at a time so
+	 * that a character split across two reads comes out whole.  The output is passed to the
+	 * console in chunks that end on a line boundary where possible.
+	 *
+	 * The file is read from the start again if it is replaced (the file key changes, which
+	 * is the inode on most systems) or truncated (it is shorter than the offset).
+	 */
+	public static class TailedFile {
+		public final Path path;
+		private final ILogStreamConsole console;
+
+		// Only accessed while synchronized on this object
+		private long position = 0;
+		private Object fileKey;
+		private boolean reset = false;
+		private boolean failed = false;
+		private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		// The bytes of a character that was cut off at the end of the last read
+		private final byte[] partialChar = new byte[8];
+		private int partialCharLength = 0;
+
+		private volatile boolean cancelled = false;
+		// Only changed by the watcher thread
+		volatile long eventCount = 0;
+		// Only used by the checks of the watched files
+		long checkedEventCount = 0;
+		boolean changeWithoutEvent = false;
+
+		TailedFile(Path path, ILogStreamConsole console) {
+			this.path = path;
+			this.console = console;
+		}
+
+		/**
+		 * Send any new contents of the file to the console.  Returns true if there
+		 * were new contents.
+		 */
+		synchronized boolean read() {
+			if (cancelled) {
+				return false;
+			}
+			try {
+				BasicFileAttributes attributes;
+				try {
+					attributes = Files.readAttributes(path, BasicFileAttributes.class);
+				} catch (NoSuchFileException e) {
+					// Wait for the file to be created again
+					return false;
+				}
+				Object key = getFileKey(attributes);
+				long length = attributes.size();
+				if ((fileKey != null && !fileKey.equals(key)) || length < position) {
+					// The file was replaced (for example rolled over) or truncated
+					position = 0;
+					partialCharLength = 0;
+					decoder.reset();
+					reset = true;
+				}
+				fileKey = key;
+				if (length == position) {
+					if (reset) {
+						reset = false;
+						console.update("", true); //$NON-NLS-1$
+						return true;
+					}
+					return false;
+				}
+				try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+					readFrom(channel);
+				}
+				failed = false;
+				return true;
+			} catch (IOException e) {
+				// Only log the first failure in a row since the read is retried
+				if (!failed) {
+					failed = true;
+					MCLogger.logError("Error updating the console " + console.getName() + " from the file " + path, e); //$NON-NLS-1$ //$NON-NLS-2$
+				}
+				return false;
+			}
+		}
+
+		private void readFrom(FileChannel channel) throws IOException {
+			ByteBuffer bytes = BYTE_BUFFER.get();
+			CharBuffer chars = CHAR_BUFFER.get();
+			StringBuilder pending = new StringBuilder();
+			while (!cancelled) {
+				bytes.clear();
+				bytes.put(partialChar, 0, partialCharLength);
+				int count = channel.read(bytes, position);
+				if (count <= 0) {
+					break;
+				}
+				position += count;
+				bytes.flip();
+				chars.clear();
+				decoder.decode(bytes, chars, false);
+				partialCharLength = bytes.remaining();
+				bytes.get(partialChar, 0, partialCharLength);
+				chars.flip();
+				pending.append(chars);
+
+				// Write up to the last complete line, the rest goes with the next chunk
+				int end = pending.lastIndexOf("\n") + 1; //$NON-NLS-1$
+				if (end > 0) {
+					write(pending.substring(0, end));
+					pending.delete(0, end);
+				}
+			}
+			// The last line is not finished yet, it is continued by the next read
+			if (pending.length() > 0) {
+				write(pending.toString());
+			}
+		}
+
+		private void write(String contents) throws IOException {
+			console.update(contents, reset);
+			reset = false;
+		}
+
+		/**
+		 * The file key identifies the file even if it is renamed.  Not all file systems
+		 * have one so fall back to the creation time.
+		 */
+		private static Object getFileKey(BasicFileAttributes attributes) {
+			Object key = attributes.fileKey();
+			return key != null ? key : attributes.creationTime();
+		}
+
+		public boolean isCancelled() {
+			return cancelled;
+		}
+
+		void cancel() {
+			cancelled = true;
+		}
+	}
+}
@@ -0,0 +1,392 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.core.internal.console;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.osgi.util.NLS;
+
+import com.ibm.microclimate.core.internal.MCLogger;
+import com.ibm.microclimate.core.internal.messages.Messages;
+
+/**
+ * Bounded queue between the log sources and a console.  Log chunks are added as they
+ * arrive and are written to the console in the background, at most WRITE_LIMIT characters
+ * every WRITE_INTERVAL_MS so that a flood of log output can't swamp the UI.  Adjacent chunks
+ * are merged so that each write to the console is as large as possible.
+ *
+ * Output is held back for up to FLUSH_INTERVAL_MS so that the small chunks that arrive
+ * close together (such as one line per event) go to the console in one write, unless there
+ * is already WRITE_LIMIT characters waiting.
+ *
+ * If the backlog goes over the limit the overflow policy decides what happens:
+ *   MERGE - keep everything, the chunks are just merged
+ *   DROP_OLDEST - drop the oldest output and write a marker saying how much was skipped
+ *   PAUSE - ask the target to stop the log stream until resume is called
+ */
+public class LogIngestQueue {
+
+	public enum OverflowPolicy {
+		MERGE("merge"), //$NON-NLS-1$
+		DROP_OLDEST("dropOldest"), //$NON-NLS-1$
+		PAUSE("pause"); //$NON-NLS-1$
+
+		public final String prefValue;
+
+		private OverflowPolicy(String prefValue) {
+			this.prefValue = prefValue;
+		}
+
+		public static OverflowPolicy get(String prefValue) {
+			for (OverflowPolicy policy : OverflowPolicy.values()) {
+				if (policy.prefValue.equals(prefValue)) {
+					return policy;
+				}
+			}
+			return DROP_OLDEST;
+		}
+
+		/**
+		 * The policy for a source that can't be paused, where PAUSE would drop all of the
+		 * output until the queue is reset since nothing resumes it.
+		 */
+		public static OverflowPolicy getUnpausable(String prefValue) {
+			OverflowPolicy policy = get(prefValue);
+			return policy == PAUSE ? DROP_OLDEST : policy;
+		}
+	}
+
+	/**
+	 * Where the queued output goes.  The methods are called on the executor threads.
+	 */
+	public interface ILogTarget {
+		void write(String contents, boolean reset) throws IOException;
+		void pause();
+		void resume();
+	}
+
+	public interface IBacklogListener {
+		void backlogChanged(LogIngestQueue queue);
+	}
+
+	public static final int DEFAULT_LIMIT = 1024 * 1024;
+
+	// Maximum characters written to the console in one go, also the size chunks are merged up to
+	static final int WRITE_LIMIT = 64 * 1024;
+	static final long WRITE_INTERVAL_MS = 20;
+	// How long a small amount of output is held back waiting for more
+	static final long FLUSH_INTERVAL_MS = 50;
+
+	private final String name;
+	private final ILogTarget target;
+	private final ScheduledExecutorService executor;
+	private final CopyOnWriteArrayList<IBacklogListener> listeners = new CopyOnWriteArrayList<IBacklogListener>();
+
+	private volatile OverflowPolicy policy;
+	private volatile int limit;
+
+	// All access to the following is synchronized on this object
+	private final ArrayDeque<StringBuilder> chunks = new ArrayDeque<StringBuilder>();
+	private int backlog = 0;
+	private boolean resetPending = false;
+	private long skippedBytes = 0;
+	private long totalSkippedBytes = 0;
+	private boolean paused = false;
+	private ScheduledFuture<?> writeTask;
+	private long writeTime;
+	private boolean closed = false;
+
+	/**
+	 * A queue that keeps all of the output, for sources that can't be paused.
+	 */
+	public LogIngestQueue(String name, ILogTarget target, ScheduledExecutorService executor) {
+		this(name, target, executor, OverflowPolicy.MERGE, DEFAULT_LIMIT);
+	}
+
+	public LogIngestQueue(String name, ILogTarget target, ScheduledExecutorService executor,
+			OverflowPolicy policy, int limit) {
+		this.name = name;
+		this.target = target;
+		this.executor = executor;
+		this.policy = policy;
+		this.limit = limit;
+	}
+
+	public void setPolicy(OverflowPolicy policy) {
+		this.policy = policy;
+	}
+
+	public OverflowPolicy getPolicy() {
+		return policy;
+	}
+
+	public void setLimit(int limit) {
+		this.limit = limit;
+	}
+
+	public void addListener(IBacklogListener listener) {
+		listeners.add(listener);
+	}
+
+	public void removeListener(IBacklogListener listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Add log output.  If reset is true the console is cleared first and anything
+	 * still queued is thrown away.
+	 */
+	public void add(String contents, boolean reset) {
+		boolean pause = false;
+		synchronized (this) {
+			if (closed) {
+				return;
+			}
+			if (reset) {
+				chunks.clear();
+				backlog = 0;
+				skippedBytes = 0;
+				resetPending = true;
+			}
+			if (paused) {
+				// The stream has been stopped, anything still arriving is dropped
+				if (!contents.isEmpty()) {
+					skip(contents, 0, contents.length());
+				}
+			} else {
+				append(contents);
+				if (backlog > limit) {
+					switch (policy) {
+						case DROP_OLDEST:
+							dropOldest(backlog - limit);
+							break;
+						case PAUSE:
+							paused = true;
+							pause = true;
+							break;
+						default:
+							// Keep all of the output
+							break;
+					}
+				}
+			}
+			scheduleWrite(0);
+		}
+		if (pause) {
+			MCLogger.log("Pausing the log stream for " + name + ", backlog is: " + getBacklog()); //$NON-NLS-1$ //$NON-NLS-2$
+			runLater(new Runnable() {
+				@Override
+				public void run() {
+					target.pause();
+				}
+			});
+		}
+		fireBacklogChanged();
+	}
+
+	/**
+	 * Resume a paused log stream.
+	 */
+	public void resume() {
+		synchronized (this) {
+			if (!paused || closed) {
+				return;
+			}
+			paused = false;
+		}
+		MCLogger.log("Resuming the log stream for " + name); //$NON-NLS-1$
+		runLater(new Runnable() {
+			@Override
+			public void run() {
+				target.resume();
+			}
+		});
+		fireBacklogChanged();
+	}
+
+	/**
+	 * Stop writing.  Anything still queued is dropped.
+	 */
+	public synchronized void close() {
+		closed = true;
+		chunks.clear();
+		backlog = 0;
+		if (writeTask != null) {
+			writeTask.cancel(false);
+			writeTask = null;
+		}
+	}
+
+	/**
+	 * The number of characters waiting to be written to the console.
+	 */
+	public synchronized int getBacklog() {
+		return backlog;
+	}
+
+	public synchronized boolean isPaused() {
+		return paused;
+	}
+
+	/**
+	 * The total number of bytes that have been dropped because of the overflow policy
+	 * or because the stream was paused.
+	 */
+	public synchronized long getSkippedBytes() {
+		return totalSkippedBytes;
+	}
+
+	// Must be called while holding the lock
+	private void append(String contents) {
+		if (contents.isEmpty()) {
+			return;
+		}
+		StringBuilder last = chunks.peekLast();
+		if (last != null && last.length() + contents.length() <= WRITE_LIMIT) {
+			last.append(contents);
+		} else {
+			chunks.add(new StringBuilder(contents));
+		}
+		backlog += contents.length();
+	}
+
+	// Must be called while holding the lock
+	private void dropOldest(int count) {
+		while (count > 0 && !chunks.isEmpty()) {
+			StringBuilder first = chunks.peekFirst();
+			if (first.length() <= count) {
+				chunks.removeFirst();
+				skip(first, 0, first.length());
+				count -= first.length();
+				backlog -= first.length();
+			} else {
+				// Don't cut a surrogate pair in half
+				if (Character.isLowSurrogate(first.charAt(count)) && Character.isHighSurrogate(first.charAt(count - 1))) {
+					count++;
+				}
+				skip(first, 0, count);
+				first.delete(0, count);
+				backlog -= count;
+				count = 0;
+			}
+		}
+	}
+
+	// Must be called while holding the lock
+	private void skip(CharSequence text, int start, int end) {
+		long bytes = utf8Length(text, start, end);
+		skippedBytes += bytes;
+		totalSkippedBytes += bytes;
+	}
+
+	// Must be called while holding the lock
+	private void scheduleWrite(long minDelay) {
+		if (closed || (chunks.isEmpty() && !resetPending && skippedBytes == 0)) {
+			return;
+		}
+		// Wait for more output unless there is already enough for a full write
+		long delay = backlog >= WRITE_LIMIT ? minDelay : Math.max(minDelay, FLUSH_INTERVAL_MS);
+		long time = now() + delay;
+		if (writeTask != null) {
+			// Only move the write forward, and only if it hasn't started yet
+			if (time >= writeTime || !writeTask.cancel(false)) {
+				return;
+			}
+		}
+		try {
+			writeTask = executor.schedule(new Runnable() {
+				@Override
+				public void run() {
+					writeNext();
+				}
+			}, delay, TimeUnit.MILLISECONDS);
+			writeTime = time;
+		} catch (RejectedExecutionException e) {
+			writeTask = null;
+			MCLogger.logError("Failed to schedule a write to: " + name, e); //$NON-NLS-1$
+		}
+	}
+
+	private void writeNext() {
+		String contents;
+		boolean reset;
+		synchronized (this) {
+			writeTask = null;
+			if (closed) {
+				return;
+			}
+			StringBuilder builder = chunks.pollFirst();
+			String text = builder == null ? "" : builder.toString(); //$NON-NLS-1$
+			backlog -= text.length();
+			if (skippedBytes > 0) {
+				text = NLS.bind(Messages.LogSkippedMarker, Long.toString(skippedBytes)) + text;
+				skippedBytes = 0;
+			}
+			contents = text;
+			reset = resetPending;
+			resetPending = false;
+		}
+
+		try {
+			target.write(contents, reset);
+		} catch (Exception e) {
+			MCLogger.logError("Error writing to " + name, e); //$NON-NLS-1$
+		}
+
+		synchronized (this) {
+			scheduleWrite(WRITE_INTERVAL_MS);
+		}
+		fireBacklogChanged();
+	}
+
+	private void runLater(Runnable runnable) {
+		try {
+			executor.execute(runnable);
+		} catch (RejectedExecutionException e) {
+			MCLogger.logError("Failed to run the log stream request for: " + name, e); //$NON-NLS-1$
+		}
+	}
+
+	private void fireBacklogChanged() {
+		for (IBacklogListener listener : listeners) {
+			listener.backlogChanged(this);
+		}
+	}
+
+	private static long now() {
+		return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+	}
+
+	static long utf8Length(CharSequence text, int start, int end) {
+		long length = 0;
+		for (int i = start; i < end; i++) {
+			char c = text.charAt(i);
+			if (c < 0x80) {
+				length++;
+			} else if (c < 0x800) {
+				length += 2;
+			} else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(text.charAt(i + 1))) {
+				length += 4;
+				i++;
+			} else {
+				length += 3;
+			}
+		}
+		return length;
+	}
+}
@@ -0,0 +1,59 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.core.internal.console;
+
+import java.util.Locale;
+
+/**
+ * The levels of log output, lowest first.  Each level has the names that the
+ * Liberty, Spring (logback and log4j), java.util.logging and Node loggers use for it.
+ */
+public enum LogLevel {
+
+	TRACE("trace", "trace", "finest", "finer"), //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+	DEBUG("debug", "debug", "fine", "verbose"), //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+	INFO("info", "info", "audit", "notice", "config"), //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+	WARNING("warning", "warning", "warn"), //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	ERROR("error", "error", "err", "severe", "fatal"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+
+	public final String prefValue;
+	private final String[] names;
+
+	private LogLevel(String prefValue, String... names) {
+		this.prefValue = prefValue;
+		this.names = names;
+	}
+
+	/**
+	 * The level with the given name in any case, or null if there is none.
+	 */
+	public static LogLevel fromName(String name) {
+		String lower = name.toLowerCase(Locale.ENGLISH);
+		for (LogLevel level : values()) {
+			for (String levelName : level.names) {
+				if (levelName.equals(lower)) {
+					return level;
+				}
+			}
+		}
+		return null;
+	}
+
+	public static LogLevel fromPrefValue(String prefValue) {
+		for (LogLevel level : values()) {
+			if (level.prefValue.equals(prefValue)) {
+				return level;
+			}
+		}
+		return null;
+	}
+}
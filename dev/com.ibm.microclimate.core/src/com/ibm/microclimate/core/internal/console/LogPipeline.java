@@ -0,0 +1,412 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.core.internal.console;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * Processes log output before it is written to a console.  The output is split into
+ * lines which are passed through each stage in turn.  A stage can change, drop, hold
+ * back or add lines.  The standard stages remove ANSI escape sequences, work out the
+ * level and timestamp of each line, filter by level and collapse repeated lines.
+ *
+ * The pipeline is not thread safe.  It is run by the ConsoleWriter on the thread that
+ * writes to the console (not the UI thread), one chunk at a time.
+ *
+ * Output that does not end with a line end is passed on straight away rather than held
+ * until the rest of the line arrives, so a prompt or progress output is not delayed.
+ * The rest of the line is then passed on as a continuation of the line.
+ */
+public class LogPipeline {
+
+	// Longer lines are not compared for repeats
+	static final int MAX_REPEAT_LENGTH = 4096;
+
+	/**
+	 * A line of log output.
+	 */
+	public static class Line {
+		public String text;
+		// The line end or empty if the line is not complete yet
+		public final String lineEnd;
+		// True if this is the rest of a line whose start has already been processed
+		public final boolean continuation;
+		public LogLevel level;
+		// The timestamp at the start of the line, or null
+		public String timestamp;
+
+		public Line(String text, String lineEnd, boolean continuation) {
+			this.text = text;
+			this.lineEnd = lineEnd;
+			this.continuation = continuation;
+		}
+
+		public boolean isComplete() {
+			return !lineEnd.isEmpty();
+		}
+	}
+
+	/**
+	 * A step in the pipeline.
+	 */
+	public interface IStage {
+
+		/**
+		 * Process a line.  Add the lines to pass on to the next stage to out, which may be
+		 * nothing, the same line, or several lines.
+		 */
+		void process(Line line, List<Line> out);
+
+		/**
+		 * Called at the end of each chunk.  Pass on anything that should not be held back
+		 * until the next chunk.
+		 */
+		void flush(List<Line> out);
+
+		/**
+		 * The console was cleared, forget about the previous output.
+		 */
+		void reset();
+	}
+
+	private final List<IStage> stages = new ArrayList<IStage>();
+	private boolean lineOpen = false;
+
+	/**
+	 * The standard pipeline.  The level filter stage is always added so the level can be
+	 * changed later.
+	 */
+	public static LogPipeline create(boolean stripAnsi, boolean collapseRepeats, String repeatFormat) {
+		LogPipeline pipeline = new LogPipeline();
+		if (stripAnsi) {
+			pipeline.addStage(new AnsiStage());
+		}
+		pipeline.addStage(new LevelStage());
+		pipeline.addStage(new LevelFilterStage());
+		if (collapseRepeats) {
+			pipeline.addStage(new RepeatStage(repeatFormat));
+		}
+		return pipeline;
+	}
+
+	public void addStage(IStage stage) {
+		stages.add(stage);
+	}
+
+	public <T extends IStage> T getStage(Class<T> type) {
+		for (IStage stage : stages) {
+			if (type.isInstance(stage)) {
+				return type.cast(stage);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Run a chunk of output through the pipeline, returning the output to write.
+	 */
+	public String process(String chunk) {
+		List<Line> lines = split(chunk);
+		for (IStage stage : stages) {
+			List<Line> out = new ArrayList<Line>(lines.size());
+			for (Line line : lines) {
+				stage.process(line, out);
+			}
+			stage.flush(out);
+			lines = out;
+		}
+		StringBuilder result = new StringBuilder(chunk.length());
+		for (Line line : lines) {
+			result.append(line.text).append(line.lineEnd);
+		}
+		return result.toString();
+	}
+
+	public void reset() {
+		lineOpen = false;
+		for (IStage stage : stages) {
+			stage.reset();
+		}
+	}
+
+	private List<Line> split(String chunk) {
+		List<Line> lines = new ArrayList<Line>();
+		int start = 0;
+		int end;
+		while ((end = chunk.indexOf('\n', start)) >= 0) {
+			int textEnd = end > start && chunk.charAt(end - 1) == '\r' ? end - 1 : end;
+			lines.add(new Line(chunk.substring(start, textEnd), chunk.substring(textEnd, end + 1), lineOpen));
+			lineOpen = false;
+			start = end + 1;
+		}
+		if (start < chunk.length()) {
+			lines.add(new Line(chunk.substring(start), "", lineOpen)); //$NON-NLS-1$
+			lineOpen = true;
+		}
+		return lines;
+	}
+
+	/**
+	 * Removes ANSI escape sequences such as colours.  A sequence split across two chunks
+	 * is held back until the rest of it arrives.
+	 */
+	public static class AnsiStage implements IStage {
+
+		private static final char ESC = '\u001B';
+		private static final Pattern ANSI_PATTERN = Pattern.compile(
+				"\u001B\\[[0-?]*[ -/]*[@-~]" //$NON-NLS-1$
+				+ "|\u001B\\][^\u0007\u001B]*(?:\u0007|\u001B\\\\)" //$NON-NLS-1$
+				+ "|\u001B[@-Z\\\\-_]"); //$NON-NLS-1$
+
+		private String held = null;
+
+		@Override
+		public void process(Line line, List<Line> out) {
+			String text = line.text;
+			if (held != null) {
+				if (line.continuation) {
+					text = held + text;
+				}
+				held = null;
+			}
+			if (text.indexOf(ESC) >= 0) {
+				text = ANSI_PATTERN.matcher(text).replaceAll(""); //$NON-NLS-1$
+				int esc = text.indexOf(ESC);
+				if (esc >= 0) {
+					if (!line.isComplete()) {
+						// Probably the start of a sequence
+						held = text.substring(esc);
+						text = text.substring(0, esc);
+					} else {
+						text = text.replace(String.valueOf(ESC), ""); //$NON-NLS-1$
+					}
+				}
+			}
+			line.text = text;
+			out.add(line);
+		}
+
+		@Override
+		public void flush(List<Line> out) {
+			// Nothing to do
+		}
+
+		@Override
+		public void reset() {
+			held = null;
+		}
+	}
+
+	/**
+	 * Works out the level and timestamp of each line.  Lines that continue the previous
+	 * line, such as the lines of a stack trace, get the level of the previous line.
+	 */
+	public static class LevelStage implements IStage {
+
+		// How far into a line to look for the level
+		private static final int LEVEL_SEARCH_LENGTH = 100;
+
+		// The level names are only looked for where loggers put them, so that a level word
+		// in the message itself (such as "everything is fine") is not taken as the level
+		private static final Pattern HEADER_LEVEL_PATTERN;
+		private static final Pattern BRACKETED_LEVEL_PATTERN;
+		private static final Pattern PADDED_LEVEL_PATTERN;
+		static {
+			StringBuilder names = new StringBuilder();
+			for (String name : new String[] { "trace", "finest", "finer", "fine", "debug", "verbose", "info", "audit", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$ //$NON-NLS-8$
+					"notice", "config", "warning", "warn", "error", "err", "severe", "fatal" }) { //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$ //$NON-NLS-8$
+				names.append(names.length() == 0 ? "" : "|").append(name); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+			// At the start of the line or right after the timestamp, eg. "warn: ...", "2019-03-01 12:00:00.123 DEBUG ..."
+			HEADER_LEVEL_PATTERN = Pattern.compile("^(" + names + ")(:|\\s|$)", Pattern.CASE_INSENSITIVE); //$NON-NLS-1$ //$NON-NLS-2$
+			// In brackets anywhere in the header, eg. "[INFO    ]", "(warn)"
+			BRACKETED_LEVEL_PATTERN = Pattern.compile("[\\[(<]\\s*(" + names + ")\\s*[\\])>]", Pattern.CASE_INSENSITIVE); //$NON-NLS-1$ //$NON-NLS-2$
+			// In capitals followed by the process ID, eg. " INFO 1 --- "
+			PADDED_LEVEL_PATTERN = Pattern.compile("\\s(" + names.toString().toUpperCase(Locale.ENGLISH) + ")\\s+\\d+\\s+---\\s"); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		// A Liberty message ID such as CWWKF0011I, the last letter is the level
+		private static final Pattern MESSAGE_ID_PATTERN = Pattern.compile("\\b[A-Z]{4,5}\\d{4,5}([IWE]):"); //$NON-NLS-1$
+		private static final Pattern TIMESTAMP_PATTERN = Pattern.compile(
+				"^\\[?(?:\\d{4}-\\d{2}-\\d{2}[T ]\\d{2}:\\d{2}:\\d{2}(?:[.,:]\\d+)?(?:Z|[+-]\\d{2}:?\\d{2})?" //$NON-NLS-1$
+				+ "|\\d{1,2}/\\d{1,2}/\\d{2,4},? \\d{1,2}:\\d{2}:\\d{2}(?:[.,:]\\d+)?(?: [A-Z]{2,5})?)\\]?\\s*"); //$NON-NLS-1$
+		// Stack trace lines, including the exception, which loggers write after the message
+		private static final Pattern CONTINUATION_PATTERN = Pattern.compile(
+				"^(?:\\s|Caused by:|\\.\\.\\. \\d|[\\w$]+(?:\\.[\\w$]+)+(?:Exception|Error|Throwable)\\b)"); //$NON-NLS-1$
+
+		private LogLevel previous = null;
+
+		@Override
+		public void process(Line line, List<Line> out) {
+			if (line.continuation) {
+				line.level = previous;
+			} else {
+				Matcher matcher = TIMESTAMP_PATTERN.matcher(line.text);
+				if (matcher.find() && matcher.end() > 0) {
+					line.timestamp = matcher.group();
+				}
+				line.level = findLevel(line.text);
+				if (line.level == null && line.timestamp == null && !line.text.isEmpty()
+						&& CONTINUATION_PATTERN.matcher(line.text).find()) {
+					line.level = previous;
+				}
+				previous = line.level;
+			}
+			out.add(line);
+		}
+
+		/**
+		 * The level in the header near the start of the text, or null if there is none.
+		 */
+		public static LogLevel findLevel(String text) {
+			String start = text.length() > LEVEL_SEARCH_LENGTH ? text.substring(0, LEVEL_SEARCH_LENGTH) : text;
+			Matcher matcher = TIMESTAMP_PATTERN.matcher(start);
+			matcher = HEADER_LEVEL_PATTERN.matcher(matcher.find() ? start.substring(matcher.end()) : start);
+			// A lower case level at the start must be followed by a colon, since it may just be the first word
+			if (matcher.find() && (":".equals(matcher.group(2)) || isUpperCase(matcher.group(1)))) { //$NON-NLS-1$
+				return LogLevel.fromName(matcher.group(1));
+			}
+			matcher = BRACKETED_LEVEL_PATTERN.matcher(start);
+			if (matcher.find()) {
+				return LogLevel.fromName(matcher.group(1));
+			}
+			matcher = PADDED_LEVEL_PATTERN.matcher(start);
+			if (matcher.find()) {
+				return LogLevel.fromName(matcher.group(1));
+			}
+			matcher = MESSAGE_ID_PATTERN.matcher(start);
+			if (matcher.find()) {
+				switch (matcher.group(1).charAt(0)) {
+					case 'E':
+						return LogLevel.ERROR;
+					case 'W':
+						return LogLevel.WARNING;
+					default:
+						return LogLevel.INFO;
+				}
+			}
+			return null;
+		}
+
+		private static boolean isUpperCase(String text) {
+			return text.equals(text.toUpperCase(Locale.ENGLISH));
+		}
+
+		@Override
+		public void flush(List<Line> out) {
+			// Nothing to do
+		}
+
+		@Override
+		public void reset() {
+			previous = null;
+		}
+	}
+
+	/**
+	 * Drops the lines below the minimum level.  Lines with no level are kept.  The
+	 * level can be changed from any thread.
+	 */
+	public static class LevelFilterStage implements IStage {
+
+		private volatile LogLevel minLevel = null;
+		private boolean dropping = false;
+
+		public void setMinLevel(LogLevel level) {
+			minLevel = level;
+		}
+
+		public LogLevel getMinLevel() {
+			return minLevel;
+		}
+
+		@Override
+		public void process(Line line, List<Line> out) {
+			if (!line.continuation) {
+				LogLevel min = minLevel;
+				dropping = min != null && line.level != null && line.level.compareTo(min) < 0;
+			}
+			if (!dropping) {
+				out.add(line);
+			}
+		}
+
+		@Override
+		public void flush(List<Line> out) {
+			// Nothing to do
+		}
+
+		@Override
+		public void reset() {
+			dropping = false;
+		}
+	}
+
+	/**
+	 * Replaces lines that are the same as the line before (apart from the timestamp)
+	 * with a count of how many times the line was repeated.  The count is written at
+	 * the end of each chunk so it is not held back.
+	 */
+	public static class RepeatStage implements IStage {
+
+		private final String format;
+		private String last = null;
+		private Line lastLine = null;
+		private int count = 0;
+
+		/**
+		 * The format is for NLS.bind with the count as {0}.
+		 */
+		public RepeatStage(String format) {
+			this.format = format;
+		}
+
+		@Override
+		public void process(Line line, List<Line> out) {
+			if (!line.isComplete() || line.continuation || line.text.length() > MAX_REPEAT_LENGTH) {
+				flush(out);
+				last = null;
+				out.add(line);
+				return;
+			}
+			String key = line.timestamp == null ? line.text : line.text.substring(line.timestamp.length());
+			if (key.equals(last) && !key.trim().isEmpty()) {
+				count++;
+				return;
+			}
+			flush(out);
+			last = key;
+			lastLine = line;
+			out.add(line);
+		}
+
+		@Override
+		public void flush(List<Line> out) {
+			if (count > 0) {
+				out.add(new Line(NLS.bind(format, Integer.toString(count)), lastLine.lineEnd, false));
+				count = 0;
+			}
+		}
+
+		@Override
+		public void reset() {
+			last = null;
+			lastLine = null;
+			count = 0;
+		}
+	}
+}
@@ -0,0 +1,600 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.core.internal.console;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.ibm.microclimate.core.internal.MCLogger;
+
+/**
+ * Full text index of the output of all of the Microclimate consoles so that the logs of
+ * every application can be searched at once.  The output is split into lines and indexed
+ * on a background thread.  Each word maps to the lines it appears in, and each line records
+ * which log it came from, where it is in the log and when it was received.
+ *
+ * The index is kept in segments of a fixed number of lines.  Once there are too many
+ * segments the oldest is dropped, so only the most recent output can be searched.
+ */
+public class LogSearchIndex {
+
+	public static final int DEFAULT_SEGMENT_LINES = 20000;
+	public static final int DEFAULT_MAX_SEGMENTS = 20;
+	public static final int MAX_RESULTS = 1000;
+
+	// Only the start of very long lines is kept
+	static final int MAX_LINE_LENGTH = 1000;
+	// Output with no line end is indexed once it gets this long
+	static final int MAX_PARTIAL_LENGTH = 64 * 1024;
+	static final int MAX_PENDING_CHUNKS = 10000;
+
+	private static final int MIN_TOKEN_LENGTH = 2;
+	private static final int MAX_TOKEN_LENGTH = 64;
+
+	private static LogSearchIndex defaultIndex;
+
+	private final String name;
+	private final int segmentLines;
+	private final int maxSegments;
+	private final ThreadPoolExecutor indexer;
+
+	// All access to the following is synchronized on this object
+	private final ArrayDeque<Segment> segments = new ArrayDeque<Segment>();
+	private long lineCount = 0;
+	private long droppedChunks = 0;
+
+	/**
+	 * The index shared by all of the consoles.
+	 */
+	public static synchronized LogSearchIndex getDefault() {
+		if (defaultIndex == null) {
+			defaultIndex = new LogSearchIndex("default", DEFAULT_SEGMENT_LINES, DEFAULT_MAX_SEGMENTS); //$NON-NLS-1$
+		}
+		return defaultIndex;
+	}
+
+	public static synchronized void shutdownDefault() {
+		if (defaultIndex != null) {
+			defaultIndex.close();
+			defaultIndex = null;
+		}
+	}
+
+	public LogSearchIndex(final String name, int segmentLines, int maxSegments) {
+		this.name = name;
+		this.segmentLines = segmentLines;
+		this.maxSegments = maxSegments;
+		// One thread so the chunks of each log are indexed in order
+		indexer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<Runnable>(MAX_PENDING_CHUNKS), new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "Microclimate log indexer - " + name); //$NON-NLS-1$
+				thread.setDaemon(true);
+				thread.setPriority(Thread.MIN_PRIORITY);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Add a log to the index.  The output of the log is given to the source.
+	 */
+	public Source addSource(String projectID, String logName, ConsoleWriter writer) {
+		return new Source(projectID, logName, writer);
+	}
+
+	/**
+	 * The number of lines that have been indexed, including any that have been dropped.
+	 */
+	public synchronized long getLineCount() {
+		return lineCount;
+	}
+
+	/**
+	 * Roughly how many bytes of heap the index is using.
+	 */
+	public synchronized long getMemorySize() {
+		long size = 0;
+		for (Segment segment : segments) {
+			size += segment.getMemorySize();
+		}
+		return size;
+	}
+
+	/**
+	 * The number of chunks of output that were not indexed because the indexer
+	 * could not keep up.
+	 */
+	public synchronized long getDroppedChunks() {
+		return droppedChunks;
+	}
+
+	/**
+	 * Wait for the output that has been added so far to be indexed.  For testing.
+	 */
+	public boolean waitForIndexing(long timeoutMs) throws InterruptedException {
+		final Object done = new Object();
+		final boolean[] finished = { false };
+		indexer.execute(new Runnable() {
+			@Override
+			public void run() {
+				synchronized (done) {
+					finished[0] = true;
+					done.notifyAll();
+				}
+			}
+		});
+		long end = System.currentTimeMillis() + timeoutMs;
+		synchronized (done) {
+			while (!finished[0] && System.currentTimeMillis() < end) {
+				done.wait(Math.max(1, end - System.currentTimeMillis()));
+			}
+			return finished[0];
+		}
+	}
+
+	public void close() {
+		indexer.shutdownNow();
+		synchronized (this) {
+			segments.clear();
+		}
+	}
+
+	/**
+	 * Find the lines that match the query, newest first.  At most MAX_RESULTS
+	 * are returned.  Plain text with no words long enough to be indexed (such as
+	 * a single character or punctuation) is found by checking every line.
+	 */
+	public synchronized List<Result> search(Query query) {
+		List<Result> results = new ArrayList<Result>();
+		if (query.pattern == null && query.text.isEmpty()) {
+			return results;
+		}
+		String[] tokens = query.pattern == null ? tokenize(query.text) : null;
+		if (tokens != null && tokens.length == 0) {
+			tokens = null;
+		}
+		String lowerText = query.text.toLowerCase(Locale.ENGLISH);
+		Iterator<Segment> it = segments.descendingIterator();
+		while (it.hasNext() && results.size() < MAX_RESULTS) {
+			Segment segment = it.next();
+			if (segment.maxTime < query.from || segment.minTime > query.to) {
+				continue;
+			}
+			if (tokens != null) {
+				// Only check the lines that contain all of the words
+				int[] candidates = segment.find(tokens);
+				if (candidates.length == 0) {
+					continue;
+				}
+				String[] texts = segment.getTexts();
+				for (int i = candidates.length - 1; i >= 0 && results.size() < MAX_RESULTS; i--) {
+					Line line = segment.lines.get(candidates[i]);
+					String text = texts[candidates[i]];
+					int index = query.accepts(line) ? text.toLowerCase(Locale.ENGLISH).indexOf(lowerText) : -1;
+					if (index >= 0) {
+						results.add(new Result(line, text, index, lowerText.length()));
+					}
+				}
+			} else if (query.pattern != null) {
+				String[] texts = segment.getTexts();
+				Matcher matcher = query.pattern.matcher(""); //$NON-NLS-1$
+				for (int i = segment.lines.size() - 1; i >= 0 && results.size() < MAX_RESULTS; i--) {
+					Line line = segment.lines.get(i);
+					if (query.accepts(line) && matcher.reset(texts[i]).find()) {
+						results.add(new Result(line, texts[i], matcher.start(), matcher.end() - matcher.start()));
+					}
+				}
+			} else {
+				String[] texts = segment.getTexts();
+				for (int i = segment.lines.size() - 1; i >= 0 && results.size() < MAX_RESULTS; i--) {
+					Line line = segment.lines.get(i);
+					int index = query.accepts(line) ? texts[i].toLowerCase(Locale.ENGLISH).indexOf(lowerText) : -1;
+					if (index >= 0) {
+						results.add(new Result(line, texts[i], index, lowerText.length()));
+					}
+				}
+			}
+		}
+		return results;
+	}
+
+	// Called on the indexer thread
+	private synchronized void addLine(Line line) {
+		Segment segment = segments.peekLast();
+		if (segment == null || segment.lines.size() >= segmentLines) {
+			if (segment != null) {
+				segment.seal();
+			}
+			segment = new Segment();
+			segments.add(segment);
+			if (segments.size() > maxSegments) {
+				segments.removeFirst();
+			}
+		}
+		segment.add(line);
+		lineCount++;
+	}
+
+	private void submit(Runnable task) {
+		try {
+			indexer.execute(task);
+		} catch (RejectedExecutionException e) {
+			boolean first;
+			synchronized (this) {
+				first = droppedChunks++ == 0;
+			}
+			if (first && !indexer.isShutdown()) {
+				MCLogger.log("The log indexer " + name + " can't keep up, some output will not be searchable"); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		}
+	}
+
+	/**
+	 * Split text into lower case words made up of letters, digits and underscores.
+	 */
+	static String[] tokenize(String text) {
+		List<String> tokens = new ArrayList<String>();
+		int start = -1;
+		for (int i = 0; i <= text.length(); i++) {
+			boolean tokenChar = i < text.length() && isTokenChar(text.charAt(i));
+			if (tokenChar && start < 0) {
+				start = i;
+			} else if (!tokenChar && start >= 0) {
+				if (i - start >= MIN_TOKEN_LENGTH && i - start <= MAX_TOKEN_LENGTH) {
+					tokens.add(text.substring(start, i).toLowerCase(Locale.ENGLISH));
+				}
+				start = -1;
+			}
+		}
+		return tokens.toArray(new String[tokens.size()]);
+	}
+
+	private static boolean isTokenChar(char c) {
+		return Character.isLetterOrDigit(c) || c == '_';
+	}
+
+	/**
+	 * A log that is being indexed.  The output must be added in the order it was written
+	 * to the console so that the offsets match the console.  What has been indexed can
+	 * still be found after the source is closed, but it no longer has a console.
+	 */
+	public class Source {
+		public final String projectID;
+		public final String logName;
+		private volatile ConsoleWriter writer;
+
+		// Only used on the indexer thread
+		private final StringBuilder partial = new StringBuilder();
+		private long partialOffset = 0;
+		private long partialTime = 0;
+		private int generation = 0;
+
+		Source(String projectID, String logName, ConsoleWriter writer) {
+			this.projectID = projectID;
+			this.logName = logName;
+			this.writer = writer;
+		}
+
+		/**
+		 * The writer of the console, or null once the source is closed.
+		 */
+		public ConsoleWriter getWriter() {
+			return writer;
+		}
+
+		/**
+		 * The console is gone, drop the reference to it.
+		 */
+		public void close() {
+			writer = null;
+		}
+
+		/**
+		 * Index output that follows on from the output already added.
+		 */
+		public void add(final String text) {
+			final long time = System.currentTimeMillis();
+			submit(new Runnable() {
+				@Override
+				public void run() {
+					index(text, time);
+				}
+			});
+		}
+
+		/**
+		 * The console was cleared, offsets start from 0 again.  What has already been indexed
+		 * can still be found.
+		 */
+		public void reset() {
+			submit(new Runnable() {
+				@Override
+				public void run() {
+					partial.setLength(0);
+					partialOffset = 0;
+					generation++;
+				}
+			});
+		}
+
+		// Called on the indexer thread
+		private void index(String text, long time) {
+			if (partial.length() == 0) {
+				partialTime = time;
+			}
+			int start = 0;
+			int end;
+			while ((end = text.indexOf('\n', start)) >= 0) {
+				partial.append(text, start, end);
+				flush(partial.length() + 1);
+				start = end + 1;
+				partialTime = time;
+			}
+			partial.append(text, start, text.length());
+			if (partial.length() >= MAX_PARTIAL_LENGTH) {
+				flush(partial.length());
+			}
+		}
+
+		// Called on the indexer thread
+		private void flush(int length) {
+			String lineText = partial.length() > MAX_LINE_LENGTH ? partial.substring(0, MAX_LINE_LENGTH) : partial.toString();
+			if (lineText.endsWith("\r")) { //$NON-NLS-1$
+				lineText = lineText.substring(0, lineText.length() - 1);
+			}
+			if (!lineText.isEmpty()) {
+				addLine(new Line(this, generation, partialOffset, lineText, partialTime));
+			}
+			partialOffset += length;
+			partial.setLength(0);
+		}
+	}
+
+	private static class Line {
+		final Source source;
+		final int generation;
+		final long offset;
+		// Null once the segment is sealed
+		String text;
+		final long time;
+
+		Line(Source source, int generation, long offset, String text, long time) {
+			this.source = source;
+			this.generation = generation;
+			this.offset = offset;
+			this.text = text;
+			this.time = time;
+		}
+	}
+
+	/**
+	 * A group of lines and the index of the words in them.
+	 */
+	private static class Segment {
+		final List<Line> lines = new ArrayList<Line>();
+		// The lines each word appears in, in order
+		final Map<String, int[]> postings = new HashMap<String, int[]>();
+		final Map<String, Integer> postingCounts = new HashMap<String, Integer>();
+		long minTime = Long.MAX_VALUE;
+		long maxTime = Long.MIN_VALUE;
+		// Set once the segment is full and the text of its lines has been compressed
+		byte[] compressed;
+		int compressedLength;
+
+		void add(Line line) {
+			int lineIndex = lines.size();
+			lines.add(line);
+			minTime = Math.min(minTime, line.time);
+			maxTime = Math.max(maxTime, line.time);
+			for (String token : tokenize(line.text)) {
+				int[] list = postings.get(token);
+				Integer count = postingCounts.get(token);
+				int size = count == null ? 0 : count.intValue();
+				if (size > 0 && list[size - 1] == lineIndex) {
+					// Already recorded for this line
+					continue;
+				}
+				if (list == null) {
+					list = new int[4];
+				} else if (size == list.length) {
+					list = Arrays.copyOf(list, size * 2);
+				}
+				list[size] = lineIndex;
+				postings.put(token, list);
+				postingCounts.put(token, Integer.valueOf(size + 1));
+			}
+		}
+
+		/**
+		 * No more lines will be added.  The text of the lines is compressed, since most of
+		 * the index is only searched now and then, and the postings are trimmed to size.
+		 */
+		void seal() {
+			StringBuilder all = new StringBuilder();
+			for (Line line : lines) {
+				all.append(line.text).append('\n');
+			}
+			compressed = CompressedConsoleHistory.compress(all);
+			compressedLength = all.length();
+			for (Line line : lines) {
+				line.text = null;
+			}
+			for (Map.Entry<String, int[]> entry : postings.entrySet()) {
+				entry.setValue(Arrays.copyOf(entry.getValue(), postingCounts.get(entry.getKey()).intValue()));
+			}
+			postingCounts.clear();
+		}
+
+		/**
+		 * The text of each line, decompressed if the segment is sealed.
+		 */
+		String[] getTexts() {
+			String[] texts = new String[lines.size()];
+			if (compressed == null) {
+				for (int i = 0; i < texts.length; i++) {
+					texts[i] = lines.get(i).text;
+				}
+				return texts;
+			}
+			String all;
+			try {
+				all = CompressedConsoleHistory.decompress(compressed, compressedLength);
+			} catch (IOException e) {
+				MCLogger.logError("Failed to read a log search index segment", e); //$NON-NLS-1$
+				all = ""; //$NON-NLS-1$
+			}
+			int start = 0;
+			for (int i = 0; i < texts.length; i++) {
+				int end = all.indexOf('\n', start);
+				if (end < 0) {
+					texts[i] = ""; //$NON-NLS-1$
+					continue;
+				}
+				texts[i] = all.substring(start, end);
+				start = end + 1;
+			}
+			return texts;
+		}
+
+		private int getPostingSize(String token, int[] list) {
+			return compressed == null ? postingCounts.get(token).intValue() : list.length;
+		}
+
+		/**
+		 * Roughly how many bytes of heap the segment is using.
+		 */
+		long getMemorySize() {
+			// Object headers, references and fields
+			long size = 40L * lines.size();
+			if (compressed != null) {
+				size += compressed.length;
+			} else {
+				for (Line line : lines) {
+					size += 40 + 2L * line.text.length();
+				}
+			}
+			for (Map.Entry<String, int[]> entry : postings.entrySet()) {
+				size += 64 + 2L * entry.getKey().length() + 16 + 4L * entry.getValue().length;
+			}
+			return size;
+		}
+
+		/**
+		 * The lines that contain all of the tokens, in order.
+		 */
+		int[] find(String[] tokens) {
+			if (tokens.length == 0) {
+				return new int[0];
+			}
+			int[] result = null;
+			int resultSize = 0;
+			for (String token : tokens) {
+				int[] list = postings.get(token);
+				if (list == null) {
+					return new int[0];
+				}
+				int size = getPostingSize(token, list);
+				if (result == null) {
+					result = Arrays.copyOf(list, size);
+					resultSize = size;
+				} else {
+					resultSize = intersect(result, resultSize, list, size);
+				}
+			}
+			return Arrays.copyOf(result, resultSize);
+		}
+
+		// Keep the entries of a that are also in b, both are sorted
+		private static int intersect(int[] a, int aSize, int[] b, int bSize) {
+			int i = 0, j = 0, count = 0;
+			while (i < aSize && j < bSize) {
+				if (a[i] < b[j]) {
+					i++;
+				} else if (a[i] > b[j]) {
+					j++;
+				} else {
+					a[count++] = a[i];
+					i++;
+					j++;
+				}
+			}
+			return count;
+		}
+	}
+
+	/**
+	 * What to search for.  Plain text matches lines that contain the text, ignoring case,
+	 * where the words in the text are whole words in the line.  A regular expression can
+	 * match any part of a line.  Only lines received between from and to (in milliseconds
+	 * since the epoch) match, and only those of the project if it is set.
+	 */
+	public static class Query {
+		public final String text;
+		public final Pattern pattern;
+		public final long from;
+		public final long to;
+		public final String projectID;
+
+		public Query(String text, boolean regex, long from, long to, String projectID) {
+			this.text = text;
+			this.pattern = regex ? Pattern.compile(text, Pattern.CASE_INSENSITIVE) : null;
+			this.from = from;
+			this.to = to;
+			this.projectID = projectID;
+		}
+
+		boolean accepts(Line line) {
+			return line.time >= from && line.time <= to
+					&& (projectID == null || projectID.equals(line.source.projectID));
+		}
+	}
+
+	/**
+	 * A matching line.  The offset is the position of the line in the log since the
+	 * console was last cleared, matchStart and matchLength are within the line.
+	 */
+	public static class Result {
+		public final Source source;
+		public final int generation;
+		public final long offset;
+		public final String text;
+		public final long time;
+		public final int matchStart;
+		public final int matchLength;
+
+		Result(Line line, String text, int matchStart, int matchLength) {
+			this.source = line.source;
+			this.generation = line.generation;
+			this.offset = line.offset;
+			this.text = text;
+			this.time = line.time;
+			this.matchStart = matchStart;
+			this.matchLength = matchLength;
+		}
+	}
+}
@@ -13,6 +13,7 @@ package com.ibm.microclimate.core.internal.console;
 
 import java.io.IOException;
 
+import org.eclipse.jface.preference.IPreferenceStore;
 import org.eclipse.ui.console.IOConsole;
 import org.eclipse.ui.console.IOConsoleOutputStream;
 
@@ -22,14 +23,26 @@ import com.ibm.microclimate.core.internal.MicroclimateApplication;
 import com.ibm.microclimate.core.internal.connection.MicroclimateSocket;
 import com.ibm.microclimate.core.internal.messages.Messages;
 
-public class OldSocketConsole extends IOConsole {
+/**
+ * Console for the application output of the container.  The whole log is sent in each
+ * container-logs event, and only the output that has not been shown yet is written.
+ *
+ * The log-update stream is not used here even when Microclimate supports it, since the
+ * streamed app logs are the log files of the application rather than the container output.
+ * Those are shown by the consoles for each log.
+ */
+public class OldSocketConsole extends IOConsole implements IRetainingConsole {
+
+	// The name of the log in the log archive
+	private static final String ARCHIVE_LOG_NAME = "app"; //$NON-NLS-1$
 
 	public final String projectID;
 	private final MicroclimateSocket socket;
 
 	private IOConsoleOutputStream outputStream;
-	private int previousLength = 0;
-	private boolean isInitialized = false;
+	private final ConsoleWriter writer;
+	private final LogIngestQueue queue;
+	private final CumulativeLog log = new CumulativeLog();
 
 	public OldSocketConsole(String name, MicroclimateApplication app) {
 		super(name, MicroclimateConsoleFactory.MC_CONSOLE_TYPE,
@@ -38,45 +51,51 @@ public class OldSocketConsole extends IOConsole {
 
 		this.projectID = app.projectID;
 		this.outputStream = newOutputStream();
+		this.writer = new ConsoleWriter(this, outputStream);
+		writer.setRetention(MicroclimateCorePlugin.APP_CONSOLE_RETENTION_PREFSKEY);
+		writer.setLog(app.projectID, ARCHIVE_LOG_NAME);
+		IPreferenceStore prefs = MicroclimateCorePlugin.getDefault().getPreferenceStore();
+		this.queue = new LogIngestQueue(name, writer, app.mcConnection.getScheduler(),
+				LogIngestQueue.OverflowPolicy.getUnpausable(prefs.getString(MicroclimateCorePlugin.CONSOLE_OVERFLOW_POLICY_PREFSKEY)),
+				prefs.getInt(MicroclimateCorePlugin.CONSOLE_QUEUE_LIMIT_PREFSKEY));
 		this.socket = app.mcConnection.getMCSocket();
-		socket.registerOldSocketConsole(this);
 
 		try {
-			this.outputStream.write(Messages.LogFileInitialMsg);
+			writer.writeInitialMessage(Messages.LogFileInitialMsg);
 		} catch (IOException e) {
 			MCLogger.logError("Error writing initial message to " + this.getName(), e);
 		}
-	}
 
-	public void update(String contents) throws IOException {
-		if (!isInitialized) {
-			// Clear the INITIAL_MSG
-			clearConsole();
-			isInitialized = true;
-		}
+		socket.registerOldSocketConsole(this);
+	}
 
-		String newContents = "";
-		int diff = contents.length() - previousLength;
-		if (diff == 0) {
-			// nothing to do
-			return;
-		}
-		else if (diff < 0) {
+	/**
+	 * Update from a container-logs event, which has the whole log.  Only the new part of
+	 * the log is queued for the console.  The INITIAL_MSG is cleared by the first write.
+	 */
+	public synchronized void update(String contents) throws IOException {
+		String newContents = log.update(contents);
+		boolean reset = false;
+		if (newContents == null) {
 			// The app log was cleared
 			// eg if the dockerfile was changed and the container had to be rebuilt
 			MCLogger.log("Console was cleared");
-			clearConsole();
+			reset = true;
 			// write the whole new console
 			newContents = contents;
 		}
-		else {
-			// write only the new characters to the console
-			newContents = contents.substring(previousLength, previousLength + diff);
+		else if (newContents.isEmpty()) {
+			// nothing to do
+			return;
 		}
 
 		MCLogger.log(newContents.length() + " new characters to write to " + this.getName());		// $NON-NLS-1$
-		outputStream.write(newContents);
-		previousLength = contents.length();
+		queue.add(newContents, reset);
+	}
+
+	@Override
+	public ConsoleWriter getConsoleWriter() {
+		return writer;
 	}
 
 	@Override
@@ -84,6 +103,8 @@ public class OldSocketConsole extends IOConsole {
 		MCLogger.log("Dispose console " + getName()); //$NON-NLS-1$
 
 		socket.deregisterOldSocketConsole(this);
+		queue.close();
+		writer.dispose();
 
 		try {
 			outputStream.close();
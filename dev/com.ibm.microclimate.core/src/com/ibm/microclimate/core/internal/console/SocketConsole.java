@@ -13,6 +13,7 @@ package com.ibm.microclimate.core.internal.console;
 
 import java.io.IOException;
 
+import org.eclipse.jface.preference.IPreferenceStore;
 import org.eclipse.ui.console.IOConsole;
 import org.eclipse.ui.console.IOConsoleOutputStream;
 
@@ -22,15 +23,16 @@ import com.ibm.microclimate.core.internal.MicroclimateApplication;
 import com.ibm.microclimate.core.internal.connection.MicroclimateSocket;
 import com.ibm.microclimate.core.internal.messages.Messages;
 
-public class SocketConsole extends IOConsole {
+public class SocketConsole extends IOConsole implements ILogStreamConsole, IRetainingConsole {
 
 	public final MicroclimateApplication app;
 	public final ProjectLogInfo logInfo;
 	private final MicroclimateSocket socket;
 
+	private final LogIngestQueue queue;
+	private final LogTarget writer;
+
 	private IOConsoleOutputStream outputStream;
-	private boolean isInitialized = false;
-	private boolean showOnUpdate = false;
 
 	public SocketConsole(String consoleName, ProjectLogInfo logInfo, MicroclimateApplication app) {
 		super(consoleName, MicroclimateConsoleFactory.MC_CONSOLE_TYPE,
@@ -41,26 +43,69 @@ public class SocketConsole extends IOConsole {
 		this.logInfo = logInfo;
 		this.outputStream = newOutputStream();
 		this.socket = app.mcConnection.getMCSocket();
-		socket.registerSocketConsole(this);
+		this.writer = new LogTarget();
+		writer.setRetention(MicroclimateCorePlugin.APP_CONSOLE_RETENTION_PREFSKEY);
+		writer.setLog(app.projectID, logInfo.logName);
+
+		IPreferenceStore prefs = MicroclimateCorePlugin.getDefault().getPreferenceStore();
+		this.queue = new LogIngestQueue(consoleName, writer, app.mcConnection.getScheduler(),
+				LogIngestQueue.OverflowPolicy.get(prefs.getString(MicroclimateCorePlugin.CONSOLE_OVERFLOW_POLICY_PREFSKEY)),
+				prefs.getInt(MicroclimateCorePlugin.CONSOLE_QUEUE_LIMIT_PREFSKEY));
 
 		try {
-			this.outputStream.write(Messages.LogFileInitialMsg);
-			app.mcConnection.requestEnableLogStream(app, logInfo);
+			writer.writeInitialMessage(Messages.LogFileInitialMsg);
+			socket.openLogStream(app, logInfo, this);
 		} catch (IOException e) {
 			MCLogger.logError("Error opening console output stream for: " + this.getName(), e);
 		}
 	}
 
+	/**
+	 * Queue new log contents for the console.  The contents are written to the console
+	 * in the background by the ingest queue.
+	 */
+	@Override
 	public void update(String contents, boolean reset) throws IOException {
-		if (!isInitialized || reset) {
-			clearConsole();
-			isInitialized = true;
+		queue.add(contents, reset);
+	}
+
+	public LogIngestQueue getIngestQueue() {
+		return queue;
+	}
+
+	@Override
+	public ConsoleWriter getConsoleWriter() {
+		return writer;
+	}
+
+	private class LogTarget extends ConsoleWriter {
+
+		LogTarget() {
+			super(SocketConsole.this, outputStream);
+		}
+
+		@Override
+		public void write(String contents, boolean reset) throws IOException {
+			MCLogger.log("Appending contents to log: " + getName());		// $NON-NLS-1$
+			super.write(contents, reset);
+		}
+
+		@Override
+		public void pause() {
+			try {
+				socket.pauseLogStream(app, logInfo, SocketConsole.this);
+			} catch (IOException e) {
+				MCLogger.logError("Error pausing the log stream for: " + getName(), e); //$NON-NLS-1$
+			}
 		}
 
-		MCLogger.log("Appending contents to log: " + this.getName());		// $NON-NLS-1$
-		outputStream.write(contents);
-		if (showOnUpdate) {
-			activate();
+		@Override
+		public void resume() {
+			try {
+				socket.resumeLogStream(app, logInfo, SocketConsole.this);
+			} catch (IOException e) {
+				MCLogger.logError("Error resuming the log stream for: " + getName(), e); //$NON-NLS-1$
+			}
 		}
 	}
 
@@ -68,10 +113,11 @@ public class SocketConsole extends IOConsole {
 	protected void dispose() {
 		MCLogger.log("Dispose console " + getName()); //$NON-NLS-1$
 
-		socket.deregisterSocketConsole(this);
+		queue.close();
+		writer.dispose();
 
 		try {
-			app.mcConnection.requestDisableLogStream(app, logInfo);
+			socket.closeLogStream(app, logInfo, this);
 			outputStream.close();
 		} catch (IOException e) {
 			MCLogger.logError("Error closing console output stream for: " + this.getName(), e); //$NON-NLS-1$
@@ -81,6 +127,6 @@ public class SocketConsole extends IOConsole {
 	}
 	
 	public void setShowOnUpdate(boolean value) {
-		showOnUpdate = value;
+		writer.setShowOnUpdate(value);
 	}
 }
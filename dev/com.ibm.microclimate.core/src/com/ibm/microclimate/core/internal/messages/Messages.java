@@ -39,6 +39,8 @@ public class Messages extends NLS {
 	public static String AppConsoleName;
 	public static String LogFileConsoleName;
 	public static String LogFileInitialMsg;
+	public static String ConsoleRepeatedLine;
+	public static String LogSkippedMarker;
 
 	public static String FileNotFoundTitle;
 	public static String FileNotFoundMsg;
@@ -0,0 +1,70 @@
+#!/bin/sh
+###############################################################################
+# Copyright (c) 2019 IBM Corporation and others.
+# All rights reserved. This program and the accompanying materials
+# are made available under the terms of the Eclipse Public License v2.0
+# which accompanies this distribution, and is available at
+# http://www.eclipse.org/legal/epl-v20.html
+#
+# Contributors:
+#     IBM Corporation - initial API and implementation
+###############################################################################
+
+# Compare two result files written by com.ibm.microclimate.test.bench.ModelBenchmarks.
+# A benchmark is reported as a regression if its throughput drops or its bytes/op
+# or p99 latency increase by more than the threshold percentage (default 10).
+# Exits with 1 if there are any regressions.
+#
+# Usage: compare-benchmarks.sh <baseline.csv> <current.csv> [threshold]
+
+if [ $# -lt 2 ]; then
+	echo "Usage: $0 <baseline.csv> <current.csv> [threshold]"
+	exit 2
+fi
+
+BASELINE=$1
+CURRENT=$2
+THRESHOLD=${3:-10}
+
+awk -F, -v threshold="$THRESHOLD" '
+	function change(base, cur) {
+		if (base <= 0) {
+			return 0;
+		}
+		return (cur - base) * 100 / base;
+	}
+
+	FNR == 1 { next; }
+
+	NR == FNR {
+		key = $1 "," $2;
+		baseOps[key] = $4; baseBytes[key] = $5; baseP99[key] = $8;
+		next;
+	}
+
+	{
+		key = $1 "," $2;
+		if (!(key in baseOps)) {
+			printf("%-40s %-28s new benchmark\n", $1, $2);
+			next;
+		}
+		opsChange = change(baseOps[key], $4);
+		bytesChange = change(baseBytes[key], $5);
+		p99Change = change(baseP99[key], $8);
+
+		status = "ok";
+		if (opsChange < -threshold || bytesChange > threshold || p99Change > threshold) {
+			status = "REGRESSION";
+			regressions++;
+		}
+		printf("%-40s %-28s ops/s %+7.1f%%  B/op %+7.1f%%  p99 %+7.1f%%  %s\n",
+				$1, $2, opsChange, bytesChange, p99Change, status);
+	}
+
+	END {
+		if (regressions > 0) {
+			printf("\n%d benchmark(s) regressed by more than %s%%\n", regressions, threshold);
+			exit 1;
+		}
+	}
+' "$BASELINE" "$CURRENT"
@@ -0,0 +1,222 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.Path;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import com.ibm.microclimate.core.internal.MicroclimateApplication;
+import com.ibm.microclimate.core.internal.MicroclimateApplicationFactory;
+import com.ibm.microclimate.core.internal.connection.MicroclimateConnection;
+import com.ibm.microclimate.core.internal.console.ProjectLogInfo;
+import com.ibm.microclimate.core.internal.constants.MCConstants;
+
+import junit.framework.TestCase;
+
+/**
+ * Check that refreshing the applications for one connection does not block
+ * refreshes for other connections or other projects.  No Microclimate instance is needed.
+ */
+public class ApplicationFactoryContentionTest extends TestCase {
+
+	private static final int PROJECT_COUNT = 300;
+	private static final long TIMEOUT = 30;
+
+	private TestConnection slowConnection;
+	private TestConnection fastConnection;
+
+	@Override
+	public void setUp() throws Exception {
+		slowConnection = new TestConnection(new URI("http://slowhost:9090/"));
+		fastConnection = new TestConnection(new URI("http://fasthost:9090/"));
+	}
+
+	@Override
+	public void tearDown() {
+		slowConnection.close();
+		fastConnection.close();
+	}
+
+	public void testSlowConnectionDoesNotBlockOthers() throws Exception {
+		final String slowJson = createProjectsJson("slow", PROJECT_COUNT);
+		final String fastJson = createProjectsJson("fast", PROJECT_COUNT);
+		slowConnection.block();
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<?> slowRefresh = executor.submit(new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					MicroclimateApplicationFactory.getAppsFromProjectsJson(slowConnection, slowJson);
+					return null;
+				}
+			});
+			assertTrue("The slow refresh should be waiting on a request", slowConnection.awaitBlocked(TIMEOUT));
+
+			// The other connection should refresh all of its projects while the slow one is stuck
+			Future<?> fastRefresh = executor.submit(new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					MicroclimateApplicationFactory.getAppsFromProjectsJson(fastConnection, fastJson);
+					return null;
+				}
+			});
+			fastRefresh.get(TIMEOUT, TimeUnit.SECONDS);
+			assertEquals("All projects should be created for the fast connection", PROJECT_COUNT, fastConnection.getApps().size());
+			assertFalse("The slow refresh should still be waiting", slowRefresh.isDone());
+
+			// The project waiting on the request should not be locked while the request is in progress
+			final String otherProject = createProjectsJson("slow", 1);
+			Future<?> singleRefresh = executor.submit(new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					MicroclimateApplicationFactory.getAppsFromProjectsJson(slowConnection, otherProject, "slow-0");
+					return null;
+				}
+			});
+			singleRefresh.get(TIMEOUT, TimeUnit.SECONDS);
+
+			slowConnection.unblock();
+			slowRefresh.get(TIMEOUT, TimeUnit.SECONDS);
+			assertEquals("All projects should be created for the slow connection", PROJECT_COUNT, slowConnection.getApps().size());
+		} finally {
+			slowConnection.unblock();
+			executor.shutdownNow();
+		}
+	}
+
+	public void testConcurrentRefreshesCreateOneAppPerProject() throws Exception {
+		final String json = createProjectsJson("project", PROJECT_COUNT);
+		final int threads = 8;
+		final CountDownLatch start = new CountDownLatch(1);
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads * 2);
+		try {
+			List<Future<?>> futures = new ArrayList<Future<?>>();
+			for (int i = 0; i < threads; i++) {
+				futures.add(executor.submit(new Callable<Void>() {
+					@Override
+					public Void call() throws Exception {
+						start.await();
+						MicroclimateApplicationFactory.getAppsFromProjectsJson(slowConnection, json);
+						return null;
+					}
+				}));
+				futures.add(executor.submit(new Callable<Void>() {
+					@Override
+					public Void call() throws Exception {
+						start.await();
+						MicroclimateApplicationFactory.getAppsFromProjectsJson(fastConnection, json);
+						return null;
+					}
+				}));
+			}
+			start.countDown();
+			for (Future<?> future : futures) {
+				future.get(TIMEOUT, TimeUnit.SECONDS);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		for (TestConnection connection : new TestConnection[] { slowConnection, fastConnection }) {
+			List<MicroclimateApplication> apps = connection.getApps();
+			assertEquals("There should be one application per project", PROJECT_COUNT, apps.size());
+			Set<String> ids = new HashSet<String>();
+			for (MicroclimateApplication app : apps) {
+				assertTrue("Duplicate application for project: " + app.projectID, ids.add(app.projectID));
+				assertSame("The registered application should be the one returned by id", app, connection.getAppByID(app.projectID));
+			}
+		}
+	}
+
+	private static String createProjectsJson(String prefix, int count) throws Exception {
+		JSONArray projects = new JSONArray();
+		for (int i = 0; i < count; i++) {
+			JSONObject project = new JSONObject();
+			project.put(MCConstants.KEY_PROJECT_ID, prefix + "-" + i);
+			project.put(MCConstants.KEY_NAME, prefix + i);
+			project.put(MCConstants.KEY_BUILD_TYPE, "docker");
+			project.put(MCConstants.KEY_LANGUAGE, "python");
+			project.put(MCConstants.KEY_LOC_DISK, "/microclimate-workspace/" + prefix + i);
+			project.put(MCConstants.KEY_APP_STATUS, "started");
+			project.put(MCConstants.KEY_BUILD_STATUS, "success");
+			JSONObject ports = new JSONObject();
+			ports.put(MCConstants.KEY_EXPOSED_PORT, String.valueOf(30000 + i));
+			project.put(MCConstants.KEY_PORTS, ports);
+			projects.put(project);
+		}
+		return projects.toString();
+	}
+
+	/**
+	 * Connection with no Microclimate instance behind it.  Requests to Microclimate
+	 * can be made to block to simulate a slow server.
+	 */
+	private static class TestConnection extends MicroclimateConnection {
+
+		private volatile CountDownLatch release = null;
+		private final CountDownLatch blocked = new CountDownLatch(1);
+
+		TestConnection(URI uri) {
+			super(uri, new Path("/tmp/microclimate-workspace"), "1905");
+		}
+
+		void block() {
+			release = new CountDownLatch(1);
+		}
+
+		void unblock() {
+			if (release != null) {
+				release.countDown();
+			}
+		}
+
+		boolean awaitBlocked(long timeout) throws InterruptedException {
+			return blocked.await(timeout, TimeUnit.SECONDS);
+		}
+
+		@Override
+		public List<ProjectLogInfo> requestProjectLogs(MicroclimateApplication app) {
+			CountDownLatch latch = release;
+			// Only hold up the first project so that the refresh is stuck part way through
+			if (latch != null && "slow-0".equals(app.projectID) && blocked.getCount() > 0) {
+				blocked.countDown();
+				try {
+					latch.await(TIMEOUT, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					// Ignore
+				}
+			}
+			return Collections.emptyList();
+		}
+
+		@Override
+		public JSONObject requestProjectMetricsStatus(MicroclimateApplication app) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,184 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.ibm.microclimate.core.internal.AsyncLogWriter;
+
+import junit.framework.TestCase;
+
+/**
+ * Check that the background log writer writes every message from many threads when it
+ * blocks, drops and counts messages when it can't keep up, and rolls its files.
+ */
+public class AsyncLogWriterTest extends TestCase {
+
+	private File dir;
+
+	@Override
+	protected void setUp() throws Exception {
+		dir = Files.createTempDirectory("asynclog").toFile();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		File[] files = dir.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		dir.delete();
+	}
+
+	private static List<String> readLines(File file) throws IOException {
+		return file.exists() ? Files.readAllLines(file.toPath(), StandardCharsets.UTF_8) : new ArrayList<String>();
+	}
+
+	public void testManyThreads() throws Exception {
+		File file = new File(dir, "test.log");
+		final AsyncLogWriter writer = new AsyncLogWriter(file, 64, AsyncLogWriter.OverflowPolicy.BLOCK,
+				AsyncLogWriter.DEFAULT_MAX_FILE_SIZE, 2);
+		final int threads = 4;
+		final int messages = 2000;
+		List<Thread> list = new ArrayList<Thread>();
+		for (int t = 0; t < threads; t++) {
+			final int id = t;
+			Thread thread = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					for (int i = 0; i < messages; i++) {
+						writer.log("message " + id + "-" + i, null);
+					}
+				}
+			});
+			list.add(thread);
+			thread.start();
+		}
+		for (Thread thread : list) {
+			thread.join();
+		}
+		assertTrue(writer.flush(10000));
+		writer.close(10000);
+
+		assertEquals(0, writer.getDroppedCount());
+		assertEquals(threads * messages, writer.getWrittenCount());
+		Set<String> seen = new HashSet<String>();
+		int lastForThread0 = -1;
+		for (String line : readLines(file)) {
+			String message = line.substring(line.indexOf("message "));
+			assertTrue(seen.add(message));
+			// Messages from one thread stay in order
+			if (message.startsWith("message 0-")) {
+				int index = Integer.parseInt(message.substring("message 0-".length()));
+				assertEquals(lastForThread0 + 1, index);
+				lastForThread0 = index;
+			}
+		}
+		assertEquals(threads * messages, seen.size());
+	}
+
+	public void testDrop() throws Exception {
+		File file = new File(dir, "test.log");
+		AsyncLogWriter writer = new AsyncLogWriter(file, 4, AsyncLogWriter.OverflowPolicy.DROP,
+				AsyncLogWriter.DEFAULT_MAX_FILE_SIZE, 2);
+		int accepted = 0;
+		for (int i = 0; i < 10000; i++) {
+			if (writer.log("message " + i, null)) {
+				accepted++;
+			}
+		}
+		assertTrue(writer.flush(10000));
+		writer.close(10000);
+		assertEquals(10000, accepted + writer.getDroppedCount());
+		assertEquals(accepted, writer.getWrittenCount());
+
+		List<String> lines = readLines(file);
+		if (writer.getDroppedCount() > 0) {
+			// The drops are reported in the file
+			boolean reported = false;
+			for (String line : lines) {
+				reported |= line.contains("log messages were dropped");
+			}
+			assertTrue(reported);
+		}
+		assertFalse(writer.log("after close", null));
+	}
+
+	public void testWriteFailure() throws Exception {
+		// The log directory can't be created since there is a file in the way
+		File blocker = new File(dir, "blocker");
+		Files.write(blocker.toPath(), "not a directory".getBytes(StandardCharsets.UTF_8));
+		AsyncLogWriter writer = new AsyncLogWriter(new File(blocker, "test.log"), 16,
+				AsyncLogWriter.OverflowPolicy.BLOCK, AsyncLogWriter.DEFAULT_MAX_FILE_SIZE, 2);
+		writer.log("first", null);
+		assertTrue(writer.flush(10000));
+		assertTrue(writer.hasFailed());
+
+		// After a failure the file is not tried again and messages are not accepted,
+		// so a blocking writer does not hold up the callers
+		for (int i = 0; i < 100; i++) {
+			assertFalse(writer.log("message " + i, null));
+		}
+		assertTrue(writer.flush(10000));
+		writer.close(10000);
+	}
+
+	public void testRolling() throws Exception {
+		File file = new File(dir, "test.log");
+		// An old file from the last session is kept
+		Files.write(file.toPath(), "last session\n".getBytes(StandardCharsets.UTF_8));
+
+		AsyncLogWriter writer = new AsyncLogWriter(file, 1024, AsyncLogWriter.OverflowPolicy.BLOCK, 1000, 3);
+		for (int i = 0; i < 100; i++) {
+			writer.log(String.format("message %03d", i), null);
+		}
+		writer.log("failure", new IOException("test exception"));
+		assertTrue(writer.flush(10000));
+		writer.close(10000);
+
+		assertTrue(writer.getRolledFile(1).length() <= 1000);
+		assertTrue(writer.getRolledFile(1).exists());
+		assertTrue(writer.getRolledFile(2).exists());
+		assertFalse(writer.getRolledFile(3).exists());
+		List<String> lines = readLines(file);
+		assertTrue(lines.get(lines.size() - 1).contains("at "));
+		boolean foundException = false;
+		for (String line : lines) {
+			foundException |= line.contains("java.io.IOException: test exception");
+		}
+		assertTrue(foundException);
+		// The messages run on from one file to the next, and the oldest have been rolled away
+		List<String> all = new ArrayList<String>();
+		all.addAll(readLines(writer.getRolledFile(2)));
+		all.addAll(readLines(writer.getRolledFile(1)));
+		all.addAll(lines);
+		int last = -1;
+		for (String line : all) {
+			int index = line.indexOf("message ");
+			if (index >= 0) {
+				int number = Integer.parseInt(line.substring(index + "message ".length()));
+				assertTrue(last == -1 || number == last + 1);
+				last = number;
+			}
+		}
+		assertEquals(99, last);
+	}
+}
@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.test;
+
+import java.net.URI;
+import java.util.Arrays;
+
+import org.eclipse.ui.console.ConsolePlugin;
+import org.eclipse.ui.console.IConsole;
+
+import com.ibm.microclimate.core.internal.MicroclimateApplication;
+import com.ibm.microclimate.core.internal.connection.MicroclimateSocket;
+import com.ibm.microclimate.core.internal.console.BuildLogConsole;
+import com.ibm.microclimate.core.internal.console.MicroclimateConsoleFactory;
+import com.ibm.microclimate.core.internal.console.ProjectLogInfo;
+import com.ibm.microclimate.core.internal.constants.MCConstants;
+import com.ibm.microclimate.test.bench.SyntheticWorkspace;
+import com.ibm.microclimate.test.util.OfflineConnection;
+
+import junit.framework.TestCase;
+
+/**
+ * Check that the build console streams the build log when Microclimate supports it
+ * and polls the build log otherwise.
+ */
+public class BuildLogConsoleTest extends TestCase {
+
+	private final SyntheticWorkspace workspace = new SyntheticWorkspace("buildlog", 1);
+
+	public void testStreamedBuildLog() throws Exception {
+		OfflineConnection connection = createConnection("1905");
+		try {
+			MicroclimateApplication app = connection.getApps().get(0);
+			app.setLogInfos(Arrays.asList(
+					new ProjectLogInfo(MCConstants.KEY_LOG_BUILD, "maven.build", null),
+					new ProjectLogInfo(MCConstants.KEY_LOG_APP, "app", null)));
+
+			BuildLogConsole console = (BuildLogConsole) MicroclimateConsoleFactory.createBuildConsole(app);
+			assertTrue(console.isStreaming());
+			assertEquals(0, connection.getBuildLogPoller().getMonitorCount());
+			connection.getMCSocket().processEvent(MicroclimateSocket.EVENT_LOG_UPDATE,
+					workspace.logUpdateEvent(0, "maven.build", "[INFO] BUILD SUCCESS\n", true));
+			removeConsole(console);
+		} finally {
+			connection.close();
+		}
+	}
+
+	public void testPolledBuildLog() throws Exception {
+		OfflineConnection connection = createConnection("1904");
+		try {
+			MicroclimateApplication app = connection.getApps().get(0);
+			BuildLogConsole console = (BuildLogConsole) MicroclimateConsoleFactory.createBuildConsole(app);
+			assertFalse(console.isStreaming());
+			assertEquals(1, connection.getBuildLogPoller().getMonitorCount());
+			assertTrue(connection.getBuildLogPoller().isActive());
+
+			// Polling stops when the console is removed
+			removeConsole(console);
+			assertEquals(0, connection.getBuildLogPoller().getMonitorCount());
+			assertFalse(connection.getBuildLogPoller().isActive());
+		} finally {
+			connection.close();
+		}
+	}
+
+	private OfflineConnection createConnection(String version) throws Exception {
+		OfflineConnection connection = new OfflineConnection(new URI("http://buildlog:9090/"), version);
+		connection.setProjectsJson(workspace.projectsJson());
+		connection.refreshApps(null);
+		assertEquals(1, connection.getApps().size());
+		return connection;
+	}
+
+	private static void removeConsole(IConsole console) {
+		ConsolePlugin.getDefault().getConsoleManager().removeConsoles(new IConsole[] { console });
+	}
+}
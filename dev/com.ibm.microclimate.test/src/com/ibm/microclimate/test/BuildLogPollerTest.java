@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.test;
+
+import java.io.IOException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.ibm.microclimate.core.internal.console.BuildLogMonitor;
+import com.ibm.microclimate.core.internal.console.BuildLogPoller;
+import com.ibm.microclimate.core.internal.constants.BuildStatus;
+import com.ibm.microclimate.test.util.Condition;
+import com.ibm.microclimate.test.util.TestUtil;
+
+import junit.framework.TestCase;
+
+/**
+ * Check that the build logs of all consoles are polled from one task, at an interval that
+ * depends on the build status, and that polling stops when the consoles go away.
+ */
+public class BuildLogPollerTest extends TestCase {
+
+	private static final long TICK_MS = 10;
+	private static final long TIMEOUT = 10000;
+
+	private ScheduledThreadPoolExecutor scheduler;
+	private BuildLogPoller poller;
+
+	@Override
+	public void setUp() {
+		scheduler = new ScheduledThreadPoolExecutor(1);
+		scheduler.setRemoveOnCancelPolicy(true);
+		poller = new BuildLogPoller("test", scheduler, TICK_MS);
+	}
+
+	@Override
+	public void tearDown() {
+		scheduler.shutdownNow();
+	}
+
+	public void testIntervals() {
+		assertEquals(BuildLogPoller.FAST_INTERVAL_MS, BuildLogPoller.getInterval(BuildStatus.IN_PROGRESS, 0, 0));
+		assertEquals(BuildLogPoller.FAST_INTERVAL_MS, BuildLogPoller.getInterval(BuildStatus.QUEUED, 600000, 0));
+		assertEquals(BuildLogPoller.NORMAL_INTERVAL_MS, BuildLogPoller.getInterval(BuildStatus.SUCCESS, 1000, 0));
+		assertEquals(BuildLogPoller.IDLE_INTERVAL_MS, BuildLogPoller.getInterval(BuildStatus.SUCCESS, 600000, 0));
+		assertEquals(BuildLogPoller.IDLE_INTERVAL_MS, BuildLogPoller.getInterval(null, 600000, 0));
+
+		// Failures back off up to the idle interval
+		assertEquals(BuildLogPoller.NORMAL_INTERVAL_MS, BuildLogPoller.getInterval(BuildStatus.IN_PROGRESS, 0, 1));
+		assertEquals(2 * BuildLogPoller.NORMAL_INTERVAL_MS, BuildLogPoller.getInterval(BuildStatus.IN_PROGRESS, 0, 2));
+		assertEquals(BuildLogPoller.IDLE_INTERVAL_MS, BuildLogPoller.getInterval(BuildStatus.IN_PROGRESS, 0, 10));
+	}
+
+	public void testPollAndRemove() throws Exception {
+		final TestMonitor[] monitors = new TestMonitor[20];
+		for (int i = 0; i < monitors.length; i++) {
+			monitors[i] = new TestMonitor(BuildStatus.SUCCESS);
+			poller.add(monitors[i]);
+		}
+		assertTrue(poller.isActive());
+		// All of the logs are polled when they are added and then not again for a while
+		assertTrue(TestUtil.wait(new Condition() {
+			@Override
+			public boolean test() {
+				return poller.getPollCount() == monitors.length;
+			}
+		}, TIMEOUT, 10));
+		Thread.sleep(20 * TICK_MS);
+		assertEquals(monitors.length, poller.getPollCount());
+		TestUtil.print(poller.toString());
+
+		for (TestMonitor monitor : monitors) {
+			poller.remove(monitor);
+			assertTrue(monitor.isDisposed());
+		}
+		assertFalse(poller.isActive());
+		assertEquals(0, poller.getMonitorCount());
+		assertEquals(0, scheduler.getQueue().size());
+	}
+
+	public void testBuildStatusChangeCausesPoll() throws Exception {
+		final TestMonitor monitor = new TestMonitor(BuildStatus.SUCCESS);
+		poller.add(monitor);
+		waitForPolls(monitor, 1);
+
+		// Start a build, the log is polled straight away and then at the fast interval
+		monitor.status = BuildStatus.IN_PROGRESS;
+		waitForPolls(monitor, 2);
+		waitForPolls(monitor, 3);
+
+		poller.remove(monitor);
+	}
+
+	public void testFailureIsRetried() throws Exception {
+		final TestMonitor monitor = new TestMonitor(BuildStatus.SUCCESS);
+		monitor.fail = true;
+		poller.add(monitor);
+		waitForPolls(monitor, 1);
+		monitor.fail = false;
+		monitor.status = BuildStatus.QUEUED;
+		waitForPolls(monitor, 2);
+		poller.remove(monitor);
+	}
+
+	private static void waitForPolls(final TestMonitor monitor, final int count) {
+		assertTrue("The build log was not polled " + count + " times", TestUtil.wait(new Condition() {
+			@Override
+			public boolean test() {
+				return monitor.polls.get() >= count;
+			}
+		}, TIMEOUT, 10));
+	}
+
+	private static class TestMonitor extends BuildLogMonitor {
+		final AtomicInteger polls = new AtomicInteger();
+		volatile BuildStatus status;
+		volatile boolean fail = false;
+
+		TestMonitor(BuildStatus status) {
+			super(null);
+			this.status = status;
+		}
+
+		@Override
+		public String getName() {
+			return "test";
+		}
+
+		@Override
+		public BuildStatus getBuildStatus() {
+			return status;
+		}
+
+		@Override
+		public boolean update() throws IOException {
+			polls.incrementAndGet();
+			if (fail) {
+				throw new IOException("Test failure");
+			}
+			return true;
+		}
+	}
+}
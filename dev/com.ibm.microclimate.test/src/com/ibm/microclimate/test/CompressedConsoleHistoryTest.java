@@ -0,0 +1,123 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.test;
+
+import com.ibm.microclimate.core.internal.console.CompressedConsoleHistory;
+import com.ibm.microclimate.core.internal.console.ConsoleWriter;
+
+import junit.framework.TestCase;
+
+/**
+ * Check that console output kept in compressed blocks can be read back, that the
+ * history is limited, and that it takes much less memory than the output itself.
+ */
+public class CompressedConsoleHistoryTest extends TestCase {
+
+	private static final int BLOCK_SIZE = 100;
+
+	public void testReadBack() throws Exception {
+		CompressedConsoleHistory history = new CompressedConsoleHistory(10000, BLOCK_SIZE);
+		StringBuilder all = new StringBuilder();
+		for (int i = 0; i < 50; i++) {
+			String line = String.format("line %02d \u00E9 \u2713\n", i);
+			all.append(line);
+			history.append(line);
+		}
+		assertEquals(all.length(), history.getLength());
+		assertEquals(0, history.getFirstAvailable());
+		assertEquals(all.toString(), history.read(0, all.length()));
+		// Ranges within a block, across blocks and into the hot block
+		assertEquals(all.substring(10, 20), history.read(10, 20));
+		assertEquals(all.substring(95, 305), history.read(95, 305));
+		assertEquals(all.substring(all.length() - 150), history.read(all.length() - 150, all.length() + 10));
+		history.dispose();
+		assertEquals("", history.read(0, 10));
+	}
+
+	public void testSurrogatePairAcrossBlocks() throws Exception {
+		CompressedConsoleHistory history = new CompressedConsoleHistory(10000, BLOCK_SIZE);
+		StringBuilder all = new StringBuilder();
+		for (int i = 0; i < BLOCK_SIZE - 1; i++) {
+			all.append('a');
+		}
+		// The first block ends with the high surrogate and the next starts with the low one
+		all.append("\uD83D\uDE00 after the pair\n");
+		for (int i = 0; i < BLOCK_SIZE; i++) {
+			all.append('b');
+		}
+		history.append(all.toString());
+		assertEquals(all.toString(), history.read(0, all.length()));
+		assertEquals("\uD83D", history.read(BLOCK_SIZE - 1, BLOCK_SIZE));
+		assertEquals("\uDE00 after", history.read(BLOCK_SIZE, BLOCK_SIZE + 7));
+	}
+
+	public void testLimit() throws Exception {
+		CompressedConsoleHistory history = new CompressedConsoleHistory(1000, BLOCK_SIZE);
+		StringBuilder all = new StringBuilder();
+		for (int i = 0; i < 500; i++) {
+			String line = String.format("log line %03d\n", i);
+			all.append(line);
+			history.append(line);
+		}
+		assertEquals(all.length(), history.getLength());
+		long first = history.getFirstAvailable();
+		assertTrue(first > 0);
+		assertEquals(0, first % BLOCK_SIZE);
+		// At least the limit is kept, and less than a block more
+		assertTrue(history.getRetainedLength() >= 1000);
+		assertTrue(history.getRetainedLength() < 1000 + BLOCK_SIZE);
+		assertEquals(all.substring((int) first), history.read(0, all.length()));
+
+		history.reset();
+		assertEquals(0, history.getLength());
+		assertEquals(0, history.getFirstAvailable());
+		history.append("new\n");
+		assertEquals("new\n", history.read(0, 4));
+	}
+
+	public void testMemory() throws Exception {
+		CompressedConsoleHistory history = new CompressedConsoleHistory(2000000);
+		long chars = 0;
+		for (int i = 0; chars < 1000000; i++) {
+			String line = String.format("[%d/3/19 12:%02d:%02d:%03d UTC] %08x com.example.Service I handled GET /api/items/%d in %dms%n",
+					1 + i % 28, i / 60 % 60, i % 60, i % 1000, i % 97, i, i % 50);
+			history.append(line);
+			chars += line.length();
+		}
+		// Kept as a String the output would take 2 bytes a character
+		long ratio = 2 * chars / history.getMemorySize();
+		assertTrue("Only " + ratio + " times smaller", ratio >= 5);
+
+		// Reading back the start decompresses it
+		String start = history.read(0, 27);
+		assertEquals("[1/3/19 12:00:00:000 UTC] ", start.substring(0, 26));
+	}
+
+	public void testConsoleMemory() throws Exception {
+		// The whole console is the window kept in the console document plus the history
+		int retention = ConsoleWriter.DEFAULT_APP_RETENTION;
+		int window = ConsoleWriter.getConsoleLimit(retention, true);
+		CompressedConsoleHistory history = new CompressedConsoleHistory(retention);
+		long chars = 0;
+		for (int i = 0; chars < 3L * retention; i++) {
+			String line = String.format("[%d/3/19 12:%02d:%02d:%03d UTC] %08x com.example.Service I handled GET /api/items/%d in %dms%n",
+					1 + i % 28, i / 60 % 60, i % 60, i % 1000, i % 97, i, i % 50);
+			history.append(line);
+			chars += line.length();
+		}
+		assertTrue(history.getRetainedLength() >= retention);
+		// Without compressed history the console document keeps the whole retention
+		long memory = 2L * window + history.getMemorySize();
+		long ratio = 2L * ConsoleWriter.getConsoleLimit(retention, false) / memory;
+		assertTrue("Only " + ratio + " times smaller", ratio >= 5);
+	}
+}
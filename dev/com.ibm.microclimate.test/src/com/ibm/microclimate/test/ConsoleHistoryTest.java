@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.test;
+
+import java.io.File;
+
+import com.ibm.microclimate.core.internal.console.ConsoleHistory;
+
+import junit.framework.TestCase;
+
+/**
+ * Check that the output trimmed from a console can be read back from the history file,
+ * and that the history rolls over so that it doesn't grow without limit.
+ */
+public class ConsoleHistoryTest extends TestCase {
+
+	private static final int FILE_LIMIT = 1000;
+
+	private File file;
+	private ConsoleHistory history;
+
+	@Override
+	public void setUp() throws Exception {
+		file = File.createTempFile("console", ".history");
+		history = new ConsoleHistory(file, FILE_LIMIT);
+	}
+
+	@Override
+	public void tearDown() {
+		history.dispose();
+		assertFalse(file.exists());
+	}
+
+	public void testReadBack() throws Exception {
+		history.append("line 1\n");
+		history.append("line \u00E9 \u2713 2\n");
+		assertEquals("line 1\nline \u00E9 \u2713 2\n".length(), history.getLength());
+		assertEquals("line 1\n", history.read(0, 7));
+		assertEquals("\u00E9 \u2713", history.read(12, 15));
+		assertEquals("line 1\nline \u00E9 \u2713 2\n", history.read(0, 100));
+	}
+
+	public void testRollOver() throws Exception {
+		StringBuilder all = new StringBuilder();
+		for (int i = 0; i < 500; i++) {
+			String line = String.format("log line %03d\n", i);
+			all.append(line);
+			history.append(line);
+		}
+		assertEquals(all.length(), history.getLength());
+		// Only the current and previous files are kept
+		long first = history.getFirstAvailable();
+		assertTrue("Too much history kept: " + first, all.length() - first <= 2 * FILE_LIMIT + 20);
+		assertTrue(first > 0);
+		// A range that starts in the previous file and ends in the current one
+		assertEquals(all.substring((int) first), history.read(first, all.length()));
+		// The start is moved forward if it has been rolled off
+		assertEquals(all.substring((int) first, (int) first + 50), history.read(0, first + 50));
+	}
+
+	public void testReset() throws Exception {
+		for (int i = 0; i < 200; i++) {
+			history.append("some output\n");
+		}
+		history.reset();
+		assertEquals(0, history.getLength());
+		assertEquals(0, history.getFirstAvailable());
+		history.append("new output\n");
+		assertEquals("new output\n", history.read(0, history.getLength()));
+	}
+}
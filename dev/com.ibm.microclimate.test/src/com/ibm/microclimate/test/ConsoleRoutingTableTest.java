@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.ibm.microclimate.core.internal.connection.ConsoleRoutingTable;
+import com.ibm.microclimate.core.internal.constants.MCConstants;
+
+import junit.framework.TestCase;
+
+/**
+ * Check that log events are routed to the right consoles and that the table
+ * can be changed while it is being read.
+ */
+public class ConsoleRoutingTableTest extends TestCase {
+
+	private static final String BUILD = MCConstants.KEY_LOG_BUILD;
+	private static final String APP = MCConstants.KEY_LOG_APP;
+
+	public void testRouting() {
+		ConsoleRoutingTable<String> table = new ConsoleRoutingTable<String>();
+		table.register("p1", BUILD, "build.log", "p1-build");
+		table.register("p1", APP, "app.log", "p1-app");
+		table.register("p1", APP, "app.log", "p1-app-2");
+		table.register("p2", APP, "app.log", "p2-app");
+		table.register("p3", null, null, "p3-all");
+
+		assertEquals(1, table.get("p1", BUILD, "build.log").size());
+		assertEquals("p1-build", table.get("p1", BUILD, "build.log").get(0));
+		assertEquals(2, table.get("p1", APP, "app.log").size());
+		assertEquals("p2-app", table.get("p2", APP, "app.log").get(0));
+		assertEquals("p3-all", table.get("p3", null, null).get(0));
+		assertTrue(table.get("p1", APP, "other.log").isEmpty());
+		assertTrue(table.get("p2", BUILD, "build.log").isEmpty());
+		assertTrue(table.get("p3", APP, "app.log").isEmpty());
+
+		// Registering the same console twice only routes to it once
+		table.register("p2", APP, "app.log", "p2-app");
+		assertEquals(1, table.get("p2", APP, "app.log").size());
+
+		table.deregister("p1", APP, "app.log", "p1-app");
+		assertEquals(1, table.get("p1", APP, "app.log").size());
+		table.deregister("p1", APP, "app.log", "p1-app-2");
+		assertTrue(table.get("p1", APP, "app.log").isEmpty());
+		assertEquals(3, table.size());
+
+		// Deregistering something that is not there does nothing
+		table.deregister("p4", APP, "app.log", "p4-app");
+		assertEquals(3, table.size());
+	}
+
+	public void testConcurrentRegistration() throws Exception {
+		final ConsoleRoutingTable<Integer> table = new ConsoleRoutingTable<Integer>();
+		final int consoleCount = 10000;
+		final CountDownLatch done = new CountDownLatch(1);
+		final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+
+		Thread reader = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					while (done.getCount() > 0) {
+						for (int i = 0; i < 10; i++) {
+							List<Integer> consoles = table.get("p" + i, APP, "app.log");
+							for (Integer console : consoles) {
+								assertEquals(i, console.intValue() % 10);
+							}
+						}
+					}
+				} catch (Throwable t) {
+					error.set(t);
+				}
+			}
+		});
+		reader.start();
+
+		for (int i = 0; i < consoleCount; i++) {
+			table.register("p" + (i % 10), APP, "app.log", i);
+		}
+		for (int i = 0; i < consoleCount; i += 2) {
+			table.deregister("p" + (i % 10), APP, "app.log", i);
+		}
+		done.countDown();
+		reader.join(TimeUnit.SECONDS.toMillis(30));
+
+		assertNull("Reading the table failed: " + error.get(), error.get());
+		int total = 0;
+		for (int i = 0; i < 10; i++) {
+			total += table.get("p" + i, APP, "app.log").size();
+		}
+		assertEquals(consoleCount / 2, total);
+	}
+}
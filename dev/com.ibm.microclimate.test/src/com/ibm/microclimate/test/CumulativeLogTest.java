@@ -0,0 +1,70 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.test;
+
+import com.ibm.microclimate.core.internal.console.CumulativeLog;
+
+import junit.framework.TestCase;
+
+/**
+ * Check that only the new output is written when the whole application log is sent
+ * in each container-logs event, and that a replaced log is detected.
+ */
+public class CumulativeLogTest extends TestCase {
+
+	private static final String LINE1 = "[INFO] Launching defaultServer\n";
+	private static final String LINE2 = "[AUDIT] CWWKF0011I: The server defaultServer is ready\n";
+	private static final String LINE3 = "[INFO] GET /health 200\n";
+
+	public void testAppend() {
+		CumulativeLog log = new CumulativeLog(8);
+		assertEquals(LINE1, log.update(LINE1));
+		assertEquals(LINE2, log.update(LINE1 + LINE2));
+		assertEquals("", log.update(LINE1 + LINE2));
+		assertEquals(LINE3, log.update(LINE1 + LINE2 + LINE3));
+		assertEquals(LINE1.length() + LINE2.length() + LINE3.length(), log.getLength());
+	}
+
+	public void testReplacedLog() {
+		CumulativeLog log = new CumulativeLog(8);
+		log.update(LINE1 + LINE2);
+
+		// Shorter, for example the container was rebuilt
+		assertNull(log.update(LINE1));
+		assertEquals(LINE1.length(), log.getLength());
+
+		// The same length but the end of what was shown has changed
+		String other = LINE1.replace("Server", "server");
+		assertNull(log.update(other));
+		assertEquals(LINE2, log.update(other + LINE2));
+
+		// A longer log that starts differently
+		assertNull(log.update(LINE3 + other + LINE2));
+	}
+
+	public void testLargeLog() {
+		CumulativeLog log = new CumulativeLog();
+		StringBuilder content = new StringBuilder();
+		for (int i = 0; i < 20000; i++) {
+			content.append(LINE3);
+			if (i % 100 == 0) {
+				// Each update only hashes the two windows, not the whole log
+				assertNotNull(log.update(content.toString()));
+			}
+		}
+		log.update(content.toString());
+		assertEquals(LINE3, log.update(content.toString() + LINE3));
+		log.reset();
+		assertEquals(0, log.getLength());
+		assertEquals(LINE3, log.update(LINE3));
+	}
+}
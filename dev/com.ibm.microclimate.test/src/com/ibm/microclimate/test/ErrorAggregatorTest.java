@@ -0,0 +1,155 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.ibm.microclimate.core.internal.ErrorAggregator;
+
+import junit.framework.TestCase;
+
+/**
+ * Check that repeated errors are reported once and then counted, with the counts
+ * reported after each window.
+ */
+public class ErrorAggregatorTest extends TestCase {
+
+	private static final long WINDOW = 60000;
+
+	private final List<String> reported = new ArrayList<String>();
+	private long time = 1000000;
+
+	private final ErrorAggregator aggregator = new ErrorAggregator(WINDOW, new ErrorAggregator.IReporter() {
+		@Override
+		public void report(String site, String message, Throwable throwable) {
+			reported.add(site + ": " + message + (throwable == null ? "" : " - " + throwable.getMessage()));
+		}
+	}) {
+		@Override
+		protected long now() {
+			return time;
+		}
+	};
+
+	@Override
+	protected void tearDown() throws Exception {
+		aggregator.close();
+	}
+
+	public void testRepeats() {
+		assertTrue(aggregator.error("poller", "Failed to poll app1", new IOException("refused")));
+		for (int i = 0; i < 10; i++) {
+			time += 1000;
+			assertFalse(aggregator.error("poller", "Failed to poll app1", new IOException("refused")));
+		}
+		assertEquals(1, reported.size());
+		assertEquals("poller: Failed to poll app1 - refused", reported.get(0));
+
+		// The next one after the window is reported with the count
+		time += WINDOW;
+		assertTrue(aggregator.error("poller", "Failed to poll app1", new IOException("refused")));
+		assertEquals("poller: Failed to poll app1 (repeated 10 times in the last 70s) - refused", reported.get(1));
+	}
+
+	public void testSignature() {
+		// Numbers don't matter
+		aggregator.error("http", "Bad response 503 from http://localhost:9090/api/v1", null);
+		assertFalse(aggregator.error("http", "Bad response 502 from http://localhost:9091/api/v1", null));
+		// A different site, message or exception does
+		assertTrue(aggregator.error("socket", "Bad response 503 from http://localhost:9090/api/v1", null));
+		assertTrue(aggregator.error("http", "Timed out", null));
+		assertTrue(aggregator.error("http", "Timed out", new IOException("closed")));
+		assertEquals(4, reported.size());
+		assertEquals(ErrorAggregator.getSignature("a", "port 9090 took 12ms", null),
+				ErrorAggregator.getSignature("a", "port 80 took 1ms", null));
+	}
+
+	public void testSummaries() {
+		aggregator.error("poller", "Failed", null);
+		aggregator.error("poller", "Failed", null);
+		aggregator.error("poller", "Failed", null);
+		aggregator.reportSummaries(false);
+		assertEquals(1, reported.size());
+
+		time += WINDOW;
+		aggregator.reportSummaries(false);
+		assertEquals(2, reported.size());
+		assertEquals("poller: Failed (repeated 2 times in the last 60s)", reported.get(1));
+
+		// Nothing more to report, and the group is forgotten once it has been quiet for a while
+		time += WINDOW;
+		aggregator.reportSummaries(false);
+		assertEquals(2, reported.size());
+		assertEquals(1, aggregator.getGroupCount());
+		time += 10 * WINDOW;
+		aggregator.reportSummaries(false);
+		assertEquals(0, aggregator.getGroupCount());
+	}
+
+	public void testStop() {
+		aggregator.error("poller", "Failed to poll app1", null);
+		aggregator.error("poller", "Failed to poll app1", null);
+		assertTrue(aggregator.isSummaryThreadRunning());
+
+		// Stopping reports the count and stops the thread
+		time += 1000;
+		aggregator.stop();
+		assertFalse(aggregator.isSummaryThreadRunning());
+		assertEquals(2, reported.size());
+		assertEquals("poller: Failed to poll app1 (repeated 1 times in the last 1s)", reported.get(1));
+
+		// And it starts again for the next suppressed error
+		assertFalse(aggregator.error("poller", "Failed to poll app1", null));
+		assertTrue(aggregator.isSummaryThreadRunning());
+	}
+
+	public void testClear() {
+		aggregator.error("socket", "Connect error", null);
+		aggregator.error("socket", "Connect error", null);
+		aggregator.error("other", "Connect error", null);
+		aggregator.clear("socket");
+		assertEquals("socket: Connect error (repeated 1 times in the last 0s)", reported.get(2));
+		assertEquals(1, aggregator.getGroupCount());
+
+		// Reported straight away after the clear
+		assertTrue(aggregator.error("socket", "Connect error", null));
+	}
+
+	public void testGroupLimit() {
+		aggregator.error("site-first", "Failed", null);
+		aggregator.error("site-first", "Failed", null);
+		for (int i = 1; i < ErrorAggregator.MAX_GROUPS; i++) {
+			time += 1;
+			aggregator.error("site-" + i, "Failed", null);
+		}
+		// Seeing a group again makes it the most recent
+		assertFalse(aggregator.error("site-1", "Failed", null));
+		assertEquals(ErrorAggregator.MAX_GROUPS, aggregator.getGroupCount());
+		int count = reported.size();
+
+		// A new group replaces the least recently seen one, reporting its count first
+		assertTrue(aggregator.error("site-new", "Failed", null));
+		assertEquals(ErrorAggregator.MAX_GROUPS, aggregator.getGroupCount());
+		assertEquals(count + 2, reported.size());
+		assertEquals("site-first: Failed (repeated 1 times in the last 0s)", reported.get(count));
+		assertEquals("site-new: Failed", reported.get(count + 1));
+
+		// Errors past the limit are still grouped
+		assertFalse(aggregator.error("site-new", "Failed", null));
+		assertFalse(aggregator.error("site-1", "Failed", null));
+		assertTrue(aggregator.error("site-first", "Failed", null));
+		assertFalse(aggregator.error("site-first", "Failed", null));
+		assertEquals(ErrorAggregator.MAX_GROUPS, aggregator.getGroupCount());
+	}
+}
@@ -0,0 +1,186 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.json.JSONObject;
+
+import com.ibm.microclimate.core.internal.connection.MicroclimateEventCoalescer;
+import com.ibm.microclimate.core.internal.connection.MicroclimateSocket;
+import com.ibm.microclimate.core.internal.constants.MCConstants;
+import com.ibm.microclimate.test.util.TestUtil;
+
+import junit.framework.TestCase;
+
+/**
+ * Check that bursts of status events are merged without losing build status changes
+ * or changing the order of events for a project.
+ */
+public class EventCoalescerTest extends TestCase {
+
+	// Long enough that the timer never fires during a test, the tests flush explicitly
+	private static final int WINDOW_MS = 60000;
+
+	private final List<String> received = new ArrayList<String>();
+	private final List<JSONObject> receivedData = new ArrayList<JSONObject>();
+	private final List<Long> receivedTimes = new ArrayList<Long>();
+	private MicroclimateEventCoalescer coalescer;
+
+	@Override
+	public void setUp() {
+		coalescer = new MicroclimateEventCoalescer("test", new MicroclimateEventCoalescer.IEventTarget() {
+			@Override
+			public void eventReady(String event, String projectID, JSONObject data, long receivedNanos) {
+				received.add(projectID + ":" + event);
+				receivedData.add(data);
+				receivedTimes.add(Long.valueOf(receivedNanos));
+			}
+		});
+		coalescer.setWindow(WINDOW_MS);
+	}
+
+	@Override
+	public void tearDown() {
+		coalescer.close();
+	}
+
+	public void testStatusEventsAreMerged() throws Exception {
+		for (int i = 0; i < 10; i++) {
+			coalescer.add(MicroclimateSocket.EVENT_PROJECT_STATUS_CHANGE, "p1",
+					statusEvent("p1", "inProgress", "Step " + i, i % 2 == 0 ? "starting" : null));
+		}
+		assertTrue(received.isEmpty());
+		coalescer.flushAll();
+
+		assertEquals(1, received.size());
+		JSONObject data = receivedData.get(0);
+		assertEquals("inProgress", data.getString(MCConstants.KEY_BUILD_STATUS));
+		assertEquals("Step 9", data.getString(MCConstants.KEY_DETAILED_BUILD_STATUS));
+		assertEquals("starting", data.getString(MCConstants.KEY_APP_STATUS));
+		assertEquals(10.0, coalescer.getCoalescingRatio(), 0.001);
+		TestUtil.print(coalescer.toString());
+	}
+
+	public void testMergedEventKeepsFirstReceiveTime() throws Exception {
+		coalescer.add(MicroclimateSocket.EVENT_PROJECT_STATUS_CHANGE, "p1", statusEvent("p1", "inProgress", "Step 1", null), 100);
+		coalescer.add(MicroclimateSocket.EVENT_PROJECT_STATUS_CHANGE, "p1", statusEvent("p1", "inProgress", "Step 2", null), 200);
+		coalescer.add(MicroclimateSocket.EVENT_PROJECT_RESTART, "p1", new JSONObject().put(MCConstants.KEY_PROJECT_ID, "p1"), 300);
+
+		// The lag of a merged event is measured from when the first event was received
+		assertEquals(2, receivedTimes.size());
+		assertEquals(100, receivedTimes.get(0).longValue());
+		assertEquals(300, receivedTimes.get(1).longValue());
+	}
+
+	public void testBuildStatusChangesAreKept() throws Exception {
+		coalescer.add(MicroclimateSocket.EVENT_PROJECT_STATUS_CHANGE, "p1", statusEvent("p1", "inProgress", "Step 1", null));
+		coalescer.add(MicroclimateSocket.EVENT_PROJECT_STATUS_CHANGE, "p1", statusEvent("p1", "inProgress", "Step 2", null));
+		coalescer.add(MicroclimateSocket.EVENT_PROJECT_STATUS_CHANGE, "p1", statusEvent("p1", "success", "", null));
+		coalescer.add(MicroclimateSocket.EVENT_PROJECT_STATUS_CHANGE, "p1", statusEvent("p1", "inProgress", "Step 1", null));
+		coalescer.add(MicroclimateSocket.EVENT_PROJECT_STATUS_CHANGE, "p1", statusEvent("p1", "failed", "", null));
+		coalescer.flushAll();
+
+		assertEquals(4, receivedData.size());
+		assertEquals("inProgress", receivedData.get(0).getString(MCConstants.KEY_BUILD_STATUS));
+		assertEquals("Step 2", receivedData.get(0).getString(MCConstants.KEY_DETAILED_BUILD_STATUS));
+		assertEquals("success", receivedData.get(1).getString(MCConstants.KEY_BUILD_STATUS));
+		assertEquals("inProgress", receivedData.get(2).getString(MCConstants.KEY_BUILD_STATUS));
+		assertEquals("failed", receivedData.get(3).getString(MCConstants.KEY_BUILD_STATUS));
+	}
+
+	public void testMergeCopiesEvents() throws Exception {
+		JSONObject first = statusEvent("p1", "inProgress", "Step 1", null);
+		JSONObject second = statusEvent("p1", "inProgress", "Step 2", "starting");
+		coalescer.add(MicroclimateSocket.EVENT_PROJECT_STATUS_CHANGE, "p1", first);
+		coalescer.add(MicroclimateSocket.EVENT_PROJECT_STATUS_CHANGE, "p1", second);
+		coalescer.flushAll();
+
+		// The received payloads are not changed by the merge
+		assertEquals("Step 1", first.getString(MCConstants.KEY_DETAILED_BUILD_STATUS));
+		assertFalse(first.has(MCConstants.KEY_APP_STATUS));
+		assertEquals(1, receivedData.size());
+		assertEquals("Step 2", receivedData.get(0).getString(MCConstants.KEY_DETAILED_BUILD_STATUS));
+		assertEquals("starting", receivedData.get(0).getString(MCConstants.KEY_APP_STATUS));
+	}
+
+	public void testMissingDetailClearsEarlierDetail() throws Exception {
+		coalescer.add(MicroclimateSocket.EVENT_PROJECT_STATUS_CHANGE, "p1", statusEvent("p1", "inProgress", "Step 1", null));
+		coalescer.add(MicroclimateSocket.EVENT_PROJECT_STATUS_CHANGE, "p1", statusEvent("p1", "inProgress", null, null));
+		// An event without a build status leaves the detail alone
+		coalescer.add(MicroclimateSocket.EVENT_PROJECT_STATUS_CHANGE, "p2", statusEvent("p2", "inProgress", "Step 1", null));
+		coalescer.add(MicroclimateSocket.EVENT_PROJECT_STATUS_CHANGE, "p2",
+				new JSONObject().put(MCConstants.KEY_PROJECT_ID, "p2").put(MCConstants.KEY_APP_STATUS, "starting"));
+		coalescer.flushAll();
+
+		assertEquals(2, receivedData.size());
+		for (JSONObject data : receivedData) {
+			if ("p1".equals(data.getString(MCConstants.KEY_PROJECT_ID))) {
+				assertFalse(data.has(MCConstants.KEY_DETAILED_BUILD_STATUS));
+			} else {
+				assertEquals("Step 1", data.getString(MCConstants.KEY_DETAILED_BUILD_STATUS));
+			}
+		}
+	}
+
+	public void testOtherEventsKeepOrder() throws Exception {
+		coalescer.add(MicroclimateSocket.EVENT_PROJECT_STATUS_CHANGE, "p1", statusEvent("p1", "inProgress", "Step 1", null));
+		coalescer.add(MicroclimateSocket.EVENT_PROJECT_STATUS_CHANGE, "p2", statusEvent("p2", "inProgress", "Step 1", null));
+		coalescer.add(MicroclimateSocket.EVENT_PROJECT_RESTART, "p1", new JSONObject().put(MCConstants.KEY_PROJECT_ID, "p1"));
+		coalescer.add(MicroclimateSocket.EVENT_PROJECT_CHANGED, "p1", new JSONObject().put(MCConstants.KEY_PROJECT_ID, "p1"));
+		coalescer.add(MicroclimateSocket.EVENT_PROJECT_STATUS_CHANGE, "p1", statusEvent("p1", "inProgress", "Step 2", null));
+
+		// The held events for p1 must be passed on before the next event of a different type
+		// and p2 must still be held
+		assertEquals(3, received.size());
+		assertEquals("p1:" + MicroclimateSocket.EVENT_PROJECT_STATUS_CHANGE, received.get(0));
+		assertEquals("p1:" + MicroclimateSocket.EVENT_PROJECT_RESTART, received.get(1));
+		assertEquals("p1:" + MicroclimateSocket.EVENT_PROJECT_CHANGED, received.get(2));
+
+		coalescer.flushAll();
+		assertEquals(5, received.size());
+		assertEquals(1.0, coalescer.getCoalescingRatio(), 0.001);
+	}
+
+	public void testNoWindowPassesEventsThrough() throws Exception {
+		coalescer.setWindow(0);
+		for (int i = 0; i < 5; i++) {
+			coalescer.add(MicroclimateSocket.EVENT_PROJECT_STATUS_CHANGE, "p1", statusEvent("p1", "inProgress", "Step " + i, null));
+		}
+		assertEquals(5, received.size());
+	}
+
+	public void testWindowExpires() throws Exception {
+		coalescer.setWindow(50);
+		coalescer.add(MicroclimateSocket.EVENT_PROJECT_STATUS_CHANGE, "p1", statusEvent("p1", "inProgress", "Step 1", null));
+		coalescer.add(MicroclimateSocket.EVENT_PROJECT_STATUS_CHANGE, "p1", statusEvent("p1", "inProgress", "Step 2", null));
+		long end = System.currentTimeMillis() + 10000;
+		while (coalescer.getForwardedCount() == 0 && System.currentTimeMillis() < end) {
+			Thread.sleep(10);
+		}
+		synchronized (coalescer) {
+			assertEquals(1, received.size());
+		}
+	}
+
+	private static JSONObject statusEvent(String projectID, String buildStatus, String detail, String appStatus) throws Exception {
+		JSONObject event = new JSONObject();
+		event.put(MCConstants.KEY_PROJECT_ID, projectID);
+		event.put(MCConstants.KEY_BUILD_STATUS, buildStatus);
+		event.put(MCConstants.KEY_DETAILED_BUILD_STATUS, detail);
+		if (appStatus != null) {
+			event.put(MCConstants.KEY_APP_STATUS, appStatus);
+		}
+		return event;
+	}
+}
@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.test;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import com.ibm.microclimate.core.internal.connection.MicroclimateSocket;
+import com.ibm.microclimate.core.internal.connection.events.LogUpdateEvent;
+import com.ibm.microclimate.core.internal.connection.events.ProjectChangedEvent;
+import com.ibm.microclimate.core.internal.connection.events.ProjectEvent;
+import com.ibm.microclimate.core.internal.connection.events.ProjectRestartEvent;
+import com.ibm.microclimate.core.internal.connection.events.ProjectStatusEvent;
+import com.ibm.microclimate.core.internal.connection.events.ProjectValidatedEvent;
+import com.ibm.microclimate.core.internal.constants.MCConstants;
+import com.ibm.microclimate.core.internal.constants.StartMode;
+import com.ibm.microclimate.test.bench.SyntheticWorkspace;
+
+import junit.framework.TestCase;
+
+/**
+ * Check that socket event payloads are decoded into the right event types
+ * and that the log contents are not copied.
+ */
+public class EventDecodeTest extends TestCase {
+
+	private final SyntheticWorkspace workspace = new SyntheticWorkspace("decode", 1);
+
+	public void testStatusEvent() throws Exception {
+		JSONObject obj = workspace.statusChangedEvent(0, 1);
+		ProjectEvent event = ProjectEvent.decode(MicroclimateSocket.EVENT_PROJECT_STATUS_CHANGE, obj);
+		assertTrue(event instanceof ProjectStatusEvent);
+		ProjectStatusEvent statusEvent = (ProjectStatusEvent) event;
+		assertEquals(workspace.projectID(0), statusEvent.projectID);
+		assertEquals(obj.getString(MCConstants.KEY_APP_STATUS), statusEvent.appStatus);
+		assertEquals(obj.getString(MCConstants.KEY_BUILD_STATUS), statusEvent.buildStatus);
+		assertEquals("Build step 1", statusEvent.buildDetail);
+
+		obj.remove(MCConstants.KEY_BUILD_STATUS);
+		obj.remove(MCConstants.KEY_DETAILED_BUILD_STATUS);
+		statusEvent = (ProjectStatusEvent) ProjectEvent.decode(MicroclimateSocket.EVENT_PROJECT_STATUS_CHANGE, obj);
+		assertNull(statusEvent.buildStatus);
+		assertEquals("", statusEvent.buildDetail);
+	}
+
+	public void testChangedEvent() throws Exception {
+		JSONObject obj = workspace.projectChangedEvent(0);
+		ProjectChangedEvent event = (ProjectChangedEvent) ProjectEvent.decode(MicroclimateSocket.EVENT_PROJECT_CHANGED, obj);
+		assertEquals("container0", event.containerID);
+		assertTrue(event.hasHttpPort);
+		assertEquals(30000, event.httpPort);
+		assertEquals(-1, event.debugPort);
+		assertTrue(event.hasAutoBuild);
+		assertTrue(event.autoBuild);
+	}
+
+	public void testChangedEventWithoutPorts() throws Exception {
+		JSONObject obj = workspace.projectChangedEvent(0);
+		obj.remove(MCConstants.KEY_PORTS);
+		ProjectChangedEvent event = (ProjectChangedEvent) ProjectEvent.decode(MicroclimateSocket.EVENT_PROJECT_CHANGED, obj);
+		assertEquals("container0", event.containerID);
+		assertFalse(event.hasHttpPort);
+		assertEquals(-1, event.httpPort);
+		assertTrue(event.hasAutoBuild);
+	}
+
+	public void testLogUpdateEventDoesNotCopyLogs() throws Exception {
+		String logs = SyntheticWorkspace.logLines(64 * 1024);
+		JSONObject obj = workspace.logUpdateEvent(0, "app.log", logs, true);
+		LogUpdateEvent event = (LogUpdateEvent) ProjectEvent.decode(MicroclimateSocket.EVENT_LOG_UPDATE, obj);
+		assertSame(logs, event.logs);
+		assertEquals(MCConstants.KEY_LOG_APP, event.logType);
+		assertEquals("app.log", event.logName);
+		assertTrue(event.reset);
+	}
+
+	public void testRestartEvent() throws Exception {
+		JSONObject obj = new JSONObject();
+		obj.put(MCConstants.KEY_PROJECT_ID, workspace.projectID(0));
+		obj.put(MCConstants.KEY_STATUS, MCConstants.REQUEST_STATUS_SUCCESS);
+		obj.put(MCConstants.KEY_START_MODE, StartMode.DEBUG.startMode);
+		JSONObject ports = new JSONObject();
+		ports.put(MCConstants.KEY_EXPOSED_PORT, "30001");
+		ports.put(MCConstants.KEY_EXPOSED_DEBUG_PORT, "30002");
+		obj.put(MCConstants.KEY_PORTS, ports);
+		ProjectRestartEvent event = (ProjectRestartEvent) ProjectEvent.decode(MicroclimateSocket.EVENT_PROJECT_RESTART, obj);
+		assertTrue(event.isSuccess());
+		assertEquals(30001, event.httpPort);
+		assertEquals(30002, event.debugPort);
+		assertEquals(StartMode.DEBUG, event.startMode);
+
+		obj = new JSONObject();
+		obj.put(MCConstants.KEY_PROJECT_ID, workspace.projectID(0));
+		obj.put(MCConstants.KEY_STATUS, "failed");
+		event = (ProjectRestartEvent) ProjectEvent.decode(MicroclimateSocket.EVENT_PROJECT_RESTART, obj);
+		assertFalse(event.isSuccess());
+		assertEquals(-1, event.httpPort);
+	}
+
+	public void testValidatedEvent() throws Exception {
+		JSONObject result = new JSONObject();
+		result.put(MCConstants.KEY_SEVERITY, MCConstants.VALUE_SEVERITY_WARNING);
+		result.put(MCConstants.KEY_FILENAME, MCConstants.DOCKERFILE);
+		result.put(MCConstants.KEY_FILEPATH, "/project/Dockerfile");
+		result.put(MCConstants.KEY_TYPE, MCConstants.VALUE_TYPE_MISSING);
+		result.put(MCConstants.KEY_DETAILS, "Missing Dockerfile");
+		JSONObject quickFix = new JSONObject();
+		quickFix.put(MCConstants.KEY_FIXID, "fix1");
+		quickFix.put(MCConstants.KEY_DESCRIPTION, "Regenerate");
+		result.put(MCConstants.KEY_QUICKFIX, quickFix);
+		JSONObject obj = new JSONObject();
+		obj.put(MCConstants.KEY_PROJECT_ID, workspace.projectID(0));
+		obj.put(MCConstants.KEY_VALIDATION_STATUS, "failed");
+		obj.put(MCConstants.KEY_VALIDATION_RESULTS, new JSONArray().put(result));
+
+		ProjectValidatedEvent event = (ProjectValidatedEvent) ProjectEvent.decode(MicroclimateSocket.EVENT_PROJECT_VALIDATED, obj);
+		assertFalse(event.isSuccess());
+		assertEquals(1, event.results.size());
+		ProjectValidatedEvent.ValidationResult decoded = event.results.get(0);
+		assertTrue(decoded.isWarning());
+		assertEquals("/project/Dockerfile", decoded.filepath);
+		assertEquals("fix1", decoded.quickFixId);
+		assertEquals("Regenerate", decoded.quickFixDescription);
+	}
+
+	public void testClosedEvent() throws Exception {
+		JSONObject obj = new JSONObject().put(MCConstants.KEY_PROJECT_ID, workspace.projectID(0));
+		ProjectEvent event = ProjectEvent.decode(MicroclimateSocket.EVENT_PROJECT_CLOSED, obj);
+		assertEquals(ProjectEvent.class, event.getClass());
+		assertEquals(workspace.projectID(0), event.projectID);
+	}
+}
@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.ibm.microclimate.core.internal.connection.MicroclimateEventDispatcher;
+
+import junit.framework.TestCase;
+
+/**
+ * Check that the event dispatcher keeps events for a project in order and that
+ * a slow handler for one project does not hold up the other projects.
+ */
+public class EventDispatcherTest extends TestCase {
+
+	private static final int PROJECT_COUNT = 20;
+	private static final int EVENT_COUNT = 500;
+	private static final long TIMEOUT = 30;
+
+	private MicroclimateEventDispatcher dispatcher;
+
+	@Override
+	public void setUp() {
+		dispatcher = new MicroclimateEventDispatcher("test");
+	}
+
+	@Override
+	public void tearDown() {
+		dispatcher.shutdown();
+	}
+
+	public void testEventsAreOrderedPerProject() throws Exception {
+		final List<List<Integer>> received = new ArrayList<List<Integer>>();
+		for (int i = 0; i < PROJECT_COUNT; i++) {
+			received.add(Collections.synchronizedList(new ArrayList<Integer>()));
+		}
+
+		for (int event = 0; event < EVENT_COUNT; event++) {
+			for (int project = 0; project < PROJECT_COUNT; project++) {
+				final List<Integer> projectEvents = received.get(project);
+				final int eventNum = event;
+				dispatcher.dispatch("project" + project, new Runnable() {
+					@Override
+					public void run() {
+						projectEvents.add(eventNum);
+					}
+				});
+			}
+		}
+
+		assertTrue("Timed out waiting for the events to be handled", dispatcher.awaitIdle(TimeUnit.SECONDS.toMillis(TIMEOUT)));
+		for (int project = 0; project < PROJECT_COUNT; project++) {
+			List<Integer> projectEvents = received.get(project);
+			assertEquals(EVENT_COUNT, projectEvents.size());
+			for (int event = 0; event < EVENT_COUNT; event++) {
+				assertEquals("Event out of order for project" + project, event, projectEvents.get(event).intValue());
+			}
+		}
+		assertEquals(PROJECT_COUNT * EVENT_COUNT, dispatcher.getEventCount());
+		assertEquals(0, dispatcher.getQueueDepth());
+		assertTrue(dispatcher.getMaxQueueDepth() > 0);
+	}
+
+	public void testSlowProjectDoesNotBlockOthers() throws Exception {
+		final CountDownLatch release = new CountDownLatch(1);
+		final CountDownLatch fastDone = new CountDownLatch(PROJECT_COUNT);
+
+		dispatcher.dispatch("slow", new Runnable() {
+			@Override
+			public void run() {
+				try {
+					release.await(TIMEOUT, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+		dispatcher.dispatch("slow", new Runnable() {
+			@Override
+			public void run() {
+				// Queued behind the blocked handler
+			}
+		});
+		for (int project = 0; project < PROJECT_COUNT; project++) {
+			dispatcher.dispatch("project" + project, new Runnable() {
+				@Override
+				public void run() {
+					fastDone.countDown();
+				}
+			});
+		}
+
+		try {
+			assertTrue("Events for other projects were blocked by a slow handler", fastDone.await(TIMEOUT, TimeUnit.SECONDS));
+			assertEquals(2, dispatcher.getQueueDepth("slow"));
+		} finally {
+			release.countDown();
+		}
+		assertTrue("Timed out waiting for the events to be handled", dispatcher.awaitIdle(TimeUnit.SECONDS.toMillis(TIMEOUT)));
+		assertEquals(PROJECT_COUNT + 2, dispatcher.getEventCount());
+	}
+
+	public void testHandlerErrorDoesNotStopQueue() throws Exception {
+		final CountDownLatch done = new CountDownLatch(1);
+		dispatcher.dispatch("project", new Runnable() {
+			@Override
+			public void run() {
+				throw new IllegalStateException("Test exception");
+			}
+		});
+		dispatcher.dispatch("project", new Runnable() {
+			@Override
+			public void run() {
+				done.countDown();
+			}
+		});
+		assertTrue("Handler after a failed handler did not run", done.await(TIMEOUT, TimeUnit.SECONDS));
+	}
+}
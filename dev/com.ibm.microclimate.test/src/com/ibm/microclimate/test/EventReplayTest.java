@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.net.URI;
+
+import com.ibm.microclimate.core.internal.MicroclimateApplication;
+import com.ibm.microclimate.core.internal.connection.EventRecorder;
+import com.ibm.microclimate.core.internal.connection.EventReplayer;
+import com.ibm.microclimate.core.internal.connection.EventReplayer.ReplayResult;
+import com.ibm.microclimate.core.internal.connection.EventTrace;
+import com.ibm.microclimate.core.internal.connection.MicroclimateSocket;
+import com.ibm.microclimate.core.internal.constants.AppState;
+import com.ibm.microclimate.core.internal.constants.BuildStatus;
+import com.ibm.microclimate.test.bench.SyntheticWorkspace;
+import com.ibm.microclimate.test.util.OfflineConnection;
+
+import junit.framework.TestCase;
+
+/**
+ * Check that recorded event traces can be read back and replayed into a connection
+ * without a Microclimate instance.
+ */
+public class EventReplayTest extends TestCase {
+
+	private static final long TIMEOUT = 30000;
+
+	private final SyntheticWorkspace workspace = new SyntheticWorkspace("replay", 5);
+
+	public void testRoundTrip() throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		String logs = SyntheticWorkspace.logLines(100 * 1024);
+		try (EventRecorder recorder = new EventRecorder(new File("test.trace"), bytes, workspace.projectsJson())) {
+			recorder.recordAt(0, MicroclimateSocket.EVENT_PROJECT_STATUS_CHANGE, workspace.statusChangedEvent(0, 1));
+			recorder.recordAt(15, MicroclimateSocket.EVENT_PROJECT_CHANGED, workspace.projectChangedEvent(1));
+			recorder.recordAt(20, MicroclimateSocket.EVENT_LOG_UPDATE, workspace.logUpdateEvent(2, "app.log", logs, false));
+			assertEquals(3, recorder.getEventCount());
+		}
+
+		EventTrace trace = EventTrace.load("test", new ByteArrayInputStream(bytes.toByteArray()));
+		assertEquals(workspace.projectsJson(), trace.projectsJson);
+		assertEquals(3, trace.entries.size());
+		assertEquals(20, trace.getDuration());
+		assertEquals(MicroclimateSocket.EVENT_PROJECT_STATUS_CHANGE, trace.entries.get(0).event);
+		assertEquals(workspace.statusChangedEvent(0, 1).toString(), trace.entries.get(0).data);
+		assertEquals(15, trace.entries.get(1).time);
+		assertEquals(workspace.logUpdateEvent(2, "app.log", logs, false).toString(), trace.entries.get(2).data);
+		// The log output is repetitive so the trace should be much smaller than the events
+		assertTrue(bytes.size() < trace.getPayloadSize() / 10);
+	}
+
+	public void testReplay() throws Exception {
+		EventTrace trace = createBuildTrace();
+		OfflineConnection connection = new OfflineConnection(new URI("http://replay:9090/"));
+		try {
+			connection.setProjectsJson(trace.projectsJson);
+			connection.refreshApps(null);
+			assertEquals(workspace.projectCount, connection.getApps().size());
+
+			ReplayResult result = new EventReplayer(connection.getMCSocket()).replay(trace, EventReplayer.Speed.MAXIMUM, 0, TIMEOUT);
+			assertTrue(result.completed);
+			assertEquals(trace.entries.size(), result.events);
+			assertTrue(result.handledEvents > 0 && result.handledEvents <= result.events);
+			for (MicroclimateApplication app : connection.getApps()) {
+				assertEquals(AppState.STARTED, app.getAppState());
+				assertEquals(BuildStatus.SUCCESS, app.getBuildStatus());
+			}
+		} finally {
+			connection.close();
+		}
+	}
+
+	public void testAcceleratedReplay() throws Exception {
+		EventTrace trace = createBuildTrace();
+		assertEquals(1000, trace.getDuration());
+		OfflineConnection connection = new OfflineConnection(new URI("http://replay:9090/"));
+		try {
+			connection.setProjectsJson(trace.projectsJson);
+			connection.refreshApps(null);
+			ReplayResult result = new EventReplayer(connection.getMCSocket()).replay(trace, EventReplayer.Speed.ACCELERATED, 5, TIMEOUT);
+			assertTrue(result.completed);
+			// Five times faster than recorded, so at least 200 ms
+			assertTrue("Replay was too fast: " + result, result.elapsedMs >= 200);
+		} finally {
+			connection.close();
+		}
+	}
+
+	private EventTrace createBuildTrace() throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (EventRecorder recorder = new EventRecorder(new File("build.trace"), bytes, workspace.projectsJson())) {
+			for (int i = 0; i < workspace.projectCount; i++) {
+				recorder.recordAt(i * 10, MicroclimateSocket.EVENT_PROJECT_STATUS_CHANGE,
+						workspace.statusEvent(i, "stopped", "inProgress", "Building"));
+				recorder.recordAt(500 + i * 10, MicroclimateSocket.EVENT_PROJECT_STATUS_CHANGE,
+						workspace.statusEvent(i, "starting", "success", null));
+			}
+			for (int i = 0; i < workspace.projectCount; i++) {
+				recorder.recordAt(1000, MicroclimateSocket.EVENT_PROJECT_STATUS_CHANGE,
+						workspace.statusEvent(i, "started", null, null));
+			}
+		}
+		return EventTrace.load("build", new ByteArrayInputStream(bytes.toByteArray()));
+	}
+}
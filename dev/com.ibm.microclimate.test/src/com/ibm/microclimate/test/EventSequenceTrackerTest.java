@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.ibm.microclimate.core.internal.connection.EventSequenceTracker;
+
+import junit.framework.TestCase;
+
+/**
+ * Check that the last event for each project is tracked so that the apps can
+ * be reconciled after a reconnect.
+ */
+public class EventSequenceTrackerTest extends TestCase {
+
+	public void testEventsSinceSnapshot() {
+		EventSequenceTracker tracker = new EventSequenceTracker();
+		assertEquals(0, tracker.getLastSequence("p1"));
+
+		tracker.eventReceived("p1");
+		tracker.eventReceived("p2");
+		long snapshot = tracker.getSequence();
+		assertEquals(2, snapshot);
+		assertFalse(tracker.hasEventSince("p1", snapshot));
+		assertFalse(tracker.hasEventSince("p2", snapshot));
+		assertFalse(tracker.hasEventSince("p3", snapshot));
+
+		// Only the projects with events after the snapshot should be skipped
+		tracker.eventReceived("p2");
+		tracker.eventReceived("p3");
+		assertFalse(tracker.hasEventSince("p1", snapshot));
+		assertTrue(tracker.hasEventSince("p2", snapshot));
+		assertTrue(tracker.hasEventSince("p3", snapshot));
+
+		// Events without a project still move the sequence on
+		long seq = tracker.eventReceived(null);
+		assertEquals(5, seq);
+		assertEquals(4, tracker.getLastSequence("p3"));
+	}
+
+	public void testConcurrentEvents() throws Exception {
+		final EventSequenceTracker tracker = new EventSequenceTracker();
+		final int eventCount = 10000;
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int i = 0; i < 4; i++) {
+			final String projectID = "p" + i;
+			Thread thread = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					for (int j = 0; j < eventCount; j++) {
+						tracker.eventReceived(projectID);
+					}
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join(TimeUnit.SECONDS.toMillis(30));
+		}
+		assertEquals(4 * eventCount, tracker.getSequence());
+		for (int i = 0; i < 4; i++) {
+			assertTrue(tracker.getLastSequence("p" + i) >= eventCount);
+		}
+	}
+}
@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.test;
+
+import java.nio.charset.StandardCharsets;
+
+import com.ibm.microclimate.core.internal.console.IncrementalLog;
+
+import junit.framework.TestCase;
+
+/**
+ * Check that only the new part of a build log is written when the log grows, and that
+ * a replaced log is detected.
+ */
+public class IncrementalLogTest extends TestCase {
+
+	private static final String STEP1 = "[INFO] Scanning for projects...\n";
+	private static final String STEP2 = "[INFO] Building app 1.0-SNAPSHOT\n";
+	private static final String STEP3 = "[INFO] BUILD SUCCESS\n";
+
+	private final IncrementalLog log = new IncrementalLog();
+
+	public void testAppendRanges() {
+		assertEquals(STEP1, log.appendFull(STEP1, STEP1.length()));
+		log.append(STEP2, STEP2.length());
+		assertEquals(STEP1.length() + STEP2.length(), log.getByteOffset());
+		assertEquals(STEP1.length() + STEP2.length(), log.getCharCount());
+
+		// A full copy of the log only adds the new output
+		assertEquals(STEP3, log.appendFull(STEP1 + STEP2 + STEP3, STEP1.length() + STEP2.length() + STEP3.length()));
+		assertEquals(STEP1.length() + STEP2.length() + STEP3.length(), log.getByteOffset());
+		assertEquals("", log.appendFull(STEP1 + STEP2 + STEP3, log.getByteOffset()));
+	}
+
+	public void testReplacedLog() {
+		log.appendFull(STEP1 + STEP2, STEP1.length() + STEP2.length());
+
+		// A new build starts the log again
+		assertNull(log.appendFull(STEP1, STEP1.length()));
+		assertEquals(STEP1.length(), log.getByteOffset());
+
+		// A log of the same length with different content
+		String other = STEP1.replace('S', 's');
+		assertNull(log.appendFull(other + STEP2, other.length() + STEP2.length()));
+		assertEquals(STEP3, log.appendFull(other + STEP2 + STEP3, other.length() + STEP2.length() + STEP3.length()));
+	}
+
+	public void testMultiByteOutput() {
+		String line = "[INFO] Gr\u00FC\u00DFe \u2713\n";
+		int bytes = line.getBytes(StandardCharsets.UTF_8).length;
+		log.appendFull(line, bytes);
+		assertEquals(bytes, log.getByteOffset());
+		assertEquals(line.length(), log.getCharCount());
+		assertEquals(line, log.appendFull(line + line, 2 * bytes));
+		assertEquals(2 * bytes, log.getByteOffset());
+	}
+
+	public void testHash() {
+		String text = STEP1 + STEP2;
+		assertEquals(text.hashCode(), IncrementalLog.hash(text, 0, text.length(), 0));
+		int first = IncrementalLog.hash(STEP1, 0, STEP1.length(), 0);
+		assertEquals(text.hashCode(), IncrementalLog.hash(STEP2, 0, STEP2.length(), first));
+	}
+}
@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+
+import com.ibm.microclimate.core.internal.console.LogArchive;
+import com.ibm.microclimate.core.internal.console.LogArchiveReader;
+
+import junit.framework.TestCase;
+
+/**
+ * Check that log output is archived in segments per session, that the archive is kept
+ * under its size limits, and that it can be read back a page at a time.
+ */
+public class LogArchiveTest extends TestCase {
+
+	private static final long SEGMENT_SIZE = 1000;
+	private static final int MAX_SESSIONS = 3;
+
+	private File root;
+	private LogArchive archive;
+
+	@Override
+	public void setUp() throws Exception {
+		root = Files.createTempDirectory("archive").toFile();
+		archive = new LogArchive(root, SEGMENT_SIZE, 100000, MAX_SESSIONS);
+	}
+
+	@Override
+	public void tearDown() {
+		archive.close();
+		delete(root);
+	}
+
+	public void testPaging() throws Exception {
+		LogArchive.Session session = archive.startSession("project1", "app");
+		StringBuilder all = new StringBuilder();
+		for (int i = 0; i < 500; i++) {
+			String line = String.format("log line %03d \u00E9\n", i);
+			all.append(line);
+			session.append(line);
+		}
+		session.close();
+		// Split into segments
+		assertTrue(session.getDir().listFiles().length > 5);
+
+		try (LogArchiveReader reader = new LogArchiveReader(session.getDir())) {
+			assertEquals(session.getSize(), reader.getLength());
+			// Page through from the start, each page ends on a line boundary
+			StringBuilder forward = new StringBuilder();
+			LogArchiveReader.Page page = reader.read(0, 700);
+			while (!page.text.isEmpty()) {
+				assertTrue(page.text.endsWith("\n"));
+				forward.append(page.text);
+				page = reader.read(page.end, 700);
+			}
+			assertEquals(all.toString(), forward.toString());
+
+			// And back from the end
+			StringBuilder backward = new StringBuilder();
+			page = reader.readLast(700);
+			while (!page.text.isEmpty()) {
+				assertTrue(page.text.startsWith("log line"));
+				backward.insert(0, page.text);
+				page = reader.readBefore(page.start, 700);
+			}
+			assertEquals(all.toString(), backward.toString());
+		}
+	}
+
+	public void testOldSessionsRemoved() throws Exception {
+		for (int i = 0; i < MAX_SESSIONS + 2; i++) {
+			LogArchive.Session session = archive.startSession("project1", "app");
+			session.append("app session " + i + "\n");
+			session.close();
+		}
+		LogArchive.Session build = archive.startSession("project1", "build");
+		build.append("build output\n");
+		build.close();
+
+		List<File> sessions = archive.getSessions("project1");
+		assertEquals(MAX_SESSIONS + 1, sessions.size());
+		// Newest first
+		try (LogArchiveReader reader = new LogArchiveReader(sessions.get(1))) {
+			assertEquals("app session " + (MAX_SESSIONS + 1) + "\n", reader.readLast(1000).text);
+		}
+		assertTrue(archive.getSessions("project2").isEmpty());
+	}
+
+	public void testSessionLimit() throws Exception {
+		archive.close();
+		archive = new LogArchive(root, SEGMENT_SIZE, 100, MAX_SESSIONS);
+		LogArchive.Session session = archive.startSession("project1", "app");
+		for (int i = 0; i < 20; i++) {
+			session.append("0123456789\n");
+		}
+		session.close();
+		assertTrue(session.getSize() <= 100);
+	}
+
+	public void testSessionWriter() throws Exception {
+		LogArchive.SessionWriter writer = archive.newSessionWriter("project1", "app");
+		assertNull(writer.getSession());
+		for (int i = 0; i < 100; i++) {
+			writer.append("line " + i + "\n");
+		}
+		writer.close();
+		// Wait for the writer thread to finish
+		archive.close();
+		LogArchive.Session session = writer.getSession();
+		assertNotNull(session);
+		try (LogArchiveReader reader = new LogArchiveReader(session.getDir())) {
+			assertEquals("line 99\n", reader.readLast(8).text);
+			assertEquals(session.getSize(), reader.getLength());
+		}
+	}
+
+	public void testTotalSizeLimit() throws Exception {
+		archive.close();
+		archive = new LogArchive(root, SEGMENT_SIZE, 100000, MAX_SESSIONS, 2500);
+		String output = String.format("%999s\n", "x");
+		for (int i = 0; i < 4; i++) {
+			LogArchive.Session session = archive.startSession("project" + i, "app");
+			session.append(output);
+			session.close();
+			// The session names have the time to the millisecond
+			Thread.sleep(10);
+		}
+		// The archive is checked when a session starts, and the oldest session (and with
+		// it the project) is deleted to make room
+		assertTrue(archive.getSessions("project0").isEmpty());
+		assertFalse(new File(root, "project0").exists());
+		for (int i = 1; i < 4; i++) {
+			assertEquals(1, archive.getSessions("project" + i).size());
+		}
+	}
+
+	private static void delete(File file) {
+		File[] files = file.listFiles();
+		if (files != null) {
+			for (File child : files) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+}
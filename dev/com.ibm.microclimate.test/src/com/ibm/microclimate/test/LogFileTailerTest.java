@@ -0,0 +1,210 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.ibm.microclimate.core.internal.console.ILogStreamConsole;
+import com.ibm.microclimate.core.internal.console.LogFileTailer;
+import com.ibm.microclimate.test.util.Condition;
+import com.ibm.microclimate.test.util.TestUtil;
+
+import junit.framework.TestCase;
+
+/**
+ * Check that the shared log file tailer sends the contents of the files to the consoles
+ * as they are written, without a thread per file.
+ */
+public class LogFileTailerTest extends TestCase {
+
+	private static final long TIMEOUT = 10000;
+
+	private File dir;
+	private LogFileTailer tailer;
+
+	@Override
+	public void setUp() throws Exception {
+		dir = Files.createTempDirectory("tailer").toFile();
+		tailer = new LogFileTailer("test");
+	}
+
+	@Override
+	public void tearDown() throws Exception {
+		tailer.close();
+		File[] files = dir.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		dir.delete();
+	}
+
+	public void testTail() throws Exception {
+		File file = new File(dir, "app.log");
+		append(file, "line 1\n");
+		final TestConsole console = new TestConsole();
+		LogFileTailer.TailedFile tailed = tailer.tail(file, console);
+		waitForContents(console, "line 1\n");
+
+		append(file, "line 2\nline 3\n");
+		waitForContents(console, "line 1\nline 2\nline 3\n");
+		assertEquals(0, console.resets);
+
+		tailer.untail(tailed);
+		assertTrue(tailed.isCancelled());
+		assertEquals(0, tailer.getWatchedCount() + tailer.getPolledCount());
+		append(file, "line 4\n");
+		Thread.sleep(LogFileTailer.POLL_INTERVAL_MS);
+		assertEquals("line 1\nline 2\nline 3\n", console.getContents());
+	}
+
+	public void testTruncatedFile() throws Exception {
+		File file = new File(dir, "app.log");
+		append(file, "old output\n");
+		TestConsole console = new TestConsole();
+		LogFileTailer.TailedFile tailed = tailer.tail(file, console);
+		waitForContents(console, "old output\n");
+
+		// The log is rolled over
+		try (OutputStream out = new FileOutputStream(file)) {
+			out.write("new\n".getBytes());
+		}
+		waitForContents(console, "new\n");
+		assertEquals(1, console.resets);
+		tailer.untail(tailed);
+	}
+
+	public void testRotatedFile() throws Exception {
+		File file = new File(dir, "app.log");
+		append(file, "first file\n");
+		TestConsole console = new TestConsole();
+		tailer.tail(file, console);
+		waitForContents(console, "first file\n");
+
+		// Roll the log over to a new file that is already longer than the old one
+		assertTrue(file.renameTo(new File(dir, "app.log.1")));
+		append(file, "second file, longer than the first\n");
+		waitForContents(console, "second file, longer than the first\n");
+		assertEquals(1, console.resets);
+	}
+
+	public void testSplitCharacter() throws Exception {
+		File file = new File(dir, "app.log");
+		byte[] bytes = "caf\u00E9 \u2713\n".getBytes(StandardCharsets.UTF_8);
+		// Stop part way through the last character
+		int split = bytes.length - 2;
+		writeBytes(file, Arrays.copyOfRange(bytes, 0, split));
+		TestConsole console = new TestConsole();
+		tailer.tail(file, console);
+		waitForContents(console, "caf\u00E9 ");
+		writeBytes(file, Arrays.copyOfRange(bytes, split, bytes.length));
+		waitForContents(console, "caf\u00E9 \u2713\n");
+	}
+
+	public void testLargeBurstIsChunked() throws Exception {
+		File file = new File(dir, "app.log");
+		append(file, "");
+		TestConsole console = new TestConsole();
+		tailer.tail(file, console);
+
+		StringBuilder burst = new StringBuilder();
+		int line = 0;
+		while (burst.length() < 1024 * 1024) {
+			burst.append("[INFO] [").append(line++).append("] com.example.Service - Processed request in 12ms\n");
+		}
+		append(file, burst.toString());
+		waitForContents(console, burst.toString());
+		// Written in large pieces that end on line boundaries rather than a line at a time
+		assertTrue("Too many updates: " + console.updates, console.updates < line / 100);
+		for (String update : console.updateList) {
+			assertTrue(update.endsWith("\n"));
+		}
+	}
+
+	public void testManyFiles() throws Exception {
+		TestConsole[] consoles = new TestConsole[50];
+		for (int i = 0; i < consoles.length; i++) {
+			File file = new File(dir, "file" + i + ".log");
+			append(file, "");
+			consoles[i] = new TestConsole();
+			tailer.tail(file, consoles[i]);
+		}
+		assertEquals(consoles.length, tailer.getWatchedCount() + tailer.getPolledCount());
+		for (int i = 0; i < consoles.length; i++) {
+			append(new File(dir, "file" + i + ".log"), "output " + i + "\n");
+		}
+		for (int i = 0; i < consoles.length; i++) {
+			waitForContents(consoles[i], "output " + i + "\n");
+		}
+		TestUtil.print("Tailing " + tailer.getWatchedCount() + " watched and " + tailer.getPolledCount() + " polled files");
+	}
+
+	private static void append(File file, String text) throws IOException {
+		try (OutputStream out = new FileOutputStream(file, true)) {
+			out.write(text.getBytes());
+		}
+	}
+
+	private static void writeBytes(File file, byte[] bytes) throws IOException {
+		try (OutputStream out = new FileOutputStream(file, true)) {
+			out.write(bytes);
+		}
+	}
+
+	private static void waitForContents(final TestConsole console, final String expected) {
+		TestUtil.wait(new Condition() {
+			@Override
+			public boolean test() {
+				return expected.equals(console.getContents());
+			}
+		}, TIMEOUT, 10);
+		assertEquals(expected, console.getContents());
+	}
+
+	private static class TestConsole implements ILogStreamConsole {
+		private final StringBuilder contents = new StringBuilder();
+		final List<String> updateList = new ArrayList<String>();
+		int resets = 0;
+		int updates = 0;
+
+		@Override
+		public synchronized void update(String text, boolean reset) {
+			if (reset) {
+				contents.setLength(0);
+				resets++;
+			}
+			contents.append(text);
+			if (!text.isEmpty()) {
+				updates++;
+				updateList.add(text);
+			}
+		}
+
+		@Override
+		public String getName() {
+			return "test";
+		}
+
+		public synchronized String getContents() {
+			return contents.toString();
+		}
+	}
+}
@@ -0,0 +1,251 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.test;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.ibm.microclimate.core.internal.console.LogIngestQueue;
+import com.ibm.microclimate.core.internal.console.LogIngestQueue.OverflowPolicy;
+
+import junit.framework.TestCase;
+
+/**
+ * Check the overflow policies of the console ingest queue.  No Microclimate instance is needed.
+ */
+public class LogIngestQueueTest extends TestCase {
+
+	private static final int LIMIT = 1000;
+	private static final long TIMEOUT = 30;
+
+	private ScheduledExecutorService executor;
+	private TestTarget target;
+
+	@Override
+	public void setUp() {
+		executor = Executors.newSingleThreadScheduledExecutor();
+		target = new TestTarget();
+	}
+
+	@Override
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	public void testMergeKeepsEverything() throws Exception {
+		LogIngestQueue queue = new LogIngestQueue("test", target, executor, OverflowPolicy.MERGE, LIMIT);
+		target.block();
+		StringBuilder expected = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			String line = "line " + i + " of the log output\n";
+			expected.append(line);
+			queue.add(line, false);
+		}
+		target.unblock();
+		waitForEmpty(queue);
+
+		assertEquals(expected.toString(), target.getOutput());
+		assertEquals(0, queue.getSkippedBytes());
+		// The chunks that arrived while the first write was blocked are merged into one write
+		assertTrue("Expected the chunks to be merged: " + target.writes.get(), target.writes.get() < 10);
+	}
+
+	public void testDropOldest() throws Exception {
+		LogIngestQueue queue = new LogIngestQueue("test", target, executor, OverflowPolicy.DROP_OLDEST, LIMIT);
+		target.block();
+		queue.add("first\n", false);
+		// Wait for the first write to start so that the rest is queued behind it
+		assertTrue(target.writing.await(TIMEOUT, TimeUnit.SECONDS));
+		StringBuilder all = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			String line = String.format("log output line %03d\n", i);
+			all.append(line);
+			queue.add(line, false);
+		}
+		assertTrue(queue.getBacklog() <= LIMIT);
+		target.unblock();
+		waitForEmpty(queue);
+
+		int skipped = all.length() - LIMIT;
+		assertEquals(skipped, queue.getSkippedBytes());
+		String output = target.getOutput();
+		assertTrue("Missing skipped marker: " + output, output.contains("[" + skipped + " bytes skipped]"));
+		assertTrue("Newest output missing: " + output, output.endsWith(all.substring(all.length() - LIMIT)));
+		assertFalse("Oldest output not dropped: " + output, output.contains("line 000\n"));
+	}
+
+	public void testDropOldestKeepsSurrogatePairs() throws Exception {
+		// An odd limit so that the cut falls in the middle of a pair
+		LogIngestQueue queue = new LogIngestQueue("test", target, executor, OverflowPolicy.DROP_OLDEST, LIMIT - 1);
+		target.block();
+		queue.add("first\n", false);
+		assertTrue(target.writing.await(TIMEOUT, TimeUnit.SECONDS));
+		StringBuilder emoji = new StringBuilder();
+		for (int i = 0; i < 600; i++) {
+			emoji.append("\uD83D\uDE00");
+		}
+		queue.add(emoji.toString(), false);
+		target.unblock();
+		waitForEmpty(queue);
+
+		// 201 characters over the limit, so 101 whole pairs of 4 bytes each are dropped
+		assertEquals(101 * 4, queue.getSkippedBytes());
+		String output = target.getOutput();
+		assertTrue("Newest output missing: " + output, output.endsWith(emoji.substring(202)));
+		for (int i = 0; i < output.length(); i++) {
+			char c = output.charAt(i);
+			if (Character.isHighSurrogate(c)) {
+				assertTrue(i + 1 < output.length() && Character.isLowSurrogate(output.charAt(++i)));
+			} else {
+				assertFalse("Unpaired surrogate at " + i, Character.isLowSurrogate(c));
+			}
+		}
+	}
+
+	public void testPauseAndResume() throws Exception {
+		LogIngestQueue queue = new LogIngestQueue("test", target, executor, OverflowPolicy.PAUSE, LIMIT);
+		target.block();
+		queue.add("first\n", false);
+		assertTrue(target.writing.await(TIMEOUT, TimeUnit.SECONDS));
+		for (int i = 0; i < 100; i++) {
+			queue.add(String.format("log output line %03d\n", i), false);
+		}
+		assertTrue(queue.isPaused());
+		assertTrue(queue.getSkippedBytes() > 0);
+		target.unblock();
+		waitForEmpty(queue);
+		assertEquals(1, target.pauses.get());
+
+		queue.resume();
+		assertFalse(queue.isPaused());
+		long end = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(TIMEOUT);
+		while (target.resumes.get() == 0 && System.currentTimeMillis() < end) {
+			Thread.sleep(10);
+		}
+		assertEquals(1, target.resumes.get());
+
+		queue.add("after resume\n", true);
+		waitForEmpty(queue);
+		assertEquals("after resume\n", target.getOutput());
+	}
+
+	public void testUnpausablePolicy() throws Exception {
+		// Sources that can't be paused drop the oldest output instead of pausing
+		assertEquals(OverflowPolicy.DROP_OLDEST, OverflowPolicy.getUnpausable(OverflowPolicy.PAUSE.prefValue));
+		assertEquals(OverflowPolicy.MERGE, OverflowPolicy.getUnpausable(OverflowPolicy.MERGE.prefValue));
+		assertEquals(OverflowPolicy.PAUSE, OverflowPolicy.get(OverflowPolicy.PAUSE.prefValue));
+	}
+
+	public void testReset() throws Exception {
+		LogIngestQueue queue = new LogIngestQueue("test", target, executor, OverflowPolicy.DROP_OLDEST, LIMIT);
+		queue.add("old output\n", false);
+		waitForEmpty(queue);
+		queue.add("new output\n", true);
+		waitForEmpty(queue);
+		assertEquals("new output\n", target.getOutput());
+	}
+
+	public void testSmallChunksAreBatched() throws Exception {
+		LogIngestQueue queue = new LogIngestQueue("test", target, executor);
+		StringBuilder expected = new StringBuilder();
+		// One line at a time as quickly as the socket events would deliver them
+		for (int i = 0; i < 50; i++) {
+			String line = "line " + i + "\n";
+			expected.append(line);
+			queue.add(line, false);
+			Thread.sleep(1);
+		}
+		waitForEmpty(queue);
+		assertEquals(expected.toString(), target.getOutput());
+		assertTrue("Expected the lines to be batched: " + target.writes.get(), target.writes.get() < 10);
+	}
+
+	public void testFullWriteIsNotHeldBack() throws Exception {
+		final LogIngestQueue queue = new LogIngestQueue("test", target, executor, OverflowPolicy.MERGE, 1024 * 1024);
+		queue.add("small\n", false);
+		// Enough for a full write, which moves the held back write forward
+		char[] big = new char[64 * 1024];
+		Arrays.fill(big, 'x');
+		queue.add(new String(big), false);
+		assertTrue(target.writing.await(TIMEOUT, TimeUnit.SECONDS));
+		waitForEmpty(queue);
+		assertEquals("small\n" + new String(big), target.getOutput());
+	}
+
+	private void waitForEmpty(LogIngestQueue queue) throws Exception {
+		long end = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(TIMEOUT);
+		while (queue.getBacklog() > 0 && System.currentTimeMillis() < end) {
+			Thread.sleep(10);
+		}
+		// Let the last write finish
+		final CountDownLatch latch = new CountDownLatch(1);
+		executor.schedule(new Runnable() {
+			@Override
+			public void run() {
+				latch.countDown();
+			}
+		}, 100, TimeUnit.MILLISECONDS);
+		assertTrue(latch.await(TIMEOUT, TimeUnit.SECONDS));
+		assertEquals(0, queue.getBacklog());
+	}
+
+	private static class TestTarget implements LogIngestQueue.ILogTarget {
+
+		private final StringBuffer output = new StringBuffer();
+		private final AtomicInteger writes = new AtomicInteger();
+		private final AtomicInteger pauses = new AtomicInteger();
+		private final AtomicInteger resumes = new AtomicInteger();
+		private final CountDownLatch writing = new CountDownLatch(1);
+		private volatile CountDownLatch blocker = new CountDownLatch(0);
+
+		public void block() {
+			blocker = new CountDownLatch(1);
+		}
+
+		public void unblock() {
+			blocker.countDown();
+		}
+
+		public String getOutput() {
+			return output.toString();
+		}
+
+		@Override
+		public void write(String contents, boolean reset) {
+			writing.countDown();
+			try {
+				blocker.await(TIMEOUT, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			if (reset) {
+				output.setLength(0);
+			}
+			output.append(contents);
+			writes.incrementAndGet();
+		}
+
+		@Override
+		public void pause() {
+			pauses.incrementAndGet();
+		}
+
+		@Override
+		public void resume() {
+			resumes.incrementAndGet();
+		}
+	}
+}
@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.test;
+
+import java.util.List;
+
+import com.ibm.microclimate.core.internal.console.LogLevel;
+import com.ibm.microclimate.core.internal.console.LogPipeline;
+
+import junit.framework.TestCase;
+
+/**
+ * Check the processing of log output before it is written to a console: ANSI escape
+ * sequences, log levels, level filtering and repeated lines.
+ */
+public class LogPipelineTest extends TestCase {
+
+	private static final String REPEAT_FORMAT = "(repeated {0} times)";
+
+	private final LogPipeline pipeline = LogPipeline.create(true, true, REPEAT_FORMAT);
+
+	private void setLevel(LogLevel level) {
+		pipeline.getStage(LogPipeline.LevelFilterStage.class).setMinLevel(level);
+	}
+
+	public void testAnsi() {
+		assertEquals("[INFO] BUILD SUCCESS\n", pipeline.process("\u001B[1;34m[INFO]\u001B[0m BUILD SUCCESS\n"));
+		assertEquals("title\n", pipeline.process("\u001B]0;window title\u0007title\n"));
+
+		// A sequence split across chunks
+		assertEquals("red ", pipeline.process("red \u001B[3"));
+		assertEquals("text\n", pipeline.process("1mtext\u001B[0m\n"));
+	}
+
+	public void testLevels() {
+		assertEquals(LogLevel.INFO, LogPipeline.LevelStage.findLevel("[AUDIT   ] CWWKF0011I: The server defaultServer is ready"));
+		assertEquals(LogLevel.WARNING, LogPipeline.LevelStage.findLevel("[WARNING ] CWWKS9582W: Missing configuration"));
+		assertEquals(LogLevel.ERROR, LogPipeline.LevelStage.findLevel("[3/1/19 12:00:00:000 UTC] 00000022 com.ibm.ws E CWWKE0701E: FrameworkEvent ERROR"));
+		assertEquals(LogLevel.INFO, LogPipeline.LevelStage.findLevel("[3/1/19 12:00:00:000 UTC] 00000022 com.ibm.ws A CWWKZ0001I: Application started"));
+		assertEquals(LogLevel.DEBUG, LogPipeline.LevelStage.findLevel("2019-03-01 12:00:00.123 DEBUG 1 --- [main] o.s.web.Servlet : Mapped"));
+		assertEquals(LogLevel.WARNING, LogPipeline.LevelStage.findLevel("warn: connection is slow"));
+		assertEquals(LogLevel.TRACE, LogPipeline.LevelStage.findLevel("FINEST: entering method"));
+		assertNull(LogPipeline.LevelStage.findLevel("Listening on port 3000"));
+		assertNull(LogPipeline.LevelStage.findLevel("Informational message"));
+		assertEquals(LogLevel.INFO, LogPipeline.LevelStage.findLevel("2019-03-01 12:00:00.123  INFO 1 --- [main] o.s.b.Application : Started"));
+		assertEquals(LogLevel.ERROR, LogPipeline.LevelStage.findLevel("[main] [ERROR] Build failed"));
+		assertEquals(LogLevel.ERROR, LogPipeline.LevelStage.findLevel("ERROR Could not connect"));
+		// Level words in the message are not the level
+		assertNull(LogPipeline.LevelStage.findLevel("everything is fine"));
+		assertNull(LogPipeline.LevelStage.findLevel("see the debug output"));
+		assertNull(LogPipeline.LevelStage.findLevel("Fine tuning the connection pool"));
+		assertNull(LogPipeline.LevelStage.findLevel("Retrying after an error in the request"));
+		assertNull(LogPipeline.LevelStage.findLevel("2019-03-01 12:00:00.123 Request finished with error 500"));
+	}
+
+	public void testLevelFilter() {
+		setLevel(LogLevel.INFO);
+		String input = "2019-03-01 12:00:00.123 DEBUG 1 --- [main] Loading\n"
+				+ "2019-03-01 12:00:00.124  INFO 1 --- [main] Started\n"
+				+ "2019-03-01 12:00:00.125 DEBUG 1 --- [main] Failed\n"
+				+ "java.io.IOException: failed\n"
+				+ "\tat Foo.bar(Foo.java:10)\n"
+				+ "Listening on port 8080\n";
+		// The stack trace goes with the line before it
+		assertEquals("2019-03-01 12:00:00.124  INFO 1 --- [main] Started\n"
+				+ "Listening on port 8080\n", pipeline.process(input));
+
+		// The rest of a filtered line is filtered too
+		assertEquals("", pipeline.process("[DEBUG] partial"));
+		assertEquals("", pipeline.process(" line\n"));
+		assertEquals("[ERROR] failed\n", pipeline.process("[ERROR] failed\n"));
+
+		setLevel(null);
+		assertEquals("[DEBUG] shown\n", pipeline.process("[DEBUG] shown\n"));
+	}
+
+	public void testRepeats() {
+		assertEquals("[INFO] 2019-03-01T12:00:00Z poll\n(repeated 2 times)\n[INFO] done\n",
+				pipeline.process("[INFO] 2019-03-01T12:00:00Z poll\n[INFO] 2019-03-01T12:00:00Z poll\n"
+						+ "[INFO] 2019-03-01T12:00:00Z poll\n[INFO] done\n"));
+
+		// Lines that only differ by the timestamp at the start are repeats
+		assertEquals("2019-03-01 12:00:01 ping\n(repeated 1 times)\n",
+				pipeline.process("2019-03-01 12:00:01 ping\n2019-03-01 12:00:02 ping\n"));
+		// The count is written at the end of each chunk
+		assertEquals("(repeated 2 times)\n", pipeline.process("2019-03-01 12:00:03 ping\n2019-03-01 12:00:04 ping\n"));
+		assertEquals("pong\n", pipeline.process("pong\n"));
+
+		// Blank lines are not collapsed
+		assertEquals("\n\n\n", pipeline.process("\n\n\n"));
+
+		pipeline.reset();
+		assertEquals("pong\r\n", pipeline.process("pong\r\n"));
+	}
+
+	public void testPartialLines() {
+		assertEquals("Enter a value: ", pipeline.process("Enter a value: "));
+		assertEquals("42\n", pipeline.process("42\n"));
+		assertEquals("42\n", pipeline.process("42\n"));
+	}
+
+	public void testCustomStage() {
+		LogPipeline custom = LogPipeline.create(false, false, REPEAT_FORMAT);
+		custom.addStage(new LogPipeline.IStage() {
+			@Override
+			public void process(LogPipeline.Line line, List<LogPipeline.Line> out) {
+				line.text = line.text.toUpperCase();
+				out.add(line);
+			}
+
+			@Override
+			public void flush(List<LogPipeline.Line> out) {
+				// Nothing to do
+			}
+
+			@Override
+			public void reset() {
+				// Nothing to do
+			}
+		});
+		assertEquals("HELLO\n", custom.process("hello\n"));
+	}
+}
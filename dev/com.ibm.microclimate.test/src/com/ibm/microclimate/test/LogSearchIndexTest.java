@@ -0,0 +1,191 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.test;
+
+import java.util.List;
+
+import com.ibm.microclimate.core.internal.console.LogSearchIndex;
+import com.ibm.microclimate.core.internal.console.LogSearchIndex.Query;
+import com.ibm.microclimate.core.internal.console.LogSearchIndex.Result;
+import com.ibm.microclimate.core.internal.console.LogSearchIndex.Source;
+
+import junit.framework.TestCase;
+
+/**
+ * Check that log output can be found with the search index, that results point
+ * to the right place in the log, and that indexing keeps up with busy logs.
+ */
+public class LogSearchIndexTest extends TestCase {
+
+	private LogSearchIndex index;
+
+	@Override
+	public void setUp() {
+		index = new LogSearchIndex("test", 100, 3);
+	}
+
+	@Override
+	public void tearDown() {
+		index.close();
+	}
+
+	private List<Result> search(String text, boolean regex) throws Exception {
+		assertTrue(index.waitForIndexing(10000));
+		return index.search(new Query(text, regex, 0, Long.MAX_VALUE, null));
+	}
+
+	public void testWordSearch() throws Exception {
+		Source app = index.addSource("project1", "app", null);
+		app.add("Starting server\n[ERROR] Connection refused\n");
+		app.add("Server started\n");
+
+		List<Result> results = search("connection REFUSED", false);
+		assertEquals(1, results.size());
+		Result result = results.get(0);
+		assertEquals("[ERROR] Connection refused", result.text);
+		assertEquals("Starting server\n".length(), result.offset);
+		assertEquals("[ERROR] ".length(), result.matchStart);
+		assertEquals("connection refused".length(), result.matchLength);
+		assertSame(app, result.source);
+
+		// Newest first
+		results = search("server", false);
+		assertEquals(2, results.size());
+		assertEquals("Server started", results.get(0).text);
+		assertEquals("Starting server", results.get(1).text);
+
+		// Words must match whole words
+		assertTrue(search("connect", false).isEmpty());
+		assertTrue(search("refused connection", false).isEmpty());
+	}
+
+	public void testShortText() throws Exception {
+		Source app = index.addSource("project1", "app", null);
+		app.add("status: 5 errors\nx = {}\n");
+
+		// No words long enough to be indexed, so every line is checked
+		List<Result> results = search("5", false);
+		assertEquals(1, results.size());
+		assertEquals("status: ".length(), results.get(0).matchStart);
+		results = search("{}", false);
+		assertEquals(1, results.size());
+		assertEquals("x = {}", results.get(0).text);
+		assertTrue(search("#", false).isEmpty());
+		assertTrue(search("", false).isEmpty());
+	}
+
+	public void testClosedSource() throws Exception {
+		Source app = index.addSource("project1", "app", null);
+		app.add("before close\n");
+		app.close();
+		assertNull(app.getWriter());
+
+		// What was indexed can still be found
+		List<Result> results = search("close", false);
+		assertEquals(1, results.size());
+		assertSame(app, results.get(0).source);
+	}
+
+	public void testLinesSplitAcrossChunks() throws Exception {
+		Source app = index.addSource("project1", "app", null);
+		app.add("first li");
+		app.add("ne\r\nsecond ");
+		assertTrue(search("second", false).isEmpty());
+		app.add("line\n");
+
+		List<Result> results = search("line", false);
+		assertEquals(2, results.size());
+		assertEquals("second line", results.get(0).text);
+		assertEquals("first line\r\n".length(), results.get(0).offset);
+		assertEquals("first line", results.get(1).text);
+		assertEquals(0, results.get(1).offset);
+	}
+
+	public void testRegex() throws Exception {
+		Source app = index.addSource("project1", "app", null);
+		Source build = index.addSource("project2", "build", null);
+		app.add("java.lang.NullPointerException\n\tat Foo.bar(Foo.java:10)\n");
+		build.add("BUILD FAILED in 12s\n");
+
+		List<Result> results = search("nullpointer|build failed", true);
+		assertEquals(2, results.size());
+		assertSame(build, results.get(0).source);
+		assertSame(app, results.get(1).source);
+		assertEquals("java.lang.".length(), results.get(1).matchStart);
+
+		results = index.search(new Query("Foo\\.java:\\d+", true, 0, Long.MAX_VALUE, "project1"));
+		assertEquals(1, results.size());
+		assertTrue(index.search(new Query("Foo", true, 0, Long.MAX_VALUE, "project2")).isEmpty());
+	}
+
+	public void testTimeRange() throws Exception {
+		long before = System.currentTimeMillis();
+		Source app = index.addSource("project1", "app", null);
+		app.add("request handled\n");
+		assertTrue(index.waitForIndexing(10000));
+		long after = System.currentTimeMillis();
+
+		assertEquals(1, index.search(new Query("request", false, before, after, null)).size());
+		assertTrue(index.search(new Query("request", false, after + 1, Long.MAX_VALUE, null)).isEmpty());
+		assertTrue(index.search(new Query("request", false, 0, before - 1, null)).isEmpty());
+		assertTrue(index.search(new Query("request", true, after + 1, Long.MAX_VALUE, null)).isEmpty());
+	}
+
+	public void testReset() throws Exception {
+		Source app = index.addSource("project1", "app", null);
+		app.add("before reset\n");
+		app.reset();
+		app.add("after reset\n");
+
+		List<Result> results = search("reset", false);
+		assertEquals(2, results.size());
+		assertEquals(0, results.get(0).offset);
+		assertEquals(0, results.get(1).offset);
+		assertTrue(results.get(0).generation > results.get(1).generation);
+	}
+
+	public void testOldSegmentsDropped() throws Exception {
+		Source app = index.addSource("project1", "app", null);
+		for (int i = 0; i < 1000; i++) {
+			app.add("line number" + i + "\n");
+		}
+		// Only the last 3 segments of 100 lines are kept
+		assertTrue(search("number999", false).size() == 1);
+		assertTrue(search("number699", false).isEmpty());
+		assertEquals(300, search("line", false).size());
+		assertEquals(1000, index.getLineCount());
+	}
+
+	public void testThroughput() throws Exception {
+		index.close();
+		index = new LogSearchIndex("test", LogSearchIndex.DEFAULT_SEGMENT_LINES, LogSearchIndex.DEFAULT_MAX_SEGMENTS);
+		Source app = index.addSource("project1", "app", null);
+		StringBuilder chunk = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			chunk.append("[INFO] 2019-03-01 12:00:00 com.example.Service handled request ").append(i)
+					.append(" for user").append(i % 7).append(" in 15ms status=200\n");
+		}
+		String text = chunk.toString();
+		long start = System.currentTimeMillis();
+		// A minute of log output at 10 MB per minute
+		long total = 0;
+		while (total < 10 * 1024 * 1024) {
+			app.add(text);
+			total += text.length();
+		}
+		assertTrue(index.waitForIndexing(60000));
+		long elapsed = System.currentTimeMillis() - start;
+		assertEquals(0, index.getDroppedChunks());
+		assertTrue("Indexing 10 MB took " + elapsed + " ms", elapsed < 30000);
+		assertEquals(LogSearchIndex.MAX_RESULTS, search("user3", false).size());
+	}
+}
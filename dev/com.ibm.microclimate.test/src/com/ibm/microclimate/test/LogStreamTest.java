@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.test;
+
+import java.net.URI;
+import java.util.Arrays;
+
+import org.eclipse.ui.console.ConsolePlugin;
+import org.eclipse.ui.console.IConsole;
+
+import com.ibm.microclimate.core.internal.MicroclimateApplication;
+import com.ibm.microclimate.core.internal.connection.MicroclimateSocket;
+import com.ibm.microclimate.core.internal.console.BuildLogConsole;
+import com.ibm.microclimate.core.internal.console.MicroclimateConsoleFactory;
+import com.ibm.microclimate.core.internal.console.ProjectLogInfo;
+import com.ibm.microclimate.core.internal.console.SocketConsole;
+import com.ibm.microclimate.core.internal.constants.MCConstants;
+import com.ibm.microclimate.test.bench.SyntheticWorkspace;
+import com.ibm.microclimate.test.util.OfflineConnection;
+
+import junit.framework.TestCase;
+
+/**
+ * Check that consoles showing the same log share its log stream, so that closing or
+ * pausing one console does not stop the output of another.
+ */
+public class LogStreamTest extends TestCase {
+
+	private final SyntheticWorkspace workspace = new SyntheticWorkspace("logstream", 1);
+
+	public void testSharedStream() throws Exception {
+		OfflineConnection connection = createConnection();
+		try {
+			MicroclimateApplication app = connection.getApps().get(0);
+			ProjectLogInfo logInfo = new ProjectLogInfo(MCConstants.KEY_LOG_APP, "messages.log", null);
+			SocketConsole first = new SocketConsole("first", logInfo, app);
+			SocketConsole second = new SocketConsole("second", logInfo, app);
+			addConsoles(first, second);
+			assertEquals(1, connection.getEnableRequests());
+
+			// Pausing one console leaves the stream on for the other
+			MicroclimateSocket socket = connection.getMCSocket();
+			socket.pauseLogStream(app, logInfo, first);
+			assertEquals(0, connection.getDisableRequests());
+			socket.resumeLogStream(app, logInfo, first);
+			assertEquals(1, connection.getEnableRequests());
+
+			removeConsoles(first);
+			assertEquals(0, connection.getDisableRequests());
+			removeConsoles(second);
+			assertEquals(1, connection.getDisableRequests());
+		} finally {
+			connection.close();
+		}
+	}
+
+	public void testPauseLastConsole() throws Exception {
+		OfflineConnection connection = createConnection();
+		try {
+			MicroclimateApplication app = connection.getApps().get(0);
+			ProjectLogInfo logInfo = new ProjectLogInfo(MCConstants.KEY_LOG_APP, "messages.log", null);
+			SocketConsole console = new SocketConsole("console", logInfo, app);
+			addConsoles(console);
+
+			// With no other console using it the stream is paused and resumed
+			MicroclimateSocket socket = connection.getMCSocket();
+			socket.pauseLogStream(app, logInfo, console);
+			assertEquals(1, connection.getDisableRequests());
+			socket.resumeLogStream(app, logInfo, console);
+			assertEquals(2, connection.getEnableRequests());
+
+			removeConsoles(console);
+			assertEquals(2, connection.getDisableRequests());
+		} finally {
+			connection.close();
+		}
+	}
+
+	public void testSharedBuildLogStream() throws Exception {
+		OfflineConnection connection = createConnection();
+		try {
+			MicroclimateApplication app = connection.getApps().get(0);
+			ProjectLogInfo logInfo = new ProjectLogInfo(MCConstants.KEY_LOG_BUILD, "maven.build", null);
+			app.setLogInfos(Arrays.asList(logInfo));
+
+			// The build console and a console for the build log from Show All Logs
+			BuildLogConsole buildConsole = (BuildLogConsole) MicroclimateConsoleFactory.createBuildConsole(app);
+			assertTrue(buildConsole.isStreaming());
+			SocketConsole logConsole = new SocketConsole("build log", logInfo, app);
+			addConsoles(logConsole);
+			assertEquals(1, connection.getEnableRequests());
+
+			removeConsoles(logConsole);
+			assertEquals(0, connection.getDisableRequests());
+			removeConsoles(buildConsole);
+			assertEquals(1, connection.getDisableRequests());
+		} finally {
+			connection.close();
+		}
+	}
+
+	private OfflineConnection createConnection() throws Exception {
+		OfflineConnection connection = new OfflineConnection(new URI("http://logstream:9090/"), "1905");
+		connection.setProjectsJson(workspace.projectsJson());
+		connection.refreshApps(null);
+		assertEquals(1, connection.getApps().size());
+		return connection;
+	}
+
+	private static void addConsoles(IConsole... consoles) {
+		ConsolePlugin.getDefault().getConsoleManager().addConsoles(consoles);
+	}
+
+	private static void removeConsoles(IConsole... consoles) {
+		ConsolePlugin.getDefault().getConsoleManager().removeConsoles(consoles);
+	}
+}
@@ -0,0 +1,49 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import com.ibm.microclimate.core.internal.MCLogger;
+
+import junit.framework.TestCase;
+
+/**
+ * Check that info messages are not built when info logging is off.
+ */
+public class MCLoggerTest extends TestCase {
+
+	public void testSupplierNotCalled() {
+		if (MCLogger.isInfoEnabled()) {
+			// Info logging was turned on for this run
+			return;
+		}
+		final AtomicInteger calls = new AtomicInteger();
+		Supplier<String> msg = new Supplier<String>() {
+			@Override
+			public String get() {
+				calls.incrementAndGet();
+				return "message";
+			}
+		};
+		MCLogger.log(msg);
+		MCLogger.ClassLogger logger = MCLogger.forClass(MCLoggerTest.class);
+		assertFalse(logger.isInfoEnabled());
+		logger.log(msg);
+		assertEquals(0, calls.get());
+	}
+
+	public void testClassLogger() {
+		assertEquals("MCLoggerTest", MCLogger.forClass(MCLoggerTest.class).getName());
+	}
+}
@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.test;
+
+import java.util.concurrent.TimeUnit;
+
+import com.ibm.microclimate.core.internal.MCMetrics;
+import com.ibm.microclimate.core.internal.MCMetrics.Metric;
+import com.ibm.microclimate.core.internal.MCMetrics.Timer;
+import com.ibm.microclimate.test.util.TestUtil;
+
+import junit.framework.TestCase;
+
+/**
+ * Check the counters and timers used for the HTTP and socket event metrics.
+ */
+public class MCMetricsTest extends TestCase {
+
+	private static final String NAME = MCMetrics.SOCKET_PREFIX + "metricsTest";
+
+	@Override
+	public void setUp() {
+		MCMetrics.reset();
+	}
+
+	public void testCounts() {
+		Metric metric = MCMetrics.get(NAME);
+		assertSame(metric, MCMetrics.get(NAME));
+		metric.increment(100);
+		metric.increment(0);
+		metric.increment(50);
+		metric.error();
+		assertEquals(3, metric.getCount());
+		assertEquals(150, metric.getBytes());
+		assertEquals(1, metric.getErrors());
+	}
+
+	public void testTimer() {
+		Timer timer = MCMetrics.get(NAME).getTimer(MCMetrics.HANDLER);
+		assertSame(timer, MCMetrics.get(NAME).findTimer(MCMetrics.HANDLER));
+		assertNull(MCMetrics.get(NAME).findTimer(MCMetrics.PARSE));
+		timer.record(TimeUnit.MILLISECONDS.toNanos(2));
+		timer.record(TimeUnit.MILLISECONDS.toNanos(10));
+		timer.record(TimeUnit.MILLISECONDS.toNanos(3));
+		assertEquals(3, timer.getCount());
+		assertEquals(5.0, timer.getMeanMs(), 0.001);
+		assertEquals(10.0, timer.getMaxMs(), 0.001);
+	}
+
+	public void testEventTiming() throws Exception {
+		assertNull(MCMetrics.getCurrentEvent());
+		MCMetrics.EventTiming timing = MCMetrics.beginEvent(MCMetrics.get(NAME), System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(20));
+		try {
+			assertSame(timing, MCMetrics.getCurrentEvent());
+			// The timing is only visible on the thread handling the event
+			final Object[] other = new Object[] { timing };
+			Thread thread = new Thread() {
+				@Override
+				public void run() {
+					other[0] = MCMetrics.getCurrentEvent();
+				}
+			};
+			thread.start();
+			thread.join();
+			assertNull(other[0]);
+			timing.recordLag(MCMetrics.MODEL_LAG);
+		} finally {
+			MCMetrics.endEvent();
+		}
+		assertNull(MCMetrics.getCurrentEvent());
+		assertTrue(MCMetrics.get(NAME).getTimer(MCMetrics.MODEL_LAG).getMaxMs() >= 20);
+	}
+
+	public void testReport() {
+		MCMetrics.get(MCMetrics.HTTP_PREFIX + "GET").increment(10);
+		MCMetrics.get(NAME).increment(10);
+		MCMetrics.get(NAME).getTimer(MCMetrics.PARSE).record(1000);
+		String report = MCMetrics.getReport();
+		TestUtil.print(report);
+		assertTrue(report.indexOf(MCMetrics.HTTP_PREFIX + "GET: count=1") < report.indexOf(NAME + ": count=1"));
+		assertTrue(report.contains(MCMetrics.PARSE + " mean="));
+		MCMetrics.reset();
+		assertEquals("", MCMetrics.getReport());
+	}
+}
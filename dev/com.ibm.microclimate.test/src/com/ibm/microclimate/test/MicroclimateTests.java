@@ -19,7 +19,30 @@ import org.junit.runners.Suite;
 	LibertyDebugTest.class,
 	SpringDebugTest.class,
 	SpringAutoBuildTest.class,
-	NodeValidationTest.class
+	NodeValidationTest.class,
+	ApplicationFactoryContentionTest.class,
+	EventDispatcherTest.class,
+	EventCoalescerTest.class,
+	EventDecodeTest.class,
+	ConsoleRoutingTableTest.class,
+	LogIngestQueueTest.class,
+	EventSequenceTrackerTest.class,
+	EventReplayTest.class,
+	MCMetricsTest.class,
+	BuildLogPollerTest.class,
+	IncrementalLogTest.class,
+	BuildLogConsoleTest.class,
+	LogFileTailerTest.class,
+	ConsoleHistoryTest.class,
+	LogArchiveTest.class,
+	LogSearchIndexTest.class,
+	CumulativeLogTest.class,
+	LogPipelineTest.class,
+	CompressedConsoleHistoryTest.class,
+	MCLoggerTest.class,
+	AsyncLogWriterTest.class,
+	ErrorAggregatorTest.class,
+	LogStreamTest.class
 })
 
 public class MicroclimateTests {
@@ -0,0 +1,64 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.test.bench;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * The result of one benchmark run.  Latencies are in microseconds.
+ */
+public class BenchmarkResult {
+
+	public static final String CSV_HEADER = "benchmark,params,ops,ops_per_sec,bytes_per_op,p50_us,p90_us,p99_us,p999_us,max_us";
+
+	public final String name;
+	public final String params;
+	public final long ops;
+	public final double opsPerSec;
+	public final double bytesPerOp;
+	public final double p50, p90, p99, p999, max;
+
+	BenchmarkResult(String name, String params, long ops, long elapsedNanos, long allocatedBytes, long[] samples) {
+		this.name = name;
+		this.params = params;
+		this.ops = ops;
+		this.opsPerSec = elapsedNanos > 0 ? ops * 1e9 / elapsedNanos : 0;
+		this.bytesPerOp = allocatedBytes < 0 || ops == 0 ? -1 : (double) allocatedBytes / ops;
+
+		Arrays.sort(samples);
+		this.p50 = percentile(samples, 0.50);
+		this.p90 = percentile(samples, 0.90);
+		this.p99 = percentile(samples, 0.99);
+		this.p999 = percentile(samples, 0.999);
+		this.max = samples.length == 0 ? 0 : samples[samples.length - 1] / 1000.0;
+	}
+
+	private static double percentile(long[] sorted, double fraction) {
+		if (sorted.length == 0) {
+			return 0;
+		}
+		int index = (int) Math.ceil(fraction * sorted.length) - 1;
+		return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1000.0;
+	}
+
+	public String toCSV() {
+		return String.format(Locale.ROOT, "%s,%s,%d,%.1f,%.1f,%.2f,%.2f,%.2f,%.2f,%.2f",
+				name, params, ops, opsPerSec, bytesPerOp, p50, p90, p99, p999, max);
+	}
+
+	@Override
+	public String toString() {
+		return String.format(Locale.ROOT, "%-40s %-20s %12.1f ops/s %12.1f B/op  p50=%.2fus p99=%.2fus p99.9=%.2fus max=%.2fus",
+				name, params, opsPerSec, bytesPerOp, p50, p99, p999, max);
+	}
+}
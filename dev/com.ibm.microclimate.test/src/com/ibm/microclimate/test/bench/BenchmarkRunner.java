@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.test.bench;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import com.ibm.microclimate.test.util.TestUtil;
+
+/**
+ * Runs benchmark operations inside the Eclipse test runtime.  The core model needs the
+ * plug-ins to be started so the operations cannot be run in a separate JVM.
+ *
+ * Each benchmark runs for a warmup period and then a measurement period on the calling
+ * thread.  The result has the throughput, the bytes allocated per operation (measured on the
+ * calling thread) and the latency percentiles.
+ *
+ * System properties:
+ *   com.ibm.microclimate.bench.warmup - warmup time in milliseconds (default 2000)
+ *   com.ibm.microclimate.bench.time - measurement time in milliseconds (default 5000)
+ *   com.ibm.microclimate.bench.dir - directory to write the results to (default java.io.tmpdir/microclimate-bench)
+ */
+public class BenchmarkRunner {
+
+	public static final String WARMUP_PROPERTY = "com.ibm.microclimate.bench.warmup";
+	public static final String TIME_PROPERTY = "com.ibm.microclimate.bench.time";
+	public static final String DIR_PROPERTY = "com.ibm.microclimate.bench.dir";
+
+	// Cap on the number of latency samples so very fast operations don't use too much memory
+	private static final int MAX_SAMPLES = 1000000;
+
+	public interface Operation {
+		void run(int iteration) throws Exception;
+	}
+
+	private final long warmupNanos;
+	private final long measureNanos;
+	private final List<BenchmarkResult> results = new ArrayList<BenchmarkResult>();
+
+	public BenchmarkRunner() {
+		warmupNanos = Long.getLong(WARMUP_PROPERTY, 2000).longValue() * 1000000L;
+		measureNanos = Long.getLong(TIME_PROPERTY, 5000).longValue() * 1000000L;
+	}
+
+	public BenchmarkResult run(String name, String params, Operation op) throws Exception {
+		int iteration = 0;
+		long end = System.nanoTime() + warmupNanos;
+		while (System.nanoTime() < end) {
+			op.run(iteration++);
+		}
+
+		long[] samples = new long[MAX_SAMPLES];
+		int sampleCount = 0;
+		long ops = 0;
+		long startAllocated = allocatedBytes();
+		long start = System.nanoTime();
+		long now = start;
+		end = start + measureNanos;
+		while (now < end) {
+			op.run(iteration++);
+			long after = System.nanoTime();
+			if (sampleCount < samples.length) {
+				samples[sampleCount++] = after - now;
+			}
+			ops++;
+			now = after;
+		}
+		long allocated = allocatedBytes() - startAllocated;
+
+		BenchmarkResult result = new BenchmarkResult(name, params, ops, now - start,
+				startAllocated < 0 ? -1 : allocated, Arrays.copyOf(samples, sampleCount));
+		results.add(result);
+		TestUtil.print(result.toString());
+		return result;
+	}
+
+	public List<BenchmarkResult> getResults() {
+		return results;
+	}
+
+	/**
+	 * Write the results to a new CSV file in the results directory.  Use the
+	 * compare-benchmarks.sh script to compare two result files.
+	 */
+	public File writeResults() throws IOException {
+		File dir = new File(System.getProperty(DIR_PROPERTY,
+				new File(System.getProperty("java.io.tmpdir"), "microclimate-bench").getPath()));
+		dir.mkdirs();
+		String timestamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+		File file = new File(dir, "results-" + timestamp + ".csv");
+		try (PrintWriter writer = new PrintWriter(new FileWriter(file))) {
+			writer.println(BenchmarkResult.CSV_HEADER);
+			for (BenchmarkResult result : results) {
+				writer.println(result.toCSV());
+			}
+		}
+		TestUtil.print("Benchmark results written to: " + file.getAbsolutePath());
+		return file;
+	}
+
+	/**
+	 * Bytes allocated by the current thread so far or -1 if the JVM does not support it.
+	 */
+	private static long allocatedBytes() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+			if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+				return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+			}
+		}
+		return -1;
+	}
+}
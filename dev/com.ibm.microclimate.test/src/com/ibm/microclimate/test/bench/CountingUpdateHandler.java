@@ -0,0 +1,56 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.test.bench;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.ibm.microclimate.core.internal.IUpdateHandler;
+import com.ibm.microclimate.core.internal.MicroclimateApplication;
+import com.ibm.microclimate.core.internal.connection.MicroclimateConnection;
+
+/**
+ * Counts the model updates instead of refreshing the views so that the
+ * benchmarks measure the model and not the UI.
+ */
+public class CountingUpdateHandler implements IUpdateHandler {
+
+	private final AtomicLong connectionUpdates = new AtomicLong();
+	private final AtomicLong applicationUpdates = new AtomicLong();
+
+	@Override
+	public void updateAll() {
+		connectionUpdates.incrementAndGet();
+	}
+
+	@Override
+	public void updateConnection(MicroclimateConnection connection) {
+		connectionUpdates.incrementAndGet();
+	}
+
+	@Override
+	public void updateApplication(MicroclimateApplication application) {
+		applicationUpdates.incrementAndGet();
+	}
+
+	public long getConnectionUpdates() {
+		return connectionUpdates.get();
+	}
+
+	public long getApplicationUpdates() {
+		return applicationUpdates.get();
+	}
+
+	public void reset() {
+		connectionUpdates.set(0);
+		applicationUpdates.set(0);
+	}
+}
@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.test.bench;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.net.URI;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Locale;
+
+import org.eclipse.core.runtime.FileLocator;
+
+import com.ibm.microclimate.core.MicroclimateCorePlugin;
+import com.ibm.microclimate.core.internal.IUpdateHandler;
+import com.ibm.microclimate.core.internal.connection.EventReplayer;
+import com.ibm.microclimate.core.internal.connection.EventReplayer.ReplayResult;
+import com.ibm.microclimate.core.internal.connection.EventTrace;
+import com.ibm.microclimate.test.MicroclimateTestPlugin;
+import com.ibm.microclimate.test.util.OfflineConnection;
+import com.ibm.microclimate.test.util.TestUtil;
+
+import junit.framework.TestCase;
+
+/**
+ * Replays event traces into an offline connection and reports how long it took for all
+ * of the events to be handled and how many model and UI updates resulted.
+ * This is not part of the MicroclimateTests suite, run it on its own as a JUnit plug-in test.
+ *
+ * System properties:
+ *   com.ibm.microclimate.bench.traces - directory of .trace files (default is the traces
+ *       directory of this plug-in, see TraceGenerator)
+ *   com.ibm.microclimate.bench.replaySpeed - recorded, accelerated or maximum (default maximum)
+ *   com.ibm.microclimate.bench.replayFactor - speed up for accelerated replays (default 10)
+ */
+public class EventReplayBenchmarks extends TestCase {
+
+	public static final String TRACES_PROPERTY = "com.ibm.microclimate.bench.traces";
+	public static final String SPEED_PROPERTY = "com.ibm.microclimate.bench.replaySpeed";
+	public static final String FACTOR_PROPERTY = "com.ibm.microclimate.bench.replayFactor";
+
+	private static final long TIMEOUT = 300000;
+
+	private final CountingUpdateHandler updateHandler = new CountingUpdateHandler();
+	private IUpdateHandler originalHandler;
+
+	@Override
+	protected void setUp() throws Exception {
+		originalHandler = MicroclimateCorePlugin.getUpdateHandler();
+		MicroclimateCorePlugin.setUpdateHandler(updateHandler);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		MicroclimateCorePlugin.setUpdateHandler(originalHandler);
+	}
+
+	public void testReplay() throws Exception {
+		EventReplayer.Speed speed = EventReplayer.Speed.valueOf(
+				System.getProperty(SPEED_PROPERTY, "maximum").toUpperCase(Locale.ROOT));
+		double factor = Double.parseDouble(System.getProperty(FACTOR_PROPERTY, "10"));
+
+		File[] files = getTraceFiles();
+		assertTrue("No event traces found", files.length > 0);
+		for (File file : files) {
+			EventTrace trace = EventTrace.load(file);
+			OfflineConnection connection = new OfflineConnection(new URI("http://replay:9090/"));
+			try {
+				connection.setProjectsJson(trace.projectsJson);
+				connection.refreshApps(null);
+				updateHandler.reset();
+
+				ReplayResult result = new EventReplayer(connection.getMCSocket()).replay(trace, speed, factor, TIMEOUT);
+				TestUtil.print(result + ", " + connection.getApps().size() + " applications, UI updates: "
+						+ updateHandler.getApplicationUpdates() + " application, "
+						+ updateHandler.getConnectionUpdates() + " connection");
+				TestUtil.print("Event dispatch statistics: " + connection.getMCSocket().getEventDispatcher());
+				assertTrue("The replay of " + trace.name + " did not finish", result.completed);
+			} finally {
+				connection.close();
+			}
+		}
+	}
+
+	private static File[] getTraceFiles() throws Exception {
+		File dir;
+		String path = System.getProperty(TRACES_PROPERTY);
+		if (path != null) {
+			dir = new File(path);
+		} else {
+			URL url = FileLocator.toFileURL(MicroclimateTestPlugin.getDefault().getBundle().getEntry("traces"));
+			dir = new File(url.getPath());
+		}
+		File[] files = dir.listFiles(new FileFilter() {
+			@Override
+			public boolean accept(File file) {
+				return file.isFile() && file.getName().endsWith(".trace");
+			}
+		});
+		if (files == null) {
+			return new File[0];
+		}
+		Arrays.sort(files);
+		return files;
+	}
+}
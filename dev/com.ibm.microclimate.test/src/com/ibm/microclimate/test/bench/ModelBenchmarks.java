@@ -0,0 +1,213 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.test.bench;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.json.JSONObject;
+
+import com.ibm.microclimate.core.MicroclimateCorePlugin;
+import com.ibm.microclimate.core.internal.IUpdateHandler;
+import com.ibm.microclimate.core.internal.MicroclimateApplication;
+import com.ibm.microclimate.core.internal.MicroclimateApplicationFactory;
+import com.ibm.microclimate.core.internal.connection.MicroclimateConnection;
+import com.ibm.microclimate.core.internal.connection.MicroclimateSocket;
+import com.ibm.microclimate.test.util.OfflineConnection;
+import com.ibm.microclimate.test.util.TestUtil;
+import com.ibm.microclimate.ui.internal.views.MicroclimateNavigatorLabelProvider;
+
+import junit.framework.TestCase;
+
+/**
+ * Benchmarks for the core model with large workspaces spread across several connections.
+ * This is not part of the MicroclimateTests suite, run it on its own as a JUnit plug-in test.
+ *
+ * System properties (see BenchmarkRunner for the timing properties):
+ *   com.ibm.microclimate.bench.projects - comma separated project counts (default 1000,5000)
+ *   com.ibm.microclimate.bench.connections - number of connections (default 3)
+ *
+ * The projects are split evenly across the connections.  The results are written
+ * to a CSV file which can be compared to a baseline with scripts/compare-benchmarks.sh.
+ */
+public class ModelBenchmarks extends TestCase {
+
+	public static final String PROJECTS_PROPERTY = "com.ibm.microclimate.bench.projects";
+	public static final String CONNECTIONS_PROPERTY = "com.ibm.microclimate.bench.connections";
+
+	private final BenchmarkRunner runner = new BenchmarkRunner();
+	private final CountingUpdateHandler updateHandler = new CountingUpdateHandler();
+	private IUpdateHandler originalHandler;
+
+	@Override
+	protected void setUp() throws Exception {
+		originalHandler = MicroclimateCorePlugin.getUpdateHandler();
+		MicroclimateCorePlugin.setUpdateHandler(updateHandler);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		MicroclimateCorePlugin.setUpdateHandler(originalHandler);
+	}
+
+	public void testModel() throws Exception {
+		int connectionCount = Integer.getInteger(CONNECTIONS_PROPERTY, 3).intValue();
+		for (String size : System.getProperty(PROJECTS_PROPERTY, "1000,5000").split(",")) {
+			int projectCount = Integer.parseInt(size.trim());
+			runModelBenchmarks(projectCount, connectionCount);
+		}
+		runner.writeResults();
+		assertFalse("No benchmark results", runner.getResults().isEmpty());
+	}
+
+	private void runModelBenchmarks(int projectCount, int connectionCount) throws Exception {
+		final int perConnection = Math.max(1, projectCount / connectionCount);
+		final String params = "projects=" + projectCount + ";connections=" + connectionCount;
+
+		final List<OfflineConnection> connections = new ArrayList<OfflineConnection>();
+		final List<SyntheticWorkspace> workspaces = new ArrayList<SyntheticWorkspace>();
+		final List<String> projectsJson = new ArrayList<String>();
+		for (int i = 0; i < connectionCount; i++) {
+			SyntheticWorkspace workspace = new SyntheticWorkspace("conn" + i, perConnection);
+			OfflineConnection connection = new OfflineConnection(new URI("http://bench" + i + ":9090/"));
+			connection.setProjectsJson(workspace.projectsJson());
+			connection.refreshApps(null);
+			assertEquals(perConnection, connection.getApps().size());
+			workspaces.add(workspace);
+			connections.add(connection);
+			projectsJson.add(workspace.projectsJson());
+		}
+
+		// Refresh of a connection where all of the applications already exist
+		runner.run("getAppsFromProjectsJson.update", params, new BenchmarkRunner.Operation() {
+			@Override
+			public void run(int iteration) throws Exception {
+				int index = iteration % connections.size();
+				MicroclimateApplicationFactory.getAppsFromProjectsJson(connections.get(index), projectsJson.get(index), null);
+			}
+		});
+
+		// Refresh of a new connection where all of the applications need to be created
+		runner.run("getAppsFromProjectsJson.create", params, new BenchmarkRunner.Operation() {
+			@Override
+			public void run(int iteration) throws Exception {
+				int index = iteration % connections.size();
+				OfflineConnection connection = new OfflineConnection(new URI("http://create" + index + ":9090/"));
+				MicroclimateApplicationFactory.getAppsFromProjectsJson(connection, projectsJson.get(index), null);
+			}
+		});
+
+		// Refresh of a single project as is done for most socket events
+		runner.run("getAppsFromProjectsJson.single", params, new BenchmarkRunner.Operation() {
+			@Override
+			public void run(int iteration) throws Exception {
+				int index = iteration % connections.size();
+				MicroclimateApplicationFactory.getAppsFromProjectsJson(connections.get(index), projectsJson.get(index),
+						workspaces.get(index).projectID(iteration % perConnection));
+			}
+		});
+
+		runner.run("getApps", params, new BenchmarkRunner.Operation() {
+			@Override
+			public void run(int iteration) throws Exception {
+				List<MicroclimateApplication> apps = connections.get(iteration % connections.size()).getApps();
+				if (apps.size() != perConnection) {
+					fail("Expected " + perConnection + " applications but found " + apps.size());
+				}
+			}
+		});
+
+		runner.run("getAppByID", params, new BenchmarkRunner.Operation() {
+			@Override
+			public void run(int iteration) throws Exception {
+				int index = iteration % connections.size();
+				String projectID = workspaces.get(index).projectID(iteration % perConnection);
+				if (connections.get(index).getAppByID(projectID) == null) {
+					fail("No application found for: " + projectID);
+				}
+			}
+		});
+
+		runner.run("getAppByName", params, new BenchmarkRunner.Operation() {
+			@Override
+			public void run(int iteration) throws Exception {
+				int index = iteration % connections.size();
+				String name = workspaces.get(index).projectName(iteration % perConnection);
+				if (connections.get(index).getAppByName(name) == null) {
+					fail("No application found for: " + name);
+				}
+			}
+		});
+
+		// Pre-build the events so that only the handling is measured
+		final int eventCount = Math.min(perConnection, 1000);
+		final String[][] statusEvents = new String[connectionCount][eventCount];
+		final String[][] changedEvents = new String[connectionCount][eventCount];
+		final String[][] logEvents = new String[connectionCount][eventCount];
+		String logs = SyntheticWorkspace.logLines(4096);
+		for (int i = 0; i < connectionCount; i++) {
+			SyntheticWorkspace workspace = workspaces.get(i);
+			for (int j = 0; j < eventCount; j++) {
+				statusEvents[i][j] = workspace.statusChangedEvent(j, j).toString();
+				changedEvents[i][j] = workspace.projectChangedEvent(j).toString();
+				logEvents[i][j] = workspace.logUpdateEvent(j, "app.log", logs, false).toString();
+			}
+		}
+
+		runEventBenchmark("socket." + MicroclimateSocket.EVENT_PROJECT_STATUS_CHANGE, params,
+				MicroclimateSocket.EVENT_PROJECT_STATUS_CHANGE, connections, statusEvents);
+		runEventBenchmark("socket." + MicroclimateSocket.EVENT_PROJECT_CHANGED, params,
+				MicroclimateSocket.EVENT_PROJECT_CHANGED, connections, changedEvents);
+		runEventBenchmark("socket." + MicroclimateSocket.EVENT_LOG_UPDATE, params,
+				MicroclimateSocket.EVENT_LOG_UPDATE, connections, logEvents);
+
+		final MicroclimateNavigatorLabelProvider labelProvider = new MicroclimateNavigatorLabelProvider();
+		runner.run("label.application", params, new BenchmarkRunner.Operation() {
+			@Override
+			public void run(int iteration) throws Exception {
+				MicroclimateConnection connection = connections.get(iteration % connections.size());
+				for (MicroclimateApplication app : connection.getApps()) {
+					labelProvider.getText(app);
+				}
+			}
+		});
+		runner.run("label.connection", params, new BenchmarkRunner.Operation() {
+			@Override
+			public void run(int iteration) throws Exception {
+				labelProvider.getText(connections.get(iteration % connections.size()));
+			}
+		});
+		labelProvider.dispose();
+
+		TestUtil.print("Update handler calls for " + params + ": " + updateHandler.getApplicationUpdates()
+				+ " application, " + updateHandler.getConnectionUpdates() + " connection");
+		updateHandler.reset();
+
+		for (OfflineConnection connection : connections) {
+			connection.close();
+		}
+	}
+
+	private void runEventBenchmark(String name, String params, final String event,
+			final List<OfflineConnection> connections, final String[][] events) throws Exception {
+		runner.run(name, params, new BenchmarkRunner.Operation() {
+			@Override
+			public void run(int iteration) throws Exception {
+				int index = iteration % connections.size();
+				String[] connectionEvents = events[index];
+				connections.get(index).getMCSocket().processEvent(event,
+						new JSONObject(connectionEvents[iteration % connectionEvents.length]));
+			}
+		});
+	}
+}
@@ -0,0 +1,158 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.test.bench;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import com.ibm.microclimate.core.internal.constants.MCConstants;
+
+/**
+ * Generates the JSON that Microclimate would send for a workspace with the
+ * given number of projects.  Project n always has the id prefix-n and the name prefixn.
+ */
+public class SyntheticWorkspace {
+
+	private static final String[][] TYPES = {
+			{ "liberty", "java" },
+			{ "spring", "java" },
+			{ "nodejs", "nodejs" },
+			{ "swift", "swift" },
+			{ "docker", "python" },
+	};
+
+	private static final String[] APP_STATES = { "starting", "started", "stopping", "stopped" };
+	private static final String[] BUILD_STATES = { "queued", "inProgress", "success", "failed" };
+
+	public final String prefix;
+	public final int projectCount;
+
+	public SyntheticWorkspace(String prefix, int projectCount) {
+		this.prefix = prefix;
+		this.projectCount = projectCount;
+	}
+
+	public String projectID(int index) {
+		return prefix + "-" + index;
+	}
+
+	public String projectName(int index) {
+		return prefix + index;
+	}
+
+	/**
+	 * The project list as returned by the projects endpoint.
+	 */
+	public String projectsJson() throws JSONException {
+		JSONArray projects = new JSONArray();
+		for (int i = 0; i < projectCount; i++) {
+			projects.put(project(i, 0));
+		}
+		return projects.toString();
+	}
+
+	/**
+	 * The JSON for one project.  The revision changes the state of the project so that
+	 * successive project lists are not identical.
+	 */
+	public JSONObject project(int index, int revision) throws JSONException {
+		String[] type = TYPES[index % TYPES.length];
+		JSONObject project = new JSONObject();
+		project.put(MCConstants.KEY_PROJECT_ID, projectID(index));
+		project.put(MCConstants.KEY_NAME, projectName(index));
+		project.put(MCConstants.KEY_BUILD_TYPE, type[0]);
+		project.put(MCConstants.KEY_PROJECT_TYPE, type[0]);
+		project.put(MCConstants.KEY_LANGUAGE, type[1]);
+		project.put(MCConstants.KEY_LOC_DISK, "/microclimate-workspace/" + projectName(index));
+		project.put(MCConstants.KEY_APP_STATUS, APP_STATES[(index + revision) % APP_STATES.length]);
+		project.put(MCConstants.KEY_BUILD_STATUS, BUILD_STATES[(index + revision) % BUILD_STATES.length]);
+		project.put(MCConstants.KEY_DETAILED_BUILD_STATUS, "");
+		project.put(MCConstants.KEY_CONTAINER_ID, "container" + index);
+		project.put(MCConstants.KEY_AUTO_BUILD, true);
+		project.put(MCConstants.KEY_CONTEXTROOT, "/");
+		project.put(MCConstants.KEY_START_MODE, "run");
+		project.put(MCConstants.KEY_PORTS, ports(index));
+		return project;
+	}
+
+	public JSONObject statusChangedEvent(int index, int revision) throws JSONException {
+		JSONObject event = new JSONObject();
+		event.put(MCConstants.KEY_PROJECT_ID, projectID(index));
+		event.put(MCConstants.KEY_APP_STATUS, APP_STATES[(index + revision) % APP_STATES.length]);
+		event.put(MCConstants.KEY_BUILD_STATUS, BUILD_STATES[(index + revision) % BUILD_STATES.length]);
+		event.put(MCConstants.KEY_DETAILED_BUILD_STATUS, "Build step " + revision);
+		return event;
+	}
+
+	/**
+	 * A status event with the given states.  Either status can be null to leave it out.
+	 */
+	public JSONObject statusEvent(int index, String appStatus, String buildStatus, String detail) throws JSONException {
+		JSONObject event = new JSONObject();
+		event.put(MCConstants.KEY_PROJECT_ID, projectID(index));
+		if (appStatus != null) {
+			event.put(MCConstants.KEY_APP_STATUS, appStatus);
+		}
+		if (buildStatus != null) {
+			event.put(MCConstants.KEY_BUILD_STATUS, buildStatus);
+			event.put(MCConstants.KEY_DETAILED_BUILD_STATUS, detail == null ? "" : detail);
+		}
+		return event;
+	}
+
+	public JSONObject restartEvent(int index, String startMode) throws JSONException {
+		JSONObject event = new JSONObject();
+		event.put(MCConstants.KEY_PROJECT_ID, projectID(index));
+		event.put(MCConstants.KEY_STATUS, MCConstants.REQUEST_STATUS_SUCCESS);
+		event.put(MCConstants.KEY_START_MODE, startMode);
+		event.put(MCConstants.KEY_PORTS, ports(index));
+		return event;
+	}
+
+	public JSONObject projectChangedEvent(int index) throws JSONException {
+		JSONObject event = new JSONObject();
+		event.put(MCConstants.KEY_PROJECT_ID, projectID(index));
+		event.put(MCConstants.KEY_CONTAINER_ID, "container" + index);
+		event.put(MCConstants.KEY_PORTS, ports(index));
+		event.put(MCConstants.KEY_AUTO_BUILD, true);
+		return event;
+	}
+
+	public JSONObject logUpdateEvent(int index, String logName, String logs, boolean reset) throws JSONException {
+		JSONObject event = new JSONObject();
+		event.put(MCConstants.KEY_PROJECT_ID, projectID(index));
+		event.put(MCConstants.KEY_LOG_TYPE, MCConstants.KEY_LOG_APP);
+		event.put(MCConstants.KEY_LOG_NAME, logName);
+		event.put(MCConstants.KEY_LOGS, logs);
+		event.put(MCConstants.KEY_LOG_RESET, reset);
+		return event;
+	}
+
+	private static JSONObject ports(int index) throws JSONException {
+		JSONObject ports = new JSONObject();
+		ports.put(MCConstants.KEY_EXPOSED_PORT, String.valueOf(30000 + index));
+		return ports;
+	}
+
+	/**
+	 * Log content of roughly the given size made up of typical looking log lines.
+	 */
+	public static String logLines(int size) {
+		StringBuilder builder = new StringBuilder(size + 128);
+		int line = 0;
+		while (builder.length() < size) {
+			builder.append("[INFO] [").append(line++).append("] com.example.Service - Processed request in 12ms\n");
+		}
+		return builder.toString();
+	}
+}
@@ -0,0 +1,136 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.test.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import com.ibm.microclimate.core.internal.connection.EventRecorder;
+import com.ibm.microclimate.core.internal.connection.MicroclimateSocket;
+
+/**
+ * Writes the canonical event traces that are checked in under the traces directory
+ * of this plug-in.  Run the main method with the output directory to regenerate them.
+ * Traces recorded from a live Microclimate can be replayed in the same way, see
+ * MicroclimateConnection.RECORD_EVENTS_PROPERTY.
+ *
+ *   mass-build - every project is built at once, with build progress and status events
+ *   restart-all - every project is restarted, with restart result and status events
+ *   log-flood - a few projects write a large amount of application log output
+ */
+public class TraceGenerator {
+
+	public static final String MASS_BUILD = "mass-build.trace";
+	public static final String RESTART_ALL = "restart-all.trace";
+	public static final String LOG_FLOOD = "log-flood.trace";
+	public static final String[] TRACES = { MASS_BUILD, RESTART_ALL, LOG_FLOOD };
+
+	public static final String PREFIX = "trace";
+
+	private static final int BUILD_PROJECTS = 100;
+	private static final int RESTART_PROJECTS = 100;
+	private static final int FLOOD_PROJECTS = 10;
+	private static final int FLOOD_DURATION_MS = 2000;
+	private static final int FLOOD_INTERVAL_MS = 10;
+	private static final int FLOOD_CHUNK_SIZE = 2048;
+
+	public static void main(String[] args) throws Exception {
+		File dir = new File(args.length > 0 ? args[0] : "traces");
+		dir.mkdirs();
+		writeMassBuild(new File(dir, MASS_BUILD));
+		writeRestartAll(new File(dir, RESTART_ALL));
+		writeLogFlood(new File(dir, LOG_FLOOD));
+	}
+
+	public static void writeMassBuild(File file) throws IOException, JSONException {
+		SyntheticWorkspace workspace = new SyntheticWorkspace(PREFIX, BUILD_PROJECTS);
+		TraceBuilder builder = new TraceBuilder();
+		for (int i = 0; i < BUILD_PROJECTS; i++) {
+			// The builds are queued all at once and then run a few at a time
+			long time = i * 5;
+			builder.add(time, MicroclimateSocket.EVENT_PROJECT_STATUS_CHANGE, workspace.statusEvent(i, null, "queued", null));
+			time = 500 + (i / 4) * 400;
+			builder.add(time, MicroclimateSocket.EVENT_PROJECT_STATUS_CHANGE, workspace.statusEvent(i, "stopped", "inProgress", "Preparing"));
+			for (int step = 1; step <= 5; step++) {
+				builder.add(time + step * 60, MicroclimateSocket.EVENT_PROJECT_STATUS_CHANGE,
+						workspace.statusEvent(i, null, "inProgress", "Build step " + step + " of 5"));
+			}
+			time += 360;
+			builder.add(time, MicroclimateSocket.EVENT_PROJECT_STATUS_CHANGE, workspace.statusEvent(i, null, "success", null));
+			builder.add(time + 20, MicroclimateSocket.EVENT_PROJECT_CHANGED, workspace.projectChangedEvent(i));
+			builder.add(time + 40, MicroclimateSocket.EVENT_PROJECT_STATUS_CHANGE, workspace.statusEvent(i, "starting", null, null));
+			builder.add(time + 1500, MicroclimateSocket.EVENT_PROJECT_STATUS_CHANGE, workspace.statusEvent(i, "started", null, null));
+		}
+		builder.write(file, workspace.projectsJson());
+	}
+
+	public static void writeRestartAll(File file) throws IOException, JSONException {
+		SyntheticWorkspace workspace = new SyntheticWorkspace(PREFIX, RESTART_PROJECTS);
+		TraceBuilder builder = new TraceBuilder();
+		for (int i = 0; i < RESTART_PROJECTS; i++) {
+			long time = i * 10;
+			builder.add(time, MicroclimateSocket.EVENT_PROJECT_STATUS_CHANGE, workspace.statusEvent(i, "stopping", null, null));
+			builder.add(time + 300, MicroclimateSocket.EVENT_PROJECT_STATUS_CHANGE, workspace.statusEvent(i, "stopped", null, null));
+			builder.add(time + 600, MicroclimateSocket.EVENT_PROJECT_RESTART, workspace.restartEvent(i, "run"));
+			builder.add(time + 620, MicroclimateSocket.EVENT_PROJECT_STATUS_CHANGE, workspace.statusEvent(i, "starting", null, null));
+			builder.add(time + 2500, MicroclimateSocket.EVENT_PROJECT_STATUS_CHANGE, workspace.statusEvent(i, "started", null, null));
+		}
+		builder.write(file, workspace.projectsJson());
+	}
+
+	public static void writeLogFlood(File file) throws IOException, JSONException {
+		SyntheticWorkspace workspace = new SyntheticWorkspace(PREFIX, FLOOD_PROJECTS);
+		TraceBuilder builder = new TraceBuilder();
+		String logs = SyntheticWorkspace.logLines(FLOOD_CHUNK_SIZE);
+		for (int i = 0; i < FLOOD_PROJECTS; i++) {
+			builder.add(i, MicroclimateSocket.EVENT_LOG_UPDATE, workspace.logUpdateEvent(i, "app.log", logs, true));
+			for (long time = FLOOD_INTERVAL_MS; time < FLOOD_DURATION_MS; time += FLOOD_INTERVAL_MS) {
+				builder.add(time + i, MicroclimateSocket.EVENT_LOG_UPDATE, workspace.logUpdateEvent(i, "app.log", logs, false));
+			}
+		}
+		builder.write(file, workspace.projectsJson());
+	}
+
+	/**
+	 * Collects the events and writes them in time order.
+	 */
+	private static class TraceBuilder {
+
+		private final List<Object[]> events = new ArrayList<Object[]>();
+
+		public void add(long time, String event, JSONObject data) {
+			events.add(new Object[] { Long.valueOf(time), event, data.toString() });
+		}
+
+		public void write(File file, String projectsJson) throws IOException {
+			// The sort is stable so events with the same time stay in the order they were added
+			Collections.sort(events, new Comparator<Object[]>() {
+				@Override
+				public int compare(Object[] a, Object[] b) {
+					return ((Long) a[0]).compareTo((Long) b[0]);
+				}
+			});
+			try (EventRecorder recorder = new EventRecorder(file, projectsJson)) {
+				for (Object[] event : events) {
+					recorder.recordAt(((Long) event[0]).longValue(), (String) event[1], event[2]);
+				}
+			}
+		}
+	}
+}
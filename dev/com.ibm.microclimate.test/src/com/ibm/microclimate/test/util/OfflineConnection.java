@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.test.util;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.runtime.Path;
+import org.json.JSONObject;
+
+import com.ibm.microclimate.core.internal.MicroclimateApplication;
+import com.ibm.microclimate.core.internal.MicroclimateApplicationFactory;
+import com.ibm.microclimate.core.internal.connection.MicroclimateConnection;
+import com.ibm.microclimate.core.internal.console.ProjectLogInfo;
+
+/**
+ * A connection with no Microclimate instance behind it.  The project list is
+ * served from the JSON passed to setProjectsJson and events can be passed to
+ * the socket directly.
+ */
+public class OfflineConnection extends MicroclimateConnection {
+
+	public static final String WORKSPACE_PATH = "/tmp/microclimate-workspace";
+
+	private volatile String projectsJson = "[]";
+	private final AtomicInteger enableRequests = new AtomicInteger();
+	private final AtomicInteger disableRequests = new AtomicInteger();
+
+	public OfflineConnection(URI uri) {
+		this(uri, "1905");
+	}
+
+	public OfflineConnection(URI uri, String version) {
+		super(uri, new Path(WORKSPACE_PATH), version);
+	}
+
+	public void setProjectsJson(String projectsJson) {
+		this.projectsJson = projectsJson;
+	}
+
+	@Override
+	public void refreshApps(String projectID) {
+		MicroclimateApplicationFactory.getAppsFromProjectsJson(this, projectsJson, projectID);
+	}
+
+	@Override
+	public List<ProjectLogInfo> requestProjectLogs(MicroclimateApplication app) {
+		return Collections.emptyList();
+	}
+
+	@Override
+	public JSONObject requestProjectMetricsStatus(MicroclimateApplication app) {
+		return null;
+	}
+
+	@Override
+	public void requestEnableLogStream(MicroclimateApplication app, ProjectLogInfo logInfo) {
+		// Nothing to enable, just count the requests
+		enableRequests.incrementAndGet();
+	}
+
+	@Override
+	public void requestDisableLogStream(MicroclimateApplication app, ProjectLogInfo logInfo) {
+		// Nothing to disable, just count the requests
+		disableRequests.incrementAndGet();
+	}
+
+	public int getEnableRequests() {
+		return enableRequests.get();
+	}
+
+	public int getDisableRequests() {
+		return disableRequests.get();
+	}
+}
@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.ui.internal.actions;
+
+import org.eclipse.jface.action.IAction;
+import org.eclipse.jface.viewers.ISelection;
+import org.eclipse.jface.viewers.IStructuredSelection;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.ui.IObjectActionDelegate;
+import org.eclipse.ui.IWorkbenchPart;
+
+import com.ibm.microclimate.core.internal.MCLogger;
+import com.ibm.microclimate.core.internal.MicroclimateApplication;
+import com.ibm.microclimate.core.internal.console.LogArchive;
+import com.ibm.microclimate.ui.internal.console.LogArchiveDialog;
+
+/**
+ * Action to view the archived logs of an application.
+ */
+public class OpenLogArchiveAction implements IObjectActionDelegate {
+
+    protected MicroclimateApplication app;
+
+    @Override
+    public void selectionChanged(IAction action, ISelection selection) {
+        if (!(selection instanceof IStructuredSelection)) {
+            action.setEnabled(false);
+            return;
+        }
+
+        IStructuredSelection sel = (IStructuredSelection) selection;
+        if (sel.size() == 1) {
+            Object obj = sel.getFirstElement();
+            if (obj instanceof MicroclimateApplication) {
+            	app = (MicroclimateApplication) obj;
+            	action.setEnabled(true);
+            	return;
+            }
+        }
+        action.setEnabled(false);
+    }
+
+    @Override
+    public void run(IAction action) {
+        if (app == null) {
+        	// should not be possible
+        	MCLogger.logError("OpenLogArchiveAction ran but no Microclimate application was selected"); //$NON-NLS-1$
+			return;
+		}
+
+        LogArchiveDialog dialog = new LogArchiveDialog(Display.getDefault().getActiveShell(), app.name,
+        		LogArchive.getDefault().getSessions(app.projectID));
+        dialog.open();
+    }
+
+	@Override
+	public void setActivePart(IAction arg0, IWorkbenchPart arg1) {
+		// nothing
+	}
+}
@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.ui.internal.console;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.eclipse.jface.action.Action;
+import org.eclipse.osgi.util.NLS;
+import org.eclipse.swt.widgets.Display;
+
+import com.ibm.microclimate.core.internal.console.LogIngestQueue;
+import com.ibm.microclimate.ui.MicroclimateUIPlugin;
+import com.ibm.microclimate.ui.internal.messages.Messages;
+
+/**
+ * Shows how much log output is waiting to be written to the console.  If the log
+ * stream has been paused because the backlog was too large, running the action resumes it.
+ */
+public class ConsoleBacklogAction extends Action implements LogIngestQueue.IBacklogListener {
+
+	private final LogIngestQueue queue;
+
+	// Only queue one UI update at a time
+	private final AtomicBoolean updatePending = new AtomicBoolean(false);
+
+	public ConsoleBacklogAction(LogIngestQueue queue) {
+		this.queue = queue;
+		setId(MicroclimateUIPlugin.PLUGIN_ID + ".ConsoleBacklogAction"); //$NON-NLS-1$
+		updateText();
+		queue.addListener(this);
+	}
+
+	@Override
+	public void run() {
+		if (queue.isPaused()) {
+			queue.resume();
+		}
+	}
+
+	@Override
+	public void backlogChanged(LogIngestQueue queue) {
+		if (updatePending.compareAndSet(false, true)) {
+			Display.getDefault().asyncExec(new Runnable() {
+				@Override
+				public void run() {
+					updatePending.set(false);
+					updateText();
+				}
+			});
+		}
+	}
+
+	private void updateText() {
+		String kb = Integer.toString((queue.getBacklog() + 1023) / 1024);
+		if (queue.isPaused()) {
+			setText(NLS.bind(Messages.ConsoleBacklogActionPaused, kb));
+			setToolTipText(Messages.ConsoleBacklogActionPausedTooltip);
+			setEnabled(true);
+		} else {
+			setText(NLS.bind(Messages.ConsoleBacklogAction, kb));
+			setToolTipText(NLS.bind(Messages.ConsoleBacklogActionTooltip, Long.toString(queue.getSkippedBytes())));
+			setEnabled(false);
+		}
+	}
+
+	public void dispose() {
+		queue.removeListener(this);
+	}
+}
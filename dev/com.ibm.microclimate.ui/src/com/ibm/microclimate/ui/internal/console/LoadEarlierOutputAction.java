@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.ui.internal.console;
+
+import java.io.IOException;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jface.action.Action;
+import org.eclipse.osgi.util.NLS;
+import org.eclipse.ui.ISharedImages;
+import org.eclipse.ui.PlatformUI;
+
+import com.ibm.microclimate.core.internal.MCLogger;
+import com.ibm.microclimate.core.internal.console.ConsoleWriter;
+import com.ibm.microclimate.ui.MicroclimateUIPlugin;
+import com.ibm.microclimate.ui.internal.messages.Messages;
+
+/**
+ * Pages output that was trimmed from the console back in from the console history,
+ * one page for each run.
+ */
+public class LoadEarlierOutputAction extends Action {
+
+	public static final int PAGE_SIZE = 256 * 1024;
+
+	private final String consoleName;
+	private final ConsoleWriter writer;
+
+	public LoadEarlierOutputAction(String consoleName, ConsoleWriter writer) {
+		super(Messages.LoadEarlierOutputAction);
+		setToolTipText(Messages.LoadEarlierOutputActionTooltip);
+		setId(MicroclimateUIPlugin.PLUGIN_ID + ".LoadEarlierOutputAction"); //$NON-NLS-1$
+		setImageDescriptor(PlatformUI.getWorkbench().getSharedImages().getImageDescriptor(ISharedImages.IMG_TOOL_UP));
+		this.consoleName = consoleName;
+		this.writer = writer;
+	}
+
+	@Override
+	public void run() {
+		// Reading the history is file I/O so keep it off the UI thread
+		Job job = new Job(NLS.bind(Messages.LoadEarlierOutputJobLabel, consoleName)) {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				try {
+					if (!writer.loadEarlierOutput(PAGE_SIZE)) {
+						MCLogger.log("No earlier output to load for: " + consoleName); //$NON-NLS-1$
+					}
+				} catch (IOException e) {
+					MCLogger.logError("Failed to load the earlier output for: " + consoleName, e); //$NON-NLS-1$
+					return new Status(IStatus.ERROR, MicroclimateUIPlugin.PLUGIN_ID,
+							NLS.bind(Messages.LoadEarlierOutputError, consoleName), e);
+				}
+				return Status.OK_STATUS;
+			}
+		};
+		job.setSystem(true);
+		job.schedule();
+	}
+}
@@ -0,0 +1,202 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.ui.internal.console;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.eclipse.jface.dialogs.Dialog;
+import org.eclipse.jface.dialogs.IDialogConstants;
+import org.eclipse.jface.resource.JFaceResources;
+import org.eclipse.osgi.util.NLS;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.events.SelectionAdapter;
+import org.eclipse.swt.events.SelectionEvent;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Combo;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Text;
+
+import com.ibm.microclimate.core.internal.MCLogger;
+import com.ibm.microclimate.core.internal.console.LogArchiveReader;
+import com.ibm.microclimate.ui.internal.messages.Messages;
+
+/**
+ * Shows the archived logs of a project a page at a time.  Only the page being shown is
+ * read from the archive, so large archives can be viewed without loading them into memory.
+ */
+public class LogArchiveDialog extends Dialog {
+
+	public static final int PAGE_SIZE = 256 * 1024;
+
+	private final String projectName;
+	private final List<File> sessions;
+
+	private LogArchiveReader reader;
+	private LogArchiveReader.Page page;
+
+	private Combo sessionCombo;
+	private Text text;
+	private Label positionLabel;
+	private Button firstButton, previousButton, nextButton, lastButton;
+
+	public LogArchiveDialog(Shell parentShell, String projectName, List<File> sessions) {
+		super(parentShell);
+		this.projectName = projectName;
+		this.sessions = sessions;
+		setShellStyle(getShellStyle() | SWT.RESIZE | SWT.MAX);
+	}
+
+	@Override
+	protected void configureShell(Shell shell) {
+		super.configureShell(shell);
+		shell.setText(NLS.bind(Messages.LogArchiveDialogTitle, projectName));
+	}
+
+	@Override
+	protected Control createDialogArea(Composite parent) {
+		Composite composite = (Composite) super.createDialogArea(parent);
+		composite.setLayout(new GridLayout(6, false));
+
+		Label sessionLabel = new Label(composite, SWT.NONE);
+		sessionLabel.setText(Messages.LogArchiveDialogSessionLabel);
+		sessionCombo = new Combo(composite, SWT.READ_ONLY);
+		sessionCombo.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false, 5, 1));
+		for (File session : sessions) {
+			sessionCombo.add(session.getName());
+		}
+		sessionCombo.addSelectionListener(new SelectionAdapter() {
+			@Override
+			public void widgetSelected(SelectionEvent e) {
+				openSession(sessions.get(sessionCombo.getSelectionIndex()));
+			}
+		});
+
+		text = new Text(composite, SWT.MULTI | SWT.READ_ONLY | SWT.BORDER | SWT.V_SCROLL | SWT.H_SCROLL);
+		text.setFont(JFaceResources.getTextFont());
+		GridData data = new GridData(SWT.FILL, SWT.FILL, true, true, 6, 1);
+		data.widthHint = 800;
+		data.heightHint = 500;
+		text.setLayoutData(data);
+
+		positionLabel = new Label(composite, SWT.NONE);
+		positionLabel.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false, 2, 1));
+		firstButton = createPageButton(composite, Messages.LogArchiveDialogFirst);
+		previousButton = createPageButton(composite, Messages.LogArchiveDialogPrevious);
+		nextButton = createPageButton(composite, Messages.LogArchiveDialogNext);
+		lastButton = createPageButton(composite, Messages.LogArchiveDialogLast);
+
+		if (sessions.isEmpty()) {
+			text.setText(Messages.LogArchiveDialogNoSessions);
+			updateButtons();
+		} else {
+			sessionCombo.select(0);
+			openSession(sessions.get(0));
+		}
+		return composite;
+	}
+
+	private Button createPageButton(Composite parent, String label) {
+		Button button = new Button(parent, SWT.PUSH);
+		button.setText(label);
+		button.addSelectionListener(new SelectionAdapter() {
+			@Override
+			public void widgetSelected(SelectionEvent e) {
+				showPage(e.widget);
+			}
+		});
+		return button;
+	}
+
+	@Override
+	protected void createButtonsForButtonBar(Composite parent) {
+		createButton(parent, IDialogConstants.CLOSE_ID, IDialogConstants.CLOSE_LABEL, true);
+	}
+
+	@Override
+	protected void buttonPressed(int buttonId) {
+		if (buttonId == IDialogConstants.CLOSE_ID) {
+			close();
+		}
+		super.buttonPressed(buttonId);
+	}
+
+	private void openSession(File session) {
+		closeReader();
+		try {
+			reader = new LogArchiveReader(session);
+			// Start at the end since that is the most recent output
+			setPage(reader.readLast(PAGE_SIZE));
+		} catch (IOException e) {
+			MCLogger.logError("Failed to open the log archive: " + session, e); //$NON-NLS-1$
+			text.setText(NLS.bind(Messages.LogArchiveDialogOpenError, e.getMessage()));
+			page = null;
+			updateButtons();
+		}
+	}
+
+	private void showPage(Object button) {
+		if (reader == null || page == null) {
+			return;
+		}
+		try {
+			if (button == firstButton) {
+				setPage(reader.read(0, PAGE_SIZE));
+			} else if (button == previousButton) {
+				setPage(reader.readBefore(page.start, PAGE_SIZE));
+			} else if (button == nextButton) {
+				setPage(reader.read(page.end, PAGE_SIZE));
+			} else if (button == lastButton) {
+				setPage(reader.readLast(PAGE_SIZE));
+			}
+		} catch (IOException e) {
+			MCLogger.logError("Failed to read the log archive", e); //$NON-NLS-1$
+		}
+	}
+
+	private void setPage(LogArchiveReader.Page page) {
+		this.page = page;
+		text.setText(page.text);
+		positionLabel.setText(NLS.bind(Messages.LogArchiveDialogPosition, new Object[] {
+				Long.toString(page.start), Long.toString(page.end), Long.toString(reader.getLength()) }));
+		updateButtons();
+	}
+
+	private void updateButtons() {
+		boolean hasEarlier = page != null && page.start > 0;
+		boolean hasLater = page != null && reader != null && page.end < reader.getLength();
+		firstButton.setEnabled(hasEarlier);
+		previousButton.setEnabled(hasEarlier);
+		nextButton.setEnabled(hasLater);
+		lastButton.setEnabled(hasLater);
+		positionLabel.getParent().layout();
+	}
+
+	private void closeReader() {
+		if (reader != null) {
+			reader.close();
+			reader = null;
+		}
+	}
+
+	@Override
+	public boolean close() {
+		closeReader();
+		return super.close();
+	}
+}
@@ -0,0 +1,58 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.ui.internal.console;
+
+import org.eclipse.jface.action.Action;
+import org.eclipse.jface.action.IAction;
+import org.eclipse.jface.action.IMenuManager;
+import org.eclipse.jface.action.MenuManager;
+
+import com.ibm.microclimate.core.internal.console.ConsoleWriter;
+import com.ibm.microclimate.core.internal.console.LogLevel;
+import com.ibm.microclimate.ui.internal.messages.Messages;
+
+/**
+ * Shows only the console output at or above a log level.  One action is added to the
+ * console view menu for each level.
+ */
+public class LogLevelFilterAction extends Action {
+
+	private final ConsoleWriter writer;
+	private final LogLevel level;
+
+	/**
+	 * Add the log level menu for the console to the menu.
+	 */
+	public static void addMenu(IMenuManager menu, ConsoleWriter writer) {
+		MenuManager levelMenu = new MenuManager(Messages.LogLevelMenu);
+		levelMenu.add(new LogLevelFilterAction(writer, LogLevel.TRACE, Messages.LogLevelAll));
+		levelMenu.add(new LogLevelFilterAction(writer, LogLevel.DEBUG, Messages.LogLevelDebug));
+		levelMenu.add(new LogLevelFilterAction(writer, LogLevel.INFO, Messages.LogLevelInfo));
+		levelMenu.add(new LogLevelFilterAction(writer, LogLevel.WARNING, Messages.LogLevelWarning));
+		levelMenu.add(new LogLevelFilterAction(writer, LogLevel.ERROR, Messages.LogLevelError));
+		menu.add(levelMenu);
+	}
+
+	private LogLevelFilterAction(ConsoleWriter writer, LogLevel level, String label) {
+		super(label, IAction.AS_RADIO_BUTTON);
+		this.writer = writer;
+		this.level = level;
+		setChecked(writer.getLevelFilter() == level);
+	}
+
+	@Override
+	public void run() {
+		if (isChecked()) {
+			writer.setLevelFilter(level);
+		}
+	}
+}
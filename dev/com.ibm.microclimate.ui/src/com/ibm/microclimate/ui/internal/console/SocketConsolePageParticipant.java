@@ -18,10 +18,18 @@ import org.eclipse.ui.console.IConsoleConstants;
 import org.eclipse.ui.console.IConsolePageParticipant;
 import org.eclipse.ui.part.IPageBookViewPage;
 
+import com.ibm.microclimate.core.internal.console.IRetainingConsole;
 import com.ibm.microclimate.core.internal.console.SocketConsole;
 
+/**
+ * Adds the Microclimate actions to the console page: loading earlier output and the log
+ * level menu for all of the Microclimate consoles, and the backlog and show on update actions for the
+ * application log consoles.
+ */
 public class SocketConsolePageParticipant implements IConsolePageParticipant {
 
+	private ConsoleBacklogAction backlogAction;
+
 	@Override
 	public <T> T getAdapter(Class<T> arg0) {
 		return null;
@@ -39,17 +47,27 @@ public class SocketConsolePageParticipant implements IConsolePageParticipant {
 
 	@Override
 	public void dispose() {
-		// Empty
+		if (backlogAction != null) {
+			backlogAction.dispose();
+			backlogAction = null;
+		}
 	}
 
 	@Override
 	public void init(IPageBookViewPage page, IConsole console) {
+        IActionBars actionBars = page.getSite().getActionBars();
+        IToolBarManager mgr = actionBars.getToolBarManager();
+		if (console instanceof IRetainingConsole) {
+			mgr.appendToGroup(IConsoleConstants.OUTPUT_GROUP,
+					new LoadEarlierOutputAction(console.getName(), ((IRetainingConsole)console).getConsoleWriter()));
+			LogLevelFilterAction.addMenu(actionBars.getMenuManager(), ((IRetainingConsole)console).getConsoleWriter());
+		}
 		if (console instanceof SocketConsole) {
 			ShowOnContentChangeAction contentChange = new ShowOnContentChangeAction((SocketConsole)console);
+			backlogAction = new ConsoleBacklogAction(((SocketConsole)console).getIngestQueue());
 			
 			// Contribute to the toolbar
-	        IActionBars actionBars = page.getSite().getActionBars();
-	        IToolBarManager mgr = actionBars.getToolBarManager();
+	        mgr.appendToGroup(IConsoleConstants.OUTPUT_GROUP, backlogAction);
 	        mgr.appendToGroup(IConsoleConstants.OUTPUT_GROUP, contentChange);
 		}
 	}
@@ -25,6 +25,7 @@ public class Messages extends NLS {
 
 	public static String PrefsParentPage_DebugTimeoutLabel;
 	public static String PrefsParentPage_ErrInvalidDebugTimeout;
+	public static String PrefsParentPage_LogArchive;
 
 	public static String NewConnectionPage_ConnectSucceeded;
 	public static String NewConnectionPage_ErrAConnectionAlreadyExists;
@@ -72,6 +73,58 @@ public class Messages extends NLS {
 	public static String HideAllLogFilesAction;
 	public static String ErrorOnShowLogFileDialogTitle;
 	public static String ShowOnContentChangeAction;
+	public static String ConsoleBacklogAction;
+	public static String ConsoleBacklogActionPaused;
+	public static String ConsoleBacklogActionTooltip;
+	public static String ConsoleBacklogActionPausedTooltip;
+	public static String LoadEarlierOutputAction;
+	public static String LoadEarlierOutputActionTooltip;
+	public static String LoadEarlierOutputJobLabel;
+	public static String LoadEarlierOutputError;
+	public static String LogArchiveDialogTitle;
+	public static String LogArchiveDialogSessionLabel;
+	public static String LogArchiveDialogFirst;
+	public static String LogArchiveDialogPrevious;
+	public static String LogArchiveDialogNext;
+	public static String LogArchiveDialogLast;
+	public static String LogArchiveDialogPosition;
+	public static String LogArchiveDialogNoSessions;
+	public static String LogArchiveDialogOpenError;
+	public static String LogLevelMenu;
+	public static String LogLevelAll;
+	public static String LogLevelDebug;
+	public static String LogLevelInfo;
+	public static String LogLevelWarning;
+	public static String LogLevelError;
+	public static String ConsoleDiagnosticsNameColumn;
+	public static String ConsoleDiagnosticsConsoleColumn;
+	public static String ConsoleDiagnosticsStorageColumn;
+	public static String ConsoleDiagnosticsRetainedColumn;
+	public static String ConsoleDiagnosticsMemoryColumn;
+	public static String ConsoleDiagnosticsRefresh;
+	public static String ConsoleDiagnosticsNoHistory;
+	public static String ConsoleDiagnosticsSearchIndex;
+	public static String ConsoleDiagnosticsIndexStorage;
+	public static String ConsoleDiagnosticsTotal;
+	public static String ConsoleDiagnosticsKB;
+	public static String LogSearchViewQueryMessage;
+	public static String LogSearchViewRegex;
+	public static String LogSearchViewAllTime;
+	public static String LogSearchViewLast5Minutes;
+	public static String LogSearchViewLast15Minutes;
+	public static String LogSearchViewLastHour;
+	public static String LogSearchViewLastDay;
+	public static String LogSearchViewSearch;
+	public static String LogSearchViewTimeColumn;
+	public static String LogSearchViewLogColumn;
+	public static String LogSearchViewLineColumn;
+	public static String LogSearchViewJobLabel;
+	public static String LogSearchViewSearching;
+	public static String LogSearchViewResults;
+	public static String LogSearchViewTooManyResults;
+	public static String LogSearchViewBadRegex;
+	public static String LogSearchViewConsoleCleared;
+	public static String LogSearchViewLineTrimmed;
 	
 	public static String ActionNewConnection;
 	
@@ -24,6 +24,7 @@ import org.eclipse.swt.events.SelectionAdapter;
 import org.eclipse.swt.events.SelectionEvent;
 import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Button;
 import org.eclipse.swt.widgets.Combo;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
@@ -51,6 +52,7 @@ public class MicroclimatePrefsParentPage extends PreferencePage implements IWork
 	private static IPreferenceStore prefs;
 
 	private Text debugTimeoutText;
+	private Button logArchiveButton;
 	private Combo webBrowserCombo;
 	private Text selectWebBrowserLabel;
 		
@@ -96,6 +98,11 @@ public class MicroclimatePrefsParentPage extends PreferencePage implements IWork
 			}
 		});
 		
+		logArchiveButton = new Button(composite, SWT.CHECK);
+		logArchiveButton.setText(Messages.PrefsParentPage_LogArchive);
+		logArchiveButton.setSelection(prefs.getBoolean(MicroclimateCorePlugin.LOG_ARCHIVE_PREFSKEY));
+		logArchiveButton.setLayoutData(new GridData(GridData.BEGINNING, GridData.CENTER, false, false, 2, 1));
+
 		Label separator = new Label(composite, SWT.HORIZONTAL);
 	    separator.setLayoutData(new GridData(GridData.FILL_HORIZONTAL, GridData.CENTER, true, false, 2, 1));
 	    	    	    
@@ -175,6 +182,8 @@ public class MicroclimatePrefsParentPage extends PreferencePage implements IWork
 
 		// removes any trimmed space
 		debugTimeoutText.setText("" + debugTimeout);
+
+		prefs.setValue(MicroclimateCorePlugin.LOG_ARCHIVE_PREFSKEY, logArchiveButton.getSelection());
 		
 		if (this.webBrowserCombo != null) {
 			// The first option in the webBrowserCombo is to not use the default browser.
@@ -197,6 +206,7 @@ public class MicroclimatePrefsParentPage extends PreferencePage implements IWork
 	public void performDefaults() {
 		debugTimeoutText.setText("" + 	//$NON-NLS-1$
 				prefs.getDefaultInt(MicroclimateCorePlugin.DEBUG_CONNECT_TIMEOUT_PREFSKEY));
+		logArchiveButton.setSelection(prefs.getDefaultBoolean(MicroclimateCorePlugin.LOG_ARCHIVE_PREFSKEY));
 		webBrowserCombo.select(0);
 	}
 	
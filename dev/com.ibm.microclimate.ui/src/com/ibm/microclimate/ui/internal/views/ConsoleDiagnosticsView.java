@@ -0,0 +1,169 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.ui.internal.views;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jface.action.Action;
+import org.eclipse.jface.viewers.ArrayContentProvider;
+import org.eclipse.jface.viewers.ITableLabelProvider;
+import org.eclipse.jface.viewers.LabelProvider;
+import org.eclipse.jface.viewers.TableViewer;
+import org.eclipse.osgi.util.NLS;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Table;
+import org.eclipse.swt.widgets.TableColumn;
+import org.eclipse.ui.console.ConsolePlugin;
+import org.eclipse.ui.console.IConsole;
+import org.eclipse.ui.part.ViewPart;
+
+import com.ibm.microclimate.core.internal.console.ConsoleWriter;
+import com.ibm.microclimate.core.internal.console.IConsoleHistory;
+import com.ibm.microclimate.core.internal.console.IRetainingConsole;
+import com.ibm.microclimate.core.internal.console.LogSearchIndex;
+import com.ibm.microclimate.ui.internal.messages.Messages;
+
+/**
+ * Shows roughly how much memory the output kept by the Microclimate consoles is using:
+ * the text in each console, the history of output trimmed from the console, and the
+ * log search index.
+ */
+public class ConsoleDiagnosticsView extends ViewPart {
+
+	public static final String VIEW_ID = "com.ibm.microclimate.ui.consoleDiagnosticsView"; //$NON-NLS-1$
+
+	private TableViewer viewer;
+
+	/**
+	 * One row of the table.  A length of -1 means it does not apply.
+	 */
+	private static class Row {
+		final String name;
+		final long consoleChars;
+		final String storage;
+		final long retainedChars;
+		final long memory;
+
+		Row(String name, long consoleChars, String storage, long retainedChars, long memory) {
+			this.name = name;
+			this.consoleChars = consoleChars;
+			this.storage = storage;
+			this.retainedChars = retainedChars;
+			this.memory = memory;
+		}
+	}
+
+	@Override
+	public void createPartControl(Composite parent) {
+		viewer = new TableViewer(parent, SWT.SINGLE | SWT.FULL_SELECTION | SWT.V_SCROLL | SWT.H_SCROLL);
+		Table table = viewer.getTable();
+		table.setHeaderVisible(true);
+		table.setLinesVisible(true);
+		createColumn(table, Messages.ConsoleDiagnosticsNameColumn, 300, SWT.LEFT);
+		createColumn(table, Messages.ConsoleDiagnosticsConsoleColumn, 120, SWT.RIGHT);
+		createColumn(table, Messages.ConsoleDiagnosticsStorageColumn, 100, SWT.LEFT);
+		createColumn(table, Messages.ConsoleDiagnosticsRetainedColumn, 120, SWT.RIGHT);
+		createColumn(table, Messages.ConsoleDiagnosticsMemoryColumn, 120, SWT.RIGHT);
+		viewer.setContentProvider(ArrayContentProvider.getInstance());
+		viewer.setLabelProvider(new RowLabelProvider());
+
+		Action refreshAction = new Action(Messages.ConsoleDiagnosticsRefresh) {
+			@Override
+			public void run() {
+				refresh();
+			}
+		};
+		getViewSite().getActionBars().getToolBarManager().add(refreshAction);
+		refresh();
+	}
+
+	private static void createColumn(Table table, String name, int width, int style) {
+		TableColumn column = new TableColumn(table, style);
+		column.setText(name);
+		column.setWidth(width);
+	}
+
+	@Override
+	public void setFocus() {
+		viewer.getControl().setFocus();
+		refresh();
+	}
+
+	private void refresh() {
+		if (viewer.getControl().isDisposed()) {
+			return;
+		}
+		List<Row> rows = new ArrayList<Row>();
+		long totalConsole = 0;
+		long totalRetained = 0;
+		long totalMemory = 0;
+		for (IConsole console : ConsolePlugin.getDefault().getConsoleManager().getConsoles()) {
+			if (!(console instanceof IRetainingConsole)) {
+				continue;
+			}
+			ConsoleWriter writer = ((IRetainingConsole) console).getConsoleWriter();
+			// The console document keeps 2 bytes a character
+			long consoleChars = writer.getConsole().getDocument().getLength();
+			long memory = 2 * consoleChars;
+			IConsoleHistory history = writer.getHistory();
+			long retained = -1;
+			String storage = Messages.ConsoleDiagnosticsNoHistory;
+			if (history != null) {
+				retained = history.getLength() - history.getFirstAvailable();
+				memory += history.getMemorySize();
+				storage = history.getStorageName();
+				totalRetained += retained;
+			}
+			rows.add(new Row(console.getName(), consoleChars, storage, retained, memory));
+			totalConsole += consoleChars;
+			totalMemory += memory;
+		}
+		LogSearchIndex index = LogSearchIndex.getDefault();
+		long indexMemory = index.getMemorySize();
+		rows.add(new Row(Messages.ConsoleDiagnosticsSearchIndex, -1, Messages.ConsoleDiagnosticsIndexStorage, -1, indexMemory));
+		totalMemory += indexMemory;
+		rows.add(new Row(Messages.ConsoleDiagnosticsTotal, totalConsole, "", totalRetained, totalMemory)); //$NON-NLS-1$
+		viewer.setInput(rows);
+	}
+
+	private static String formatSize(long bytes) {
+		return NLS.bind(Messages.ConsoleDiagnosticsKB, Long.toString((bytes + 1023) / 1024));
+	}
+
+	private static class RowLabelProvider extends LabelProvider implements ITableLabelProvider {
+
+		@Override
+		public Image getColumnImage(Object element, int columnIndex) {
+			return null;
+		}
+
+		@Override
+		public String getColumnText(Object element, int columnIndex) {
+			Row row = (Row) element;
+			switch (columnIndex) {
+				case 0:
+					return row.name;
+				case 1:
+					return row.consoleChars < 0 ? "" : Long.toString(row.consoleChars); //$NON-NLS-1$
+				case 2:
+					return row.storage;
+				case 3:
+					return row.retainedChars < 0 ? "" : Long.toString(row.retainedChars); //$NON-NLS-1$
+				default:
+					return formatSize(row.memory);
+			}
+		}
+	}
+}
@@ -0,0 +1,251 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.ui.internal.views;
+
+import java.text.DateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.regex.PatternSyntaxException;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.viewers.ArrayContentProvider;
+import org.eclipse.jface.viewers.DoubleClickEvent;
+import org.eclipse.jface.viewers.IDoubleClickListener;
+import org.eclipse.jface.viewers.IStructuredSelection;
+import org.eclipse.jface.viewers.ITableLabelProvider;
+import org.eclipse.jface.viewers.LabelProvider;
+import org.eclipse.jface.viewers.TableViewer;
+import org.eclipse.osgi.util.NLS;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.events.SelectionAdapter;
+import org.eclipse.swt.events.SelectionEvent;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Combo;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Table;
+import org.eclipse.swt.widgets.TableColumn;
+import org.eclipse.swt.widgets.Text;
+import org.eclipse.ui.PartInitException;
+import org.eclipse.ui.console.IConsoleConstants;
+import org.eclipse.ui.console.IConsoleView;
+import org.eclipse.ui.console.IOConsole;
+import org.eclipse.ui.console.TextConsolePage;
+import org.eclipse.ui.console.TextConsoleViewer;
+import org.eclipse.ui.part.IPage;
+import org.eclipse.ui.part.PageBookView;
+import org.eclipse.ui.part.ViewPart;
+
+import com.ibm.microclimate.core.internal.MCLogger;
+import com.ibm.microclimate.core.internal.console.ConsoleWriter;
+import com.ibm.microclimate.core.internal.console.LogSearchIndex;
+import com.ibm.microclimate.ui.internal.messages.Messages;
+
+/**
+ * Searches the output of all of the Microclimate consoles using the LogSearchIndex.
+ * Double clicking a result shows the line in its console, if the console still has it.
+ */
+public class LogSearchView extends ViewPart {
+
+	public static final String VIEW_ID = "com.ibm.microclimate.ui.logSearchView"; //$NON-NLS-1$
+
+	// The choices in the time range combo, 0 for all
+	private static final long[] TIME_RANGES = { 0, 5 * 60 * 1000L, 15 * 60 * 1000L, 60 * 60 * 1000L, 24 * 60 * 60 * 1000L };
+
+	private Text queryText;
+	private Button regexButton;
+	private Combo timeCombo;
+	private TableViewer resultsViewer;
+
+	@Override
+	public void createPartControl(Composite parent) {
+		parent.setLayout(new GridLayout(4, false));
+
+		queryText = new Text(parent, SWT.SINGLE | SWT.BORDER | SWT.SEARCH);
+		queryText.setMessage(Messages.LogSearchViewQueryMessage);
+		queryText.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
+		queryText.addSelectionListener(new SelectionAdapter() {
+			@Override
+			public void widgetDefaultSelected(SelectionEvent e) {
+				search();
+			}
+		});
+
+		regexButton = new Button(parent, SWT.CHECK);
+		regexButton.setText(Messages.LogSearchViewRegex);
+
+		timeCombo = new Combo(parent, SWT.READ_ONLY);
+		timeCombo.setItems(new String[] { Messages.LogSearchViewAllTime, Messages.LogSearchViewLast5Minutes,
+				Messages.LogSearchViewLast15Minutes, Messages.LogSearchViewLastHour, Messages.LogSearchViewLastDay });
+		timeCombo.select(0);
+
+		Button searchButton = new Button(parent, SWT.PUSH);
+		searchButton.setText(Messages.LogSearchViewSearch);
+		searchButton.addSelectionListener(new SelectionAdapter() {
+			@Override
+			public void widgetSelected(SelectionEvent e) {
+				search();
+			}
+		});
+
+		resultsViewer = new TableViewer(parent, SWT.SINGLE | SWT.FULL_SELECTION | SWT.BORDER | SWT.V_SCROLL | SWT.H_SCROLL);
+		Table table = resultsViewer.getTable();
+		table.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, true, 4, 1));
+		table.setHeaderVisible(true);
+		table.setLinesVisible(true);
+		createColumn(table, Messages.LogSearchViewTimeColumn, 150);
+		createColumn(table, Messages.LogSearchViewLogColumn, 200);
+		createColumn(table, Messages.LogSearchViewLineColumn, 600);
+		resultsViewer.setContentProvider(ArrayContentProvider.getInstance());
+		resultsViewer.setLabelProvider(new ResultLabelProvider());
+		resultsViewer.addDoubleClickListener(new IDoubleClickListener() {
+			@Override
+			public void doubleClick(DoubleClickEvent event) {
+				Object element = ((IStructuredSelection) event.getSelection()).getFirstElement();
+				if (element instanceof LogSearchIndex.Result) {
+					showResult((LogSearchIndex.Result) element);
+				}
+			}
+		});
+	}
+
+	private static void createColumn(Table table, String name, int width) {
+		TableColumn column = new TableColumn(table, SWT.LEFT);
+		column.setText(name);
+		column.setWidth(width);
+	}
+
+	@Override
+	public void setFocus() {
+		queryText.setFocus();
+	}
+
+	private void search() {
+		String text = queryText.getText().trim();
+		if (text.isEmpty()) {
+			return;
+		}
+		long range = TIME_RANGES[Math.max(0, timeCombo.getSelectionIndex())];
+		long from = range == 0 ? 0 : System.currentTimeMillis() - range;
+		final LogSearchIndex.Query query;
+		try {
+			query = new LogSearchIndex.Query(text, regexButton.getSelection(), from, Long.MAX_VALUE, null);
+		} catch (PatternSyntaxException e) {
+			setStatus(NLS.bind(Messages.LogSearchViewBadRegex, e.getDescription()), true);
+			return;
+		}
+		setStatus(Messages.LogSearchViewSearching, false);
+
+		Job job = new Job(NLS.bind(Messages.LogSearchViewJobLabel, text)) {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				final List<LogSearchIndex.Result> results = LogSearchIndex.getDefault().search(query);
+				Display.getDefault().asyncExec(new Runnable() {
+					@Override
+					public void run() {
+						if (resultsViewer.getControl().isDisposed()) {
+							return;
+						}
+						resultsViewer.setInput(results);
+						if (results.size() >= LogSearchIndex.MAX_RESULTS) {
+							setStatus(NLS.bind(Messages.LogSearchViewTooManyResults, Integer.toString(results.size())), false);
+						} else {
+							setStatus(NLS.bind(Messages.LogSearchViewResults, Integer.toString(results.size())), false);
+						}
+					}
+				});
+				return Status.OK_STATUS;
+			}
+		};
+		job.setSystem(true);
+		job.schedule();
+	}
+
+	/**
+	 * Show the console the result came from and select the matching text.
+	 */
+	private void showResult(LogSearchIndex.Result result) {
+		ConsoleWriter writer = result.source.getWriter();
+		if (writer == null || writer.isClosed() || writer.getGeneration() != result.generation) {
+			setStatus(Messages.LogSearchViewConsoleCleared, true);
+			return;
+		}
+		IOConsole console = writer.getConsole();
+		try {
+			IConsoleView view = (IConsoleView) getSite().getPage().showView(IConsoleConstants.ID_CONSOLE_VIEW);
+			view.display(console);
+			IPage page = view instanceof PageBookView ? ((PageBookView) view).getCurrentPage() : null;
+			if (!(page instanceof TextConsolePage)) {
+				return;
+			}
+			// The console only has the most recent output so work out where the line is from
+			// the end.  Output that is still on its way to the console can make this a little off.
+			IDocument document = console.getDocument();
+			long docOffset = result.offset - (writer.getWrittenLength() - document.getLength());
+			if (docOffset < 0 || docOffset >= document.getLength()) {
+				setStatus(Messages.LogSearchViewLineTrimmed, true);
+				return;
+			}
+			int start = (int) docOffset + Math.max(0, result.matchStart);
+			int length = Math.min(result.matchLength, document.getLength() - start);
+			TextConsoleViewer viewer = ((TextConsolePage) page).getViewer();
+			viewer.setSelectedRange(start, length);
+			viewer.revealRange(start, length);
+			setStatus(null, false);
+		} catch (PartInitException e) {
+			MCLogger.logError("Failed to show the console for the search result", e); //$NON-NLS-1$
+		}
+	}
+
+	private void setStatus(String message, boolean error) {
+		if (error) {
+			getViewSite().getActionBars().getStatusLineManager().setErrorMessage(message);
+		} else {
+			getViewSite().getActionBars().getStatusLineManager().setErrorMessage(null);
+			getViewSite().getActionBars().getStatusLineManager().setMessage(message);
+		}
+	}
+
+	private static class ResultLabelProvider extends LabelProvider implements ITableLabelProvider {
+
+		private final DateFormat dateFormat = DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.MEDIUM);
+
+		@Override
+		public Image getColumnImage(Object element, int columnIndex) {
+			return null;
+		}
+
+		@Override
+		public String getColumnText(Object element, int columnIndex) {
+			LogSearchIndex.Result result = (LogSearchIndex.Result) element;
+			switch (columnIndex) {
+				case 0:
+					return dateFormat.format(new Date(result.time));
+				case 1:
+					ConsoleWriter writer = result.source.getWriter();
+					if (writer != null) {
+						return writer.getConsole().getName();
+					}
+					return result.source.projectID + " - " + result.source.logName; //$NON-NLS-1$
+				default:
+					return result.text;
+			}
+		}
+	}
+}
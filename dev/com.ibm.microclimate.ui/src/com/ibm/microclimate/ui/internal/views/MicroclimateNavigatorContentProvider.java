@@ -29,6 +29,10 @@ public class MicroclimateNavigatorContentProvider implements ITreeContentProvide
 	public Object[] getChildren(Object obj) {
 		if (obj instanceof MicroclimateConnection) {
 			MicroclimateConnection connection = (MicroclimateConnection)obj;
+			if (!connection.isConnected()) {
+				// The apps are kept while disconnected but are not shown since their state may be out of date
+				return new Object[0];
+			}
 			List<MicroclimateApplication> apps = connection.getApps();
 			return apps.toArray(new MicroclimateApplication[apps.size()]);
 		}
@@ -56,7 +60,7 @@ public class MicroclimateNavigatorContentProvider implements ITreeContentProvide
 	public boolean hasChildren(Object obj) {
 		if (obj instanceof MicroclimateConnection) {
 			MicroclimateConnection connection = (MicroclimateConnection)obj;
-			return !connection.getApps().isEmpty();
+			return connection.isConnected() && !connection.getApps().isEmpty();
 		}
 		return false;
 	}
@@ -26,6 +26,7 @@ import org.eclipse.ui.navigator.CommonNavigator;
 import org.eclipse.ui.navigator.CommonViewer;
 
 import com.ibm.microclimate.core.internal.MCLogger;
+import com.ibm.microclimate.core.internal.MCMetrics;
 import com.ibm.microclimate.core.internal.MicroclimateApplication;
 import com.ibm.microclimate.core.internal.connection.MicroclimateConnection;
 
@@ -40,10 +41,15 @@ public class ViewHelper {
 	
 	public static void refreshMicroclimateExplorerView(Object element) {
 		final Object obj = element == null ? ResourcesPlugin.getWorkspace().getRoot() : element;
+		// Set if the refresh is for a socket event, used to record how long the event took to show up
+		final MCMetrics.EventTiming timing = MCMetrics.getCurrentEvent();
 		Display.getDefault().asyncExec(new Runnable() {
             @Override
             public void run() {
             	refreshNavigatorView(MicroclimateExplorerView.VIEW_ID, obj);
+            	if (timing != null) {
+            		timing.recordLag(MCMetrics.UI_LAG);
+            	}
             }
         });
 	}